@@ -0,0 +1,106 @@
+package com.example.android.newsfeed;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.Build;
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Counts the objects {@link ArticleAdapter#onBindViewHolder} allocates on the main thread once
+ * warmed up: binding rows over and over, half of them with a thumbnail already in memory and
+ * half without one, must not allocate anything.
+ * <p>
+ * The rows are never laid out, so the text layouts the framework builds on the next layout
+ * pass are not counted, only the work of the bind itself: the adapter, its display strings, the
+ * bind timing and the lookup in the {@link ImagePipeline}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ArticleBindAllocationTest {
+
+    private static final int FEED_SIZE = 50;
+
+    private static final int ROWS = 8;
+
+    private static final int WARM_UP_BINDS = 2000;
+
+    private static final int MEASURED_BINDS = 10000;
+
+    private final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+
+    @Test
+    public void bind_allocatesNothing() {
+        // Older versions allocate a new drawable for every bitmap an ImageView is given.
+        Assume.assumeTrue(Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP);
+
+        final int[] allocations = new int[1];
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                Context context = InstrumentationRegistry.getTargetContext();
+                ImagePipeline pipeline = new ImagePipeline(4 * 1024 * 1024,
+                        new ImageDiskCache(context.getCacheDir(), 0));
+                ArticleAdapter adapter = new ArticleAdapter(new ArticleAdapter.OnItemClickListener() {
+                    @Override
+                    public void onItemClick(Article article) {
+                    }
+                }, pipeline);
+                adapter.setArticles(feed());
+
+                ViewGroup parent = new FrameLayout(context);
+                List<ArticleAdapter.ViewHolder> rows = new ArrayList<>(ROWS);
+                for (int i = 0; i < ROWS; i++) {
+                    rows.add(adapter.onCreateViewHolder(parent, 0));
+                }
+                // The thumbnails are in memory, as they are once the list has been scrolled.
+                ViewGroup.LayoutParams size = rows.get(0).thumbnailImageView.getLayoutParams();
+                Bitmap thumbnail = Bitmap.createBitmap(Math.max(size.width, 1), Math.max(size.height, 1),
+                        Bitmap.Config.RGB_565);
+                for (int i = 0; i < FEED_SIZE; i++) {
+                    String url = adapter.getItem(i).getThumbnailUrl();
+                    if (url != null) {
+                        pipeline.cacheBitmap(url, size.width, size.height, thumbnail);
+                    }
+                }
+
+                bindAll(adapter, rows, WARM_UP_BINDS);
+                Debug.startAllocCounting();
+                Debug.resetThreadAllocCount();
+                bindAll(adapter, rows, MEASURED_BINDS);
+                allocations[0] = Debug.getThreadAllocCount();
+                Debug.stopAllocCounting();
+            }
+        });
+
+        assertEquals("objects allocated by " + MEASURED_BINDS + " binds", 0, allocations[0]);
+    }
+
+    private static void bindAll(ArticleAdapter adapter, List<ArticleAdapter.ViewHolder> rows, int binds) {
+        for (int i = 0; i < binds; i++) {
+            adapter.onBindViewHolder(rows.get(i % ROWS), i % FEED_SIZE);
+        }
+    }
+
+    private static List<Article> feed() {
+        List<Article> articles = new ArrayList<>(FEED_SIZE);
+        for (int i = 0; i < FEED_SIZE; i++) {
+            String thumbnailUrl = i % 2 == 0 ? "https://i.guim.co.uk/" + i + ".jpg" : null;
+            articles.add(new Article("Headline of story " + i, "Author " + i, "Section " + i % 5,
+                    1528813800000L - i * 60000L, "https://www.theguardian.com/" + i, thumbnailUrl));
+        }
+        return articles;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.android.newsfeed;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(AndroidJUnit4.class)
+public class ArticleDatabaseTest {
+
+    private static final long NOW = 1528813800000L;
+
+    private static final long MINUTE = 60 * 1000L;
+
+    private ArticleDatabase database;
+
+    @Before
+    public void setUp() {
+        // A database in memory, gone once closed.
+        database = new ArticleDatabase(InstrumentationRegistry.getTargetContext(), null);
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    private static Article article(String url, String section, String author, long time) {
+        return new Article("Title " + url, author, section, time, url, null);
+    }
+
+    @Test
+    public void upsert_replacesTheArticleWithTheSameUrl() {
+        database.upsert(Arrays.asList(article("u1", "Politics", "a", NOW)));
+        database.upsert(Arrays.asList(new Article("New title", "a", "Politics", NOW, "u1",
+                "https://i.guim.co.uk/t.jpg")));
+
+        List<Article> articles = database.querySection("Politics", null, 10);
+        assertEquals(1, database.count());
+        assertEquals("New title", articles.get(0).getTitle());
+        assertEquals("https://i.guim.co.uk/t.jpg", articles.get(0).getThumbnailUrl());
+    }
+
+    @Test
+    public void query_filtersBySectionOrAuthor_newestFirst() {
+        database.upsert(Arrays.asList(
+                article("u1", "Politics", "a", NOW - 2 * MINUTE),
+                article("u2", "Sport", "a", NOW - MINUTE),
+                article("u3", "Politics", "b", NOW)));
+
+        List<Article> politics = database.querySection("Politics", null, 10);
+        assertEquals(2, politics.size());
+        assertEquals("u3", politics.get(0).getUrl());
+        assertEquals("u1", politics.get(1).getUrl());
+
+        List<Article> byA = database.queryAuthor("a", null, 10);
+        assertEquals(2, byA.size());
+        assertEquals("u2", byA.get(0).getUrl());
+        assertTrue(database.queryAuthor("nobody", null, 10).isEmpty());
+    }
+
+    @Test
+    public void pages_followEachOtherWithoutGapsOrRepeats() {
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            // Pairs of articles published at the same time.
+            articles.add(article("u" + i, "Politics", "a", NOW - (i / 2) * MINUTE));
+        }
+        database.upsert(articles);
+
+        List<String> read = new ArrayList<>();
+        Article after = null;
+        List<Article> page;
+        do {
+            page = database.querySection("Politics", after, ArticleDatabase.PAGE_SIZE);
+            for (Article article : page) {
+                read.add(article.getUrl());
+            }
+            after = page.isEmpty() ? after : page.get(page.size() - 1);
+        } while (page.size() == ArticleDatabase.PAGE_SIZE);
+
+        assertEquals(120, read.size());
+        assertEquals(120, new HashSet<>(read).size());
+    }
+
+    @Test
+    public void upsert_keepsTheNewestArticles() {
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < ArticleDatabase.MAX_ARTICLES + 10; i++) {
+            articles.add(article("u" + i, "Politics", "a", NOW - i * MINUTE));
+        }
+        database.upsert(articles);
+
+        assertEquals(ArticleDatabase.MAX_ARTICLES, database.count());
+        assertEquals("u0", database.querySection("Politics", null, 1).get(0).getUrl());
+    }
+
+    @Test
+    public void nullFields_areStored() {
+        database.upsert(Arrays.asList(new Article("t", null, "Politics", NOW, "u1", null)));
+
+        Article article = database.querySection("Politics", null, 1).get(0);
+        assertNull(article.getAuthor());
+        assertNull(article.getThumbnailUrl());
+    }
+}
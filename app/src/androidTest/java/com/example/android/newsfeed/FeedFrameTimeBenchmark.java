@@ -0,0 +1,227 @@
+package com.example.android.newsfeed;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.util.Log;
+import android.view.Choreographer;
+import android.widget.ListView;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the old ListView/ArrayAdapter feed with the RecyclerView/DiffUtil one on a 500 item
+ * feed: each round refreshes the feed with two new stories on top and scrolls a little, while
+ * the frame durations and the number of bound rows are recorded.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FeedFrameTimeBenchmark {
+
+    private static final String TAG = "FeedFrameTimeBenchmark";
+
+    private static final int FEED_SIZE = 500;
+
+    private static final int REFRESHES = 20;
+
+    private static final int SCROLL_DISTANCE_PX = 300;
+
+    private static final long SETTLE_MILLIS = 400;
+
+    @Rule
+    public ActivityTestRule<MainActivity> activityRule = new ActivityTestRule<>(MainActivity.class);
+
+    private final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+
+    @Test
+    public void recyclerView_bindsFewerRowsPerRefreshThanListView() {
+        Result legacy = runListView();
+        Result recycler = runRecyclerView();
+
+        Log.i(TAG, "ListView:     " + legacy);
+        Log.i(TAG, "RecyclerView: " + recycler);
+        assertTrue("RecyclerView bound " + recycler.binds + " rows, ListView " + legacy.binds,
+                recycler.binds < legacy.binds);
+    }
+
+    private Result runListView() {
+        final MainActivity activity = activityRule.getActivity();
+        final ListView[] listView = new ListView[1];
+        final LegacyArticleAdapter[] adapter = new LegacyArticleAdapter[1];
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                adapter[0] = new LegacyArticleAdapter(activity, new ArrayList<>(feed(0)));
+                listView[0] = new ListView(activity);
+                listView[0].setAdapter(adapter[0]);
+                activity.setContentView(listView[0]);
+            }
+        });
+        instrumentation.waitForIdleSync();
+
+        FrameRecorder recorder = new FrameRecorder();
+        recorder.start();
+        adapter[0].bindCount = 0;
+        for (int i = 1; i <= REFRESHES; i++) {
+            final List<Article> articles = feed(i);
+            instrumentation.runOnMainSync(new Runnable() {
+                @Override
+                public void run() {
+                    adapter[0].clear();
+                    adapter[0].addAll(articles);
+                    listView[0].smoothScrollBy(SCROLL_DISTANCE_PX, (int) SETTLE_MILLIS / 2);
+                }
+            });
+            SystemClock.sleep(SETTLE_MILLIS);
+        }
+        return recorder.stop(adapter[0].bindCount);
+    }
+
+    private Result runRecyclerView() {
+        final MainActivity activity = activityRule.getActivity();
+        final RecyclerView[] recyclerView = new RecyclerView[1];
+        final CountingAdapter adapter = new CountingAdapter(activity);
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                recyclerView[0] = new RecyclerView(activity);
+                recyclerView[0].setLayoutManager(new LinearLayoutManager(activity));
+                recyclerView[0].setAdapter(adapter);
+                adapter.setArticles(feed(0));
+                activity.setContentView(recyclerView[0]);
+            }
+        });
+        instrumentation.waitForIdleSync();
+
+        FrameRecorder recorder = new FrameRecorder();
+        recorder.start();
+        adapter.bindCount = 0;
+        for (int i = 1; i <= REFRESHES; i++) {
+            final List<Article> articles = feed(i);
+            instrumentation.runOnMainSync(new Runnable() {
+                @Override
+                public void run() {
+                    adapter.setArticles(articles);
+                    recyclerView[0].smoothScrollBy(0, SCROLL_DISTANCE_PX);
+                }
+            });
+            SystemClock.sleep(SETTLE_MILLIS);
+        }
+        return recorder.stop(adapter.bindCount);
+    }
+
+    /**
+     * Returns the feed after the given number of refreshes, each adding two stories on top.
+     */
+    private static List<Article> feed(int refresh) {
+        List<Article> articles = new ArrayList<>(FEED_SIZE + 2 * refresh);
+        for (int i = 2 * refresh; i > 0; i--) {
+            articles.add(article("fresh-" + i));
+        }
+        for (int i = 0; i < FEED_SIZE; i++) {
+            articles.add(article("story-" + i));
+        }
+        return articles;
+    }
+
+    private static Article article(String id) {
+        return new Article("Headline of " + id + " that wraps onto a second line of the list item",
+                "Charles Bramesco", "Film", 1528813800000L, "https://www.theguardian.com/" + id);
+    }
+
+    private static class CountingAdapter extends ArticleAdapter {
+        int bindCount;
+
+        CountingAdapter(Context context) {
+            super(new OnItemClickListener() {
+                @Override
+                public void onItemClick(Article article) {
+                }
+            }, ImagePipeline.getInstance(context));
+        }
+
+        @Override
+        public void onBindViewHolder(ViewHolder holder, int position) {
+            bindCount++;
+            super.onBindViewHolder(holder, position);
+        }
+    }
+
+    /**
+     * Records the duration of every frame drawn between start and stop.
+     */
+    private class FrameRecorder implements Choreographer.FrameCallback {
+        private final List<Long> frameNanos = Collections.synchronizedList(new ArrayList<Long>());
+        private volatile boolean running;
+        private long lastFrameTimeNanos;
+
+        void start() {
+            running = true;
+            instrumentation.runOnMainSync(new Runnable() {
+                @Override
+                public void run() {
+                    Choreographer.getInstance().postFrameCallback(FrameRecorder.this);
+                }
+            });
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (lastFrameTimeNanos != 0) {
+                frameNanos.add(frameTimeNanos - lastFrameTimeNanos);
+            }
+            lastFrameTimeNanos = frameTimeNanos;
+            if (running) {
+                Choreographer.getInstance().postFrameCallback(this);
+            }
+        }
+
+        Result stop(int binds) {
+            running = false;
+            instrumentation.waitForIdleSync();
+            List<Long> frames;
+            synchronized (frameNanos) {
+                frames = new ArrayList<>(frameNanos);
+            }
+            Collections.sort(frames);
+            return new Result(binds, frames);
+        }
+    }
+
+    private static class Result {
+        final int binds;
+        final List<Long> sortedFrameNanos;
+
+        Result(int binds, List<Long> sortedFrameNanos) {
+            this.binds = binds;
+            this.sortedFrameNanos = sortedFrameNanos;
+        }
+
+        long percentileMillis(int percentile) {
+            if (sortedFrameNanos.isEmpty()) {
+                return 0;
+            }
+            int index = Math.min(sortedFrameNanos.size() - 1, sortedFrameNanos.size() * percentile / 100);
+            return sortedFrameNanos.get(index) / 1000000;
+        }
+
+        @Override
+        public String toString() {
+            return "binds=" + binds + " frames=" + sortedFrameNanos.size()
+                    + " p50=" + percentileMillis(50) + "ms p90=" + percentileMillis(90)
+                    + "ms p99=" + percentileMillis(99) + "ms";
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.android.newsfeed;
+
+import android.app.Instrumentation;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.widget.ImageView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the memory cache of {@link ImagePipeline} and the loads of recycled views, with real
+ * bitmaps and views.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ImagePipelineInstrumentedTest {
+
+    private static final int SIZE = 100;
+
+    /**
+     * Bytes of a {@link #SIZE} square RGB_565 bitmap
+     */
+    private static final int BITMAP_BYTES = SIZE * SIZE * 2;
+
+    private static final long DECODE_WAIT_MILLIS = 5000;
+
+    private final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+
+    private ImageDiskCache diskCache;
+
+    @Before
+    public void setUp() {
+        File directory = new File(InstrumentationRegistry.getTargetContext().getCacheDir(), "test-thumbnails");
+        diskCache = new ImageDiskCache(directory, 1024 * 1024);
+    }
+
+    private static Bitmap bitmap() {
+        return Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.RGB_565);
+    }
+
+    @Test
+    public void memoryCache_isBoundedByTheBytesOfItsBitmaps() {
+        ImagePipeline pipeline = new ImagePipeline(3 * BITMAP_BYTES, diskCache);
+        Bitmap a = bitmap();
+        pipeline.cacheBitmap("https://i.example.com/a.jpg", SIZE, SIZE, a);
+        pipeline.cacheBitmap("https://i.example.com/b.jpg", SIZE, SIZE, bitmap());
+        pipeline.cacheBitmap("https://i.example.com/c.jpg", SIZE, SIZE, bitmap());
+        // Seen again, a is now more recent than b.
+        assertSame(a, pipeline.getCachedBitmap("https://i.example.com/a.jpg", SIZE, SIZE));
+
+        pipeline.cacheBitmap("https://i.example.com/d.jpg", SIZE, SIZE, bitmap());
+
+        assertEquals(3 * BITMAP_BYTES, pipeline.getMemoryCacheBytes());
+        assertNull(pipeline.getCachedBitmap("https://i.example.com/b.jpg", SIZE, SIZE));
+        assertSame(a, pipeline.getCachedBitmap("https://i.example.com/a.jpg", SIZE, SIZE));
+        assertNotNull(pipeline.getCachedBitmap("https://i.example.com/d.jpg", SIZE, SIZE));
+        // The same image at another size is another entry.
+        assertNull(pipeline.getCachedBitmap("https://i.example.com/a.jpg", SIZE / 2, SIZE / 2));
+    }
+
+    @Test
+    public void recycledView_neverShowsTheImageOfItsPreviousArticle() {
+        final ImagePipeline pipeline = new ImagePipeline(10 * BITMAP_BYTES, diskCache);
+        // The old article's image is on disk and takes a decode, the new one is in memory.
+        final String oldUrl = "https://i.example.com/old.jpg";
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        bitmap().compress(Bitmap.CompressFormat.PNG, 100, png);
+        assertNotNull(diskCache.put(oldUrl, new ByteArrayInputStream(png.toByteArray())));
+        final String newUrl = "https://i.example.com/new.jpg";
+        final Bitmap newBitmap = bitmap();
+        pipeline.cacheBitmap(newUrl, SIZE, SIZE, newBitmap);
+
+        final ImageView recycled = new ImageView(InstrumentationRegistry.getTargetContext());
+        final ImageView other = new ImageView(InstrumentationRegistry.getTargetContext());
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                pipeline.load(oldUrl, recycled, SIZE, SIZE);
+                // The row scrolls off screen and is bound to another article.
+                pipeline.cancel(recycled);
+                pipeline.load(newUrl, recycled, SIZE, SIZE);
+                // Decoded anyway for another row, so the test knows when the decode is done.
+                pipeline.load(oldUrl, other, SIZE, SIZE);
+            }
+        });
+
+        long deadline = SystemClock.uptimeMillis() + DECODE_WAIT_MILLIS;
+        while (drawableOf(other) == null && SystemClock.uptimeMillis() < deadline) {
+            SystemClock.sleep(20);
+        }
+        instrumentation.waitForIdleSync();
+
+        assertTrue("the other row was never shown", drawableOf(other) instanceof BitmapDrawable);
+        assertSame(newBitmap, ((BitmapDrawable) drawableOf(recycled)).getBitmap());
+    }
+
+    private Drawable drawableOf(final ImageView view) {
+        final Drawable[] drawable = new Drawable[1];
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                drawable[0] = view.getDrawable();
+            }
+        });
+        return drawable[0];
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.android.newsfeed;
+
+import android.app.Instrumentation;
+import android.support.test.InstrumentationRegistry;
+import android.util.Log;
+
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.fail;
+
+/**
+ * Fails a test whose scenario janks: once the test calls {@link #watch()}, every frame and every
+ * slow callback is recorded by the {@link JankMonitor}, and after the test the share of janky
+ * frames must not exceed the given threshold. The failure lists the callbacks of the app that
+ * were over budget, with the method blamed for each.
+ */
+public class JankRule implements TestRule {
+
+    private static final String TAG = "JankRule";
+
+    private final double mMaxJankRate;
+
+    private final Instrumentation mInstrumentation = InstrumentationRegistry.getInstrumentation();
+
+    private boolean mWatching;
+
+    /**
+     * Constructs a new {@link JankRule}.
+     *
+     * @param maxJankRate is the share of janky frames allowed, between 0 and 1
+     */
+    public JankRule(double maxJankRate) {
+        mMaxJankRate = maxJankRate;
+    }
+
+    @Override
+    public Statement apply(final Statement base, final Description description) {
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                mWatching = false;
+                try {
+                    base.evaluate();
+                } finally {
+                    if (mWatching) {
+                        stopWatching();
+                    }
+                }
+                if (mWatching) {
+                    check(description.getMethodName());
+                }
+            }
+        };
+    }
+
+    /**
+     * Start recording the frames and the slow callbacks of the scenario, forgetting the ones of
+     * the set up before it.
+     */
+    public void watch() {
+        mInstrumentation.waitForIdleSync();
+        mInstrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                JankMonitor monitor = JankMonitor.getInstance();
+                monitor.start();
+                monitor.reset();
+                monitor.startFrames();
+            }
+        });
+        mWatching = true;
+    }
+
+    private void stopWatching() {
+        mInstrumentation.waitForIdleSync();
+        mInstrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                JankMonitor.getInstance().stopFrames();
+            }
+        });
+    }
+
+    private void check(String scenario) {
+        JankMonitor monitor = JankMonitor.getInstance();
+        JankStats stats = monitor.getFrameStats();
+        List<SlowCallback> slowCallbacks = monitor.getSlowCallbacks();
+        Log.i(TAG, scenario + ": " + stats + " slowCallbacks=" + slowCallbacks.size());
+        if (stats.getJankRate() <= mMaxJankRate) {
+            return;
+        }
+
+        StringBuilder message = new StringBuilder(String.format(Locale.US,
+                "%s janked in %.1f%% of its frames, more than %.1f%%: %s",
+                scenario, stats.getJankRate() * 100, mMaxJankRate * 100, stats));
+        for (SlowCallback slowCallback : slowCallbacks) {
+            message.append("\n  ").append(slowCallback);
+        }
+        fail(message.toString());
+    }
+}
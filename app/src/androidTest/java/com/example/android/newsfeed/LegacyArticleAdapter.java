@@ -0,0 +1,62 @@
+package com.example.android.newsfeed;
+
+import android.app.Activity;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ArrayAdapter;
+import android.widget.TextView;
+
+import java.util.List;
+
+/**
+ * The ListView adapter the feed used before {@link ArticleAdapter}, kept as the baseline of
+ * {@link FeedFrameTimeBenchmark}. It counts how many rows it binds.
+ */
+public class LegacyArticleAdapter extends ArrayAdapter<Article> {
+
+    int bindCount;
+
+    public LegacyArticleAdapter(Activity context, List<Article> articles) {
+        super(context, 0, articles);
+    }
+
+    @NonNull
+    @Override
+    public View getView(int position, @Nullable View convertView, @NonNull ViewGroup parent) {
+        bindCount++;
+
+        ViewHolder holder = new ViewHolder();
+        Article currentArticle = getItem(position);
+
+        if (convertView == null) {
+            convertView = LayoutInflater.from(getContext()).inflate(R.layout.list_item, parent, false);
+            holder.titleTextView = convertView.findViewById(R.id.title);
+            holder.authorTextView = convertView.findViewById(R.id.author);
+            holder.sectionTextView = convertView.findViewById(R.id.section);
+            holder.dateTextView = convertView.findViewById(R.id.date);
+            holder.timeTextView = convertView.findViewById(R.id.time);
+            convertView.setTag(holder);
+        } else {
+            holder = (ViewHolder) convertView.getTag();
+        }
+
+        holder.titleTextView.setText(currentArticle.getTitle());
+        holder.authorTextView.setText(currentArticle.getAuthorLabel());
+        holder.sectionTextView.setText(currentArticle.getSectionLabel());
+        holder.dateTextView.setText(currentArticle.getDisplayDate());
+        holder.timeTextView.setText(currentArticle.getDisplayTime());
+
+        return convertView;
+    }
+
+    static class ViewHolder {
+        TextView titleTextView;
+        TextView authorTextView;
+        TextView sectionTextView;
+        TextView dateTextView;
+        TextView timeTextView;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.android.newsfeed;
+
+import android.app.Instrumentation;
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scripted scroll and refresh scenarios on a 500 item feed, failing when more than
+ * {@link #MAX_JANK_RATE} of their frames come late.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ScrollJankTest {
+
+    private static final double MAX_JANK_RATE = 0.05;
+
+    private static final int FEED_SIZE = 500;
+
+    private static final int FLINGS = 6;
+
+    private static final int FLING_VELOCITY_PX = 8000;
+
+    private static final int REFRESHES = 10;
+
+    private static final int SCROLL_DISTANCE_PX = 300;
+
+    private static final long SETTLE_MILLIS = 1000;
+
+    @Rule
+    public ActivityTestRule<MainActivity> activityRule = new ActivityTestRule<>(MainActivity.class);
+
+    @Rule
+    public JankRule jankRule = new JankRule(MAX_JANK_RATE);
+
+    private final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+
+    private RecyclerView recyclerView;
+
+    private ArticleAdapter adapter;
+
+    @Before
+    public void showFeed() {
+        final MainActivity activity = activityRule.getActivity();
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                adapter = new ArticleAdapter(new ArticleAdapter.OnItemClickListener() {
+                    @Override
+                    public void onItemClick(Article article) {
+                    }
+                }, ImagePipeline.getInstance(activity));
+                recyclerView = new RecyclerView(activity);
+                recyclerView.setLayoutManager(new LinearLayoutManager(activity));
+                recyclerView.setAdapter(adapter);
+                adapter.setArticles(feed(0));
+                activity.setContentView(recyclerView);
+            }
+        });
+        instrumentation.waitForIdleSync();
+    }
+
+    @Test
+    public void flingDownAndUp() {
+        jankRule.watch();
+        for (int i = 0; i < FLINGS; i++) {
+            fling(i % 2 == 0 ? FLING_VELOCITY_PX : -FLING_VELOCITY_PX);
+        }
+    }
+
+    @Test
+    public void flingToTheEnd() {
+        jankRule.watch();
+        for (int i = 0; i < FLINGS; i++) {
+            fling(FLING_VELOCITY_PX);
+        }
+    }
+
+    @Test
+    public void refreshWhileScrolling() {
+        jankRule.watch();
+        for (int i = 1; i <= REFRESHES; i++) {
+            final List<Article> articles = feed(i);
+            instrumentation.runOnMainSync(new Runnable() {
+                @Override
+                public void run() {
+                    adapter.setArticles(articles);
+                    recyclerView.smoothScrollBy(0, SCROLL_DISTANCE_PX);
+                }
+            });
+            SystemClock.sleep(SETTLE_MILLIS / 2);
+        }
+    }
+
+    private void fling(final int velocityY) {
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                recyclerView.fling(0, velocityY);
+            }
+        });
+        SystemClock.sleep(SETTLE_MILLIS);
+    }
+
+    /**
+     * Returns the feed after the given number of refreshes, each adding two stories on top.
+     */
+    private static List<Article> feed(int refresh) {
+        List<Article> articles = new ArrayList<>(FEED_SIZE + 2 * refresh);
+        for (int i = 2 * refresh; i > 0; i--) {
+            articles.add(article("fresh-" + i));
+        }
+        for (int i = 0; i < FEED_SIZE; i++) {
+            articles.add(article("story-" + i));
+        }
+        return articles;
+    }
+
+    private static Article article(String id) {
+        return new Article("Headline of " + id + " that wraps onto a second line of the list item",
+                "Charles Bramesco", "Film", 1528813800000L, "https://www.theguardian.com/" + id);
+    }
+}
@@ -1,102 +1,403 @@
 package com.example.android.newsfeed;
 
-import android.app.Activity;
-import android.support.annotation.NonNull;
-import android.support.annotation.Nullable;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
+import android.widget.ImageView;
 import android.widget.TextView;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 /**
  * An {@link ArticleAdapter} knows how to create a list item layout for each article
  * in the data source (a list of {@link Article} objects).
  * <p>
- * These list item layouts will be provided to an adapter view like ListView
- * to be displayed to the user.
+ * These list item layouts will be provided to a RecyclerView to be displayed to the user.
+ * A new data source is compared with the current one on a background thread, keyed on the
+ * article URL, and only the rows that were inserted, moved, removed or changed are rebound.
+ * Thumbnails are loaded by an {@link ImagePipeline}, and the load of a recycled row is cancelled.
+ * <p>
+ * A feed is shown as stories: one row for the lead article of each, with a link to the other
+ * articles of the story that shows them below it, until it is clicked again.
  */
-public class ArticleAdapter extends ArrayAdapter<Article> {
+public class ArticleAdapter extends RecyclerView.Adapter<ArticleAdapter.ViewHolder> {
+
+    /**
+     * Runs the diffs one after the other, off the main thread.
+     */
+    private static final Executor DIFF_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    /**
+     * Receives clicks on the list items.
+     */
+    public interface OnItemClickListener {
+        void onItemClick(Article article);
+    }
+
+    /**
+     * Receives clicks on the section and the author of the list items.
+     */
+    public interface OnLabelClickListener {
+        void onSectionClick(String section);
+
+        void onAuthorClick(String author);
+    }
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    private final OnItemClickListener mListener;
+
+    private OnLabelClickListener mLabelListener;
+
+    private final ImagePipeline mImagePipeline;
+
+    /**
+     * Times every bind in debug builds, null in release builds where binding is not timed
+     */
+    private final Histogram mBindHistogram = BuildConfig.DEBUG ? Metrics.getInstance().histogram(Metrics.BIND) : null;
+
+    /**
+     * The articles currently shown
+     */
+    private List<Article> mArticles = new ArrayList<>();
+
+    /**
+     * For each row, the number of other articles of the story it leads, negative once they
+     * are shown, 0 if it leads none
+     */
+    private int[] mRelated = new int[0];
+
+    /**
+     * The stories shown, or null if the articles are shown one by one
+     */
+    private List<StoryClusterer.Story> mStories;
+
+    /**
+     * URLs of the leads whose stories show all their articles
+     */
+    private final Set<String> mExpanded = new HashSet<>();
+
+    /**
+     * Incremented on every update so that only the diff of the latest one is applied.
+     */
+    private int mGeneration;
 
     /**
      * Constructs a new {@link ArticleAdapter}.
      *
-     * @param context  of the app
-     * @param articles is the list of articles, which is the data source of the adapter
+     * @param listener      is told when the user clicks an article
+     * @param imagePipeline loads the thumbnails
+     */
+    public ArticleAdapter(OnItemClickListener listener, ImagePipeline imagePipeline) {
+        mListener = listener;
+        mImagePipeline = imagePipeline;
+    }
+
+    /**
+     * Send the clicks on the section and the author of the rows to the given listener, or make
+     * them clicks on the row if it is null.
+     */
+    public void setOnLabelClickListener(OnLabelClickListener listener) {
+        mLabelListener = listener;
+    }
+
+    /**
+     * Returns the article at the given position in the list of articles.
+     */
+    public Article getItem(int position) {
+        return mArticles.get(position);
+    }
+
+    @Override
+    public int getItemCount() {
+        return mArticles.size();
+    }
+
+    /**
+     * Replace the articles shown by the adapter, one row each. The difference with the current
+     * articles is computed on a background thread and then dispatched as fine grained
+     * notifications.
+     */
+    public void setArticles(List<Article> articles) {
+        mStories = null;
+        update(articles, new int[articles.size()]);
+    }
+
+    /**
+     * Replace the articles shown by the adapter with the given stories, one row per story.
+     * The stories the user opened stay open as long as they keep their lead.
      */
-    public ArticleAdapter(Activity context, List<Article> articles) {
-        super(context, 0, articles);
+    public void setStories(List<StoryClusterer.Story> stories) {
+        mStories = stories;
+        showStories();
     }
 
     /**
-     * Returns a list item view that displays information about the article at the given position
-     * in the list of articles.
+     * Show or hide the other articles of the story led by the article at the given position.
      */
-    @NonNull
+    void toggleStory(int position) {
+        if (mStories == null || mRelated[position] == 0) {
+            return;
+        }
+        String url = mArticles.get(position).getUrl();
+        if (!mExpanded.remove(url)) {
+            mExpanded.add(url);
+        }
+        showStories();
+    }
+
+    /**
+     * Lay the stories out in rows, with the other articles of the open stories after their lead.
+     */
+    private void showStories() {
+        // Forget the stories that are gone.
+        Set<String> leads = new HashSet<>();
+        for (StoryClusterer.Story story : mStories) {
+            leads.add(story.getLead().getUrl());
+        }
+        mExpanded.retainAll(leads);
+
+        List<Article> rows = new ArrayList<>(mStories.size() + mExpanded.size());
+        int[] related = new int[mStories.size()];
+        for (StoryClusterer.Story story : mStories) {
+            boolean open = story.size() > 1 && mExpanded.contains(story.getLead().getUrl());
+            if (open && rows.size() + story.size() > related.length) {
+                related = Arrays.copyOf(related, related.length + story.size());
+            }
+            related[rows.size()] = open ? 1 - story.size() : story.size() - 1;
+            if (open) {
+                rows.addAll(story.getArticles());
+            } else {
+                rows.add(story.getLead());
+            }
+        }
+        update(rows, Arrays.copyOf(related, rows.size()));
+    }
+
+    private void update(final List<Article> articles, final int[] related) {
+        final int generation = ++mGeneration;
+        final List<Article> oldArticles = mArticles;
+        final int[] oldRelated = mRelated;
+
+        if (oldArticles.isEmpty() || articles.isEmpty()) {
+            // Nothing to diff against, avoid the round trip to the background thread.
+            mArticles = articles;
+            mRelated = related;
+            notifyDataSetChanged();
+            return;
+        }
+
+        DIFF_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final DiffUtil.DiffResult result = DiffUtil.calculateDiff(
+                        new ArticleDiffCallback(oldArticles, oldRelated, articles, related));
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != mGeneration) {
+                            // A newer update is already on its way.
+                            return;
+                        }
+                        mArticles = articles;
+                        mRelated = related;
+                        result.dispatchUpdatesTo(ArticleAdapter.this);
+                    }
+                });
+            }
+        });
+    }
+
     @Override
-    public View getView(int position, @Nullable View convertView, @NonNull ViewGroup parent) {
+    public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        // inflate the layout
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.list_item, parent, false);
+        final ViewHolder holder = new ViewHolder(view);
 
-        ViewHolder holder = new ViewHolder();
-        Article currentArticle = getItem(position);
+        // List the other articles of the section or the author, or open the row without a
+        // listener.
+        holder.sectionTextView.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                int position = holder.getAdapterPosition();
+                if (position == RecyclerView.NO_POSITION) {
+                    return;
+                }
+                if (mLabelListener != null) {
+                    mLabelListener.onSectionClick(mArticles.get(position).getSection());
+                } else {
+                    mListener.onItemClick(mArticles.get(position));
+                }
+            }
+        });
+        holder.authorTextView.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                int position = holder.getAdapterPosition();
+                if (position == RecyclerView.NO_POSITION) {
+                    return;
+                }
+                Article article = mArticles.get(position);
+                if (mLabelListener != null && !ArticleStreamParser.NO_AUTHOR.equals(article.getAuthor())) {
+                    mLabelListener.onAuthorClick(article.getAuthor());
+                } else {
+                    mListener.onItemClick(article);
+                }
+            }
+        });
 
-        // Check if there is an existing list item view (called convertView) that we can reuse,
-        // otherwise, if convertView is null, then inflate a new list item layout.
-        if (convertView == null) {
-            // inflate the layout
-            convertView = LayoutInflater.from(getContext()).inflate(R.layout.list_item, parent, false);
+        // Show or hide the other articles of the story.
+        holder.relatedTextView.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                int position = holder.getAdapterPosition();
+                if (position != RecyclerView.NO_POSITION) {
+                    toggleStory(position);
+                }
+            }
+        });
 
-            // We'll set up the ViewHolder
-            holder.titleTextView = convertView.findViewById(R.id.title);
-            holder.authorTextView = convertView.findViewById(R.id.author);
-            holder.sectionTextView = convertView.findViewById(R.id.section);
-            holder.dateTextView = convertView.findViewById(R.id.date);
-            holder.timeTextView = convertView.findViewById(R.id.time);
+        // Send clicks on the list item to the listener with the article it currently shows.
+        view.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                int position = holder.getAdapterPosition();
+                if (position != RecyclerView.NO_POSITION) {
+                    mListener.onItemClick(mArticles.get(position));
+                }
+            }
+        });
+        return holder;
+    }
 
-            // store the holder with the view.
-            convertView.setTag(holder);
+    /**
+     * Displays information about the article at the given position in the list of articles.
+     */
+    @Override
+    public void onBindViewHolder(ViewHolder holder, int position) {
+        long start = mBindHistogram != null ? System.nanoTime() : 0;
+        Article currentArticle = mArticles.get(position);
+
+        // Every string was formatted when the article was parsed, binding only sets them.
+        holder.titleTextView.setText(currentArticle.getTitle());
+        holder.authorTextView.setText(currentArticle.getAuthorLabel());
+        holder.sectionTextView.setText(currentArticle.getSectionLabel());
+        holder.dateTextView.setText(currentArticle.getDisplayDate());
+        holder.timeTextView.setText(currentArticle.getDisplayTime());
+        bindRelated(holder.relatedTextView, mRelated[position]);
+
+        // The image view has a fixed size, decode the thumbnail straight to it.
+        ViewGroup.LayoutParams size = holder.thumbnailImageView.getLayoutParams();
+        mImagePipeline.load(currentArticle.getThumbnailUrl(), holder.thumbnailImageView, size.width, size.height);
+
+        if (mBindHistogram != null) {
+            mBindHistogram.record((System.nanoTime() - start) / 1000);
+        }
+    }
 
+    /**
+     * Show the link to the other articles of the story, if the row leads one.
+     */
+    private static void bindRelated(TextView relatedTextView, int related) {
+        if (related == 0) {
+            relatedTextView.setVisibility(View.GONE);
+            return;
+        }
+        relatedTextView.setVisibility(View.VISIBLE);
+        if (related > 0) {
+            relatedTextView.setText(relatedTextView.getResources().getQuantityString(
+                    R.plurals.story_more_coverage, related, related));
         } else {
-            // Avoid calling findViewById() on resource every time
-            // just use the viewHolder
-            holder = (ViewHolder) convertView.getTag();
+            relatedTextView.setText(R.string.story_hide_coverage);
+        }
+    }
+
+    @Override
+    public void onViewRecycled(ViewHolder holder) {
+        // The row is off screen, its thumbnail is not needed anymore.
+        mImagePipeline.cancel(holder.thumbnailImageView);
+        holder.thumbnailImageView.setImageDrawable(null);
+    }
+
+    // Holds the views of a list item so findViewById() is only called once per row
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        final ImageView thumbnailImageView;
+        final TextView titleTextView;
+        final TextView authorTextView;
+        final TextView sectionTextView;
+        final TextView dateTextView;
+        final TextView timeTextView;
+        final TextView relatedTextView;
+
+        ViewHolder(View itemView) {
+            super(itemView);
+            thumbnailImageView = itemView.findViewById(R.id.thumbnail);
+            titleTextView = itemView.findViewById(R.id.title);
+            authorTextView = itemView.findViewById(R.id.author);
+            sectionTextView = itemView.findViewById(R.id.section);
+            dateTextView = itemView.findViewById(R.id.date);
+            timeTextView = itemView.findViewById(R.id.time);
+            relatedTextView = itemView.findViewById(R.id.related);
+        }
+    }
+
+    /**
+     * Compares two lists of articles, articles are the same item when they share a URL. A row
+     * whose story gained articles, or was opened or closed, has changed.
+     */
+    static class ArticleDiffCallback extends DiffUtil.Callback {
+        private final List<Article> mOldArticles;
+        private final int[] mOldRelated;
+        private final List<Article> mNewArticles;
+        private final int[] mNewRelated;
+
+        ArticleDiffCallback(List<Article> oldArticles, int[] oldRelated,
+                            List<Article> newArticles, int[] newRelated) {
+            mOldArticles = oldArticles;
+            mOldRelated = oldRelated;
+            mNewArticles = newArticles;
+            mNewRelated = newRelated;
         }
 
-        // Get the title string for the current Article object
-        String title = currentArticle.getTitle();
-        // Get the author string for the current Article object
-        String author = currentArticle.getAuthor();
-        author = "Author: " + author;
-        // Get the section name for the current Article object
-        String section = currentArticle.getSection();
-        section = "Section: " + section;
-        // Get the date and time string for the current Article object
-        String dateAndTime = currentArticle.getTime();
-
-        // Split the iso-8601 DateTime from the Guardian into date and time
-        String[] dateArray = dateAndTime.split("T");
-
-        // The date part of the string
-        String date = dateArray[0];
-        // The time part of the string after removing the seconds and Z and adding time zone string
-        String time = dateArray[1].substring(0, dateArray[1].length() - 4) + " UTC";
-
-        holder.titleTextView.setText(title);
-        holder.authorTextView.setText(author);
-        holder.sectionTextView.setText(section);
-        holder.dateTextView.setText(date);
-        holder.timeTextView.setText(time);
-
-        return convertView;
-    }
-
-    // Initialize ViewHolder views
-    static class ViewHolder {
-        TextView titleTextView;
-        TextView authorTextView;
-        TextView sectionTextView;
-        TextView dateTextView;
-        TextView timeTextView;
+        @Override
+        public int getOldListSize() {
+            return mOldArticles.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return mNewArticles.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return mOldArticles.get(oldItemPosition).getUrl().equals(mNewArticles.get(newItemPosition).getUrl());
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            Article oldArticle = mOldArticles.get(oldItemPosition);
+            Article newArticle = mNewArticles.get(newItemPosition);
+            return mOldRelated[oldItemPosition] == mNewRelated[newItemPosition]
+                    && oldArticle.getTitle().equals(newArticle.getTitle())
+                    && oldArticle.getAuthor().equals(newArticle.getAuthor())
+                    && oldArticle.getSection().equals(newArticle.getSection())
+                    && oldArticle.getTimeInMilliseconds() == newArticle.getTimeInMilliseconds()
+                    && sameThumbnail(oldArticle.getThumbnailUrl(), newArticle.getThumbnailUrl());
+        }
+
+        private static boolean sameThumbnail(String a, String b) {
+            return a == null ? b == null : a.equals(b);
+        }
     }
 }
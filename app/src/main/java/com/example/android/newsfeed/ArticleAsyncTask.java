@@ -2,34 +2,324 @@ package com.example.android.newsfeed;
 
 import android.content.AsyncTaskLoader;
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+/**
+ * Loads the articles for one or more query URLs.
+ * <p>
+ * The first load serves whatever {@link ArticleCache} holds for the query, so the list can be
+ * painted right away. Articles stored by the background sync since its last run are shown as
+ * they are; older ones are revalidated against the network in the background, and the fresh
+ * articles replace the cached ones and are written back to the cache.
+ * <p>
+ * Several query URLs are fetched in parallel, and the merged feed is delivered every time one
+ * of them returns.
+ * <p>
+ * Every load runs with a {@link CancellationToken}. When the loader is cancelled, restarted
+ * for another query or reset, the token aborts the requests of the load still in flight, down
+ * to the socket read. Coming back to the activity only loads again once the articles are older
+ * than {@link #MAX_AGE_MILLIS}.
+ * <p>
+ * Once articles are shown, a query ordered by date is refreshed incrementally: only the
+ * articles published since the newest one held are requested, see {@link FeedDelta}, and they
+ * are put in front of the held ones. {@link #getNewArticles(List)} tells which articles a
+ * result added, so the list only inserts those.
+ * <p>
+ * The articles fetched from the network are also stored in the {@link ArticleDatabase}, where
+ * the lists of a section or an author read them.
+ * <p>
+ * The URLs may belong to different {@link FeedSource}s, each is read by its own source and
+ * they are cached and merged the same way.
+ */
 public class ArticleAsyncTask extends AsyncTaskLoader<List<Article>> {
 
     /**
-     * Query URL
+     * How long the delivered articles are shown again as they are when the loader starts.
      */
-    private String mUrl;
+    static final long MAX_AGE_MILLIS = 5 * 60 * 1000;
+
+    /**
+     * Query URLs
+     */
+    private List<String> mUrls;
+
+    /**
+     * Articles cached on disk for each query
+     */
+    private ArticleCache mCache;
+
+    /**
+     * Stores every article fetched
+     */
+    private ArticleDatabase mDatabase;
+
+    /**
+     * Delivers the partial results of an aggregated load on the main thread
+     */
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * The articles that were last delivered
+     */
+    private volatile List<Article> mArticles;
+
+    /**
+     * Whether the cache has already been looked at for this loader
+     */
+    private volatile boolean mCacheChecked;
+
+    /**
+     * Whether the result being delivered came from the cache and still has to be revalidated
+     */
+    private volatile boolean mRevalidate;
+
+    /**
+     * When the delivered articles were loaded, in {@link SystemClock#elapsedRealtime()}, or 0
+     * if they are not known to be fresh
+     */
+    private volatile long mLoadedAt;
+
+    /**
+     * Cancels the load in progress
+     */
+    private volatile CancellationToken mToken;
+
+    /**
+     * The articles the last incremental refresh added in front of the held ones
+     */
+    private volatile Delta mDelta;
 
     public ArticleAsyncTask(Context context, String url) {
+        this(context, Collections.singletonList(url));
+    }
+
+    public ArticleAsyncTask(Context context, List<String> urls) {
         super(context);
-        mUrl = url;
+        mUrls = urls;
+        mCache = ArticleCache.getInstance(context);
+        mDatabase = ArticleDatabase.getInstance(context);
+    }
+
+    /**
+     * Returns the query URL of the loader, or null if it merges several queries.
+     */
+    public String getUrl() {
+        return mUrls.size() == 1 ? mUrls.get(0) : null;
+    }
+
+    /**
+     * Returns the articles the given result of the loader added in front of the articles
+     * delivered before it, or null if the result replaces them.
+     */
+    public List<Article> getNewArticles(List<Article> articles) {
+        Delta delta = mDelta;
+        return delta != null && delta.articles == articles ? delta.newArticles : null;
+    }
+
+    /**
+     * Load the articles published since the last load, as asked by the user.
+     */
+    public void refresh() {
+        onContentChanged();
     }
 
     @Override
     protected void onStartLoading() {
-        forceLoad();
+        if (mArticles != null) {
+            // Show what we already have while the new load is running.
+            deliverResult(mArticles);
+        }
+        // A rotation or a quick trip to another screen keeps the articles just loaded.
+        if (takeContentChanged() || mArticles == null || !isFresh()) {
+            forceLoad();
+        }
+    }
+
+    /**
+     * Returns true if the delivered articles were loaded less than {@link #MAX_AGE_MILLIS} ago.
+     */
+    private boolean isFresh() {
+        long loadedAt = mLoadedAt;
+        return loadedAt != 0 && SystemClock.elapsedRealtime() - loadedAt < MAX_AGE_MILLIS;
+    }
+
+    @Override
+    public boolean cancelLoad() {
+        // Abort the requests first, the load then returns early and its result is dropped.
+        CancellationToken token = mToken;
+        if (token != null) {
+            token.cancel();
+        }
+        return super.cancelLoad();
+    }
+
+    @Override
+    protected void onReset() {
+        super.onReset();
+        // The loader is destroyed or replaced by the one of a new query.
+        cancelLoad();
+        mArticles = null;
+        mLoadedAt = 0;
+        mDelta = null;
     }
 
     @Override
     public List<Article> loadInBackground() {
+        CancellationToken token = new CancellationToken();
+        mToken = token;
+        try {
+            List<Article> held = mArticles;
+            List<Article> articles = load(token);
+            if (articles != null && articles == held) {
+                // Nothing new. Hand back a copy so the activity still hears the load is over.
+                articles = new ArrayList<>(held);
+                mDelta = new Delta(articles, Collections.<Article>emptyList());
+            }
+            return articles;
+        } finally {
+            mToken = null;
+        }
+    }
 
-        if (mUrl == null) {
+    private List<Article> load(CancellationToken token) {
+
+        if (mUrls.isEmpty() || mUrls.contains(null)) {
             return null;
         }
 
-        // Perform the HTTP request for article data and process the response.
-        return QueryUtils.fetchArticleData(mUrl);
+        String cacheKey = QueryUtils.cacheKey(mUrls);
+
+        // Paint cached articles first, the network refresh follows from deliverResult.
+        if (!mCacheChecked) {
+            mCacheChecked = true;
+            List<Article> cached = mCache.get(cacheKey);
+            if (cached != null) {
+                ArticleSearchIndex.getInstance().addAll(cached);
+                // Nothing new to fetch until the next background sync is due.
+                mRevalidate = !FeedSync.POLICY.isFresh(mCache.getSavedAt(cacheKey))
+                        && QueryUtils.isConnected(getContext());
+                mLoadedAt = mRevalidate ? 0 : SystemClock.elapsedRealtime();
+                return cached;
+            }
+        }
+
+        if (!QueryUtils.isConnected(getContext())) {
+            return mArticles;
+        }
+
+        List<Article> held = mArticles;
+        String url = getUrl();
+        // A feed document is read whole, only a query takes the date to start from.
+        if (held != null && !held.isEmpty() && QueryUtils.supportsQueries(url) && FeedDelta.supports(url)) {
+            return loadNewArticles(url, held, cacheKey, token);
+        }
+
+        // Perform the HTTP requests for article data and process the responses.
+        List<Article> articles = fetch(token);
+        if (token.isCancelled()) {
+            // A newer load takes over, this result is dropped.
+            return null;
+        }
+        if (articles == null) {
+            // Keep showing the stale articles rather than an empty list.
+            return mArticles;
+        }
+
+        mCache.put(cacheKey, articles);
+        mDatabase.upsert(articles);
+        mLoadedAt = SystemClock.elapsedRealtime();
+        return articles;
+    }
+
+    /**
+     * Fetch the articles published since the newest held one and return them in front of the
+     * held ones.
+     */
+    private List<Article> loadNewArticles(String url, List<Article> held, String cacheKey,
+                                          CancellationToken token) {
+        String deltaUrl = FeedDelta.newerThan(url, FeedDelta.newestTime(held));
+        List<Article> delta = QueryUtils.fetchArticleData(deltaUrl, token);
+        if (token.isCancelled()) {
+            return null;
+        }
+        if (delta == null) {
+            return held;
+        }
+        mDatabase.upsert(delta);
+
+        List<Article> articles;
+        if (delta.size() >= ArticlePager.PAGE_SIZE) {
+            // There may be more new articles than a page, the delta is the new first page.
+            articles = delta;
+        } else {
+            List<Article> newArticles = FeedDelta.newArticles(held, delta);
+            if (newArticles.isEmpty()) {
+                mLoadedAt = SystemClock.elapsedRealtime();
+                return held;
+            }
+            // The cache and the next refresh only need the newest page.
+            List<Article> merged = FeedDelta.prepend(newArticles, held);
+            articles = new ArrayList<>(merged.subList(0, Math.min(merged.size(), ArticlePager.PAGE_SIZE)));
+            mDelta = new Delta(articles, newArticles);
+        }
+
+        mCache.put(cacheKey, articles);
+        mLoadedAt = SystemClock.elapsedRealtime();
+        return articles;
+    }
+
+    /**
+     * Fetch all the queries in parallel, delivering the merged feed as each of them returns.
+     */
+    private List<Article> fetch(CancellationToken token) {
+        try {
+            return QueryUtils.fetchFeedData(mUrls, new FeedAggregator.Listener() {
+                @Override
+                public void onPartialResult(final List<Article> articles) {
+                    mMainHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (isStarted()) {
+                                deliverResult(articles);
+                            }
+                        }
+                    });
+                }
+            }, token);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    @Override
+    public void deliverResult(List<Article> articles) {
+        mArticles = articles;
+        super.deliverResult(articles);
+
+        if (mRevalidate) {
+            mRevalidate = false;
+            // The delivered articles came from the cache, now load the fresh ones.
+            onContentChanged();
+        }
+    }
+
+    /**
+     * A result of the loader and the articles it added in front of the previous one.
+     */
+    private static class Delta {
+        final List<Article> articles;
+        final List<Article> newArticles;
+
+        Delta(List<Article> articles, List<Article> newArticles) {
+            this.articles = articles;
+            this.newArticles = newArticles;
+        }
     }
 }
@@ -0,0 +1,78 @@
+package com.example.android.newsfeed;
+
+import android.content.AsyncTaskLoader;
+import android.content.Context;
+import android.os.Build;
+import android.text.Html;
+import android.util.Log;
+
+import java.io.IOException;
+
+import static com.example.android.newsfeed.MainActivity.LOG_TAG;
+
+/**
+ * Loads the body of one article for the reader, from the {@link ArticleBodyStore} when it is
+ * saved and from the network otherwise, and turns its HTML into styled text off the main thread.
+ */
+public class ArticleBodyLoader extends AsyncTaskLoader<CharSequence> {
+
+    /**
+     * Web URL of the article
+     */
+    private final String mUrl;
+
+    private final ArticleBodyStore mStore;
+
+    /**
+     * The body that was last delivered
+     */
+    private CharSequence mBody;
+
+    public ArticleBodyLoader(Context context, String url) {
+        super(context);
+        mUrl = url;
+        mStore = ArticleBodyStore.getInstance(context);
+    }
+
+    @Override
+    protected void onStartLoading() {
+        if (mBody != null) {
+            deliverResult(mBody);
+        } else {
+            forceLoad();
+        }
+    }
+
+    @Override
+    public CharSequence loadInBackground() {
+        String body = mStore.get(mUrl);
+        if (body == null) {
+            if (!QueryUtils.isConnected(getContext()) || !QueryUtils.hasBody(mUrl)) {
+                // The article of another feed is only read in the browser.
+                return null;
+            }
+            try {
+                body = mStore.fetch(mUrl);
+            } catch (IOException e) {
+                Log.e(LOG_TAG, "Problem loading the article body.", e);
+                return null;
+            }
+        }
+        return fromHtml(body);
+    }
+
+    @Override
+    public void deliverResult(CharSequence body) {
+        mBody = body;
+        super.deliverResult(body);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static CharSequence fromHtml(String html) {
+        // Embedded images and videos are dropped, the text is what is read offline.
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            return Html.fromHtml(html, Html.FROM_HTML_MODE_LEGACY);
+        }
+        return Html.fromHtml(html);
+    }
+}
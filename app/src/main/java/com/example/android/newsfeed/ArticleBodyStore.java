@@ -0,0 +1,451 @@
+package com.example.android.newsfeed;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.os.Process;
+import android.support.v4.net.ConnectivityManagerCompat;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.example.android.newsfeed.MainActivity.LOG_TAG;
+
+/**
+ * Disk backed store of article bodies for the in-app reader, one gzip compressed file per
+ * article URL, so that an article opens without the network once it has been saved.
+ * <p>
+ * The bodies of the rows the user is looking at, and of the next ones, are prefetched one at
+ * a time on a background priority thread, the most recently asked first. On a metered network
+ * prefetching stops after {@link #METERED_PREFETCH_BYTES} per process. Once the files grow past
+ * the size limit the least recently read ones are deleted first.
+ */
+public class ArticleBodyStore {
+
+    /**
+     * Number of rows after the last visible one whose bodies are prefetched
+     */
+    public static final int PREFETCH_AHEAD = 5;
+
+    /**
+     * Upper bound for the total size of the compressed bodies in bytes
+     */
+    private static final long DISK_BYTES = 4 * 1024 * 1024;
+
+    /**
+     * Bytes prefetched on a metered network at most, per process
+     */
+    static final long METERED_PREFETCH_BYTES = 512 * 1024;
+
+    private static final String FILE_SUFFIX = ".body.gz";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int TIMEOUT_MILLIS = 10000;
+
+    private static ArticleBodyStore sInstance;
+
+    /**
+     * Directory holding one file per article
+     */
+    private final File mDirectory;
+
+    private final long mMaxBytes;
+
+    /**
+     * Total size of the files, or -1 until it has been computed
+     */
+    private long mSize = -1;
+
+    /**
+     * Compressed bytes prefetched on a metered network so far
+     */
+    private long mMeteredPrefetchBytes;
+
+    /**
+     * URLs waiting to be prefetched or being prefetched
+     */
+    private final Set<String> mQueued = new HashSet<>();
+
+    /**
+     * Downloads in progress by URL, each latch is released once its body is saved or failed
+     */
+    private final Map<String, CountDownLatch> mDownloads = new HashMap<>();
+
+    private final ThreadPoolExecutor mPrefetchExecutor = newPrefetchExecutor();
+
+    /**
+     * Constructs a new {@link ArticleBodyStore}.
+     *
+     * @param directory is the directory the bodies are written to
+     * @param maxBytes  is the total size the compressed bodies may take on disk
+     */
+    public ArticleBodyStore(File directory, long maxBytes) {
+        mDirectory = directory;
+        mMaxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the app wide store. The bodies live in the files directory, which the system
+     * does not clear when the device runs low on storage.
+     */
+    public static synchronized ArticleBodyStore getInstance(Context context) {
+        if (sInstance == null) {
+            File directory = new File(context.getApplicationContext().getFilesDir(), "articles");
+            sInstance = new ArticleBodyStore(directory, DISK_BYTES);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Returns true if the body of the article with the given URL is saved.
+     */
+    public boolean contains(String url) {
+        return fileFor(url).exists();
+    }
+
+    /**
+     * Returns the saved body of the article with the given URL, or null if it is not saved.
+     */
+    public String get(String url) {
+        File file;
+        synchronized (this) {
+            file = fileFor(url);
+            if (!file.exists()) {
+                return null;
+            }
+            // Mark the body as recently read so that it is the last one to be evicted.
+            file.setLastModified(System.currentTimeMillis());
+        }
+
+        InputStream in = null;
+        try {
+            in = new GZIPInputStream(new BufferedInputStream(new FileInputStream(file)));
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) file.length() * 4);
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+            return new String(bytes.toByteArray(), UTF_8);
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Problem reading the saved article.", e);
+            file.delete();
+            return null;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * Save the body of the article with the given URL, and return the size of its file, or -1
+     * if it could not be written.
+     */
+    public long put(String url, String body) {
+        File file = fileFor(url);
+        // Write to a temporary file first so that a crash never leaves a half written body.
+        File tmp = new File(file.getPath() + "." + Thread.currentThread().getId() + ".tmp");
+        OutputStream out = null;
+        try {
+            if (!mDirectory.exists() && !mDirectory.mkdirs()) {
+                Log.e(LOG_TAG, "Unable to create the article directory.");
+                return -1;
+            }
+            out = new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            out.write(body.getBytes(UTF_8));
+            out.close();
+            out = null;
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Problem writing the saved article.", e);
+            closeQuietly(out);
+            tmp.delete();
+            return -1;
+        }
+
+        synchronized (this) {
+            long previous = file.length();
+            if (!tmp.renameTo(file)) {
+                Log.e(LOG_TAG, "Unable to store the saved article.");
+                tmp.delete();
+                return -1;
+            }
+            long length = file.length();
+            if (mSize >= 0) {
+                mSize += length - previous;
+            }
+            trimToSize();
+            return length;
+        }
+    }
+
+    /**
+     * Returns the body of the article with the given URL, downloading and saving it if it is
+     * not saved yet. A body being prefetched is waited for instead of downloaded a second time.
+     * Blocks, so call it on a background thread.
+     *
+     * @throws IOException if the download failed or the response has no body
+     */
+    public String fetch(String url) throws IOException {
+        while (true) {
+            String body = get(url);
+            if (body != null) {
+                return body;
+            }
+
+            CountDownLatch download = new CountDownLatch(1);
+            CountDownLatch running;
+            synchronized (this) {
+                running = mDownloads.get(url);
+                if (running == null) {
+                    mDownloads.put(url, download);
+                }
+            }
+            if (running == null) {
+                try {
+                    body = download(url);
+                    put(url, body);
+                    return body;
+                } finally {
+                    finishDownload(url, download);
+                }
+            }
+
+            try {
+                running.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while the article was prefetched");
+            }
+            // Saved by the prefetch, or downloaded here if the prefetch failed.
+        }
+    }
+
+    /**
+     * Save the bodies of the given articles in the background, skipping the ones already saved
+     * or queued. Nothing is prefetched without a connection or once the metered budget is spent.
+     */
+    public void prefetch(Context context, List<Article> articles) {
+        if (!QueryUtils.isConnected(context)) {
+            return;
+        }
+        ConnectivityManager connectivityManager =
+                (ConnectivityManager) context.getApplicationContext().getSystemService(Context.CONNECTIVITY_SERVICE);
+        final boolean metered = ConnectivityManagerCompat.isActiveNetworkMetered(connectivityManager);
+        synchronized (this) {
+            if (metered && mMeteredPrefetchBytes >= METERED_PREFETCH_BYTES) {
+                return;
+            }
+        }
+
+        // Queue the last rows first, the most recently queued body is fetched first so the
+        // rows on screen come before the ones after them.
+        for (int i = articles.size() - 1; i >= 0; i--) {
+            final String url = articles.get(i).getUrl();
+            if (!QueryUtils.hasBody(url)) {
+                continue;
+            }
+            synchronized (this) {
+                // Whether it is saved already is checked on the prefetch thread, off the disk.
+                if (!mQueued.add(url)) {
+                    continue;
+                }
+            }
+            mPrefetchExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        prefetch(url, metered);
+                    } finally {
+                        synchronized (ArticleBodyStore.this) {
+                            mQueued.remove(url);
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    void prefetch(String url, boolean metered) {
+        CountDownLatch download = new CountDownLatch(1);
+        synchronized (this) {
+            // Skip a body the reader is already downloading, or saved while this one was queued.
+            if (mDownloads.containsKey(url) || contains(url)
+                    || (metered && mMeteredPrefetchBytes >= METERED_PREFETCH_BYTES)) {
+                return;
+            }
+            mDownloads.put(url, download);
+        }
+        try {
+            String body;
+            try {
+                body = download(url);
+            } catch (IOException e) {
+                Log.e(LOG_TAG, "Problem prefetching the article.", e);
+                return;
+            }
+            long length = put(url, body);
+            if (metered && length > 0) {
+                synchronized (this) {
+                    mMeteredPrefetchBytes += length;
+                }
+            }
+        } finally {
+            finishDownload(url, download);
+        }
+    }
+
+    /**
+     * Forget the download of the given URL and wake up the readers waiting for it.
+     */
+    private void finishDownload(String url, CountDownLatch download) {
+        synchronized (this) {
+            mDownloads.remove(url);
+        }
+        download.countDown();
+    }
+
+    /**
+     * Returns the body of the article with the given URL, downloaded from the Guardian.
+     */
+    String download(String url) throws IOException {
+        HttpURLConnection urlConnection = (HttpURLConnection) new URL(QueryUtils.buildBodyUrl(url)).openConnection();
+        urlConnection.setReadTimeout(TIMEOUT_MILLIS);
+        urlConnection.setConnectTimeout(TIMEOUT_MILLIS);
+        InputStream in = null;
+        String body = null;
+        try {
+            int responseCode = urlConnection.getResponseCode();
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Error response code: " + responseCode);
+            }
+            in = urlConnection.getInputStream();
+            body = ArticleBodyParser.parse(in);
+            if (body == null) {
+                throw new IOException("No body for " + url);
+            }
+            return body;
+        } finally {
+            if (body != null) {
+                // Closing a fully read response keeps the connection alive for the next article.
+                closeQuietly(in);
+            } else {
+                // Nothing reads the error or the rest of the body, release the socket now
+                // instead of when the connection is collected.
+                urlConnection.disconnect();
+            }
+        }
+    }
+
+    /**
+     * Delete the least recently read bodies until the store fits in its size limit.
+     */
+    private void trimToSize() {
+        File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        if (mSize < 0) {
+            mSize = 0;
+            for (File file : files) {
+                if (file.getName().endsWith(FILE_SUFFIX)) {
+                    mSize += file.length();
+                }
+            }
+        }
+        if (mSize <= mMaxBytes) {
+            return;
+        }
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                long left = a.lastModified();
+                long right = b.lastModified();
+                return left < right ? -1 : (left == right ? 0 : 1);
+            }
+        });
+        for (File file : files) {
+            if (mSize <= mMaxBytes) {
+                break;
+            }
+            if (!file.getName().endsWith(FILE_SUFFIX)) {
+                // A write in progress, it is counted once it is renamed.
+                continue;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                mSize -= length;
+            }
+        }
+    }
+
+    /**
+     * Returns the file that holds the body of the article with the given URL.
+     */
+    private File fileFor(String url) {
+        return new File(mDirectory, ArticleCache.hashKey(url) + FILE_SUFFIX);
+    }
+
+    /**
+     * Returns a single thread executor running the most recently submitted task first, on a
+     * background priority thread so prefetching never competes with the UI.
+     */
+    private static ThreadPoolExecutor newPrefetchExecutor() {
+        BlockingQueue<Runnable> stack = new LinkedBlockingDeque<Runnable>() {
+            @Override
+            public boolean offer(Runnable runnable) {
+                return offerFirst(runnable);
+            }
+        };
+        ThreadFactory threadFactory = new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                return new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        runnable.run();
+                    }
+                }, "ArticleBodyPrefetch");
+            }
+        };
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, stack, threadFactory);
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+                // Nothing useful to do, the stream is not used anymore.
+            }
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.example.android.newsfeed;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.example.android.newsfeed.MainActivity.LOG_TAG;
+
+/**
+ * Disk backed store of the last {@link Article}s loaded for each query URL.
+ * <p>
+ * Every query is kept in its own file inside the cache directory. Entries older than the
+ * time to live are never served, and once the files grow past the size limit the least
+ * recently used ones are deleted first.
+ */
+public class ArticleCache {
+
+    /**
+     * Entries older than this are dropped instead of being shown.
+     */
+    private static final long DEFAULT_TTL_MILLIS = 24 * 60 * 60 * 1000L;
+
+    /**
+     * Upper bound for the total size of the cache files in bytes.
+     */
+    private static final long DEFAULT_MAX_BYTES = 1024 * 1024;
+
+    /**
+     * Version of the file format, bumped whenever the layout of an entry changes.
+     */
+    private static final int FORMAT_VERSION = 3;
+
+    private static final String FILE_SUFFIX = ".articles";
+
+    private static ArticleCache sInstance;
+
+    /**
+     * Directory holding one file per query
+     */
+    private final File mDirectory;
+
+    private final long mTtlMillis;
+
+    private final long mMaxBytes;
+
+    private final Clock mClock;
+
+    /**
+     * Constructs a new {@link ArticleCache}.
+     *
+     * @param directory is the directory the entries are written to
+     * @param ttlMillis is how long an entry may be served after it was written
+     * @param maxBytes  is the total size the entries may take on disk
+     * @param clock     is the source of the current time
+     */
+    public ArticleCache(File directory, long ttlMillis, long maxBytes, Clock clock) {
+        mDirectory = directory;
+        mTtlMillis = ttlMillis;
+        mMaxBytes = maxBytes;
+        mClock = clock;
+    }
+
+    /**
+     * Returns the app wide cache, stored in the app's cache directory.
+     */
+    public static synchronized ArticleCache getInstance(Context context) {
+        if (sInstance == null) {
+            File directory = new File(context.getApplicationContext().getCacheDir(), "articles");
+            sInstance = new ArticleCache(directory, DEFAULT_TTL_MILLIS, DEFAULT_MAX_BYTES, Clock.SYSTEM);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Returns the articles cached for the given query URL, or null if there are none or they
+     * have expired.
+     */
+    public synchronized List<Article> get(String key) {
+        File file = fileFor(key);
+        if (!file.exists()) {
+            return null;
+        }
+
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != FORMAT_VERSION || !key.equals(in.readUTF())) {
+                return null;
+            }
+
+            long savedAt = in.readLong();
+            long now = mClock.currentTimeMillis();
+            if (now - savedAt > mTtlMillis) {
+                in.close();
+                in = null;
+                file.delete();
+                return null;
+            }
+
+            int count = in.readInt();
+            List<Article> articles = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String title = in.readUTF();
+                String author = in.readUTF();
+                String section = in.readUTF();
+                long time = in.readLong();
+                String url = in.readUTF();
+                String thumbnailUrl = in.readUTF();
+                articles.add(new Article(title, author, section, time, url,
+                        thumbnailUrl.isEmpty() ? null : thumbnailUrl));
+            }
+
+            // Mark the entry as recently used so that it is the last one to be evicted.
+            file.setLastModified(now);
+            return articles;
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Problem reading the cached articles.", e);
+            return null;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * Returns the time the entry for the given key was written, or -1 if there is none.
+     * Only the header of the entry is read.
+     */
+    public synchronized long getSavedAt(String key) {
+        File file = fileFor(key);
+        if (!file.exists()) {
+            return -1;
+        }
+
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != FORMAT_VERSION || !key.equals(in.readUTF())) {
+                return -1;
+            }
+            return in.readLong();
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Problem reading the cached articles.", e);
+            return -1;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * Store the articles loaded for the given query URL, replacing the previous entry.
+     */
+    public synchronized void put(String key, List<Article> articles) {
+        if (!mDirectory.exists() && !mDirectory.mkdirs()) {
+            Log.e(LOG_TAG, "Unable to create the article cache directory.");
+            return;
+        }
+
+        File file = fileFor(key);
+        // Write to a temporary file first so that a crash never leaves a half written entry.
+        File tmp = new File(file.getPath() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(key);
+            out.writeLong(mClock.currentTimeMillis());
+            out.writeInt(articles.size());
+            for (Article article : articles) {
+                out.writeUTF(article.getTitle());
+                out.writeUTF(article.getAuthor());
+                out.writeUTF(article.getSection());
+                out.writeLong(article.getTimeInMilliseconds());
+                out.writeUTF(article.getUrl());
+                // writeUTF does not take null, an article without thumbnail is written as "".
+                out.writeUTF(article.getThumbnailUrl() == null ? "" : article.getThumbnailUrl());
+            }
+            out.close();
+            out = null;
+
+            if (!tmp.renameTo(file)) {
+                Log.e(LOG_TAG, "Unable to store the cached articles.");
+                tmp.delete();
+                return;
+            }
+            file.setLastModified(mClock.currentTimeMillis());
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Problem writing the cached articles.", e);
+            closeQuietly(out);
+            tmp.delete();
+            return;
+        }
+
+        trimToSize();
+    }
+
+    /**
+     * Delete the least recently used entries until the cache fits in its size limit.
+     */
+    private void trimToSize() {
+        File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        long size = 0;
+        for (File file : files) {
+            size += file.length();
+        }
+        if (size <= mMaxBytes) {
+            return;
+        }
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                long left = a.lastModified();
+                long right = b.lastModified();
+                return left < right ? -1 : (left == right ? 0 : 1);
+            }
+        });
+        for (File file : files) {
+            if (size <= mMaxBytes) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                size -= length;
+            }
+        }
+    }
+
+    /**
+     * Returns the file that holds the entry for the given key.
+     */
+    private File fileFor(String key) {
+        return new File(mDirectory, hashKey(key) + FILE_SUFFIX);
+    }
+
+    /**
+     * Returns the SHA-1 of the key in hex, which is safe to use as a file name.
+     */
+    static String hashKey(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(key.getBytes(Charset.forName("UTF-8")));
+            StringBuilder name = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                name.append(Character.forDigit((b >> 4) & 0xf, 16));
+                name.append(Character.forDigit(b & 0xf, 16));
+            }
+            return name.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-1.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+                // Nothing useful to do, the entry is dropped anyway.
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.android.newsfeed;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQLite store of every article the app has loaded, so that the articles of a section or an
+ * author can be listed again without asking the Guardian.
+ * <p>
+ * The URL is the primary key. Indexes on the section, the author and the publication time
+ * serve the filtered lists newest first, and every list is read a page at a time: a page
+ * starts after the last article of the previous one (keyset paging), so reading page n does
+ * not walk the n - 1 pages before it as an OFFSET would. A batch of articles is written in a
+ * single transaction with one compiled statement.
+ * <p>
+ * The store keeps the newest {@link #MAX_ARTICLES} articles.
+ */
+public class ArticleDatabase extends SQLiteOpenHelper {
+
+    /**
+     * Articles read at once by a page of a list
+     */
+    public static final int PAGE_SIZE = 50;
+
+    /**
+     * Number of articles kept, the older ones are deleted after a write
+     */
+    static final int MAX_ARTICLES = 5000;
+
+    private static final String DATABASE_NAME = "articles.db";
+
+    private static final int DATABASE_VERSION = 1;
+
+    static final String TABLE_ARTICLES = "articles";
+    static final String COLUMN_URL = "url";
+    static final String COLUMN_TITLE = "title";
+    static final String COLUMN_AUTHOR = "author";
+    static final String COLUMN_SECTION = "section";
+    static final String COLUMN_PUBLISHED = "published";
+    static final String COLUMN_THUMBNAIL_URL = "thumbnail_url";
+
+    private static final String[] COLUMNS = {COLUMN_TITLE, COLUMN_AUTHOR, COLUMN_SECTION,
+            COLUMN_PUBLISHED, COLUMN_URL, COLUMN_THUMBNAIL_URL};
+
+    /**
+     * Newest first, the URL breaks the ties so that the order of a page is stable. Both go
+     * the same way, so an index on them is read backwards without sorting.
+     */
+    private static final String ORDER = COLUMN_PUBLISHED + " DESC, " + COLUMN_URL + " DESC";
+
+    private static final String UPSERT = "INSERT OR REPLACE INTO " + TABLE_ARTICLES + " ("
+            + COLUMN_URL + ", " + COLUMN_TITLE + ", " + COLUMN_AUTHOR + ", " + COLUMN_SECTION + ", "
+            + COLUMN_PUBLISHED + ", " + COLUMN_THUMBNAIL_URL + ") VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String TRIM = "DELETE FROM " + TABLE_ARTICLES + " WHERE " + COLUMN_URL
+            + " IN (SELECT " + COLUMN_URL + " FROM " + TABLE_ARTICLES + " ORDER BY " + ORDER
+            + " LIMIT -1 OFFSET " + MAX_ARTICLES + ")";
+
+    private static ArticleDatabase sInstance;
+
+    /**
+     * Constructs a new {@link ArticleDatabase}.
+     *
+     * @param context is used to find the database file
+     * @param name    is the name of the database file, or null for a database in memory
+     */
+    ArticleDatabase(Context context, String name) {
+        super(context, name, null, DATABASE_VERSION);
+    }
+
+    /**
+     * Returns the app wide database.
+     */
+    public static synchronized ArticleDatabase getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new ArticleDatabase(context.getApplicationContext(), DATABASE_NAME);
+        }
+        return sInstance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_ARTICLES + " ("
+                + COLUMN_URL + " TEXT PRIMARY KEY NOT NULL, "
+                + COLUMN_TITLE + " TEXT, "
+                + COLUMN_AUTHOR + " TEXT, "
+                + COLUMN_SECTION + " TEXT, "
+                + COLUMN_PUBLISHED + " INTEGER NOT NULL, "
+                + COLUMN_THUMBNAIL_URL + " TEXT)");
+        // The filtered lists are ordered by time and URL, both are part of their indexes so
+        // that a page starts with a seek in the index and is read from it without sorting.
+        db.execSQL("CREATE INDEX articles_section ON " + TABLE_ARTICLES + " ("
+                + COLUMN_SECTION + ", " + COLUMN_PUBLISHED + ", " + COLUMN_URL + ")");
+        db.execSQL("CREATE INDEX articles_author ON " + TABLE_ARTICLES + " ("
+                + COLUMN_AUTHOR + ", " + COLUMN_PUBLISHED + ", " + COLUMN_URL + ")");
+        db.execSQL("CREATE INDEX articles_published ON " + TABLE_ARTICLES + " ("
+                + COLUMN_PUBLISHED + ", " + COLUMN_URL + ")");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // The articles are only a copy of what the Guardian serves, load them again.
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_ARTICLES);
+        onCreate(db);
+    }
+
+    /**
+     * Insert the given articles, or replace the stored ones with the same URL, in a single
+     * transaction. Writes to the disk, so call it on a background thread.
+     */
+    public void upsert(List<Article> articles) {
+        if (articles.isEmpty()) {
+            return;
+        }
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            SQLiteStatement statement = db.compileStatement(UPSERT);
+            try {
+                for (Article article : articles) {
+                    statement.clearBindings();
+                    statement.bindString(1, article.getUrl());
+                    bindNullable(statement, 2, article.getTitle());
+                    bindNullable(statement, 3, article.getAuthor());
+                    bindNullable(statement, 4, article.getSection());
+                    statement.bindLong(5, article.getTimeInMilliseconds());
+                    bindNullable(statement, 6, article.getThumbnailUrl());
+                    statement.executeInsert();
+                }
+            } finally {
+                statement.close();
+            }
+            db.execSQL(TRIM);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Returns the page of the articles of the given section that follows the given article,
+     * newest first. Reads the disk, so call it on a background thread.
+     *
+     * @param after is the last article of the previous page, or null for the first page
+     */
+    public List<Article> querySection(String section, Article after, int limit) {
+        return query(COLUMN_SECTION, section, after, limit);
+    }
+
+    /**
+     * Returns the page of the articles of the given author that follows the given article,
+     * newest first. Reads the disk, so call it on a background thread.
+     *
+     * @param after is the last article of the previous page, or null for the first page
+     */
+    public List<Article> queryAuthor(String author, Article after, int limit) {
+        return query(COLUMN_AUTHOR, author, after, limit);
+    }
+
+    /**
+     * Returns the number of articles stored.
+     */
+    public long count() {
+        SQLiteStatement statement = getReadableDatabase().compileStatement(
+                "SELECT COUNT(*) FROM " + TABLE_ARTICLES);
+        try {
+            return statement.simpleQueryForLong();
+        } finally {
+            statement.close();
+        }
+    }
+
+    private List<Article> query(String column, String value, Article after, int limit) {
+        String selection;
+        String[] selectionArgs;
+        if (after == null) {
+            selection = column + " = ?";
+            selectionArgs = new String[]{value};
+        } else {
+            // Everything older than the last article, or as old and after it by URL. The
+            // bound on the time alone lets the index seek, the rest only skips the ties.
+            String time = Long.toString(after.getTimeInMilliseconds());
+            selection = column + " = ? AND " + COLUMN_PUBLISHED + " <= ? AND NOT ("
+                    + COLUMN_PUBLISHED + " = ? AND " + COLUMN_URL + " >= ?)";
+            selectionArgs = new String[]{value, time, time, after.getUrl()};
+        }
+
+        Cursor cursor = getReadableDatabase().query(TABLE_ARTICLES, COLUMNS, selection, selectionArgs,
+                null, null, ORDER, Integer.toString(limit));
+        try {
+            List<Article> articles = new ArrayList<>(cursor.getCount());
+            while (cursor.moveToNext()) {
+                articles.add(new Article(cursor.getString(0), cursor.getString(1), cursor.getString(2),
+                        cursor.getLong(3), cursor.getString(4), cursor.getString(5)));
+            }
+            return articles;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static void bindNullable(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.example.android.newsfeed;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Loads the pages after the first one as the user scrolls through the list.
+ * <p>
+ * The next page is requested while there are still {@link #PREFETCH_DISTANCE} rows left below
+ * the last visible one, so it is usually there before the user reaches the end of the list.
+ * A page is never requested twice while it is in flight, the pages in flight are cancelled
+ * when the pager moves on to another query, and only a window of
+ * {@link #MAX_PAGES} pages is held in memory: when the user scrolls far enough down the pages
+ * at the top are dropped, and they are loaded again if the user scrolls back up.
+ * <p>
+ * New articles found by a refresh are put in front of the first page. They shift the later
+ * pages of the query by as many articles, so the articles of a page that are already in the
+ * window are dropped.
+ * <p>
+ * All methods must be called on the thread that {@code callbackExecutor} delivers to, which
+ * is the main thread in the app.
+ */
+public class ArticlePager {
+
+    /**
+     * Number of articles requested per page, the page-size of the query URL.
+     */
+    public static final int PAGE_SIZE = 20;
+
+    /**
+     * How many rows before the edge of the window the next page is requested.
+     */
+    static final int PREFETCH_DISTANCE = PAGE_SIZE / 2;
+
+    /**
+     * Number of pages kept in memory at most.
+     */
+    static final int MAX_PAGES = 10;
+
+    /**
+     * Receives the articles of the window every time it changes.
+     */
+    public interface Listener {
+        /**
+         * @param articles are the articles of all pages in the window
+         */
+        void onArticlesChanged(List<Article> articles);
+    }
+
+    /**
+     * Loads a single page, called on the background executor.
+     */
+    public interface PageLoader {
+        /**
+         * Returns the articles of the given page of the query, or null if the request failed or
+         * was cancelled.
+         */
+        List<Article> loadPage(String url, int page, CancellationToken token);
+    }
+
+    /**
+     * Loads pages through {@link QueryUtils#fetchArticleData(String, CancellationToken)}. A feed
+     * that cannot be queried by page is a single page.
+     */
+    public static final PageLoader NETWORK = new PageLoader() {
+        @Override
+        public List<Article> loadPage(String url, int page, CancellationToken token) {
+            if (page > 1 && !QueryUtils.supportsQueries(url)) {
+                return Collections.emptyList();
+            }
+            return QueryUtils.fetchArticleData(pageUrl(url, page), token);
+        }
+    };
+
+    private final PageLoader mPageLoader;
+
+    /**
+     * Executor the pages are loaded on
+     */
+    private final Executor mBackgroundExecutor;
+
+    /**
+     * Executor the results are handed back on
+     */
+    private final Executor mCallbackExecutor;
+
+    private final Listener mListener;
+
+    /**
+     * The pages of the window, in order
+     */
+    private final LinkedList<List<Article>> mPages = new LinkedList<>();
+
+    /**
+     * Pages that have been requested and not arrived yet, with the tokens that cancel them
+     */
+    private final Map<Integer, CancellationToken> mInFlight = new HashMap<>();
+
+    /**
+     * Query URL of the first page
+     */
+    private String mUrl;
+
+    /**
+     * Page number of the first page in the window, starting at 1
+     */
+    private int mFirstPage;
+
+    /**
+     * Whether the last page of the query has been loaded
+     */
+    private boolean mEndReached;
+
+    /**
+     * Incremented on every reset so that pages of an older query are ignored.
+     */
+    private int mGeneration;
+
+    /**
+     * Constructs a new {@link ArticlePager}.
+     *
+     * @param pageLoader         loads a single page
+     * @param backgroundExecutor is the executor the pages are loaded on
+     * @param callbackExecutor   is the executor the loaded pages are handed back on
+     * @param listener           is told about every change of the window
+     */
+    public ArticlePager(PageLoader pageLoader, Executor backgroundExecutor, Executor callbackExecutor,
+                        Listener listener) {
+        mPageLoader = pageLoader;
+        mBackgroundExecutor = backgroundExecutor;
+        mCallbackExecutor = callbackExecutor;
+        mListener = listener;
+    }
+
+    /**
+     * Returns the URL of the given page of a query.
+     */
+    public static String pageUrl(String url, int page) {
+        return page == 1 ? url : url + "&page=" + page;
+    }
+
+    /**
+     * Start over with the first page of a query, forgetting every page loaded so far.
+     */
+    public void reset(String url, List<Article> firstPage) {
+        mGeneration++;
+        mUrl = url;
+        mPages.clear();
+        // The pages of the previous query are not needed anymore.
+        for (CancellationToken token : mInFlight.values()) {
+            token.cancel();
+        }
+        mInFlight.clear();
+        mFirstPage = 1;
+        if (firstPage == null) {
+            firstPage = new ArrayList<>();
+        }
+        mPages.add(firstPage);
+        mEndReached = firstPage.size() < PAGE_SIZE;
+        mListener.onArticlesChanged(flatten());
+    }
+
+    /**
+     * Put the given new articles in front of the window, keeping the pages loaded so far.
+     *
+     * @return false if the window does not start at the first page, the caller then resets
+     * the pager instead
+     */
+    public boolean prepend(List<Article> newArticles) {
+        if (mUrl == null || mFirstPage != 1) {
+            return false;
+        }
+        if (newArticles.isEmpty()) {
+            return true;
+        }
+        mPages.set(0, FeedDelta.prepend(newArticles, mPages.getFirst()));
+        mListener.onArticlesChanged(flatten());
+        return true;
+    }
+
+    /**
+     * Called whenever the list scrolls.
+     *
+     * @param firstVisibleItem is the position of the first visible row
+     * @param visibleItemCount is the number of visible rows
+     * @param totalItemCount   is the number of rows in the list
+     */
+    public void onScroll(int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+        if (mUrl == null || totalItemCount == 0) {
+            return;
+        }
+
+        int lastVisibleItem = firstVisibleItem + visibleItemCount - 1;
+        if (!mEndReached && totalItemCount - 1 - lastVisibleItem < PREFETCH_DISTANCE) {
+            request(lastPage() + 1);
+        }
+        if (mFirstPage > 1 && firstVisibleItem < PREFETCH_DISTANCE) {
+            request(mFirstPage - 1);
+        }
+    }
+
+    /**
+     * Returns the page number of the last page in the window.
+     */
+    private int lastPage() {
+        return mFirstPage + mPages.size() - 1;
+    }
+
+    /**
+     * Load the given page unless it is already being loaded.
+     */
+    private void request(final int page) {
+        if (mInFlight.containsKey(page)) {
+            return;
+        }
+        final CancellationToken token = new CancellationToken();
+        mInFlight.put(page, token);
+
+        final String url = mUrl;
+        final int generation = mGeneration;
+        mBackgroundExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final List<Article> articles = mPageLoader.loadPage(url, page, token);
+                mCallbackExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        onPageLoaded(generation, page, articles);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Add a loaded page to the window, dropping the page at the other end if the window is full.
+     */
+    private void onPageLoaded(int generation, int page, List<Article> articles) {
+        if (generation != mGeneration) {
+            // The page belongs to a query the user has moved away from.
+            return;
+        }
+        // No longer in flight, so a failed page is requested again on the next scroll.
+        mInFlight.remove(page);
+        if (articles == null) {
+            return;
+        }
+
+        if (page == lastPage() + 1) {
+            if (articles.size() < PAGE_SIZE) {
+                // A short page means there is nothing more to load.
+                mEndReached = true;
+            }
+            if (articles.isEmpty()) {
+                return;
+            }
+            mPages.addLast(withoutHeld(articles));
+            if (mPages.size() > MAX_PAGES) {
+                mPages.removeFirst();
+                mFirstPage++;
+            }
+            mListener.onArticlesChanged(flatten());
+
+        } else if (page == mFirstPage - 1) {
+            // New stories shift the pages, the reloaded page may repeat articles of the window.
+            mPages.addFirst(withoutHeld(articles));
+            mFirstPage--;
+            if (mPages.size() > MAX_PAGES) {
+                mPages.removeLast();
+                // The dropped page can be loaded again.
+                mEndReached = false;
+            }
+            mListener.onArticlesChanged(flatten());
+        }
+    }
+
+    /**
+     * Returns the articles of the page that are not in the window yet, in the same order.
+     */
+    private List<Article> withoutHeld(List<Article> page) {
+        Set<String> held = new HashSet<>();
+        for (List<Article> articles : mPages) {
+            for (Article article : articles) {
+                held.add(article.getUrl());
+            }
+        }
+        List<Article> articles = new ArrayList<>(page.size());
+        for (Article article : page) {
+            if (!held.contains(article.getUrl())) {
+                articles.add(article);
+            }
+        }
+        return articles;
+    }
+
+    /**
+     * Returns the articles of all pages in the window.
+     */
+    private List<Article> flatten() {
+        List<Article> articles = new ArrayList<>(mPages.size() * PAGE_SIZE);
+        for (List<Article> page : mPages) {
+            articles.addAll(page);
+        }
+        return articles;
+    }
+}
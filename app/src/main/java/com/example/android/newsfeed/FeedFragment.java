@@ -0,0 +1,541 @@
+package com.example.android.newsfeed;
+
+import android.app.Fragment;
+import android.app.LoaderManager;
+import android.content.Context;
+import android.content.Loader;
+import android.os.AsyncTask;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v4.content.ContextCompat;
+import android.support.v4.widget.SwipeRefreshLayout;
+import android.support.v7.widget.DividerItemDecoration;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import static com.example.android.newsfeed.MainActivity.LOG_TAG;
+
+/**
+ * The feed of one tab of the main screen.
+ * <p>
+ * Every tab owns its loader, so the tabs next to the one on screen, which the pager keeps
+ * alive, load in the background and are ready before the user swipes to them. The articles a
+ * tab loaded are kept in the {@link FeedMemoryCache}, so a tab the pager destroyed shows them
+ * again right away when it comes back, while its loader refreshes them.
+ * <p>
+ * Every article the user opens teaches the {@link InterestProfile}. With the "For You" order,
+ * the feed is ranked by an {@link ArticleRanker} on a background thread before it is shown,
+ * which only scores the articles that are new since the last ranking.
+ * <p>
+ * The articles that tell the same story, from several sections or refreshes, are grouped by
+ * the {@link StoryClusterer} on the same thread, and the list shows one row per story.
+ */
+public class FeedFragment extends Fragment implements LoaderManager.LoaderCallbacks<List<Article>> {
+
+    /**
+     * Constant value for the article loader ID. Every tab has a loader manager of its own.
+     */
+    private static final int ARTICLE_LOADER_ID = 1;
+
+    private static final String ARG_URLS = "urls";
+
+    private static final String ARG_SNAPSHOT = "snapshot";
+
+    /**
+     * Name of the snapshot of the last feed shown in the first tab, in the cache directory
+     */
+    private static final String SNAPSHOT_FILE_NAME = "feed.snapshot";
+
+    /**
+     * Ranks the feeds and groups their stories one after the other, off the main thread.
+     */
+    private static final Executor FEED_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    /**
+     * Adapter for the list of articles
+     */
+    ArticleAdapter adapter;
+    // TextView to display the empty state(No internet or No data to display)
+    TextView emptyStateTextView;
+
+    // Loading progressBar to display while waiting to receive data from the internet
+    ProgressBar progressBar;
+
+    /**
+     * Refreshes the feed when the user pulls the list down
+     */
+    SwipeRefreshLayout swipeRefreshLayout;
+
+    /**
+     * Saves the article bodies for the reader
+     */
+    ArticleBodyStore bodyStore;
+
+    /**
+     * Loads the pages after the first one while the user scrolls
+     */
+    ArticlePager pager;
+
+    /**
+     * The articles of the feed, shown again when the search is closed
+     */
+    List<Article> feedArticles = new ArrayList<>();
+
+    /**
+     * The text being searched for, or null when the feed is shown
+     */
+    String searchQuery;
+
+    /**
+     * Whether the feed is ordered for the user
+     */
+    boolean personalized;
+
+    /**
+     * Orders the feed for the user, created and only used on {@link #FEED_EXECUTOR} since it
+     * reads the profile from the disk. Null until the first personalized feed is ranked.
+     */
+    ArticleRanker ranker;
+
+    /**
+     * Incremented on every feed shown so that only the latest stories are applied
+     */
+    int feedGeneration;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Query URLs of the feed
+     */
+    private List<String> mUrls;
+
+    /**
+     * URLs of the articles the feed holds, the ones its search results are taken from
+     */
+    private final Set<String> mArticleUrls = new HashSet<>();
+
+    /**
+     * Whether the feed is shown from the snapshot at startup and saved to it
+     */
+    private boolean mSnapshot;
+
+    /**
+     * Returns a new {@link FeedFragment} showing the feed of the given tab.
+     *
+     * @param snapshot is true for the first tab, whose feed is saved for the next startup
+     */
+    public static FeedFragment newInstance(FeedTab tab, boolean snapshot) {
+        Bundle arguments = new Bundle();
+        arguments.putStringArrayList(ARG_URLS, tab.getUrls());
+        arguments.putBoolean(ARG_SNAPSHOT, snapshot);
+        FeedFragment fragment = new FeedFragment();
+        fragment.setArguments(arguments);
+        return fragment;
+    }
+
+    @Override
+    public void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        mUrls = getArguments().getStringArrayList(ARG_URLS);
+        mSnapshot = getArguments().getBoolean(ARG_SNAPSHOT);
+        personalized = Personalization.isEnabled(getActivity());
+    }
+
+    @Override
+    public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
+        View view = inflater.inflate(R.layout.fragment_feed, container, false);
+
+        // Find a reference to the {@link RecyclerView} in the layout
+        RecyclerView recyclerView = view.findViewById(R.id.list);
+        final LinearLayoutManager layoutManager = new LinearLayoutManager(getActivity());
+        recyclerView.setLayoutManager(layoutManager);
+        DividerItemDecoration divider = new DividerItemDecoration(getActivity(), DividerItemDecoration.VERTICAL);
+        divider.setDrawable(ContextCompat.getDrawable(getActivity(), R.drawable.list_divider));
+        recyclerView.addItemDecoration(divider);
+
+        // Create a new adapter that starts with an empty list of articles. A click on an item
+        // opens the article in the reader, which shows the saved body without the network,
+        // and tells the profile what the user likes to read.
+        adapter = new ArticleAdapter(new ArticleAdapter.OnItemClickListener() {
+            @Override
+            public void onItemClick(Article currentArticle) {
+                Personalization.recordClick(getActivity(), currentArticle);
+                startActivity(ReaderActivity.newIntent(getActivity(), currentArticle));
+            }
+        }, ImagePipeline.getInstance(getActivity()));
+        // A click on the section or the author of an item lists the articles of either that
+        // the app stored, without the network.
+        adapter.setOnLabelClickListener(new ArticleAdapter.OnLabelClickListener() {
+            @Override
+            public void onSectionClick(String section) {
+                startActivity(FilteredFeedActivity.newSectionIntent(getActivity(), section));
+            }
+
+            @Override
+            public void onAuthorClick(String author) {
+                startActivity(FilteredFeedActivity.newAuthorIntent(getActivity(), author));
+            }
+        });
+        bodyStore = ArticleBodyStore.getInstance(getActivity());
+
+        // Set the adapter on the recycler view
+        recyclerView.setAdapter(adapter);
+
+        // The empty view is only visible when the list has no items.
+        emptyStateTextView = view.findViewById(R.id.empty_state);
+        adapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onChanged() {
+                updateEmptyState();
+            }
+
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                updateEmptyState();
+            }
+
+            @Override
+            public void onItemRangeRemoved(int positionStart, int itemCount) {
+                updateEmptyState();
+            }
+        });
+
+        // Hand the loaded pages back on the main thread, where the adapter lives.
+        Executor mainThreadExecutor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                mMainHandler.post(command);
+            }
+        };
+        // Store the pages in the database as they come, like the first one.
+        final ArticleDatabase database = ArticleDatabase.getInstance(getActivity());
+        ArticlePager.PageLoader pageLoader = new ArticlePager.PageLoader() {
+            @Override
+            public List<Article> loadPage(String url, int page, CancellationToken token) {
+                List<Article> articles = ArticlePager.NETWORK.loadPage(url, page, token);
+                if (articles != null) {
+                    database.upsert(articles);
+                }
+                return articles;
+            }
+        };
+        pager = new ArticlePager(pageLoader, AsyncTask.THREAD_POOL_EXECUTOR, mainThreadExecutor,
+                new ArticlePager.Listener() {
+                    @Override
+                    public void onArticlesChanged(List<Article> articles) {
+                        holdArticles(articles);
+                        if (searchQuery == null) {
+                            // The adapter only rebinds the rows that changed and keeps the
+                            // rows on screen where they are.
+                            showFeed(articles);
+                        }
+                    }
+                });
+
+        // Request the next page before the user reaches the end of the list, and save the
+        // bodies of the rows on screen and after them once the list settles.
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+                if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                    int firstVisibleItem = layoutManager.findFirstVisibleItemPosition();
+                    if (firstVisibleItem != RecyclerView.NO_POSITION) {
+                        prefetchBodies(firstVisibleItem, layoutManager.findLastVisibleItemPosition());
+                    }
+                }
+            }
+
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                int firstVisibleItem = layoutManager.findFirstVisibleItemPosition();
+                int lastVisibleItem = layoutManager.findLastVisibleItemPosition();
+                if (firstVisibleItem != RecyclerView.NO_POSITION && searchQuery == null) {
+                    pager.onScroll(firstVisibleItem, lastVisibleItem - firstVisibleItem + 1, adapter.getItemCount());
+                }
+            }
+        });
+
+        // Pulling the list down fetches the articles published since the newest one shown.
+        swipeRefreshLayout = view.findViewById(R.id.swipe_refresh);
+        swipeRefreshLayout.setOnRefreshListener(new SwipeRefreshLayout.OnRefreshListener() {
+            @Override
+            public void onRefresh() {
+                Loader<List<Article>> loader = getLoaderManager().getLoader(ARTICLE_LOADER_ID);
+                if (loader == null) {
+                    swipeRefreshLayout.setRefreshing(false);
+                    return;
+                }
+                ((ArticleAsyncTask) loader).refresh();
+            }
+        });
+
+        // Show what the tab held last time before the first frame, the loader replaces it.
+        progressBar = view.findViewById(R.id.progress_bar);
+        List<Article> held = FeedMemoryCache.getInstance().get(QueryUtils.cacheKey(mUrls));
+        if (held != null) {
+            showArticles(held);
+        } else if (mSnapshot) {
+            showSnapshot();
+        }
+
+        MainActivity activity = (MainActivity) getActivity();
+        searchQuery = activity.getSearchQuery();
+        if (searchQuery != null) {
+            showSearchResults(searchQuery);
+        }
+        activity.addFeed(this);
+        return view;
+    }
+
+    @Override
+    public void onActivityCreated(Bundle savedInstanceState) {
+        super.onActivityCreated(savedInstanceState);
+
+        // Initialize the loader even without a connection, it serves the cached articles first.
+        // A loader kept across a configuration change delivers its articles again right away.
+        getLoaderManager().initLoader(ARTICLE_LOADER_ID, null, this);
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        ((MainActivity) getActivity()).removeFeed(this);
+    }
+
+    @Override
+    public void setUserVisibleHint(boolean isVisibleToUser) {
+        super.setUserVisibleHint(isVisibleToUser);
+        if (isVisibleToUser && adapter != null && adapter.getItemCount() > 0) {
+            // The tab was loaded in the background, save the bodies of its first rows now.
+            prefetchBodies(0, 2 * ArticleBodyStore.PREFETCH_AHEAD - 1);
+        }
+    }
+
+    @Override
+    public Loader<List<Article>> onCreateLoader(int i, Bundle bundle) {
+
+        // One query for the tab's section, or one per followed source for the merged feed.
+        return new ArticleAsyncTask(getActivity(), mUrls);
+    }
+
+    @Override
+    public void onLoadFinished(Loader<List<Article>> loader, List<Article> articles) {
+        long start = System.nanoTime();
+
+        // New articles of an incremental refresh go in front of the pages already loaded.
+        // Otherwise start paging over from the first page. The pager replaces the adapter's
+        // data set with the new articles, which triggers the RecyclerView to update. A feed
+        // merged from several sources has no URL and is not paged.
+        ArticleAsyncTask articleLoader = (ArticleAsyncTask) loader;
+        List<Article> newArticles = articleLoader.getNewArticles(articles);
+        if (newArticles == null || !pager.prepend(newArticles)) {
+            pager.reset(articleLoader.getUrl(), articles);
+        }
+        swipeRefreshLayout.setRefreshing(false);
+
+        updateEmptyStateText();
+        progressBar.setVisibility(View.GONE);
+
+        if (articles != null && !articles.isEmpty()) {
+            FeedMemoryCache.getInstance().put(QueryUtils.cacheKey(mUrls), articles);
+            if (mSnapshot) {
+                saveSnapshot(articles);
+            }
+            if (getUserVisibleHint()) {
+                // The list shows its first rows after a load, about a screen and the rows after it.
+                bodyStore.prefetch(getActivity(), articles.subList(0, Math.min(articles.size(), 2 * ArticleBodyStore.PREFETCH_AHEAD)));
+            }
+        }
+
+        Metrics.getInstance().recordSince(Metrics.LOAD_FINISHED, start);
+        if (articles != null && !articles.isEmpty()) {
+            ((MainActivity) getActivity()).onFeedShown();
+        }
+    }
+
+    @Override
+    public void onLoaderReset(Loader<List<Article>> loader) {
+        // Loader reset, so we can clear out our existing data.
+        pager.reset(null, null);
+    }
+
+    /**
+     * Show the articles of this feed matching the query, straight from the local search index.
+     * The index is shared by every tab, so each tab only keeps the articles it has held.
+     */
+    void showSearchResults(String query) {
+        searchQuery = query;
+        feedGeneration++;
+        adapter.setArticles(ArticleSearchIndex.getInstance().search(query,
+                ArticleSearchIndex.DEFAULT_LIMIT, mArticleUrls));
+        updateEmptyStateText();
+    }
+
+    /**
+     * Go back to the articles of the feed.
+     */
+    void closeSearch() {
+        searchQuery = null;
+        showFeed(feedArticles);
+        updateEmptyStateText();
+    }
+
+    /**
+     * Make the given articles the feed, and search among them alone. The articles a refresh,
+     * a reset or the pager's window dropped are not searched anymore.
+     */
+    private void holdArticles(List<Article> articles) {
+        feedArticles = articles;
+        mArticleUrls.clear();
+        for (Article article : articles) {
+            mArticleUrls.add(article.getUrl());
+        }
+    }
+
+    /**
+     * Show the given articles until the loader delivers.
+     */
+    private void showArticles(List<Article> articles) {
+        holdArticles(articles);
+        showFeed(articles);
+        progressBar.setVisibility(View.GONE);
+    }
+
+    /**
+     * Hand the stories of the feed to the adapter, one row per story, after ranking the
+     * articles for the user if the feed is ordered for them.
+     */
+    private void showFeed(final List<Article> articles) {
+        final int generation = ++feedGeneration;
+        if (articles.isEmpty()) {
+            adapter.setArticles(articles);
+            return;
+        }
+
+        final Context context = getActivity().getApplicationContext();
+        FEED_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                List<Article> ordered = articles;
+                if (personalized) {
+                    if (ranker == null) {
+                        ranker = new ArticleRanker(Personalization.getProfile(context), Clock.SYSTEM);
+                    }
+                    long start = System.nanoTime();
+                    ordered = ranker.rank(articles);
+                    Metrics.getInstance().recordSince(Metrics.RANK, start);
+                }
+                long start = System.nanoTime();
+                final List<StoryClusterer.Story> stories = StoryClusterer.cluster(ordered);
+                Metrics.getInstance().recordSince(Metrics.CLUSTER, start);
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        // Drop stories that a newer feed or the search replaced.
+                        if (generation == feedGeneration && searchQuery == null && isAdded()) {
+                            adapter.setStories(stories);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Save the bodies of the given rows and of the next {@link ArticleBodyStore#PREFETCH_AHEAD}
+     * ones in the background.
+     */
+    private void prefetchBodies(int firstRow, int lastRow) {
+        int end = Math.min(adapter.getItemCount(), lastRow + 1 + ArticleBodyStore.PREFETCH_AHEAD);
+        List<Article> rows = new ArrayList<>();
+        for (int i = Math.max(firstRow, 0); i < end; i++) {
+            rows.add(adapter.getItem(i));
+        }
+        bodyStore.prefetch(getActivity(), rows);
+    }
+
+    /**
+     * Returns the file holding the snapshot of the last feed shown.
+     */
+    private File getSnapshotFile() {
+        return new File(getActivity().getCacheDir(), SNAPSHOT_FILE_NAME);
+    }
+
+    /**
+     * Show the snapshot of the last feed, if any. It is read on the main thread on purpose:
+     * mapping a few kilobytes is faster than a frame, and the list is then drawn with content
+     * right away.
+     */
+    private void showSnapshot() {
+        long start = System.nanoTime();
+        List<Article> snapshot;
+        try {
+            snapshot = FeedSnapshot.read(getSnapshotFile());
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Problem reading the feed snapshot.", e);
+            getSnapshotFile().delete();
+            return;
+        }
+        Metrics.getInstance().recordSince(Metrics.SNAPSHOT_READ, start);
+        if (snapshot == null || snapshot.isEmpty()) {
+            return;
+        }
+
+        showArticles(snapshot);
+        ArticleSearchIndex.getInstance().addAll(snapshot);
+    }
+
+    /**
+     * Replace the snapshot with the given articles, in the background.
+     */
+    private void saveSnapshot(final List<Article> articles) {
+        final File file = getSnapshotFile();
+        // The serial executor keeps two saves from writing the file at the same time.
+        AsyncTask.SERIAL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    FeedSnapshot.write(file, articles);
+                } catch (IOException e) {
+                    Log.e(LOG_TAG, "Problem writing the feed snapshot.", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Explain why the list is empty: no match for the search, no connection or no articles.
+     */
+    private void updateEmptyStateText() {
+        if (searchQuery != null) {
+            emptyStateTextView.setText(R.string.no_search_results);
+        } else if (QueryUtils.isConnected(getActivity())) {
+            emptyStateTextView.setText(R.string.no_data_to_display);
+        } else {
+            emptyStateTextView.setText(R.string.no_internet_connection);
+        }
+    }
+
+    /**
+     * Show the empty state view only when there are no articles to display.
+     */
+    private void updateEmptyState() {
+        emptyStateTextView.setVisibility(adapter.getItemCount() == 0 ? View.VISIBLE : View.GONE);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.android.newsfeed;
+
+import android.app.Fragment;
+import android.app.FragmentManager;
+import android.support.v13.app.FragmentStatePagerAdapter;
+import android.support.v4.view.PagerAdapter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Gives the pager of the main screen a {@link FeedFragment} for each tab.
+ * <p>
+ * The fragments of the tabs away from the pager's offscreen limit are destroyed together
+ * with their loader and their pages, so the memory the tabs take does not grow with their
+ * number.
+ */
+public class FeedPagerAdapter extends FragmentStatePagerAdapter {
+
+    private List<FeedTab> mTabs = new ArrayList<>();
+
+    /**
+     * Constructs a new {@link FeedPagerAdapter}.
+     *
+     * @param fragmentManager is the fragment manager of the activity showing the pager
+     */
+    public FeedPagerAdapter(FragmentManager fragmentManager) {
+        super(fragmentManager);
+    }
+
+    /**
+     * Replace the tabs, which recreates the fragment of every tab for its new query.
+     */
+    public void setTabs(List<FeedTab> tabs) {
+        mTabs = tabs;
+        notifyDataSetChanged();
+    }
+
+    @Override
+    public Fragment getItem(int position) {
+        // Only the first tab is restored from the snapshot at startup.
+        return FeedFragment.newInstance(mTabs.get(position), position == 0);
+    }
+
+    @Override
+    public int getItemPosition(Object object) {
+        // The query of a tab may have changed, never keep a fragment across setTabs.
+        return PagerAdapter.POSITION_NONE;
+    }
+
+    @Override
+    public int getCount() {
+        return mTabs.size();
+    }
+
+    @Override
+    public CharSequence getPageTitle(int position) {
+        return mTabs.get(position).getTitle();
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.android.newsfeed;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.app.job.JobInfo;
+import android.app.job.JobScheduler;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.SharedPreferences;
+import android.net.ConnectivityManager;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.os.SystemClock;
+import android.preference.PreferenceManager;
+import android.support.v4.net.ConnectivityManagerCompat;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Refreshes the followed queries in the background and stores them in the {@link ArticleCache},
+ * so that opening the app only reads the cache, and in the {@link ArticleDatabase}. Every tab is
+ * stored: the merged feed of the first one, and the query of each followed source for the others.
+ * <p>
+ * All the queries are fetched in a single run, and the runs are left to the system scheduler
+ * so that they are batched with the wakeups of other apps. On Lollipop and later two periodic
+ * jobs are scheduled, one requiring an unmetered network and one requiring the charger, and
+ * whichever runs first does the refresh. Older versions use an inexact repeating alarm and
+ * check the network and the charger themselves.
+ */
+public final class FeedSync {
+
+    /**
+     * Decides when a refresh runs and how long its articles are shown without a new request.
+     */
+    public static final SyncPolicy POLICY = new SyncPolicy(Clock.SYSTEM, SyncPolicy.DEFAULT_INTERVAL_MILLIS);
+
+    /**
+     * Job that runs on an unmetered network
+     */
+    private static final int JOB_ID_UNMETERED = 1;
+
+    /**
+     * Job that runs while charging, on any network
+     */
+    private static final int JOB_ID_CHARGING = 2;
+
+    /**
+     * Preference holding the time the last refresh finished
+     */
+    private static final String KEY_LAST_SYNC = "last_background_sync";
+
+    /**
+     * Create a private constructor because no one should ever create a {@link FeedSync} object.
+     */
+    private FeedSync() {
+    }
+
+    /**
+     * Schedule the periodic refresh unless it is already scheduled.
+     */
+    public static void schedule(Context context) {
+        context = context.getApplicationContext();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            scheduleJobs(context);
+        } else {
+            scheduleAlarm(context);
+        }
+    }
+
+    private static void scheduleJobs(Context context) {
+        JobScheduler scheduler = (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+
+        // Rescheduling a job restarts its period, so leave the pending ones alone.
+        boolean unmeteredPending = false;
+        boolean chargingPending = false;
+        for (JobInfo job : scheduler.getAllPendingJobs()) {
+            unmeteredPending |= job.getId() == JOB_ID_UNMETERED;
+            chargingPending |= job.getId() == JOB_ID_CHARGING;
+        }
+
+        ComponentName service = new ComponentName(context, FeedSyncJobService.class);
+        if (!unmeteredPending) {
+            scheduler.schedule(new JobInfo.Builder(JOB_ID_UNMETERED, service)
+                    .setRequiredNetworkType(JobInfo.NETWORK_TYPE_UNMETERED)
+                    .setPeriodic(POLICY.getIntervalMillis())
+                    .setPersisted(true)
+                    .build());
+        }
+        if (!chargingPending) {
+            scheduler.schedule(new JobInfo.Builder(JOB_ID_CHARGING, service)
+                    .setRequiredNetworkType(JobInfo.NETWORK_TYPE_ANY)
+                    .setRequiresCharging(true)
+                    .setPeriodic(POLICY.getIntervalMillis())
+                    .setPersisted(true)
+                    .build());
+        }
+    }
+
+    private static void scheduleAlarm(Context context) {
+        Intent intent = new Intent(context, FeedSyncService.class);
+        if (PendingIntent.getService(context, 0, intent, PendingIntent.FLAG_NO_CREATE) != null) {
+            return;
+        }
+
+        // The alarm does not wake the device up, it runs along with the next wakeup instead.
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        long interval = POLICY.getIntervalMillis();
+        alarmManager.setInexactRepeating(AlarmManager.ELAPSED_REALTIME,
+                SystemClock.elapsedRealtime() + interval, interval,
+                PendingIntent.getService(context, 0, intent, 0));
+    }
+
+    /**
+     * Refresh the followed queries if the policy allows it. Blocks until they are stored, so
+     * call it on a background thread.
+     */
+    static synchronized void sync(Context context) {
+        SharedPreferences sharedPrefs = PreferenceManager.getDefaultSharedPreferences(context);
+        if (!POLICY.shouldSync(new AndroidDeviceState(context), sharedPrefs.getLong(KEY_LAST_SYNC, 0))) {
+            return;
+        }
+
+        // Fetch every query of the feed in this one run.
+        List<String> urls = QueryUtils.buildQueryUrls(context);
+        Map<String, List<Article>> bySource = Collections.synchronizedMap(new HashMap<String, List<Article>>());
+        List<Article> articles;
+        try {
+            articles = QueryUtils.fetchFeedData(urls, bySource);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (articles == null) {
+            return;
+        }
+
+        ArticleCache cache = ArticleCache.getInstance(context);
+        cache.put(QueryUtils.cacheKey(urls), articles);
+        if (urls.size() > 1) {
+            // The tab of each followed source loads its query alone, under its own key.
+            for (Map.Entry<String, List<Article>> source : bySource.entrySet()) {
+                cache.put(QueryUtils.cacheKey(Collections.singletonList(source.getKey())), source.getValue());
+            }
+        }
+        ArticleDatabase.getInstance(context).upsert(articles);
+        sharedPrefs.edit().putLong(KEY_LAST_SYNC, Clock.SYSTEM.currentTimeMillis()).apply();
+    }
+
+    /**
+     * Reads the network and the charger state from the system services.
+     */
+    private static class AndroidDeviceState implements SyncPolicy.DeviceState {
+        private final Context mContext;
+
+        AndroidDeviceState(Context context) {
+            mContext = context.getApplicationContext();
+        }
+
+        @Override
+        public boolean isConnected() {
+            return QueryUtils.isConnected(mContext);
+        }
+
+        @Override
+        public boolean isUnmetered() {
+            ConnectivityManager connectivityManager =
+                    (ConnectivityManager) mContext.getSystemService(Context.CONNECTIVITY_SERVICE);
+            return !ConnectivityManagerCompat.isActiveNetworkMetered(connectivityManager);
+        }
+
+        @Override
+        public boolean isCharging() {
+            // The battery broadcast is sticky, registering without a receiver just reads it.
+            Intent battery = mContext.registerReceiver(null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+            return battery != null && battery.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
+        }
+    }
+}
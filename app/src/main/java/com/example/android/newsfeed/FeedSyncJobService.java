@@ -0,0 +1,34 @@
+package com.example.android.newsfeed;
+
+import android.annotation.TargetApi;
+import android.app.job.JobParameters;
+import android.app.job.JobService;
+import android.os.AsyncTask;
+import android.os.Build;
+
+/**
+ * Runs the background refresh when one of the jobs scheduled in
+ * {@link FeedSync#schedule(android.content.Context)} is due.
+ */
+@TargetApi(Build.VERSION_CODES.LOLLIPOP)
+public class FeedSyncJobService extends JobService {
+
+    @Override
+    public boolean onStartJob(final JobParameters params) {
+        // Jobs are started on the main thread, do the network work in the background.
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                FeedSync.sync(getApplicationContext());
+                jobFinished(params, false);
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        // The job is periodic, the next period will try again.
+        return false;
+    }
+}
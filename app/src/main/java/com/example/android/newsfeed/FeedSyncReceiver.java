@@ -0,0 +1,18 @@
+package com.example.android.newsfeed;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+/**
+ * Schedules the background refresh again after a reboot, which clears the alarms.
+ */
+public class FeedSyncReceiver extends BroadcastReceiver {
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (Intent.ACTION_BOOT_COMPLETED.equals(intent.getAction())) {
+            FeedSync.schedule(context);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.android.newsfeed;
+
+import android.app.IntentService;
+import android.content.Intent;
+
+/**
+ * Runs the background refresh on versions without a job scheduler, started by the alarm
+ * set in {@link FeedSync#schedule(android.content.Context)}.
+ */
+public class FeedSyncService extends IntentService {
+
+    public FeedSyncService() {
+        super("FeedSyncService");
+    }
+
+    @Override
+    protected void onHandleIntent(Intent intent) {
+        FeedSync.sync(this);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.android.newsfeed;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A tab of the main screen: its title and the query URLs of its feed.
+ */
+public class FeedTab {
+
+    private final String mTitle;
+
+    private final ArrayList<String> mUrls;
+
+    /**
+     * Constructs a new {@link FeedTab}.
+     *
+     * @param title is the title of the tab
+     * @param urls  are the query URLs of its feed
+     */
+    public FeedTab(String title, List<String> urls) {
+        mTitle = title;
+        mUrls = new ArrayList<>(urls);
+    }
+
+    /**
+     * Returns the title of the tab.
+     */
+    public String getTitle() {
+        return mTitle;
+    }
+
+    /**
+     * Returns the query URLs of the feed of the tab.
+     */
+    public ArrayList<String> getUrls() {
+        return mUrls;
+    }
+
+    /**
+     * Returns the key the articles of the tab are cached under.
+     */
+    public String getCacheKey() {
+        return QueryUtils.cacheKey(mUrls);
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.android.newsfeed;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v4.content.ContextCompat;
+import android.support.v7.app.AppCompatActivity;
+import android.support.v7.widget.DividerItemDecoration;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Lists the articles of a section or of an author that the app has loaded, newest first,
+ * straight from the {@link ArticleDatabase} and without any request to the Guardian.
+ * <p>
+ * The articles are read a page of {@link ArticleDatabase#PAGE_SIZE} at a time, the next page
+ * when the user scrolls close to the end of the ones read so far.
+ */
+public class FilteredFeedActivity extends AppCompatActivity {
+
+    private static final String EXTRA_SECTION = "section";
+    private static final String EXTRA_AUTHOR = "author";
+
+    /**
+     * Reads the pages one after the other, off the main thread.
+     */
+    private static final Executor DATABASE_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    /**
+     * Adapter for the list of articles
+     */
+    ArticleAdapter adapter;
+
+    // TextView to display when no article was stored
+    TextView emptyStateTextView;
+
+    // Loading progressBar to display while the first page is read
+    ProgressBar progressBar;
+
+    /**
+     * The section listed, or null if the articles of an author are listed
+     */
+    String section;
+
+    /**
+     * The author listed, or null if the articles of a section are listed
+     */
+    String author;
+
+    /**
+     * The articles read so far
+     */
+    List<Article> articles = new ArrayList<>();
+
+    /**
+     * Whether a page is being read
+     */
+    boolean loading;
+
+    /**
+     * Whether the last page has been read
+     */
+    boolean endReached;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Returns the intent that lists the stored articles of the given section.
+     */
+    public static Intent newSectionIntent(Context context, String section) {
+        Intent intent = new Intent(context, FilteredFeedActivity.class);
+        intent.putExtra(EXTRA_SECTION, section);
+        return intent;
+    }
+
+    /**
+     * Returns the intent that lists the stored articles of the given author.
+     */
+    public static Intent newAuthorIntent(Context context, String author) {
+        Intent intent = new Intent(context, FilteredFeedActivity.class);
+        intent.putExtra(EXTRA_AUTHOR, author);
+        return intent;
+    }
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_filtered_feed);
+
+        section = getIntent().getStringExtra(EXTRA_SECTION);
+        author = getIntent().getStringExtra(EXTRA_AUTHOR);
+        setTitle(section != null ? section : author);
+
+        RecyclerView recyclerView = findViewById(R.id.filtered_list);
+        final LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        recyclerView.setLayoutManager(layoutManager);
+        DividerItemDecoration divider = new DividerItemDecoration(this, DividerItemDecoration.VERTICAL);
+        divider.setDrawable(ContextCompat.getDrawable(this, R.drawable.list_divider));
+        recyclerView.addItemDecoration(divider);
+
+        // A click on an item opens the article in the reader, a click on its section or author
+        // lists theirs.
+        adapter = new ArticleAdapter(new ArticleAdapter.OnItemClickListener() {
+            @Override
+            public void onItemClick(Article currentArticle) {
+                Personalization.recordClick(FilteredFeedActivity.this, currentArticle);
+                startActivity(ReaderActivity.newIntent(FilteredFeedActivity.this, currentArticle));
+            }
+        }, ImagePipeline.getInstance(this));
+        adapter.setOnLabelClickListener(new ArticleAdapter.OnLabelClickListener() {
+            @Override
+            public void onSectionClick(String clickedSection) {
+                if (!clickedSection.equals(section)) {
+                    startActivity(newSectionIntent(FilteredFeedActivity.this, clickedSection));
+                }
+            }
+
+            @Override
+            public void onAuthorClick(String clickedAuthor) {
+                if (!clickedAuthor.equals(author)) {
+                    startActivity(newAuthorIntent(FilteredFeedActivity.this, clickedAuthor));
+                }
+            }
+        });
+        recyclerView.setAdapter(adapter);
+
+        emptyStateTextView = findViewById(R.id.filtered_empty_state);
+        progressBar = findViewById(R.id.filtered_progress_bar);
+
+        // Read the next page before the user reaches the end of the list.
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                int lastVisibleItem = layoutManager.findLastVisibleItemPosition();
+                if (lastVisibleItem >= articles.size() - ArticleDatabase.PAGE_SIZE / 2) {
+                    loadNextPage();
+                }
+            }
+        });
+
+        loadNextPage();
+    }
+
+    /**
+     * Read the page after the articles read so far in the background, and append it.
+     */
+    private void loadNextPage() {
+        if (loading || endReached) {
+            return;
+        }
+        loading = true;
+        final Article after = articles.isEmpty() ? null : articles.get(articles.size() - 1);
+        final ArticleDatabase database = ArticleDatabase.getInstance(this);
+        DATABASE_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final List<Article> page = section != null
+                        ? database.querySection(section, after, ArticleDatabase.PAGE_SIZE)
+                        : database.queryAuthor(author, after, ArticleDatabase.PAGE_SIZE);
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        showPage(page);
+                    }
+                });
+            }
+        });
+    }
+
+    private void showPage(List<Article> page) {
+        loading = false;
+        endReached = page.size() < ArticleDatabase.PAGE_SIZE;
+        if (isFinishing()) {
+            return;
+        }
+
+        List<Article> merged = new ArrayList<>(articles.size() + page.size());
+        merged.addAll(articles);
+        merged.addAll(page);
+        articles = merged;
+        adapter.setArticles(merged);
+
+        progressBar.setVisibility(View.GONE);
+        emptyStateTextView.setText(merged.isEmpty() ? getString(R.string.filtered_no_articles) : null);
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.android.newsfeed;
+
+import android.util.Log;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import static com.example.android.newsfeed.MainActivity.LOG_TAG;
+
+/**
+ * Disk backed store of downloaded images, one file per image URL.
+ * <p>
+ * Images are stored as they were downloaded and decoded from the file, so that they can be
+ * downsampled to whatever size is asked for. Once the files grow past the size limit the
+ * least recently used ones are deleted first.
+ */
+public class ImageDiskCache {
+
+    private static final String FILE_SUFFIX = ".image";
+
+    /**
+     * Directory holding one file per image
+     */
+    private final File mDirectory;
+
+    private final long mMaxBytes;
+
+    /**
+     * Total size of the files, or -1 until it has been computed
+     */
+    private long mSize = -1;
+
+    /**
+     * Constructs a new {@link ImageDiskCache}.
+     *
+     * @param directory is the directory the images are written to
+     * @param maxBytes  is the total size the images may take on disk
+     */
+    public ImageDiskCache(File directory, long maxBytes) {
+        mDirectory = directory;
+        mMaxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the file holding the image of the given URL, or null if it is not cached.
+     */
+    public synchronized File get(String url) {
+        File file = fileFor(url);
+        if (!file.exists()) {
+            return null;
+        }
+        // Mark the image as recently used so that it is the last one to be evicted.
+        file.setLastModified(System.currentTimeMillis());
+        return file;
+    }
+
+    /**
+     * Store the image read from the stream for the given URL, and return its file, or null if
+     * it could not be written. The stream is read to the end but not closed.
+     */
+    public File put(String url, InputStream in) {
+        File file = fileFor(url);
+        // Write to a temporary file first so that a crash never leaves a half written image.
+        // The download happens outside the lock, only the rename and the trim hold it.
+        File tmp = new File(file.getPath() + "." + Thread.currentThread().getId() + ".tmp");
+        OutputStream out = null;
+        try {
+            if (!mDirectory.exists() && !mDirectory.mkdirs()) {
+                Log.e(LOG_TAG, "Unable to create the image cache directory.");
+                return null;
+            }
+            out = new BufferedOutputStream(new FileOutputStream(tmp));
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            out.close();
+            out = null;
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Problem writing the cached image.", e);
+            closeQuietly(out);
+            tmp.delete();
+            return null;
+        }
+
+        synchronized (this) {
+            long previous = file.length();
+            if (!tmp.renameTo(file)) {
+                Log.e(LOG_TAG, "Unable to store the cached image.");
+                tmp.delete();
+                return null;
+            }
+            if (mSize >= 0) {
+                mSize += file.length() - previous;
+            }
+            trimToSize();
+        }
+        return file;
+    }
+
+    /**
+     * Delete the least recently used images until the cache fits in its size limit.
+     */
+    private void trimToSize() {
+        File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        if (mSize < 0) {
+            mSize = 0;
+            for (File file : files) {
+                if (file.getName().endsWith(FILE_SUFFIX)) {
+                    mSize += file.length();
+                }
+            }
+        }
+        if (mSize <= mMaxBytes) {
+            return;
+        }
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                long left = a.lastModified();
+                long right = b.lastModified();
+                return left < right ? -1 : (left == right ? 0 : 1);
+            }
+        });
+        for (File file : files) {
+            if (mSize <= mMaxBytes) {
+                break;
+            }
+            if (!file.getName().endsWith(FILE_SUFFIX)) {
+                // A download in progress, it is counted once it is renamed.
+                continue;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                mSize -= length;
+            }
+        }
+    }
+
+    /**
+     * Returns the file that holds the image of the given URL.
+     */
+    private File fileFor(String url) {
+        return new File(mDirectory, ArticleCache.hashKey(url) + FILE_SUFFIX);
+    }
+
+    private static void closeQuietly(OutputStream out) {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException ignored) {
+                // Nothing useful to do, the file is deleted anyway.
+            }
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package com.example.android.newsfeed;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.android.newsfeed.MainActivity.LOG_TAG;
+
+/**
+ * Loads the thumbnails of the list into {@link ImageView}s.
+ * <p>
+ * An image is looked up in a memory cache of decoded bitmaps, then in an {@link ImageDiskCache}
+ * of downloaded files, and only then downloaded. It is always decoded from the file straight
+ * to the size of the view it is shown in, so a large image never takes more memory than the
+ * row needs, and the memory cache is bounded by the bytes of its bitmaps.
+ * <p>
+ * A view only ever waits for one image: loading another one into it, or cancelling it when
+ * its row is recycled, drops the previous request before it is downloaded or decoded. The
+ * most recent requests are served first so the rows the user is looking at appear first
+ * during a fling, and at most {@link #MAX_CONCURRENT_DECODES} images are decoded at a time.
+ */
+public class ImagePipeline implements ComponentCallbacks2 {
+
+    /**
+     * Number of images downloaded at the same time
+     */
+    private static final int MAX_CONCURRENT_DOWNLOADS = 3;
+
+    /**
+     * Number of images decoded at the same time, each decode holds a full size buffer
+     */
+    private static final int MAX_CONCURRENT_DECODES = 2;
+
+    /**
+     * Share of the app's memory class the decoded bitmaps may take
+     */
+    private static final int MEMORY_CACHE_FRACTION = 8;
+
+    /**
+     * Upper bound for the total size of the downloaded images in bytes
+     */
+    private static final long DISK_CACHE_BYTES = 10 * 1024 * 1024;
+
+    private static final int TIMEOUT_MILLIS = 10000;
+
+    /**
+     * Number of memory cache keys kept, more than the bitmaps the memory cache holds
+     */
+    private static final int MAX_KEYS = 512;
+
+    private static ImagePipeline sInstance;
+
+    /**
+     * Decoded bitmaps by URL and size, bounded by their size in bytes
+     */
+    private final LruCache<String, Bitmap> mMemoryCache;
+
+    /**
+     * The memory cache key of each URL for the size it was last loaded at, so that binding a
+     * row to an image seen before does not build its key again
+     */
+    private final LruCache<String, Key> mKeys = new LruCache<>(MAX_KEYS);
+
+    private final ImageDiskCache mDiskCache;
+
+    private final ThreadPoolExecutor mDownloadExecutor = newLifoExecutor(MAX_CONCURRENT_DOWNLOADS);
+
+    private final ThreadPoolExecutor mDecodeExecutor = newLifoExecutor(MAX_CONCURRENT_DECODES);
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Constructs a new {@link ImagePipeline}.
+     *
+     * @param memoryCacheBytes is the total size the decoded bitmaps may take in memory
+     * @param diskCache        stores the downloaded images
+     */
+    public ImagePipeline(int memoryCacheBytes, ImageDiskCache diskCache) {
+        mMemoryCache = new LruCache<String, Bitmap>(memoryCacheBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+        };
+        mDiskCache = diskCache;
+    }
+
+    /**
+     * Returns the app wide pipeline, sized after the memory class of the device.
+     */
+    public static synchronized ImagePipeline getInstance(Context context) {
+        if (sInstance == null) {
+            Context appContext = context.getApplicationContext();
+            ActivityManager activityManager = (ActivityManager) appContext.getSystemService(Context.ACTIVITY_SERVICE);
+            int memoryCacheBytes = activityManager.getMemoryClass() * 1024 * 1024 / MEMORY_CACHE_FRACTION;
+            File directory = new File(appContext.getCacheDir(), "thumbnails");
+            sInstance = new ImagePipeline(memoryCacheBytes, new ImageDiskCache(directory, DISK_CACHE_BYTES));
+            // Give the bitmaps back when the system runs low on memory.
+            appContext.registerComponentCallbacks(sInstance);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Show the image of the given URL in the view, downsampled to the given size. The view is
+     * cleared while the image loads, and stays empty if the URL is null.
+     * Must be called on the main thread.
+     */
+    public void load(String url, ImageView view, int width, int height) {
+        cancel(view);
+        if (url == null) {
+            view.setImageDrawable(null);
+            return;
+        }
+
+        String key = key(url, width, height);
+        Bitmap bitmap = mMemoryCache.get(key);
+        if (bitmap != null) {
+            view.setImageBitmap(bitmap);
+            return;
+        }
+
+        view.setImageDrawable(null);
+        Request request = new Request(url, key, view, width, height);
+        view.setTag(R.id.image_request, request);
+        request.mFuture = mDownloadExecutor.submit(request.mDownload);
+    }
+
+    /**
+     * Drop the request of the view, if any, e.g. because its row was recycled.
+     * Must be called on the main thread.
+     */
+    public void cancel(ImageView view) {
+        Request request = (Request) view.getTag(R.id.image_request);
+        if (request != null) {
+            request.cancel();
+            view.setTag(R.id.image_request, null);
+        }
+    }
+
+    /**
+     * Returns the decoded image of the URL at the given size if it is in memory, or null.
+     */
+    Bitmap getCachedBitmap(String url, int width, int height) {
+        return mMemoryCache.get(key(url, width, height));
+    }
+
+    /**
+     * Keep the decoded image of the URL at the given size in memory, as a finished decode does.
+     */
+    void cacheBitmap(String url, int width, int height, Bitmap bitmap) {
+        mMemoryCache.put(key(url, width, height), bitmap);
+    }
+
+    /**
+     * Returns the bytes taken by the decoded images in memory.
+     */
+    int getMemoryCacheBytes() {
+        return mMemoryCache.size();
+    }
+
+    /**
+     * Returns the key of the image of the URL decoded to the given size.
+     */
+    private String key(String url, int width, int height) {
+        Key key = mKeys.get(url);
+        if (key == null || key.mWidth != width || key.mHeight != height) {
+            key = new Key(width, height, url + '@' + width + 'x' + height);
+            mKeys.put(url, key);
+        }
+        return key.mValue;
+    }
+
+    /**
+     * Returns the largest power of two to divide the image dimensions by so that it is still
+     * at least as large as the requested size.
+     */
+    static int calculateInSampleSize(int width, int height, int reqWidth, int reqHeight) {
+        int inSampleSize = 1;
+        if (reqWidth <= 0 || reqHeight <= 0) {
+            return inSampleSize;
+        }
+        while (width / (inSampleSize * 2) >= reqWidth && height / (inSampleSize * 2) >= reqHeight) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    /**
+     * Returns the image of the file decoded to about the requested size, or null if it is
+     * not an image.
+     */
+    private static Bitmap decodeSampled(File file, int reqWidth, int reqHeight) {
+        // Read the dimensions first, without allocating any pixels.
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getPath(), options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, reqWidth, reqHeight);
+        // Thumbnails are opaque JPEGs, two bytes per pixel are enough.
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        return BitmapFactory.decodeFile(file.getPath(), options);
+    }
+
+    /**
+     * Returns the file of the image, downloading it if it is not on disk yet.
+     */
+    private File download(String url) throws IOException {
+        File file = mDiskCache.get(url);
+        if (file != null) {
+            return file;
+        }
+
+        HttpURLConnection urlConnection = (HttpURLConnection) new URL(url).openConnection();
+        urlConnection.setReadTimeout(TIMEOUT_MILLIS);
+        urlConnection.setConnectTimeout(TIMEOUT_MILLIS);
+        InputStream in = null;
+        File stored = null;
+        try {
+            int responseCode = urlConnection.getResponseCode();
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Error response code: " + responseCode);
+            }
+            in = urlConnection.getInputStream();
+            stored = mDiskCache.put(url, in);
+            return stored;
+        } finally {
+            if (stored != null) {
+                // Closing a fully read response keeps the connection alive for the next image.
+                in.close();
+            } else {
+                // Nothing reads the error or the rest of the body, release the socket now
+                // instead of when the connection is collected.
+                urlConnection.disconnect();
+            }
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_MODERATE) {
+            // We are in the background and likely to be killed, free everything.
+            mMemoryCache.evictAll();
+        } else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            mMemoryCache.trimToSize(mMemoryCache.maxSize() / 2);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        mMemoryCache.evictAll();
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+
+    /**
+     * Returns an executor running the most recently submitted task first.
+     */
+    private static ThreadPoolExecutor newLifoExecutor(int threads) {
+        BlockingQueue<Runnable> stack = new LinkedBlockingDeque<Runnable>() {
+            @Override
+            public boolean offer(Runnable runnable) {
+                return offerFirst(runnable);
+            }
+        };
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, stack);
+    }
+
+    /**
+     * The memory cache key of a URL at one size.
+     */
+    private static class Key {
+        final int mWidth;
+        final int mHeight;
+        final String mValue;
+
+        Key(int width, int height, String value) {
+            mWidth = width;
+            mHeight = height;
+            mValue = value;
+        }
+    }
+
+    /**
+     * Loading one image into one view: download, decode, then show.
+     */
+    private class Request {
+        final String mUrl;
+        final String mKey;
+        final ImageView mView;
+        final int mWidth;
+        final int mHeight;
+
+        volatile boolean mCancelled;
+
+        /**
+         * The step that is queued or running
+         */
+        volatile Future<?> mFuture;
+
+        final Runnable mDownload = new Runnable() {
+            @Override
+            public void run() {
+                if (mCancelled) {
+                    return;
+                }
+                final File file;
+                try {
+                    file = download(mUrl);
+                } catch (IOException e) {
+                    Log.e(LOG_TAG, "Problem downloading the thumbnail.", e);
+                    return;
+                }
+                if (file != null && !mCancelled) {
+                    mFuture = mDecodeExecutor.submit(new Decode(file));
+                }
+            }
+        };
+
+        Request(String url, String key, ImageView view, int width, int height) {
+            mUrl = url;
+            mKey = key;
+            mView = view;
+            mWidth = width;
+            mHeight = height;
+        }
+
+        void cancel() {
+            mCancelled = true;
+            Future<?> future = mFuture;
+            if (future != null) {
+                // A queued step is skipped, a running one sees the flag when it is done.
+                future.cancel(false);
+            }
+        }
+
+        private class Decode implements Runnable {
+            private final File mFile;
+
+            Decode(File file) {
+                mFile = file;
+            }
+
+            @Override
+            public void run() {
+                if (mCancelled) {
+                    return;
+                }
+                final Bitmap bitmap = decodeSampled(mFile, mWidth, mHeight);
+                if (bitmap == null) {
+                    return;
+                }
+                mMemoryCache.put(mKey, bitmap);
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        // The view may have moved on to another article meanwhile.
+                        if (!mCancelled && mView.getTag(R.id.image_request) == Request.this) {
+                            mView.setTag(R.id.image_request, null);
+                            mView.setImageBitmap(bitmap);
+                        }
+                    }
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.android.newsfeed;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Message;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.Printer;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.android.newsfeed.MainActivity.LOG_TAG;
+
+/**
+ * Watches the main thread of debug builds: how long every message takes, and how long every
+ * frame takes while a screen is being watched.
+ * <p>
+ * The looper prints a line before and after each message it dispatches. While a message runs
+ * past {@link #MESSAGE_BUDGET_MILLIS}, a background thread samples the stack of the main thread
+ * every {@link #SAMPLE_INTERVAL_MILLIS}. Once the message is over, the method of the app found
+ * in most samples is blamed in a {@link SlowCallback}, logged with its stack and kept for the
+ * tests. Slow messages of the framework alone are not reported.
+ * <p>
+ * Frames are timed with a {@link Choreographer} callback into {@link JankStats}, between
+ * {@link #startFrames()} and {@link #stopFrames()}, so nothing runs every frame while the app
+ * is in the background. Release builds never start the monitor.
+ */
+public class JankMonitor implements Printer, Choreographer.FrameCallback {
+
+    /**
+     * Longest a message of the main thread may run, a frame at 60 fps
+     */
+    static final long MESSAGE_BUDGET_MILLIS = 16;
+
+    /**
+     * Interval between two samples of the stack of a message over budget
+     */
+    private static final long SAMPLE_INTERVAL_MILLIS = 8;
+
+    /**
+     * Samples taken at most for one message
+     */
+    private static final int MAX_SAMPLES = 20;
+
+    /**
+     * Slow callbacks kept at most, the oldest ones are dropped first
+     */
+    private static final int MAX_SLOW_CALLBACKS = 50;
+
+    /**
+     * Start of the class names of the app's code
+     */
+    private static final String PACKAGE_PREFIX = "com.example.android.newsfeed.";
+
+    private static final String DISPATCH_PREFIX = ">>>>> Dispatching";
+
+    /**
+     * What of the messages that take a sample, their arg1 is the sequence number of the message
+     * of the main thread they sample
+     */
+    private static final int MSG_SAMPLE = 1;
+
+    private static JankMonitor sInstance;
+
+    private final JankStats mFrameStats = new JankStats(JankStats.DEFAULT_FRAME_INTERVAL_NANOS);
+
+    /**
+     * Stacks of the main thread sampled during the current message
+     */
+    private final List<StackTraceElement[]> mSamples = new ArrayList<>();
+
+    private final List<SlowCallback> mSlowCallbacks = new ArrayList<>();
+
+    private final Histogram mFrameHistogram = Metrics.getInstance().histogram(Metrics.FRAME);
+
+    private final Histogram mSlowCallbackHistogram = Metrics.getInstance().histogram(Metrics.SLOW_CALLBACK);
+
+    private final Thread mMainThread = Looper.getMainLooper().getThread();
+
+    /**
+     * Samples the main thread, on a background thread
+     */
+    private Handler mSampler;
+
+    /**
+     * When the current message started, in {@link SystemClock#uptimeMillis()}, or 0 between
+     * messages
+     */
+    private long mMessageStart;
+
+    /**
+     * Description of the current message
+     */
+    private String mMessage;
+
+    /**
+     * Incremented when a message of the main thread starts and when it ends, so that a sample
+     * already running for a message that is over is dropped and not taken again
+     */
+    private volatile int mSequence;
+
+    /**
+     * Whether frames are being timed
+     */
+    private boolean mWatchingFrames;
+
+    private final Handler.Callback mSampleCallback = new Handler.Callback() {
+        @Override
+        public boolean handleMessage(Message msg) {
+            int sequence = msg.arg1;
+            if (sequence != mSequence) {
+                return true;
+            }
+            StackTraceElement[] stack = mMainThread.getStackTrace();
+            synchronized (mSamples) {
+                if (sequence != mSequence) {
+                    // The message ended while its stack was being taken.
+                    return true;
+                }
+                mSamples.add(stack);
+                if (mSamples.size() >= MAX_SAMPLES) {
+                    return true;
+                }
+            }
+            mSampler.sendMessageDelayed(mSampler.obtainMessage(MSG_SAMPLE, sequence, 0),
+                    SAMPLE_INTERVAL_MILLIS);
+            return true;
+        }
+    };
+
+    /**
+     * Create a private constructor because there is only the app wide {@link JankMonitor}.
+     */
+    private JankMonitor() {
+    }
+
+    /**
+     * Returns the app wide monitor.
+     */
+    public static synchronized JankMonitor getInstance() {
+        if (sInstance == null) {
+            sInstance = new JankMonitor();
+        }
+        return sInstance;
+    }
+
+    /**
+     * Start timing the messages of the main thread, if not done yet. Call it on the main thread.
+     */
+    public void start() {
+        if (mSampler != null) {
+            return;
+        }
+        HandlerThread thread = new HandlerThread("JankSampler", Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
+        mSampler = new Handler(thread.getLooper(), mSampleCallback);
+        Looper.getMainLooper().setMessageLogging(this);
+    }
+
+    /**
+     * Called by the looper of the main thread before and after every message.
+     */
+    @Override
+    public void println(String line) {
+        if (line.startsWith(DISPATCH_PREFIX)) {
+            mMessageStart = SystemClock.uptimeMillis();
+            mMessage = line;
+            int sequence = ++mSequence;
+            synchronized (mSamples) {
+                mSamples.clear();
+            }
+            mSampler.sendMessageDelayed(mSampler.obtainMessage(MSG_SAMPLE, sequence, 0),
+                    MESSAGE_BUDGET_MILLIS);
+            return;
+        }
+        if (mMessageStart == 0) {
+            // Started before the monitor.
+            return;
+        }
+
+        long duration = SystemClock.uptimeMillis() - mMessageStart;
+        mMessageStart = 0;
+        // Stops a sample that is already running as well as the ones still queued.
+        mSequence++;
+        mSampler.removeMessages(MSG_SAMPLE);
+        List<StackTraceElement[]> samples;
+        synchronized (mSamples) {
+            if (mSamples.isEmpty()) {
+                return;
+            }
+            samples = new ArrayList<>(mSamples);
+            mSamples.clear();
+        }
+        if (duration <= MESSAGE_BUDGET_MILLIS) {
+            // Sampled just as the message ended, within its budget.
+            return;
+        }
+
+        SlowCallback slowCallback = SlowCallback.blame(mMessage, duration, samples, PACKAGE_PREFIX);
+        if (slowCallback == null) {
+            return;
+        }
+        mSlowCallbackHistogram.record(duration * 1000);
+        synchronized (mSlowCallbacks) {
+            if (mSlowCallbacks.size() == MAX_SLOW_CALLBACKS) {
+                mSlowCallbacks.remove(0);
+            }
+            mSlowCallbacks.add(slowCallback);
+        }
+        Throwable sampledStack = new Throwable("Sampled main thread stack");
+        sampledStack.setStackTrace(slowCallback.getStack());
+        Log.w(LOG_TAG, "Main thread callback over its " + MESSAGE_BUDGET_MILLIS + "ms budget: "
+                + slowCallback, sampledStack);
+    }
+
+    /**
+     * Start timing every frame. Call it on the main thread.
+     */
+    public void startFrames() {
+        if (mWatchingFrames || Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+            return;
+        }
+        mWatchingFrames = true;
+        mFrameStats.start();
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    /**
+     * Stop timing the frames. Call it on the main thread.
+     */
+    public void stopFrames() {
+        if (!mWatchingFrames) {
+            return;
+        }
+        mWatchingFrames = false;
+        mFrameStats.stop();
+        Choreographer.getInstance().removeFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!mWatchingFrames) {
+            return;
+        }
+        long duration = mFrameStats.onFrame(frameTimeNanos);
+        if (duration > 0) {
+            mFrameHistogram.record(duration / 1000);
+        }
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    /**
+     * Returns the frames timed so far.
+     */
+    public JankStats getFrameStats() {
+        return mFrameStats;
+    }
+
+    /**
+     * Returns the slow callbacks reported so far, the oldest first.
+     */
+    public List<SlowCallback> getSlowCallbacks() {
+        synchronized (mSlowCallbacks) {
+            return new ArrayList<>(mSlowCallbacks);
+        }
+    }
+
+    /**
+     * Forget the frames and the slow callbacks reported so far.
+     */
+    public void reset() {
+        mFrameStats.reset();
+        synchronized (mSlowCallbacks) {
+            mSlowCallbacks.clear();
+        }
+    }
+}
@@ -1,170 +1,188 @@
 package com.example.android.newsfeed;
 
-import android.app.LoaderManager;
-import android.content.Context;
 import android.content.Intent;
-import android.content.Loader;
 import android.content.SharedPreferences;
-import android.net.ConnectivityManager;
-import android.net.NetworkInfo;
-import android.net.Uri;
 import android.preference.PreferenceManager;
+import android.support.design.widget.TabLayout;
+import android.support.v4.view.ViewPager;
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
+import android.support.v7.widget.SearchView;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
-import android.widget.AdapterView;
-import android.widget.ListView;
-import android.widget.ProgressBar;
-import android.widget.TextView;
 
 import java.util.ArrayList;
 import java.util.List;
 
-public class MainActivity extends AppCompatActivity implements LoaderManager.LoaderCallbacks<List<Article>> {
+/**
+ * Shows one tab per followed section, each with a {@link FeedFragment} loading its feed.
+ * <p>
+ * The pager keeps the tabs next to the one on screen alive, so their loaders run in the
+ * background and a swipe shows their articles without waiting for the network.
+ */
+public class MainActivity extends AppCompatActivity implements SharedPreferences.OnSharedPreferenceChangeListener {
 
     public static final String LOG_TAG = MainActivity.class.getName();
+
     /**
-     * URL to query the Guardian data set for article information
+     * Number of tabs on each side of the one on screen that are kept loaded
      */
-    private static final String Guardian_REQUEST_URL = "https://content.guardianapis.com/search?&format=json" +
-            "&page-size=20&show-tags=contributor&api-key=0181325f-1a41-4be9-94e2-6ccd47132dff";
+    private static final int PRELOADED_TABS = 1;
+
+    /**
+     * Gives the pager a fragment per tab
+     */
+    FeedPagerAdapter pagerAdapter;
+
     /**
-     * Constant value for the article loader ID. We can choose any integer.
-     * This really only comes into play if you're using multiple loaders.
+     * Shows the titles of the tabs
      */
-    private static final int ARTICLE_LOADER_ID = 1;
+    TabLayout tabLayout;
+
     /**
-     * Adapter for the list of articles
+     * The feeds whose views exist, the one on screen and the preloaded ones
      */
-    ArticleAdapter adapter;
-    // TextView to display the empty state(No internet or No data to display)
-    TextView emptyStateTextView;
+    final List<FeedFragment> feeds = new ArrayList<>();
 
-    // Loading progressBar to display while waiting to receive data from the internet
-    ProgressBar progressBar;
+    /**
+     * The text being searched for, or null when the feeds are shown
+     */
+    String searchQuery;
+
+    /**
+     * When the activity was created, in {@link System#nanoTime()}
+     */
+    long createdAtNanos;
+
+    /**
+     * Whether the time to the first articles has been recorded
+     */
+    boolean firstLoadRecorded;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        createdAtNanos = System.nanoTime();
+        if (BuildConfig.DEBUG) {
+            // Report the callbacks that hold the main thread too long, debug builds only.
+            JankMonitor.getInstance().start();
+        }
         setContentView(R.layout.activity_main);
 
-        // Find a reference to the {@link ListView} in the layout
-        final ListView listView = findViewById(R.id.list);
-
-        // Create a new adapter that takes an empty list of articles as input
-        adapter = new ArticleAdapter(this, new ArrayList<Article>());
-
-        // Set the adapter on the list view
-        listView.setAdapter(adapter);
-
-        emptyStateTextView = findViewById(R.id.empty_state);
-        listView.setEmptyView(emptyStateTextView);
-
-        ConnectivityManager connectivityManager = (ConnectivityManager) getApplicationContext().getSystemService(Context.CONNECTIVITY_SERVICE);
+        ViewPager viewPager = findViewById(R.id.feed_pager);
+        // Load the tabs on both sides of the one on screen, so a swipe shows content instantly.
+        viewPager.setOffscreenPageLimit(PRELOADED_TABS);
+        pagerAdapter = new FeedPagerAdapter(getFragmentManager());
+        viewPager.setAdapter(pagerAdapter);
 
-        NetworkInfo activeNetworkInfo = connectivityManager.getActiveNetworkInfo();
+        tabLayout = findViewById(R.id.tabs);
+        tabLayout.setupWithViewPager(viewPager);
+        showTabs();
 
-        if (activeNetworkInfo != null && activeNetworkInfo.isConnected()) {
+        // Rebuild the tabs as soon as the settings change, cancelling the loads of the old ones.
+        PreferenceManager.getDefaultSharedPreferences(this).registerOnSharedPreferenceChangeListener(this);
 
-            // Get a reference to the LoaderManager, in order to interact with loaders.
-            LoaderManager loaderManager = getLoaderManager();
+        // Keep the cache filled in the background so the next start is a local read.
+        FeedSync.schedule(this);
+    }
 
-            // Initialize the loader. Pass in the int ID constant defined above and pass in null for
-            // the bundle. Pass in this activity for the LoaderCallbacks parameter (which is valid
-            // because this activity implements the LoaderCallbacks interface).
-            loaderManager.initLoader(ARTICLE_LOADER_ID, null, this);
-        } else {
-            progressBar = findViewById(R.id.progress_bar);
-            progressBar.setVisibility(View.GONE);
-            emptyStateTextView.setText(R.string.no_internet_connection);
+    @Override
+    protected void onResume() {
+        super.onResume();
+        if (BuildConfig.DEBUG) {
+            JankMonitor.getInstance().startFrames();
         }
-
-        // Set an item click listener on the ListView, which sends an intent to a web browser
-        // to open a website with more information about the selected article.
-        listView.setOnItemClickListener(new AdapterView.OnItemClickListener() {
-            @Override
-            public void onItemClick(AdapterView<?> adapterView, View view, int i, long l) {
-                // Find the current article that was clicked on
-                Article currentArticle = adapter.getItem(i);
-                // Convert the String URL into a URI object (to pass into the Intent constructor)
-                Uri articleUri = Uri.parse(currentArticle.getUrl());
-                // Create a new intent to view the article URI
-                Intent intent = new Intent(Intent.ACTION_VIEW, articleUri);
-                // Send the intent to launch a new activity
-                startActivity(intent);
-            }
-        });
     }
 
     @Override
-    public Loader<List<Article>> onCreateLoader(int i, Bundle bundle) {
-
-        SharedPreferences sharedPrefs = PreferenceManager.getDefaultSharedPreferences(this);
-
-        // getString retrieves a String value from the preferences. The second parameter is the default value for this preference.
-        String section = sharedPrefs.getString(getString(R.string.settings_section_key), "");
-        section = section.replaceAll(" ", "").toLowerCase();
-
-        String author = sharedPrefs.getString(getString(R.string.settings_author_key), "");
-        author = author.replaceAll(" ", "").toLowerCase();
-
-        String orderBy = sharedPrefs.getString(getString(R.string.settings_order_by_key), "");
-
-        // parse breaks apart the URI string that's passed into its parameter
-        Uri baseUri = Uri.parse(Guardian_REQUEST_URL);
+    protected void onPause() {
+        super.onPause();
+        if (BuildConfig.DEBUG) {
+            JankMonitor.getInstance().stopFrames();
+        }
+    }
 
-        // buildUpon prepares the baseUri that we just parsed so we can add query parameters to it
-        Uri.Builder uriBuilder = baseUri.buildUpon();
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        PreferenceManager.getDefaultSharedPreferences(this).unregisterOnSharedPreferenceChangeListener(this);
+    }
 
-        if (!"".equals(section)) {
-            // Append query parameter and its value. For example, the `section=film`
-            uriBuilder.appendQueryParameter("section", section);
+    @Override
+    public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
+        if (key.equals(getString(R.string.settings_section_key))
+                || key.equals(getString(R.string.settings_author_key))
+                || key.equals(getString(R.string.settings_follow_key))
+                || key.equals(getString(R.string.settings_order_by_key))) {
+            // The fragments of the old tabs are destroyed, their loaders and requests with them.
+            showTabs();
         }
+    }
 
-        if (!"".equals(author)) {
-            author = "profile/" + author;
-            // Append query parameter and its value. For example, the `tag=profile/peterbradshaw`
-            uriBuilder.appendQueryParameter("tag", author);
+    /**
+     * Show the tabs of the current settings. The tab strip is hidden for a single feed.
+     */
+    private void showTabs() {
+        List<FeedTab> tabs = QueryUtils.buildTabs(this);
+        pagerAdapter.setTabs(tabs);
+        boolean showStrip = tabs.size() > 1;
+        tabLayout.setVisibility(showStrip ? View.VISIBLE : View.GONE);
+        if (getSupportActionBar() != null) {
+            // The tab strip continues the action bar, only the strip casts a shadow.
+            getSupportActionBar().setElevation(showStrip ? 0 : getResources().getDisplayMetrics().density * 4);
         }
+    }
 
-        if ("newest".equals(orderBy)) {
-            // Append query parameter and its value. For example, the `order-by=newest`
-            uriBuilder.appendQueryParameter("order-by", orderBy);
-        }
+    /**
+     * Returns the text being searched for, or null when the feeds are shown.
+     */
+    String getSearchQuery() {
+        return searchQuery;
+    }
 
-        if ("true".equals(orderBy)) {
-            // Append query parameter and its value. For example, the `show-most-viewed=true`
-            uriBuilder.appendQueryParameter("show-most-viewed", orderBy);
-            uriBuilder.appendQueryParameter("order-by", getString(R.string.order_by_relevance));
-        }
+    /**
+     * Called by a feed once its view exists, so that it follows the search.
+     */
+    void addFeed(FeedFragment feed) {
+        feeds.add(feed);
+    }
 
-        // Return the completed uri `https://content.guardianapis.com/search?format=json&order-by=newest&page-size=20&show-tags=contributor&api-key=0181325f-1a41-4be9-94e2-6ccd47132dff&section=film
-        return new ArticleAsyncTask(this, uriBuilder.toString());
+    /**
+     * Called by a feed once its view is destroyed.
+     */
+    void removeFeed(FeedFragment feed) {
+        feeds.remove(feed);
     }
 
-    @Override
-    public void onLoadFinished(Loader<List<Article>> loader, List<Article> articles) {
-        // Clear the adapter of previous article data
-        adapter.clear();
-
-        // If there is a valid list of {@link Article}s, then add them to the adapter's
-        // data set. This will trigger the ListView to update.
-        if (articles != null && !articles.isEmpty()) {
-            adapter.addAll(articles);
+    /**
+     * Called by a feed when it shows loaded articles, records the time to the first ones.
+     */
+    void onFeedShown() {
+        if (!firstLoadRecorded) {
+            firstLoadRecorded = true;
+            Metrics.getInstance().recordSince(Metrics.FIRST_LOAD, createdAtNanos);
         }
-
-        emptyStateTextView.setText(R.string.no_data_to_display);
-        progressBar = findViewById(R.id.progress_bar);
-        progressBar.setVisibility(View.GONE);
     }
 
-    @Override
-    public void onLoaderReset(Loader<List<Article>> loader) {
-        // Loader reset, so we can clear out our existing data.
-        adapter.clear();
+    /**
+     * Show the articles matching the query in every tab, straight from the local search index.
+     */
+    private void showSearchResults(String query) {
+        searchQuery = query;
+        for (FeedFragment feed : feeds) {
+            feed.showSearchResults(query);
+        }
+    }
 
+    /**
+     * Go back to the articles of the feeds.
+     */
+    private void closeSearch() {
+        searchQuery = null;
+        for (FeedFragment feed : feeds) {
+            feed.closeSearch();
+        }
     }
 
     @Override
@@ -172,6 +190,38 @@ public class MainActivity extends AppCompatActivity implements LoaderManager.Loa
     public boolean onCreateOptionsMenu(Menu menu) {
         // Inflate the Options Menu we specified in XML
         getMenuInflater().inflate(R.menu.main, menu);
+        menu.findItem(R.id.action_metrics).setVisible(BuildConfig.DEBUG);
+
+        // Search the articles loaded so far as the user types, without any network request.
+        MenuItem searchItem = menu.findItem(R.id.action_search);
+        final SearchView searchView = (SearchView) searchItem.getActionView();
+        searchView.setQueryHint(getString(R.string.search_hint));
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                // The results are already shown, just hide the keyboard.
+                searchView.clearFocus();
+                return true;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String query) {
+                showSearchResults(query);
+                return true;
+            }
+        });
+        searchItem.setOnActionExpandListener(new MenuItem.OnActionExpandListener() {
+            @Override
+            public boolean onMenuItemActionExpand(MenuItem item) {
+                return true;
+            }
+
+            @Override
+            public boolean onMenuItemActionCollapse(MenuItem item) {
+                closeSearch();
+                return true;
+            }
+        });
         return true;
     }
 
@@ -184,6 +234,10 @@ public class MainActivity extends AppCompatActivity implements LoaderManager.Loa
             startActivity(settingIntent);
             return true;
         }
+        if (id == R.id.action_metrics) {
+            startActivity(new Intent(this, MetricsActivity.class));
+            return true;
+        }
         return super.onOptionsItemSelected(item);
     }
 }
@@ -0,0 +1,76 @@
+package com.example.android.newsfeed;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.support.v7.app.AppCompatActivity;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.widget.TextView;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Debug screen listing the count, p50, p95, p99 and maximum of every {@link Metrics} histogram,
+ * with a menu item to share them all as JSON.
+ */
+public class MetricsActivity extends AppCompatActivity {
+
+    // TextView holding the table of histograms
+    TextView metricsTextView;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_metrics);
+        metricsTextView = findViewById(R.id.metrics);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        showMetrics();
+    }
+
+    /**
+     * Fill the table with the current values of the histograms.
+     */
+    private void showMetrics() {
+        StringBuilder table = new StringBuilder();
+        table.append(String.format(Locale.US, "%-24s %6s %9s %9s %9s %9s%n",
+                "stage", "count", "p50", "p95", "p99", "max"));
+        for (Map.Entry<String, Histogram> entry : Metrics.getInstance().getHistograms().entrySet()) {
+            Histogram histogram = entry.getValue();
+            table.append(String.format(Locale.US, "%-24s %6d %9d %9d %9d %9d%n",
+                    entry.getKey(), histogram.getCount(), histogram.getPercentile(50),
+                    histogram.getPercentile(95), histogram.getPercentile(99), histogram.getMax()));
+        }
+        metricsTextView.setText(table);
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.metrics, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        int id = item.getItemId();
+        if (id == R.id.action_export_metrics) {
+            // Hand the JSON to whatever app the user picks: mail, drive, a chat...
+            Intent shareIntent = new Intent(Intent.ACTION_SEND);
+            shareIntent.setType("application/json");
+            shareIntent.putExtra(Intent.EXTRA_SUBJECT, getString(R.string.metrics_title));
+            shareIntent.putExtra(Intent.EXTRA_TEXT, Metrics.getInstance().toJson());
+            startActivity(Intent.createChooser(shareIntent, getString(R.string.metrics_export)));
+            return true;
+        }
+        if (id == R.id.action_reset_metrics) {
+            Metrics.getInstance().reset();
+            showMetrics();
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+}
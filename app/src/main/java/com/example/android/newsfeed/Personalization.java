@@ -0,0 +1,86 @@
+package com.example.android.newsfeed;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.AsyncTask;
+import android.preference.PreferenceManager;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+
+import static com.example.android.newsfeed.MainActivity.LOG_TAG;
+
+/**
+ * Keeps the app wide {@link InterestProfile} of the user, learned from the articles they open
+ * and saved in the files directory, for the feeds ordered with the "For You" setting.
+ */
+public final class Personalization {
+
+    /**
+     * Name of the file holding the profile, in the files directory
+     */
+    private static final String PROFILE_FILE_NAME = "interests.profile";
+
+    private static InterestProfile sProfile;
+
+    /**
+     * Create a private constructor because no one should ever create a {@link Personalization}
+     * object. This class only holds static methods.
+     */
+    private Personalization() {
+    }
+
+    /**
+     * Returns true if the feeds are ordered for the user rather than by the API.
+     */
+    public static boolean isEnabled(Context context) {
+        SharedPreferences sharedPrefs = PreferenceManager.getDefaultSharedPreferences(context);
+        String orderBy = sharedPrefs.getString(context.getString(R.string.settings_order_by_key), "");
+        return context.getString(R.string.settings_order_by_personalized_value).equals(orderBy);
+    }
+
+    /**
+     * Returns the profile of the user, read from its file the first time. Reads the disk, so
+     * call it on a background thread.
+     */
+    public static synchronized InterestProfile getProfile(Context context) {
+        if (sProfile == null) {
+            File file = getProfileFile(context);
+            try {
+                sProfile = InterestProfile.read(file);
+            } catch (IOException e) {
+                Log.e(LOG_TAG, "Problem reading the interest profile.", e);
+                file.delete();
+                sProfile = new InterestProfile();
+            }
+        }
+        return sProfile;
+    }
+
+    /**
+     * Learn from the article the user opened, and save the profile in the background.
+     */
+    public static void recordClick(Context context, final Article article) {
+        final Context appContext = context.getApplicationContext();
+        final long timeInMillis = System.currentTimeMillis();
+        // The profile may not be read yet, so it is learned from off the main thread too. The
+        // serial executor keeps two saves from writing the file at the same time.
+        AsyncTask.SERIAL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                InterestProfile profile = getProfile(appContext);
+                profile.recordClick(article, timeInMillis);
+                try {
+                    profile.write(getProfileFile(appContext));
+                } catch (IOException e) {
+                    Log.e(LOG_TAG, "Problem writing the interest profile.", e);
+                }
+            }
+        });
+    }
+
+    private static File getProfileFile(Context context) {
+        return new File(context.getApplicationContext().getFilesDir(), PROFILE_FILE_NAME);
+    }
+}
@@ -1,216 +1,401 @@
 package com.example.android.newsfeed;
 
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.net.Uri;
+import android.preference.PreferenceManager;
 import android.text.TextUtils;
 import android.util.Log;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
+import java.io.InterruptedIOException;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 import static com.example.android.newsfeed.MainActivity.LOG_TAG;
 
 /**
- * Helper methods related to requesting and receiving article data from the Guardian.
+ * Helper methods related to requesting and receiving article data from the Guardian and the
+ * RSS or Atom feeds the user follows.
  */
 public class QueryUtils {
 
+    /**
+     * Key of the app for the Guardian API
+     */
+    private static final String Guardian_API_KEY = "0181325f-1a41-4be9-94e2-6ccd47132dff";
+
+    /**
+     * URL to query the Guardian data set for article information
+     */
+    private static final String Guardian_REQUEST_URL = "https://content.guardianapis.com/search?&format=json" +
+            "&page-size=" + ArticlePager.PAGE_SIZE + "&show-tags=contributor&show-fields=thumbnail&api-key=" + Guardian_API_KEY;
+
+    /**
+     * URL of the Guardian content API, the path of an article's web URL names the article in it
+     */
+    private static final String Guardian_CONTENT_URL = "https://content.guardianapis.com";
+
+    /**
+     * Number of followed sources that are fetched at the same time
+     */
+    private static final int MAX_PARALLEL_SOURCES = 4;
+
+    /**
+     * The publishers articles are loaded from, the first one that handles a URL reads it. Any
+     * other http or https URL is taken for an RSS or Atom feed.
+     */
+    private static final List<FeedSource> sSources = Arrays.<FeedSource>asList(
+            new GuardianFeedSource(), new RssFeedSource());
+
+    /**
+     * Runs the requests of the followed sources, shared by the loaders and the background sync
+     * so the bound holds app wide
+     */
+    private static final Executor sSourceExecutor = Executors.newFixedThreadPool(MAX_PARALLEL_SOURCES);
+
+    /**
+     * Fetches the followed sources
+     */
+    private static final FeedAggregator sAggregator = new FeedAggregator(sSourceExecutor,
+            new FeedAggregator.Fetcher() {
+                @Override
+                public List<Article> fetch(String url, CancellationToken token) {
+                    return fetchArticleData(url, token);
+                }
+            });
+
     /**
      * Create a private constructor because no one should ever create a {@link QueryUtils} object.
      * This class is only meant to hold static variables and methods, which can be accessed
      * directly from the class name QueryUtils (and an object instance of QueryUtils is not needed).
      */
+    private QueryUtils() {
+    }
 
-    // The url connection read time in milliseconds
-    private static final int readTimeoutInMilliseconds = 10000;
+    /**
+     * Returns true if the device currently has a network connection.
+     */
+    public static boolean isConnected(Context context) {
+        ConnectivityManager connectivityManager = (ConnectivityManager) context.getApplicationContext().getSystemService(Context.CONNECTIVITY_SERVICE);
 
-    // The url connection time out in milliseconds
-    private static final int connectTimeoutInMilliseconds = 15000;
+        NetworkInfo activeNetworkInfo = connectivityManager.getActiveNetworkInfo();
 
-    private QueryUtils() {
+        return activeNetworkInfo != null && activeNetworkInfo.isConnected();
     }
 
     /**
-     * Returns new URL object from the given string URL.
+     * Returns the source whose query URL the given URL is, or null if no source handles it.
      */
-    private static URL createUrl(String stringUrl) {
-        URL url = null;
-        try {
-            url = new URL(stringUrl);
-        } catch (MalformedURLException exception) {
-            Log.e(LOG_TAG, "Error with creating URL", exception);
-            return null;
+    public static FeedSource getSource(String url) {
+        for (FeedSource source : sSources) {
+            if (source.handles(url)) {
+                return source;
+            }
         }
-        return url;
+        return null;
     }
 
     /**
-     * Make an HTTP request to the given URL and return a String as the response.
+     * Returns true if the given URL is a query of a source that can page through it and
+     * refresh it with the newest articles only, see {@link FeedSource#supportsQueries()}.
      */
-    private static String makeHttpRequest(URL url) throws IOException {
-        String jsonResponse = "";
+    public static boolean supportsQueries(String url) {
+        FeedSource source = url != null ? getSource(url) : null;
+        return source != null && source.supportsQueries();
+    }
 
-        // If the url is null, then return early
-        if (url == null) {
-            return jsonResponse;
+    /**
+     * Returns the query URLs for the current preferences: one URL per followed source, or a
+     * single URL for the section and author settings when no source is followed.
+     */
+    public static List<String> buildQueryUrls(Context context) {
+        SharedPreferences sharedPrefs = PreferenceManager.getDefaultSharedPreferences(context);
+
+        String orderBy = sharedPrefs.getString(context.getString(R.string.settings_order_by_key), "");
+
+        List<String> urls = new ArrayList<>();
+        for (String source : getFollowedSources(context)) {
+            urls.add(buildSourceUrl(context, source, orderBy));
+        }
+        if (!urls.isEmpty()) {
+            return urls;
         }
 
-        HttpURLConnection urlConnection = null;
-        InputStream inputStream = null;
-        try {
-            urlConnection = (HttpURLConnection) url.openConnection();
-            urlConnection.setRequestMethod("GET");
-            urlConnection.setReadTimeout(readTimeoutInMilliseconds);
-            urlConnection.setConnectTimeout(connectTimeoutInMilliseconds);
-            urlConnection.connect();
-
-            // If the request was successful (response code 200),
-            // then read the input stream and parse the response.
-            if (urlConnection.getResponseCode() == HttpURLConnection.HTTP_OK) {
-                inputStream = urlConnection.getInputStream();
-                jsonResponse = readFromStream(inputStream);
-            } else {
-                Log.e(LOG_TAG, "Error response code: " + urlConnection.getResponseCode());
-            }
+        // getString retrieves a String value from the preferences. The second parameter is the default value for this preference.
+        String section = sharedPrefs.getString(context.getString(R.string.settings_section_key), "");
+        section = section.replaceAll(" ", "").toLowerCase();
 
-        } catch (IOException e) {
-            Log.e(LOG_TAG, "Problem retrieving the articles json request.", e);
+        String author = sharedPrefs.getString(context.getString(R.string.settings_author_key), "");
+        author = author.replaceAll(" ", "").toLowerCase();
+        if (!"".equals(author)) {
+            author = "profile/" + author;
+        }
 
-        } finally {
-            if (urlConnection != null) {
-                urlConnection.disconnect();
-            }
-            if (inputStream != null) {
-                // function must handle java.io.IOException here
-                inputStream.close();
-            }
+        urls.add(buildQueryUrl(context, section, author, orderBy));
+        return urls;
+    }
+
+    /**
+     * Returns the tabs of the main screen. With followed sources, the first tab merges all of
+     * them and every source gets a tab of its own. Otherwise there is a single tab for the
+     * section and author settings.
+     */
+    public static List<FeedTab> buildTabs(Context context) {
+        List<String> sources = getFollowedSources(context);
+        List<FeedTab> tabs = new ArrayList<>();
+        tabs.add(new FeedTab(context.getString(R.string.tab_all), buildQueryUrls(context)));
+        if (sources.size() < 2) {
+            // A single source is the whole feed already.
+            return tabs;
+        }
+
+        SharedPreferences sharedPrefs = PreferenceManager.getDefaultSharedPreferences(context);
+        String orderBy = sharedPrefs.getString(context.getString(R.string.settings_order_by_key), "");
+        for (String source : sources) {
+            tabs.add(new FeedTab(tabTitle(source),
+                    Collections.singletonList(buildSourceUrl(context, source, orderBy))));
         }
-        return jsonResponse;
+        return tabs;
     }
 
     /**
-     * Convert the {@link InputStream} into a String which contains the
-     * whole JSON response from the server.
+     * Returns the followed sources in the order they were entered: the sections and tags lower
+     * case and without spaces, the feed URLs as they are.
      */
-    private static String readFromStream(InputStream inputStream) throws IOException {
-        StringBuilder output = new StringBuilder();
-        if (inputStream != null) {
-            InputStreamReader inputStreamReader = new InputStreamReader(inputStream, Charset.forName("UTF-8"));
-            BufferedReader reader = new BufferedReader(inputStreamReader);
-            String line = reader.readLine();
-            while (line != null) {
-                output.append(line);
-                line = reader.readLine();
+    private static List<String> getFollowedSources(Context context) {
+        SharedPreferences sharedPrefs = PreferenceManager.getDefaultSharedPreferences(context);
+
+        // The followed sources are separated by commas, e.g. `politics, profile/x, https://example.com/rss`
+        String followed = sharedPrefs.getString(context.getString(R.string.settings_follow_key), "");
+        List<String> sources = new ArrayList<>();
+        for (String source : followed.split(",")) {
+            source = source.trim();
+            if (!isFeedUrl(source)) {
+                source = source.replaceAll(" ", "").toLowerCase();
+            }
+            if (!source.isEmpty() && !sources.contains(source)) {
+                sources.add(source);
             }
         }
-        return output.toString();
+        return sources;
     }
 
     /**
-     * Return a list of {@link Article} objects that has been built up from
-     * parsing a JSON response.
+     * Returns true if the given followed source is the URL of an RSS or Atom feed rather than a
+     * section or a tag of the Guardian.
      */
+    private static boolean isFeedUrl(String source) {
+        return source.startsWith("http://") || source.startsWith("https://");
+    }
 
-    private static List<Article> extractFeatureFromJson(String articleJSONResponse) {
+    /**
+     * Returns the query URL of a followed section, tag or feed.
+     */
+    private static String buildSourceUrl(Context context, String source, String orderBy) {
+        if (isFeedUrl(source)) {
+            // A feed is read as it is, the order settings only apply to the Guardian queries.
+            return source;
+        }
+        if (source.contains("/")) {
+            // Tags such as `profile/peterbradshaw` or `film/film`
+            return buildQueryUrl(context, "", source, orderBy);
+        }
+        return buildQueryUrl(context, source, "", orderBy);
+    }
 
-        // If the JSON string is empty or null, then return early
-        if (TextUtils.isEmpty(articleJSONResponse)) {
-            return null;
+    /**
+     * Returns the title of the tab of a followed source, e.g. `Technology` for `technology`,
+     * `Peterbradshaw` for `profile/peterbradshaw` and `example.com` for a feed of example.com.
+     */
+    static String tabTitle(String source) {
+        if (isFeedUrl(source)) {
+            String host = Uri.parse(source).getHost();
+            if (host == null) {
+                return source;
+            }
+            return host.startsWith("www.") ? host.substring(4) : host;
+        }
+        String name = source.substring(source.lastIndexOf('/') + 1).replace('-', ' ');
+        if (name.isEmpty()) {
+            return source;
         }
+        return name.substring(0, 1).toUpperCase(Locale.getDefault()) + name.substring(1);
+    }
 
-        // Create an empty ArrayList that we can start adding articles to
-        List<Article> articles = new ArrayList<>();
+    /**
+     * Returns the key the articles of the given queries are cached under. All the queries
+     * of a feed are cached together.
+     */
+    public static String cacheKey(List<String> urls) {
+        return TextUtils.join(" ", urls);
+    }
 
-        // Try to parse the JSON_RESPONSE. If there's a problem with the way the JSON
-        // is formatted, a JSONException exception object will be thrown.
-        // Catch the exception so the app doesn't crash, and print the error message to the logs.
-        try {
-            // build up a list of Article objects with the corresponding data.
-
-            // Create a JSONObject from the JSON response string
-            JSONObject root = new JSONObject(articleJSONResponse);
-
-            JSONObject response = root.getJSONObject("response");
-
-            // Extract the JSONArray associated with the key called "results",
-            // which represents a list of features (or articles)
-            JSONArray results = response.optJSONArray("results");
-
-            // For each article in the articleArray, create an {@link Article} object
-            for (int i = 0; i < results.length(); i++) {
-
-                // Get a single article at position i within the list of articles
-                JSONObject article = results.getJSONObject(i);
-
-                // Extract the value for the key called "webPublicationDate"
-                String date = article.getString("webPublicationDate");
-                // Extract the value for the key called "webTitle"
-                String title = article.getString("webTitle");
-                // Extract the value for the key called"sectionName"
-                String section = article.getString("sectionName");
-                // Extract the value for the key called "webUrl"
-                String url = article.getString("webUrl");
-                String author;
-
-                // Extract the JSONArray associated with the key called "tags",
-                // which represents a list of tags
-                JSONArray tags = article.optJSONArray("tags");
-                if (tags.length() > 0) {
-                    // Get the first tag which represents the "contributor" tag
-                    JSONObject contributor = tags.getJSONObject(0);
-
-                    // Extract the value for the key called "webTitle"
-                    author = contributor.getString("webTitle");
-                } else {
-                    author = "No Info";
+    /**
+     * Query the sources and return the merged list of {@link Article} objects of all
+     * the given queries, or null if every request failed. Several queries are fetched in
+     * parallel and the listener, which may be null, gets the merged feed each time one of them
+     * returns. Cancelling the token, which may be null, aborts the requests still running.
+     */
+    public static List<Article> fetchFeedData(List<String> urls, FeedAggregator.Listener listener,
+                                              CancellationToken token) throws InterruptedException {
+        if (urls.size() == 1) {
+            return fetchArticleData(urls.get(0), token);
+        }
+        return sAggregator.load(urls, listener, token);
+    }
+
+    /**
+     * Query the sources like {@link #fetchFeedData(List, FeedAggregator.Listener, CancellationToken)},
+     * and also put the articles of every query that succeeded in the given map, by query URL.
+     *
+     * @param bySource receives the articles of each query, from several threads
+     */
+    public static List<Article> fetchFeedData(List<String> urls, final Map<String, List<Article>> bySource)
+            throws InterruptedException {
+        FeedAggregator aggregator = new FeedAggregator(sSourceExecutor, new FeedAggregator.Fetcher() {
+            @Override
+            public List<Article> fetch(String url, CancellationToken token) {
+                List<Article> articles = fetchArticleData(url, token);
+                if (articles != null) {
+                    bySource.put(url, articles);
                 }
+                return articles;
+            }
+        });
+        return aggregator.load(urls, null);
+    }
 
-                // Create a new {@link Article} object with the title, author, date,
-                // and url from the JSON response.
-                Article articleObject = new Article(title, author, section, date, url);
+    /**
+     * Returns the query URL for the given section, tag and order, each of them may be empty.
+     */
+    private static String buildQueryUrl(Context context, String section, String tag, String orderBy) {
+        // parse breaks apart the URI string that's passed into its parameter
+        Uri baseUri = Uri.parse(Guardian_REQUEST_URL);
 
-                // Add the new {@link Article} to the list of article.
-                articles.add(articleObject);
-            }
+        // buildUpon prepares the baseUri that we just parsed so we can add query parameters to it
+        Uri.Builder uriBuilder = baseUri.buildUpon();
 
-        } catch (JSONException e) {
-            // If an error is thrown when executing any of the above statements in the "try" block,
-            // catch the exception here, so the app doesn't crash. Print a log message
-            // with the message from the exception.
-            Log.e("QueryUtils", "Problem parsing the article JSON results", e);
+        if (!"".equals(section)) {
+            // Append query parameter and its value. For example, the `section=film`
+            uriBuilder.appendQueryParameter("section", section);
         }
 
-        return articles;
+        if (!"".equals(tag)) {
+            // Append query parameter and its value. For example, the `tag=profile/peterbradshaw`
+            uriBuilder.appendQueryParameter("tag", tag);
+        }
+
+        if ("newest".equals(orderBy)) {
+            // Append query parameter and its value. For example, the `order-by=newest`
+            uriBuilder.appendQueryParameter("order-by", orderBy);
+        }
+
+        if (context.getString(R.string.settings_order_by_personalized_value).equals(orderBy)) {
+            // The latest articles are the candidates, they are ranked on the device.
+            uriBuilder.appendQueryParameter("order-by", "newest");
+        }
+
+        if ("true".equals(orderBy)) {
+            // Append query parameter and its value. For example, the `show-most-viewed=true`
+            uriBuilder.appendQueryParameter("show-most-viewed", orderBy);
+            uriBuilder.appendQueryParameter("order-by", context.getString(R.string.order_by_relevance));
+        }
+
+        // Return the completed uri `https://content.guardianapis.com/search?format=json&order-by=newest&page-size=20&show-tags=contributor&show-fields=thumbnail&api-key=0181325f-1a41-4be9-94e2-6ccd47132dff&section=film
+        return uriBuilder.toString();
+    }
+
+    /**
+     * Returns true if the body of the article with the given web URL can be requested from the
+     * Guardian. The articles of the other feeds are opened in the browser.
+     */
+    public static boolean hasBody(String webUrl) {
+        return webUrl.startsWith("https://www.theguardian.com/");
     }
 
     /**
-     * Query the Guardian data set and return a list of {@link Article} objects.
+     * Returns the URL of the Guardian item request for the body of the article with the given
+     * web URL, e.g. https://content.guardianapis.com/film/2018/jun/12/review?show-fields=body
+     */
+    public static String buildBodyUrl(String webUrl) {
+        return Uri.parse(Guardian_CONTENT_URL).buildUpon()
+                .path(Uri.parse(webUrl).getPath())
+                .appendQueryParameter("format", "json")
+                .appendQueryParameter("show-fields", "body")
+                .appendQueryParameter("api-key", Guardian_API_KEY)
+                .toString();
+    }
+
+    /**
+     * Returns new URL object from the given string URL.
+     */
+    private static URL createUrl(String stringUrl) {
+        URL url = null;
+        try {
+            url = new URL(stringUrl);
+        } catch (MalformedURLException exception) {
+            Log.e(LOG_TAG, "Error with creating URL", exception);
+            return null;
+        }
+        return url;
+    }
+
+    /**
+     * Query the source of the given URL and return a list of {@link Article} objects.
      */
     public static List<Article> fetchArticleData(String requestUrl) {
+        return fetchArticleData(requestUrl, null);
+    }
+
+    /**
+     * Query the source of the given URL and return a list of {@link Article} objects, or null
+     * if the request failed or the token, which may be null, was cancelled. The articles of
+     * every source go through the same client, with its conditional requests and retries.
+     */
+    public static List<Article> fetchArticleData(String requestUrl, CancellationToken token) {
         // Create URL object
         URL url = createUrl(requestUrl);
 
-        // Perform HTTP request to the URL and receive a JSON response back
-        String jsonResponse = null;
+        // If the url is null, then return early
+        if (url == null) {
+            return null;
+        }
+
+        FeedSource source = getSource(requestUrl);
+        if (source == null) {
+            Log.e(LOG_TAG, "No source reads " + requestUrl);
+            return null;
+        }
+
+        // Perform HTTP request to the URL and stream the list of {@link Article}s out of the response
+        List<Article> articles = null;
         try {
-            jsonResponse = makeHttpRequest(url);
+            articles = ArticleHttpClient.getInstance().fetch(url, source, token);
+        } catch (InterruptedIOException e) {
+            // The request was cancelled, nobody is waiting for the articles.
+            return null;
         } catch (IOException e) {
-            Log.e(LOG_TAG, "Problem making the HTTP request.", e);
+            Log.e(LOG_TAG, "Problem retrieving the articles of " + requestUrl, e);
+        }
+
+        if (articles != null) {
+            // Make the new articles searchable right away.
+            ArticleSearchIndex.getInstance().addAll(articles);
         }
 
-        // Extract relevant fields from the JSON response and create a list of {@link Article}s
         // Return the list of {@link Article}s
-        return extractFeatureFromJson(jsonResponse);
+        return articles;
     }
 }
 
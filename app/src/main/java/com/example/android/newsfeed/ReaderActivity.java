@@ -0,0 +1,113 @@
+package com.example.android.newsfeed;
+
+import android.app.LoaderManager;
+import android.content.Context;
+import android.content.Intent;
+import android.content.Loader;
+import android.net.Uri;
+import android.os.Bundle;
+import android.support.v7.app.AppCompatActivity;
+import android.text.method.LinkMovementMethod;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.view.View;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+
+/**
+ * Shows the text of an article inside the app. The body comes from the
+ * {@link ArticleBodyStore}, so an article that was prefetched opens right away and without a
+ * connection. The web page is still one menu item away.
+ */
+public class ReaderActivity extends AppCompatActivity implements LoaderManager.LoaderCallbacks<CharSequence> {
+
+    private static final String EXTRA_TITLE = "title";
+    private static final String EXTRA_BYLINE = "byline";
+    private static final String EXTRA_URL = "url";
+
+    private static final int BODY_LOADER_ID = 1;
+
+    // TextView holding the text of the article
+    TextView bodyTextView;
+
+    // TextView to display when the body could not be loaded
+    TextView emptyStateTextView;
+
+    // Loading progressBar to display while the body is downloaded
+    ProgressBar progressBar;
+
+    /**
+     * Web URL of the article
+     */
+    String url;
+
+    /**
+     * Returns the intent that opens the given article in the reader.
+     */
+    public static Intent newIntent(Context context, Article article) {
+        Intent intent = new Intent(context, ReaderActivity.class);
+        intent.putExtra(EXTRA_TITLE, article.getTitle());
+        intent.putExtra(EXTRA_BYLINE, article.getSectionLabel() + " · " + article.getAuthorLabel()
+                + " · " + article.getDisplayDate() + " " + article.getDisplayTime());
+        intent.putExtra(EXTRA_URL, article.getUrl());
+        return intent;
+    }
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_reader);
+
+        Intent intent = getIntent();
+        url = intent.getStringExtra(EXTRA_URL);
+        TextView titleTextView = findViewById(R.id.reader_title);
+        titleTextView.setText(intent.getStringExtra(EXTRA_TITLE));
+        TextView bylineTextView = findViewById(R.id.reader_byline);
+        bylineTextView.setText(intent.getStringExtra(EXTRA_BYLINE));
+
+        bodyTextView = findViewById(R.id.reader_body);
+        // Links in the text open in the browser.
+        bodyTextView.setMovementMethod(LinkMovementMethod.getInstance());
+        emptyStateTextView = findViewById(R.id.reader_empty_state);
+        progressBar = findViewById(R.id.reader_progress_bar);
+
+        getLoaderManager().initLoader(BODY_LOADER_ID, null, this);
+    }
+
+    @Override
+    public Loader<CharSequence> onCreateLoader(int id, Bundle args) {
+        return new ArticleBodyLoader(this, url);
+    }
+
+    @Override
+    public void onLoadFinished(Loader<CharSequence> loader, CharSequence body) {
+        progressBar.setVisibility(View.GONE);
+        if (body == null) {
+            emptyStateTextView.setText(QueryUtils.isConnected(this)
+                    ? R.string.reader_not_available : R.string.reader_not_saved);
+            emptyStateTextView.setVisibility(View.VISIBLE);
+            return;
+        }
+        bodyTextView.setText(body);
+    }
+
+    @Override
+    public void onLoaderReset(Loader<CharSequence> loader) {
+        bodyTextView.setText(null);
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.reader, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == R.id.action_open_in_browser) {
+            startActivity(new Intent(Intent.ACTION_VIEW, Uri.parse(url)));
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+}
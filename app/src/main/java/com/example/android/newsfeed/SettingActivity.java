@@ -31,6 +31,9 @@ public class SettingActivity extends AppCompatActivity {
             Preference author = findPreference(getString(R.string.settings_author_key));
             bindPreferenceSummaryToValue(author);
 
+            Preference follow = findPreference(getString(R.string.settings_follow_key));
+            bindPreferenceSummaryToValue(follow);
+
             Preference orderBy = findPreference(getString(R.string.settings_order_by_key));
             bindPreferenceSummaryToValue(orderBy);
         }
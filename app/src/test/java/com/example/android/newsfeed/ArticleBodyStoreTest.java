@@ -0,0 +1,164 @@
+package com.example.android.newsfeed;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ArticleBodyStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File directory;
+
+    @Before
+    public void setUp() {
+        directory = new File(folder.getRoot(), "articles");
+    }
+
+    @Test
+    public void put_thenGet_returnsTheBody() {
+        ArticleBodyStore store = new ArticleBodyStore(directory, 1024 * 1024);
+        String body = "<p>Première phrase.</p> <p>Second paragraph.</p>";
+
+        store.put("https://www.theguardian.com/a", body);
+
+        assertTrue(store.contains("https://www.theguardian.com/a"));
+        assertEquals(body, store.get("https://www.theguardian.com/a"));
+        assertFalse(store.contains("https://www.theguardian.com/b"));
+        assertNull(store.get("https://www.theguardian.com/b"));
+    }
+
+    @Test
+    public void put_storesTheBodyCompressed() {
+        ArticleBodyStore store = new ArticleBodyStore(directory, 1024 * 1024);
+        String body = paragraphs(200);
+
+        long length = store.put("a", body);
+
+        assertTrue(length > 0);
+        assertTrue(length < body.length() / 4);
+    }
+
+    @Test
+    public void put_overSizeLimit_evictsLeastRecentlyRead() {
+        ArticleBodyStore store = new ArticleBodyStore(directory, 1024 * 1024);
+        long length = store.put("a", paragraphs(50));
+        // Room for two bodies of the same size.
+        store = new ArticleBodyStore(directory, length * 2 + length / 2);
+        store.put("b", paragraphs(50));
+        // Make "a" the most recently read one.
+        new File(directory, ArticleCache.hashKey("b") + ".body.gz").setLastModified(1000);
+        new File(directory, ArticleCache.hashKey("a") + ".body.gz").setLastModified(2000);
+
+        store.put("c", paragraphs(50));
+
+        assertNotNull(store.get("a"));
+        assertNull(store.get("b"));
+        assertNotNull(store.get("c"));
+    }
+
+    @Test
+    public void get_corruptFile_returnsNullAndDeletesIt() throws IOException {
+        ArticleBodyStore store = new ArticleBodyStore(directory, 1024 * 1024);
+        store.put("a", "body");
+        File file = new File(directory, ArticleCache.hashKey("a") + ".body.gz");
+        FileOutputStream out = new FileOutputStream(file);
+        out.write("not gzip".getBytes("UTF-8"));
+        out.close();
+
+        assertNull(store.get("a"));
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void fetch_whileTheBodyIsPrefetched_waitsForItInsteadOfDownloadingItAgain() throws Exception {
+        final CountDownLatch downloading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger downloads = new AtomicInteger();
+        final ArticleBodyStore store = new ArticleBodyStore(directory, 1024 * 1024) {
+            @Override
+            String download(String url) throws IOException {
+                downloads.incrementAndGet();
+                downloading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return "<p>Prefetched.</p>";
+            }
+        };
+        Thread prefetch = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                store.prefetch("a", false);
+            }
+        });
+        prefetch.start();
+        assertTrue(downloading.await(5, TimeUnit.SECONDS));
+
+        final String[] fetched = new String[1];
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    fetched[0] = store.fetch("a");
+                } catch (IOException e) {
+                    fetched[0] = e.toString();
+                }
+            }
+        });
+        reader.start();
+        // Let the reader get to the download before the prefetch finishes.
+        while (reader.getState() != Thread.State.WAITING && reader.isAlive()) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+        reader.join(5000);
+        prefetch.join(5000);
+
+        assertEquals("<p>Prefetched.</p>", fetched[0]);
+        assertEquals(1, downloads.get());
+    }
+
+    @Test
+    public void prefetch_ofABodySavedWhileItWasQueued_downloadsNothing() throws IOException {
+        final AtomicInteger downloads = new AtomicInteger();
+        ArticleBodyStore store = new ArticleBodyStore(directory, 1024 * 1024) {
+            @Override
+            String download(String url) {
+                downloads.incrementAndGet();
+                return "<p>Body.</p>";
+            }
+        };
+
+        // The article is opened before its queued prefetch gets to run.
+        assertEquals("<p>Body.</p>", store.fetch("a"));
+        store.prefetch("a", false);
+
+        assertEquals(1, downloads.get());
+    }
+
+    private static String paragraphs(int count) {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            body.append("<p>Paragraph ").append(i).append(" of the article, with the usual words.</p> ");
+        }
+        return body.toString();
+    }
+}
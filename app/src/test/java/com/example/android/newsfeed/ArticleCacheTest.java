@@ -0,0 +1,124 @@
+package com.example.android.newsfeed;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class ArticleCacheTest {
+
+    private static final long TTL = 60 * 1000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FakeClock clock;
+    private File directory;
+
+    @Before
+    public void setUp() {
+        clock = new FakeClock();
+        directory = new File(folder.getRoot(), "articles");
+    }
+
+    @Test
+    public void put_thenGet_roundTripsArticles() {
+        ArticleCache cache = new ArticleCache(directory, TTL, 1024 * 1024, clock);
+        List<Article> articles = Arrays.asList(
+                new Article("Superfly review", "Charles Bramesco", "Film", 1528813800000L, "https://a"),
+                new Article("Caf\u00e9 prices", "No Info", "Business", 1528794300000L, "https://b",
+                        "https://media/b.jpg"));
+
+        cache.put("query", articles);
+        List<Article> cached = cache.get("query");
+
+        assertNotNull(cached);
+        assertEquals(2, cached.size());
+        assertEquals("Superfly review", cached.get(0).getTitle());
+        assertEquals("Charles Bramesco", cached.get(0).getAuthor());
+        assertEquals("Film", cached.get(0).getSection());
+        assertEquals(1528813800000L, cached.get(0).getTimeInMilliseconds());
+        assertEquals("https://a", cached.get(0).getUrl());
+        assertNull(cached.get(0).getThumbnailUrl());
+        assertEquals("Caf\u00e9 prices", cached.get(1).getTitle());
+        assertEquals("https://media/b.jpg", cached.get(1).getThumbnailUrl());
+    }
+
+    @Test
+    public void get_unknownKey_returnsNull() {
+        ArticleCache cache = new ArticleCache(directory, TTL, 1024 * 1024, clock);
+        assertNull(cache.get("missing"));
+    }
+
+    @Test
+    public void get_afterTtl_returnsNull() {
+        ArticleCache cache = new ArticleCache(directory, TTL, 1024 * 1024, clock);
+        cache.put("query", articles(3));
+
+        clock.now += TTL;
+        assertNotNull(cache.get("query"));
+
+        clock.now += 1;
+        assertNull(cache.get("query"));
+    }
+
+    @Test
+    public void put_overSizeLimit_evictsLeastRecentlyUsed() {
+        ArticleCache probe = new ArticleCache(new File(folder.getRoot(), "probe"), TTL, Long.MAX_VALUE, clock);
+        probe.put("a", articles(10));
+        long entrySize = new File(folder.getRoot(), "probe").listFiles()[0].length();
+
+        // Room for two entries of the same size.
+        ArticleCache cache = new ArticleCache(directory, TTL, entrySize * 2 + entrySize / 2, clock);
+        cache.put("a", articles(10));
+        clock.now += 1000;
+        cache.put("b", articles(10));
+        clock.now += 1000;
+        // Reading "a" makes "b" the least recently used entry.
+        assertNotNull(cache.get("a"));
+        clock.now += 1000;
+        cache.put("c", articles(10));
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+    }
+
+    @Test
+    public void getSavedAt_returnsTheTimeOfThePut() {
+        ArticleCache cache = new ArticleCache(directory, TTL, 1024 * 1024, clock);
+        assertEquals(-1, cache.getSavedAt("query"));
+
+        long savedAt = clock.now;
+        cache.put("query", articles(3));
+        clock.now += 1000;
+
+        assertEquals(savedAt, cache.getSavedAt("query"));
+    }
+
+    private static List<Article> articles(int count) {
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            articles.add(new Article("Title " + i, "Author", "Section", 1528813800000L, "https://" + i));
+        }
+        return articles;
+    }
+
+    private static class FakeClock implements Clock {
+        long now = 1528813800000L;
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+    }
+}
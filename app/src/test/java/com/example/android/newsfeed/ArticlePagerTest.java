@@ -0,0 +1,239 @@
+package com.example.android.newsfeed;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ArticlePagerTest {
+
+    private static final String URL = "https://content.guardianapis.com/search?page-size=20";
+
+    /**
+     * Background tasks wait here until the test runs them.
+     */
+    private final LinkedList<Runnable> background = new LinkedList<>();
+
+    private final List<Integer> requestedPages = new ArrayList<>();
+
+    private final List<CancellationToken> tokens = new ArrayList<>();
+
+    private List<Article> window;
+    private int lastPageNumber = Integer.MAX_VALUE;
+    private List<Article> pageOne;
+    private List<Article> pageTwo;
+    private int failures;
+    private ArticlePager pager;
+
+    @Before
+    public void setUp() {
+        Executor queue = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                background.add(command);
+            }
+        };
+        Executor direct = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        };
+        ArticlePager.PageLoader loader = new ArticlePager.PageLoader() {
+            @Override
+            public List<Article> loadPage(String url, int page, CancellationToken token) {
+                requestedPages.add(page);
+                tokens.add(token);
+                if (failures > 0) {
+                    failures--;
+                    return null;
+                }
+                if (page == 1 && pageOne != null) {
+                    return pageOne;
+                }
+                if (page == 2 && pageTwo != null) {
+                    return pageTwo;
+                }
+                return page(page, page == lastPageNumber ? 5 : ArticlePager.PAGE_SIZE);
+            }
+        };
+        pager = new ArticlePager(loader, queue, direct, new ArticlePager.Listener() {
+            @Override
+            public void onArticlesChanged(List<Article> articles) {
+                window = articles;
+            }
+        });
+        pager.reset(URL, page(1, ArticlePager.PAGE_SIZE));
+    }
+
+    @Test
+    public void pageUrl_appendsPageParameter() {
+        assertEquals(URL, ArticlePager.pageUrl(URL, 1));
+        assertEquals(URL + "&page=3", ArticlePager.pageUrl(URL, 3));
+    }
+
+    @Test
+    public void scrollFarFromEnd_requestsNothing() {
+        pager.onScroll(0, 5, 20);
+        assertEquals(0, background.size());
+    }
+
+    @Test
+    public void scrollNearEnd_prefetchesNextPageOnce() {
+        pager.onScroll(6, 5, 20);
+        pager.onScroll(7, 5, 20);
+        pager.onScroll(8, 5, 20);
+
+        assertEquals(1, background.size());
+        runBackground();
+        assertEquals(1, requestedPages.size());
+        assertEquals(Integer.valueOf(2), requestedPages.get(0));
+        assertEquals(40, window.size());
+        assertEquals("page 2 item 0", window.get(20).getTitle());
+    }
+
+    @Test
+    public void shortPage_stopsPaging() {
+        lastPageNumber = 2;
+        pager.onScroll(15, 5, 20);
+        runBackground();
+        assertEquals(25, window.size());
+
+        pager.onScroll(20, 5, 25);
+        assertEquals(0, background.size());
+    }
+
+    @Test
+    public void failedPage_isRequestedAgainOnTheNextScroll() {
+        failures = 1;
+        pager.onScroll(15, 5, 20);
+        runBackground();
+        assertEquals(20, window.size());
+
+        pager.onScroll(15, 5, 20);
+        assertEquals(1, background.size());
+        runBackground();
+
+        assertEquals(2, requestedPages.size());
+        assertEquals(Integer.valueOf(2), requestedPages.get(1));
+        assertEquals(40, window.size());
+        assertEquals("page 2 item 0", window.get(20).getTitle());
+    }
+
+    @Test
+    public void fullWindow_dropsFirstPageAndReloadsItWhenScrollingBack() {
+        for (int page = 2; page <= ArticlePager.MAX_PAGES + 1; page++) {
+            int total = window.size();
+            pager.onScroll(total - 5, 5, total);
+            runBackground();
+        }
+
+        assertEquals(ArticlePager.MAX_PAGES * ArticlePager.PAGE_SIZE, window.size());
+        assertEquals("page 2 item 0", window.get(0).getTitle());
+
+        pager.onScroll(0, 5, window.size());
+        runBackground();
+
+        assertEquals("page 1 item 0", window.get(0).getTitle());
+        assertEquals(ArticlePager.MAX_PAGES * ArticlePager.PAGE_SIZE, window.size());
+    }
+
+    @Test
+    public void pageReloadedAtTheFront_dropsArticlesAlreadyInTheWindow() {
+        for (int page = 2; page <= ArticlePager.MAX_PAGES + 1; page++) {
+            int total = window.size();
+            pager.onScroll(total - 5, 5, total);
+            runBackground();
+        }
+        assertEquals("page 2 item 0", window.get(0).getTitle());
+
+        // A story was published meanwhile, pushing the first article of page 2 onto page 1.
+        Article pushed = window.get(0);
+        pageOne = new ArrayList<>(page(1, ArticlePager.PAGE_SIZE - 1));
+        pageOne.add(pushed);
+        pager.onScroll(0, 5, window.size());
+        runBackground();
+
+        assertEquals("page 1 item 0", window.get(0).getTitle());
+        Set<String> urls = new HashSet<>();
+        for (Article article : window) {
+            assertTrue("twice in the window: " + article.getUrl(), urls.add(article.getUrl()));
+        }
+        assertSame(pushed, window.get(ArticlePager.PAGE_SIZE - 1));
+    }
+
+    @Test
+    public void reset_ignoresPagesOfPreviousQuery() {
+        pager.onScroll(15, 5, 20);
+        pager.reset(URL + "&section=film", page(1, ArticlePager.PAGE_SIZE));
+        runBackground();
+
+        assertEquals(20, window.size());
+    }
+
+    @Test
+    public void reset_cancelsPagesOfPreviousQuery() {
+        pager.onScroll(15, 5, 20);
+        pager.reset(URL + "&section=film", page(1, ArticlePager.PAGE_SIZE));
+        runBackground();
+
+        assertEquals(1, tokens.size());
+        assertTrue(tokens.get(0).isCancelled());
+    }
+
+    @Test
+    public void prepend_putsNewArticlesInFrontAndDropsShiftedDuplicates() {
+        List<Article> firstPage = window;
+        List<Article> newArticles = new ArrayList<>();
+        newArticles.add(new Article("new", "Author", "Section", 1528900000000L, "https://example.com/new"));
+
+        assertTrue(pager.prepend(newArticles));
+        assertEquals(21, window.size());
+        assertEquals("https://example.com/new", window.get(0).getUrl());
+        assertSame(firstPage.get(0), window.get(1));
+
+        // The second page now starts with the last article of the first one.
+        List<Article> shifted = new ArrayList<>(page(2, ArticlePager.PAGE_SIZE));
+        shifted.add(0, firstPage.get(ArticlePager.PAGE_SIZE - 1));
+        pageTwo = shifted;
+        pager.onScroll(10, 5, 21);
+        runBackground();
+
+        assertEquals(41, window.size());
+    }
+
+    @Test
+    public void prepend_awayFromTheFirstPage_isRefused() {
+        for (int i = 0; i < ArticlePager.MAX_PAGES; i++) {
+            pager.onScroll(window.size() - 5, 5, window.size());
+            runBackground();
+        }
+
+        assertFalse(pager.prepend(new ArrayList<Article>()));
+    }
+
+    private void runBackground() {
+        while (!background.isEmpty()) {
+            background.removeFirst().run();
+        }
+    }
+
+    private static List<Article> page(int page, int size) {
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            articles.add(new Article("page " + page + " item " + i, "Author", "Section",
+                    1528813800000L, "https://example.com/" + page + "/" + i));
+        }
+        return articles;
+    }
+}
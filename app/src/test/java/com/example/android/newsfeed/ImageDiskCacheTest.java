@@ -0,0 +1,64 @@
+package com.example.android.newsfeed;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class ImageDiskCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File directory;
+
+    @Before
+    public void setUp() {
+        directory = new File(folder.getRoot(), "thumbnails");
+    }
+
+    @Test
+    public void put_thenGet_returnsTheImage() throws IOException {
+        ImageDiskCache cache = new ImageDiskCache(directory, 1024 * 1024);
+        byte[] image = bytes(500, (byte) 7);
+
+        cache.put("https://media/1.jpg", new ByteArrayInputStream(image));
+        File file = cache.get("https://media/1.jpg");
+
+        assertNotNull(file);
+        assertArrayEquals(image, Files.readAllBytes(file.toPath()));
+        assertNull(cache.get("https://media/2.jpg"));
+    }
+
+    @Test
+    public void put_overSizeLimit_evictsLeastRecentlyUsed() {
+        ImageDiskCache cache = new ImageDiskCache(directory, 2500);
+        cache.put("a", new ByteArrayInputStream(bytes(1000, (byte) 1)));
+        cache.put("b", new ByteArrayInputStream(bytes(1000, (byte) 2)));
+        // Make "a" the most recently used one.
+        new File(directory, ArticleCache.hashKey("b") + ".image").setLastModified(1000);
+        new File(directory, ArticleCache.hashKey("a") + ".image").setLastModified(2000);
+
+        cache.put("c", new ByteArrayInputStream(bytes(1000, (byte) 3)));
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+    }
+
+    private static byte[] bytes(int length, byte value) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, value);
+        return bytes;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.android.newsfeed;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ImagePipelineTest {
+
+    @Test
+    public void inSampleSize_keepsTheImageAtLeastAsLargeAsTheView() {
+        // A 1000x750 Guardian thumbnail in a 288x216 row (96x72dp at xxhdpi)
+        assertEquals(2, ImagePipeline.calculateInSampleSize(1000, 750, 288, 216));
+        // The 500x300 thumbnails the API usually returns
+        assertEquals(1, ImagePipeline.calculateInSampleSize(500, 300, 288, 216));
+        assertEquals(4, ImagePipeline.calculateInSampleSize(2000, 1200, 288, 216));
+    }
+
+    @Test
+    public void inSampleSize_isLimitedByTheTighterDimension() {
+        // Wide panorama: halving once more would make it too short.
+        assertEquals(2, ImagePipeline.calculateInSampleSize(4000, 500, 200, 200));
+    }
+
+    @Test
+    public void inSampleSize_ofAnUnmeasuredView_isOne() {
+        assertEquals(1, ImagePipeline.calculateInSampleSize(1000, 750, 0, 0));
+    }
+}
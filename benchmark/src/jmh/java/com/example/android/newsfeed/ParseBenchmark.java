@@ -0,0 +1,104 @@
+package com.example.android.newsfeed;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of turning a recorded Guardian search response into {@link Article}s, for the
+ * streaming parser and for the tree parser, with 20, 50 and 200 results per response.
+ * <p>
+ * The gc profiler configured in build.gradle reports the allocation rate of every benchmark
+ * as gc.alloc.rate.norm (bytes per operation).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ParseBenchmark {
+
+    @Param({"20", "50", "200"})
+    public int results;
+
+    private byte[] payload;
+
+    private String json;
+
+    @Setup
+    public void setUp() throws IOException {
+        payload = Payloads.read("guardian/search_page_size_" + results + ".json");
+        json = ArticleJsonParser.readFromStream(new ByteArrayInputStream(payload));
+    }
+
+    /**
+     * The path the app takes: parse while reading the stream.
+     */
+    @Benchmark
+    public List<Article> streamParse() throws IOException {
+        return ArticleStreamParser.parse(new ByteArrayInputStream(payload));
+    }
+
+    /**
+     * The old path: read the whole response into a String, then build the org.json tree.
+     */
+    @Benchmark
+    public List<Article> readAndTreeParse() throws IOException, JSONException {
+        return ArticleJsonParser.extractFeatureFromJson(
+                ArticleJsonParser.readFromStream(new ByteArrayInputStream(payload)));
+    }
+
+    /**
+     * Only the reading half of the old path.
+     */
+    @Benchmark
+    public String readFromStream() throws IOException {
+        return ArticleJsonParser.readFromStream(new ByteArrayInputStream(payload));
+    }
+
+    /**
+     * Only the parsing half of the old path.
+     */
+    @Benchmark
+    public List<Article> treeParse() throws JSONException {
+        return ArticleJsonParser.extractFeatureFromJson(json);
+    }
+
+    /**
+     * Loads the recorded payloads from the classpath.
+     */
+    static final class Payloads {
+
+        private Payloads() {
+        }
+
+        static byte[] read(String resource) throws IOException {
+            InputStream in = ParseBenchmark.class.getClassLoader().getResourceAsStream(resource);
+            if (in == null) {
+                throw new IOException("Missing payload " + resource);
+            }
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    bytes.write(buffer, 0, read);
+                }
+                return bytes.toByteArray();
+            } finally {
+                in.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.android.newsfeed;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of ordering a feed of 500 and 2 000 articles with {@link ArticleRanker}: from scratch,
+ * after a refresh added 20 articles, and after the user opened an article.
+ * <p>
+ * The articles take the sections and authors of the recorded 200 result response, spread
+ * over the last two days, and the profile has 50 articles opened.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RankerBenchmark {
+
+    private static final long NOW = 1528813800000L;
+
+    @Param({"500", "2000"})
+    public int articles;
+
+    private final Clock clock = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return NOW;
+        }
+    };
+
+    private List<Article> feed;
+
+    /**
+     * The feed after a refresh, 20 new articles on top
+     */
+    private List<Article> refreshed;
+
+    private InterestProfile profile;
+
+    private ArticleRanker ranker;
+
+    private int clicks;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<Article> recorded = ArticleStreamParser.parse(
+                new ByteArrayInputStream(ParseBenchmark.Payloads.read("guardian/search_page_size_200.json")));
+        Random random = new Random(42);
+        feed = generate(recorded, random, articles, "feed");
+        refreshed = new ArrayList<>(generate(recorded, random, 20, "new"));
+        refreshed.addAll(feed);
+
+        profile = new InterestProfile();
+        for (Article article : generate(recorded, random, 50, "read")) {
+            profile.recordClick(article, NOW);
+        }
+    }
+
+    /**
+     * Every iteration starts from a ranker that scored the feed once.
+     */
+    @Setup(Level.Invocation)
+    public void setUpRanker() {
+        ranker = new ArticleRanker(profile, clock);
+        ranker.rank(feed);
+    }
+
+    /**
+     * Score and sort every article, as for the first load.
+     */
+    @Benchmark
+    public List<Article> rankCold() {
+        return new ArticleRanker(profile, clock).rank(feed);
+    }
+
+    /**
+     * Score the 20 new articles of a refresh and sort.
+     */
+    @Benchmark
+    public List<Article> rankRefresh() {
+        return ranker.rank(refreshed);
+    }
+
+    /**
+     * Open an article, score the articles of its section and author again, and sort.
+     */
+    @Benchmark
+    public List<Article> rankAfterClick() {
+        profile.recordClick(feed.get(clicks++ % feed.size()), NOW);
+        return ranker.rank(feed);
+    }
+
+    private static List<Article> generate(List<Article> recorded, Random random, int count, String prefix) {
+        List<Article> articles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Article source = recorded.get(random.nextInt(recorded.size()));
+            long time = NOW - (long) (random.nextDouble() * 48 * 60 * 60 * 1000L);
+            articles.add(new Article(source.getTitle(), source.getAuthor(), source.getSection(), time,
+                    source.getUrl() + "#" + prefix + i));
+        }
+        return articles;
+    }
+}
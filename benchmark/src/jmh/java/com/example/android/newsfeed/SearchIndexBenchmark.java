@@ -0,0 +1,118 @@
+package com.example.android.newsfeed;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Build time and query latency of {@link ArticleSearchIndex} with 1 000, 10 000 and 50 000
+ * articles.
+ * <p>
+ * The articles are made up from the words, sections and authors of the recorded 200 result
+ * response, so the word frequencies look like real titles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SearchIndexBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    public int articles;
+
+    private List<Article> corpus;
+
+    private ArticleSearchIndex index;
+
+    /**
+     * Queries as they are typed, one keystroke after the other
+     */
+    private String[] keystrokes;
+
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<Article> recorded = ArticleStreamParser.parse(
+                new ByteArrayInputStream(ParseBenchmark.Payloads.read("guardian/search_page_size_200.json")));
+        List<String> words = new ArrayList<>();
+        for (Article article : recorded) {
+            words.addAll(ArticleSearchIndex.tokenize(article.getTitle()));
+        }
+
+        Random random = new Random(42);
+        corpus = new ArrayList<>(articles);
+        for (int i = 0; i < articles; i++) {
+            Article source = recorded.get(random.nextInt(recorded.size()));
+            StringBuilder title = new StringBuilder();
+            int length = 4 + random.nextInt(8);
+            for (int w = 0; w < length; w++) {
+                title.append(words.get(random.nextInt(words.size()))).append(' ');
+            }
+            corpus.add(new Article(title.toString().trim(), source.getAuthor(), source.getSection(),
+                    source.getTimeInMilliseconds() - i * 60000L, "https://www.theguardian.com/" + i));
+        }
+
+        index = new ArticleSearchIndex(articles);
+        index.addAll(corpus);
+
+        // Type a few real words letter by letter, then a second word.
+        List<String> typed = new ArrayList<>();
+        for (int q = 0; q < 16; q++) {
+            String first = words.get(random.nextInt(words.size()));
+            String second = words.get(random.nextInt(words.size()));
+            for (int i = 1; i <= first.length(); i++) {
+                typed.add(first.substring(0, i));
+            }
+            for (int i = 1; i <= second.length(); i++) {
+                typed.add(first + " " + second.substring(0, i));
+            }
+        }
+        keystrokes = typed.toArray(new String[typed.size()]);
+    }
+
+    @Setup(Level.Iteration)
+    public void rewind() {
+        next = 0;
+    }
+
+    /**
+     * Index the whole corpus from scratch.
+     */
+    @Benchmark
+    public ArticleSearchIndex build() {
+        ArticleSearchIndex fresh = new ArticleSearchIndex(corpus.size());
+        fresh.addAll(corpus);
+        return fresh;
+    }
+
+    /**
+     * Answer the next keystroke of the typed queries.
+     */
+    @Benchmark
+    public List<Article> searchAsYouType() {
+        String query = keystrokes[next];
+        next = (next + 1) % keystrokes.length;
+        return index.search(query);
+    }
+
+    /**
+     * The worst case: a single letter matching a large part of the corpus.
+     */
+    @Benchmark
+    public List<Article> searchSingleLetter() {
+        return index.search("s");
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.android.newsfeed;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup cost of getting the last feed back from disk: reading the binary
+ * {@link FeedSnapshot} against parsing the JSON response it was made from, both from a file,
+ * with 20, 50 and 200 articles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SnapshotBenchmark {
+
+    @Param({"20", "50", "200"})
+    public int results;
+
+    private File snapshot;
+
+    private File json;
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] payload = ParseBenchmark.Payloads.read("guardian/search_page_size_" + results + ".json");
+        json = File.createTempFile("feed", ".json");
+        FileOutputStream out = new FileOutputStream(json);
+        out.write(payload);
+        out.close();
+
+        snapshot = File.createTempFile("feed", ".snapshot");
+        FeedSnapshot.write(snapshot, ArticleStreamParser.parse(new ByteArrayInputStream(payload)));
+    }
+
+    @TearDown
+    public void tearDown() {
+        json.delete();
+        snapshot.delete();
+    }
+
+    /**
+     * Map the snapshot and decode its articles.
+     */
+    @Benchmark
+    public List<Article> readSnapshot() throws IOException {
+        return FeedSnapshot.read(snapshot);
+    }
+
+    /**
+     * Stream parse the JSON response from the file.
+     */
+    @Benchmark
+    public List<Article> parseJson() throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(json));
+        try {
+            return ArticleStreamParser.parse(in);
+        } finally {
+            in.close();
+        }
+    }
+}
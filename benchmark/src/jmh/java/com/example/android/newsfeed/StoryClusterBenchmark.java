@@ -0,0 +1,93 @@
+package com.example.android.newsfeed;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of grouping 10 000 titles into stories with {@link StoryClusterer}, and of the
+ * {@link TitleFingerprint} every article gets when it is parsed.
+ * <p>
+ * The titles are made of the words of the recorded 200 result response, eight to twelve of
+ * them, spread over two days. One in ten is a reworded copy of another title: a word dropped
+ * and another one added.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StoryClusterBenchmark {
+
+    private static final long NOW = 1528813800000L;
+
+    @Param({"10000"})
+    public int titles;
+
+    private List<Article> feed;
+
+    private String[] titleStrings;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<Article> recorded = ArticleStreamParser.parse(
+                new ByteArrayInputStream(ParseBenchmark.Payloads.read("guardian/search_page_size_200.json")));
+        List<String> vocabulary = new ArrayList<>();
+        for (Article article : recorded) {
+            for (String word : article.getTitle().split("\\s+")) {
+                vocabulary.add(word);
+            }
+        }
+
+        Random random = new Random(42);
+        feed = new ArrayList<>(titles);
+        titleStrings = new String[titles];
+        for (int i = 0; i < titles; i++) {
+            String title;
+            if (i > 0 && random.nextInt(10) == 0) {
+                String source = titleStrings[random.nextInt(i)];
+                title = source.substring(source.indexOf(' ') + 1) + " "
+                        + vocabulary.get(random.nextInt(vocabulary.size()));
+            } else {
+                StringBuilder builder = new StringBuilder();
+                int words = 8 + random.nextInt(5);
+                for (int w = 0; w < words; w++) {
+                    builder.append(vocabulary.get(random.nextInt(vocabulary.size()))).append(' ');
+                }
+                title = builder.toString().trim();
+            }
+            titleStrings[i] = title;
+            long time = NOW - (long) (random.nextDouble() * 48 * 60 * 60 * 1000L);
+            feed.add(new Article(title, "a", "s", time, "https://www.theguardian.com/" + i));
+        }
+    }
+
+    /**
+     * Group the articles into stories.
+     */
+    @Benchmark
+    public List<StoryClusterer.Story> cluster() {
+        return StoryClusterer.cluster(feed);
+    }
+
+    /**
+     * Fingerprint every title, the work added to parsing.
+     */
+    @Benchmark
+    public void fingerprint(Blackhole blackhole) {
+        for (String title : titleStrings) {
+            blackhole.consume(TitleFingerprint.of(title));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.android.newsfeed;
+
+/**
+ * A timeout that follows the latency measured on the network, the way TCP computes its
+ * retransmission timeout: the smoothed latency plus four times its smoothed deviation.
+ * <p>
+ * On a fast network a stalled request is given up after a couple of seconds instead of the
+ * fixed worst case, and a timeout doubles the value so that a network that got slower is not
+ * given up on over and over. The value always stays between the minimum and the maximum.
+ */
+public class AdaptiveTimeout {
+
+    private final int mMinMillis;
+
+    private final int mMaxMillis;
+
+    /**
+     * Smoothed latency, or -1 before the first measurement
+     */
+    private double mSmoothedMillis = -1;
+
+    /**
+     * Smoothed deviation of the latency
+     */
+    private double mDeviationMillis;
+
+    private int mTimeoutMillis;
+
+    /**
+     * Constructs a new {@link AdaptiveTimeout}.
+     *
+     * @param initialMillis is the timeout until a latency is measured
+     * @param minMillis     is the shortest timeout
+     * @param maxMillis     is the longest timeout
+     */
+    public AdaptiveTimeout(int initialMillis, int minMillis, int maxMillis) {
+        mMinMillis = minMillis;
+        mMaxMillis = maxMillis;
+        mTimeoutMillis = clamp(initialMillis);
+    }
+
+    /**
+     * Returns the timeout to use for the next request, in milliseconds.
+     */
+    public synchronized int getMillis() {
+        return mTimeoutMillis;
+    }
+
+    /**
+     * Record the latency of a request that did not time out.
+     */
+    public synchronized void record(long latencyMillis) {
+        if (mSmoothedMillis < 0) {
+            mSmoothedMillis = latencyMillis;
+            mDeviationMillis = latencyMillis / 2.0;
+        } else {
+            mDeviationMillis = 0.75 * mDeviationMillis + 0.25 * Math.abs(mSmoothedMillis - latencyMillis);
+            mSmoothedMillis = 0.875 * mSmoothedMillis + 0.125 * latencyMillis;
+        }
+        mTimeoutMillis = clamp(mSmoothedMillis + 4 * mDeviationMillis);
+    }
+
+    /**
+     * Record that a request timed out, which doubles the timeout.
+     */
+    public synchronized void onTimeout() {
+        mTimeoutMillis = clamp(2.0 * mTimeoutMillis);
+    }
+
+    private int clamp(double millis) {
+        return (int) Math.max(mMinMillis, Math.min(mMaxMillis, Math.ceil(millis)));
+    }
+}
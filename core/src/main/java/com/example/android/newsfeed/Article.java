@@ -0,0 +1,304 @@
+package com.example.android.newsfeed;
+
+/**
+ * An {@link Article} object contains information related to a single article.
+ * <p>
+ * Everything the list item shows is formatted once, when the article is created on the
+ * loader's background thread, so binding a row does no string work on the UI thread.
+ * <p>
+ * The author, the section, their labels and the display date and time repeat across
+ * articles. They go through the app wide {@link StringInterner}, so a large cached feed holds
+ * one copy of each instead of one per article. Titles and URLs are unique and are kept as is.
+ * <p>
+ * The {@link TitleFingerprint} of the title is computed along with the rest, for the
+ * {@link StoryClusterer} to group the articles of a same story.
+ */
+public class Article {
+
+    /**
+     * Prefix of the author label shown in the list item
+     */
+    private static final String AUTHOR_LABEL_PREFIX = "Author: ";
+
+    /**
+     * Prefix of the section label shown in the list item
+     */
+    private static final String SECTION_LABEL_PREFIX = "Section: ";
+
+    private static final long MILLIS_PER_MINUTE = 60 * 1000L;
+
+    private static final long MILLIS_PER_DAY = 24 * 60 * MILLIS_PER_MINUTE;
+
+    /**
+     * Title of the article
+     */
+    private String mTitle;
+
+    /**
+     * Author of the article
+     */
+    private String mAuthor;
+
+    /**
+     * The section of the article
+     */
+    private String mSection;
+
+    /**
+     * Time of publication in milliseconds since the epoch
+     */
+    private long mTimeInMilliseconds;
+
+    /**
+     * Website URL of the article
+     */
+    private String mUrl;
+
+    /**
+     * URL of the thumbnail image of the article, or null if it has none
+     */
+    private String mThumbnailUrl;
+
+    /**
+     * Author label shown in the list item, e.g. "Author: Charles Bramesco"
+     */
+    private String mAuthorLabel;
+
+    /**
+     * Section label shown in the list item, e.g. "Section: Film"
+     */
+    private String mSectionLabel;
+
+    /**
+     * Date of publication shown in the list item, e.g. "2018-06-12"
+     */
+    private String mDisplayDate;
+
+    /**
+     * Time of publication shown in the list item, e.g. "14:30 UTC"
+     */
+    private String mDisplayTime;
+
+    /**
+     * Fingerprint of the title, or null if it is too short to have one
+     */
+    private short[] mTitleFingerprint;
+
+    /**
+     * Constructs a new {@link Article} object.
+     *
+     * @param title              is the title of the article
+     * @param author             is the author of the article
+     * @param section            is the section of the article
+     * @param timeInMilliseconds is the time of publication in milliseconds since the epoch
+     * @param url                is the website URL to find more details about the article
+     */
+    public Article(String title, String author, String section, long timeInMilliseconds, String url) {
+        this(title, author, section, timeInMilliseconds, url, null);
+    }
+
+    /**
+     * Constructs a new {@link Article} object with a thumbnail.
+     *
+     * @param title              is the title of the article
+     * @param author             is the author of the article
+     * @param section            is the section of the article
+     * @param timeInMilliseconds is the time of publication in milliseconds since the epoch
+     * @param url                is the website URL to find more details about the article
+     * @param thumbnailUrl       is the URL of the thumbnail image, or null if there is none
+     */
+    public Article(String title, String author, String section, long timeInMilliseconds, String url,
+                   String thumbnailUrl) {
+        StringInterner interner = StringInterner.getInstance();
+        mTitle = title;
+        mAuthor = interner.intern(author);
+        mSection = interner.intern(section);
+        mTimeInMilliseconds = timeInMilliseconds;
+        mUrl = url;
+        mThumbnailUrl = thumbnailUrl;
+
+        mAuthorLabel = interner.intern(AUTHOR_LABEL_PREFIX + author);
+        mSectionLabel = interner.intern(SECTION_LABEL_PREFIX + section);
+        mDisplayDate = interner.intern(formatDate(timeInMilliseconds));
+        mDisplayTime = interner.intern(formatTime(timeInMilliseconds));
+        mTitleFingerprint = TitleFingerprint.of(title);
+    }
+
+    /**
+     * Returns the title of the article.
+     */
+    public String getTitle() {
+        return mTitle;
+    }
+
+    /**
+     * Returns the author's of the article name.
+     */
+    public String getAuthor() {
+        return mAuthor;
+    }
+
+    /**
+     * Returns the section name of the article.
+     */
+    public String getSection() {
+        return mSection;
+    }
+
+    /**
+     * Returns the time of publication in milliseconds since the epoch.
+     */
+    public long getTimeInMilliseconds() {
+        return mTimeInMilliseconds;
+    }
+
+    /**
+     * Returns the website URL to find more information about the article.
+     */
+    public String getUrl() {
+        return mUrl;
+    }
+
+    /**
+     * Returns the URL of the thumbnail image of the article, or null if it has none.
+     */
+    public String getThumbnailUrl() {
+        return mThumbnailUrl;
+    }
+
+    /**
+     * Returns the author label shown in the list item.
+     */
+    public String getAuthorLabel() {
+        return mAuthorLabel;
+    }
+
+    /**
+     * Returns the section label shown in the list item.
+     */
+    public String getSectionLabel() {
+        return mSectionLabel;
+    }
+
+    /**
+     * Returns the UTC date of publication, e.g. "2018-06-12".
+     */
+    public String getDisplayDate() {
+        return mDisplayDate;
+    }
+
+    /**
+     * Returns the UTC time of publication without seconds, e.g. "14:30 UTC".
+     */
+    public String getDisplayTime() {
+        return mDisplayTime;
+    }
+
+    /**
+     * Returns the fingerprint of the title, or null if it is too short to have one. The array
+     * is shared, do not change it.
+     */
+    short[] getTitleFingerprint() {
+        return mTitleFingerprint;
+    }
+
+    /**
+     * Returns the milliseconds since the epoch of an iso-8601 UTC date and time as sent by the
+     * Guardian, e.g. "2018-06-12T14:30:12Z".
+     *
+     * @throws IllegalArgumentException if the string is not in that format
+     */
+    public static long parseTime(String dateAndTime) {
+        if (dateAndTime == null || dateAndTime.length() < 19
+                || dateAndTime.charAt(4) != '-' || dateAndTime.charAt(7) != '-'
+                || dateAndTime.charAt(10) != 'T' || dateAndTime.charAt(13) != ':'
+                || dateAndTime.charAt(16) != ':') {
+            throw new IllegalArgumentException("Unexpected date format: " + dateAndTime);
+        }
+
+        int year = digits(dateAndTime, 0, 4);
+        int month = digits(dateAndTime, 5, 7);
+        int day = digits(dateAndTime, 8, 10);
+        int hour = digits(dateAndTime, 11, 13);
+        int minute = digits(dateAndTime, 14, 16);
+        int second = digits(dateAndTime, 17, 19);
+
+        return daysFromCivil(year, month, day) * MILLIS_PER_DAY
+                + ((hour * 60L + minute) * 60L + second) * 1000L;
+    }
+
+    /**
+     * Returns the value of the decimal digits between start and end.
+     */
+    private static int digits(String s, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException("Unexpected date format: " + s);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Returns the number of days between 1970-01-01 and the given date of the proleptic
+     * Gregorian calendar.
+     */
+    static long daysFromCivil(int year, int month, int day) {
+        year -= month <= 2 ? 1 : 0;
+        long era = (year >= 0 ? year : year - 399) / 400;
+        long yearOfEra = year - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * Returns the UTC date of the given time as "yyyy-MM-dd".
+     */
+    private static String formatDate(long timeInMilliseconds) {
+        long days = floorDiv(timeInMilliseconds, MILLIS_PER_DAY) + 719468;
+        long era = (days >= 0 ? days : days - 146096) / 146097;
+        long dayOfEra = days - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+        int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+        char[] date = new char[10];
+        date[0] = (char) ('0' + year / 1000 % 10);
+        date[1] = (char) ('0' + year / 100 % 10);
+        date[2] = (char) ('0' + year / 10 % 10);
+        date[3] = (char) ('0' + year % 10);
+        date[4] = '-';
+        date[5] = (char) ('0' + month / 10);
+        date[6] = (char) ('0' + month % 10);
+        date[7] = '-';
+        date[8] = (char) ('0' + day / 10);
+        date[9] = (char) ('0' + day % 10);
+        return new String(date);
+    }
+
+    /**
+     * Returns the UTC time of the given time as "HH:mm UTC".
+     */
+    private static String formatTime(long timeInMilliseconds) {
+        long millisOfDay = timeInMilliseconds - floorDiv(timeInMilliseconds, MILLIS_PER_DAY) * MILLIS_PER_DAY;
+        int minuteOfDay = (int) (millisOfDay / MILLIS_PER_MINUTE);
+        int hour = minuteOfDay / 60;
+        int minute = minuteOfDay % 60;
+
+        char[] time = {(char) ('0' + hour / 10), (char) ('0' + hour % 10), ':',
+                (char) ('0' + minute / 10), (char) ('0' + minute % 10), ' ', 'U', 'T', 'C'};
+        return new String(time);
+    }
+
+    private static long floorDiv(long x, long y) {
+        long q = x / y;
+        return (x % y != 0 && ((x ^ y) < 0)) ? q - 1 : q;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.android.newsfeed;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+
+/**
+ * Streaming parser for the Guardian single item response, asked with {@code show-fields=body}.
+ * <p>
+ * Only {@code response.content.fields.body} is read, everything else is skipped.
+ */
+public final class ArticleBodyParser {
+
+    /**
+     * Names of the nested objects leading to the body
+     */
+    private static final String[] BODY_PATH = {"response", "content", "fields", "body"};
+
+    /**
+     * Create a private constructor because no one should ever create a {@link ArticleBodyParser}
+     * object. This class only holds static methods.
+     */
+    private ArticleBodyParser() {
+    }
+
+    /**
+     * Parse the given Guardian item response and return the HTML body of the article, or null
+     * if the response has none.
+     */
+    public static String parse(InputStream inputStream) throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(inputStream, Charset.forName("UTF-8")));
+        try {
+            return readObject(reader, 0);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Read the object at the given depth of {@link #BODY_PATH} and return the body found below
+     * it, or null if there is none.
+     */
+    private static String readObject(JsonReader reader, int depth) throws IOException {
+        String value = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!BODY_PATH[depth].equals(reader.nextName())) {
+                reader.skipValue();
+            } else if (depth == BODY_PATH.length - 1 && reader.peek() == JsonToken.STRING) {
+                value = reader.nextString();
+            } else if (depth < BODY_PATH.length - 1 && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                value = readObject(reader, depth + 1);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return value;
+    }
+}
@@ -0,0 +1,660 @@
+package com.example.android.newsfeed;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Fetches and parses the articles of a query URL, with the {@link FeedSource} the URL belongs to.
+ * <p>
+ * Responses are requested gzip compressed, and the ETag and Last-Modified validators of every
+ * URL are remembered together with the articles parsed from it. The next request for the same
+ * URL is sent as a conditional request, and a {@code 304 Not Modified} answer reuses the
+ * articles already in memory without downloading or parsing anything.
+ * <p>
+ * Connections are never disconnected: every response body is read to the end and closed,
+ * which hands the connection back to the platform's keep-alive pool so the next request to
+ * the same host skips the TCP and TLS handshakes. Requests for a URL that is already being
+ * fetched do not go to the network again, they wait for the request in flight and share its
+ * articles.
+ * <p>
+ * A request is cancelled through the {@link CancellationToken} of its callers. Once all of them
+ * have cancelled, its connection is closed, which also aborts a read blocked on the socket.
+ * <p>
+ * A request that fails for a transient reason is tried again as its {@link RetryPolicy} says,
+ * and a {@link CircuitBreaker} stops sending requests while the API keeps failing: the last
+ * articles received for the URL are returned instead, if there are any. The connect and read
+ * timeouts follow the latency measured on the previous requests, see {@link AdaptiveTimeout}.
+ * Every host has a breaker and timeouts of its own, so that a failing or slow feed neither
+ * shuts out nor sets the pace for the Guardian API.
+ */
+public class ArticleHttpClient {
+
+    // The url connection read time in milliseconds, before any latency is measured
+    private static final int readTimeoutInMilliseconds = 10000;
+
+    // The url connection time out in milliseconds, before any latency is measured
+    private static final int connectTimeoutInMilliseconds = 15000;
+
+    // The shortest timeouts in milliseconds, however fast the network is
+    private static final int minTimeoutInMilliseconds = 2000;
+
+    /**
+     * Number of URLs whose validators are remembered.
+     */
+    private static final int MAX_VALIDATED_URLS = 32;
+
+    /**
+     * Number of hosts whose breaker and timeouts are remembered.
+     */
+    private static final int MAX_HOSTS = 32;
+
+    /**
+     * Closes the connections of cancelled requests. Closing a connection can write to the
+     * socket, which must not happen on the thread that cancels, usually the main thread.
+     */
+    private static final Executor sCloser = Executors.newCachedThreadPool();
+
+    private static ArticleHttpClient sInstance;
+
+    /**
+     * Source of the URLs fetched without naming one
+     */
+    private static final FeedSource DEFAULT_SOURCE = new GuardianFeedSource();
+
+    /**
+     * Validators and parsed articles of the last successful response for each URL, least
+     * recently used first.
+     */
+    private final Map<String, Validated> mValidated =
+            new LinkedHashMap<String, Validated>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Validated> eldest) {
+                    return size() > MAX_VALIDATED_URLS;
+                }
+            };
+
+    /**
+     * Requests in flight, by URL
+     */
+    private final Map<String, Call> mInFlight = new HashMap<>();
+
+    private final RetryPolicy mRetryPolicy;
+
+    private final HostFactory mHostFactory;
+
+    /**
+     * Breaker and timeouts of each host, by host and port, least recently used first
+     */
+    private final Map<String, Host> mHosts =
+            new LinkedHashMap<String, Host>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Host> eldest) {
+                    return size() > MAX_HOSTS;
+                }
+            };
+
+    /**
+     * Creates the breaker and the timeouts of a host the first time it is requested.
+     */
+    interface HostFactory {
+        Host create(String authority);
+    }
+
+    /**
+     * Gives every host the default breaker and timeouts.
+     */
+    static final HostFactory DEFAULT_HOSTS = new HostFactory() {
+        @Override
+        public Host create(String authority) {
+            return new Host(new CircuitBreaker(),
+                    new AdaptiveTimeout(connectTimeoutInMilliseconds, minTimeoutInMilliseconds,
+                            connectTimeoutInMilliseconds),
+                    new AdaptiveTimeout(readTimeoutInMilliseconds, minTimeoutInMilliseconds,
+                            readTimeoutInMilliseconds));
+        }
+    };
+
+    /**
+     * Constructs a new {@link ArticleHttpClient} with the default retry policy and timeouts.
+     */
+    public ArticleHttpClient() {
+        this(RetryPolicy.DEFAULT, DEFAULT_HOSTS);
+    }
+
+    /**
+     * Constructs a new {@link ArticleHttpClient}.
+     *
+     * @param retryPolicy decides which failed requests are tried again
+     * @param hostFactory creates the breaker and the timeouts of each host
+     */
+    ArticleHttpClient(RetryPolicy retryPolicy, HostFactory hostFactory) {
+        mRetryPolicy = retryPolicy;
+        mHostFactory = hostFactory;
+    }
+
+    /**
+     * Returns the breaker and the timeouts of the host of the given URL.
+     */
+    private Host hostOf(URL url) {
+        String authority = url.getAuthority();
+        synchronized (mHosts) {
+            Host host = mHosts.get(authority);
+            if (host == null) {
+                host = mHostFactory.create(authority);
+                mHosts.put(authority, host);
+            }
+            return host;
+        }
+    }
+
+    /**
+     * Returns the app wide client.
+     */
+    public static synchronized ArticleHttpClient getInstance() {
+        if (sInstance == null) {
+            sInstance = new ArticleHttpClient();
+        }
+        return sInstance;
+    }
+
+    /**
+     * Request the given URL and return the list of {@link Article}s of the response.
+     *
+     * @throws IOException if the request failed or the server answered with an error
+     */
+    public List<Article> fetch(URL url) throws IOException {
+        return fetch(url, null);
+    }
+
+    /**
+     * Request the given Guardian URL and return the list of {@link Article}s of the response,
+     * see {@link #fetch(URL, FeedSource, CancellationToken)}.
+     */
+    public List<Article> fetch(URL url, CancellationToken token) throws IOException {
+        return fetch(url, DEFAULT_SOURCE, token);
+    }
+
+    /**
+     * Request the given URL and return the list of {@link Article}s of the response. The
+     * request is aborted, even in the middle of reading the response, once every caller
+     * waiting for it has cancelled its token.
+     *
+     * @param source parses the response
+     * @param token  cancels the request, may be null
+     * @throws InterruptedIOException         if the request was cancelled
+     * @throws CircuitBreaker.OpenException   if the API keeps failing and there are no articles
+     *                                        of the URL to fall back to
+     * @throws IOException                    if every attempt failed or the server answered
+     *                                        with a permanent error
+     */
+    public List<Article> fetch(final URL url, final FeedSource source, CancellationToken token)
+            throws IOException {
+        final String key = url.toString();
+
+        final Call call;
+        boolean owner = false;
+        synchronized (mInFlight) {
+            Call inFlight = mInFlight.get(key);
+            if (inFlight == null) {
+                final Call created = new Call(key);
+                created.task = new FutureTask<>(new Callable<List<Article>>() {
+                    @Override
+                    public List<Article> call() throws IOException {
+                        return execute(url, source, key, created);
+                    }
+                });
+                inFlight = created;
+                mInFlight.put(key, inFlight);
+                owner = true;
+            }
+            call = inFlight;
+            call.callers++;
+        }
+
+        Runnable onCancel = new Runnable() {
+            @Override
+            public void run() {
+                release(call);
+            }
+        };
+        if (token != null) {
+            token.addOnCancelListener(onCancel);
+        }
+
+        try {
+            if (owner) {
+                // Run the request on the calling thread, the other callers wait for it.
+                try {
+                    call.task.run();
+                } finally {
+                    synchronized (mInFlight) {
+                        if (mInFlight.get(key) == call) {
+                            mInFlight.remove(key);
+                        }
+                    }
+                }
+            }
+            return call.task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + key);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            if (token != null) {
+                token.removeOnCancelListener(onCancel);
+            }
+        }
+    }
+
+    /**
+     * One caller of the request gave up on it. When it was the last one, abort the request
+     * and close its connection, which makes a blocked read fail right away.
+     */
+    private void release(Call call) {
+        final HttpURLConnection connection;
+        synchronized (mInFlight) {
+            call.callers--;
+            if (call.callers > 0 || call.task.isDone()) {
+                return;
+            }
+            call.aborted = true;
+            call.abortSignal.countDown();
+            connection = call.connection;
+            // The next caller for the URL starts a new request instead of joining this one.
+            if (mInFlight.get(call.key) == call) {
+                mInFlight.remove(call.key);
+            }
+        }
+        if (connection != null) {
+            sCloser.execute(new Runnable() {
+                @Override
+                public void run() {
+                    connection.disconnect();
+                }
+            });
+        }
+    }
+
+    /**
+     * Send the request for the given URL, trying again after the transient failures, and return
+     * the list of {@link Article}s of the response.
+     */
+    private List<Article> execute(URL url, FeedSource source, String key, Call call) throws IOException {
+        Host host = hostOf(url);
+        CircuitBreaker circuitBreaker = host.circuitBreaker;
+        long start = System.nanoTime();
+        for (int attempt = 1; ; attempt++) {
+            if (!circuitBreaker.allowRequest()) {
+                // Spare the failing API, the last articles of the URL are better than nothing.
+                List<Article> stale = staleArticles(key);
+                if (stale != null) {
+                    return stale;
+                }
+                throw new CircuitBreaker.OpenException("Not requesting " + key + " while its host is failing");
+            }
+
+            IOException failure;
+            try {
+                List<Article> articles = request(url, source, key, call, host);
+                circuitBreaker.onSuccess();
+                return articles;
+            } catch (IOException e) {
+                failure = e;
+            }
+
+            RetryPolicy.Failure kind = RetryPolicy.classify(failure);
+            if (kind == RetryPolicy.Failure.CANCELLED) {
+                circuitBreaker.onCancelled();
+                throw failure;
+            }
+            if (kind == RetryPolicy.Failure.PERMANENT) {
+                // The server answered, it is healthy even though the request is not.
+                circuitBreaker.onSuccess();
+                throw failure;
+            }
+            circuitBreaker.onFailure();
+
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            long delay = mRetryPolicy.delayBeforeRetry(attempt, failure, elapsedMillis);
+            if (delay < 0) {
+                List<Article> stale = circuitBreaker.getState() == CircuitBreaker.State.OPEN
+                        ? staleArticles(key) : null;
+                if (stale != null) {
+                    // This failure opened the breaker, fall back like the next requests will.
+                    return stale;
+                }
+                throw failure;
+            }
+            Metrics.getInstance().histogram(Metrics.RETRY_DELAY).record(delay * 1000);
+            try {
+                if (call.abortSignal.await(delay, TimeUnit.MILLISECONDS)) {
+                    throw new InterruptedIOException("Cancelled " + key);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to retry " + key);
+            }
+        }
+    }
+
+    /**
+     * Returns the articles of the last successful response for the given URL, or null if there
+     * are none.
+     */
+    private List<Article> staleArticles(String key) {
+        synchronized (mValidated) {
+            Validated validated = mValidated.get(key);
+            return validated != null ? validated.articles : null;
+        }
+    }
+
+    /**
+     * Send the request for the given URL once and return the list of {@link Article}s of the
+     * response.
+     */
+    private List<Article> request(URL url, FeedSource source, String key, Call call, Host host)
+            throws IOException {
+        Validated validated;
+        synchronized (mValidated) {
+            validated = mValidated.get(key);
+        }
+
+        Metrics metrics = Metrics.getInstance();
+        long start = System.nanoTime();
+        HttpURLConnection urlConnection = null;
+        DrainingInputStream inputStream = null;
+        boolean connected = false;
+        boolean succeeded = false;
+        try {
+            urlConnection = (HttpURLConnection) url.openConnection();
+            synchronized (mInFlight) {
+                if (call.aborted) {
+                    throw new InterruptedIOException("Cancelled " + key);
+                }
+                call.connection = urlConnection;
+            }
+            urlConnection.setRequestMethod("GET");
+            urlConnection.setReadTimeout(host.readTimeout.getMillis());
+            urlConnection.setConnectTimeout(host.connectTimeout.getMillis());
+            // Asking for gzip ourselves means we also have to inflate the body ourselves.
+            urlConnection.setRequestProperty("Accept-Encoding", "gzip");
+            if (validated != null) {
+                if (validated.etag != null) {
+                    urlConnection.setRequestProperty("If-None-Match", validated.etag);
+                }
+                if (validated.lastModified != null) {
+                    urlConnection.setRequestProperty("If-Modified-Since", validated.lastModified);
+                }
+            }
+            urlConnection.connect();
+            connected = true;
+            long connectedAt = System.nanoTime();
+            metrics.recordSince(Metrics.CONNECT, start);
+            host.connectTimeout.record(TimeUnit.NANOSECONDS.toMillis(connectedAt - start));
+
+            int responseCode = urlConnection.getResponseCode();
+            long firstByte = System.nanoTime();
+            metrics.recordSince(Metrics.FIRST_BYTE, connectedAt);
+            host.readTimeout.record(TimeUnit.NANOSECONDS.toMillis(firstByte - connectedAt));
+            InputStream raw = responseCode < HttpURLConnection.HTTP_BAD_REQUEST
+                    ? urlConnection.getInputStream() : urlConnection.getErrorStream();
+            if (raw != null) {
+                inputStream = new DrainingInputStream(raw);
+            }
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && validated != null) {
+                // Nothing changed since the last response, reuse its articles.
+                succeeded = true;
+                return validated.articles;
+            }
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                throw new HttpStatusException(responseCode,
+                        HttpStatusException.parseRetryAfter(urlConnection.getHeaderField("Retry-After")));
+            }
+
+            InputStream body = inputStream;
+            if ("gzip".equalsIgnoreCase(urlConnection.getContentEncoding())) {
+                body = new GZIPInputStream(inputStream);
+            }
+            List<Article> articles;
+            try {
+                articles = source.parse(body);
+            } catch (IOException e) {
+                long contentLength = urlConnection.getContentLength();
+                if (contentLength >= 0 && inputStream.getByteCount() < contentLength) {
+                    // The connection dropped mid body, which the parser sees as a malformed document.
+                    EOFException truncated = new EOFException("Response truncated after "
+                            + inputStream.getByteCount() + " of " + contentLength + " bytes");
+                    truncated.initCause(e);
+                    throw truncated;
+                }
+                throw e;
+            }
+            if (isAborted(call)) {
+                // Cancelled after the last read, nobody wants these articles anymore.
+                throw new InterruptedIOException("Cancelled " + key);
+            }
+            metrics.recordSince(Metrics.READ_AND_PARSE, firstByte);
+            metrics.recordSince(Metrics.REQUEST, start);
+
+            String etag = urlConnection.getHeaderField("ETag");
+            String lastModified = urlConnection.getHeaderField("Last-Modified");
+            synchronized (mValidated) {
+                if (etag != null || lastModified != null) {
+                    mValidated.put(key, new Validated(etag, lastModified, articles));
+                } else {
+                    mValidated.remove(key);
+                }
+            }
+            succeeded = true;
+            return articles;
+
+        } catch (IOException e) {
+            if (isAborted(call)) {
+                // The failure is the connection closed under the read, report the cancellation.
+                InterruptedIOException cancelled = new InterruptedIOException("Cancelled " + key);
+                cancelled.initCause(e);
+                throw cancelled;
+            }
+            if (e instanceof SocketTimeoutException) {
+                // Give the next attempt more time, the network got slower than measured.
+                (connected ? host.readTimeout : host.connectTimeout).onTimeout();
+            }
+            throw e;
+
+        } finally {
+            if (succeeded) {
+                // Do not disconnect, a fully read and closed response keeps the connection alive.
+                if (inputStream != null) {
+                    try {
+                        inputStream.drainAndClose();
+                    } catch (IOException e) {
+                        // The articles are read, only the connection is lost.
+                        urlConnection.disconnect();
+                    }
+                }
+            } else if (urlConnection != null) {
+                // Reading the rest of a failed response could stall on the same socket or run
+                // through a huge body, and must not replace the failure being thrown. The
+                // connection is not reused.
+                if (inputStream != null) {
+                    inputStream.closeWithoutDraining();
+                }
+                urlConnection.disconnect();
+            }
+            if (inputStream != null && !isAborted(call)) {
+                metrics.histogram(Metrics.RESPONSE_BYTES).record(inputStream.getByteCount());
+            }
+            synchronized (mInFlight) {
+                call.connection = null;
+            }
+        }
+    }
+
+    private boolean isAborted(Call call) {
+        synchronized (mInFlight) {
+            return call.aborted;
+        }
+    }
+
+    /**
+     * A response body that the client closes itself once it knows how the request ended: a
+     * successful one reads whatever is left, such as the gzip trailer after the end of the JSON,
+     * so that the connection can be reused for the next request, any other is closed as it is.
+     * Closing it from the parser does nothing. It also counts the bytes of the body.
+     */
+    private static class DrainingInputStream extends FilterInputStream {
+        private boolean mClosed;
+        private long mByteCount;
+
+        DrainingInputStream(InputStream in) {
+            super(in);
+        }
+
+        long getByteCount() {
+            return mByteCount;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b != -1) {
+                mByteCount++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = in.read(buffer, offset, length);
+            if (read > 0) {
+                mByteCount += read;
+            }
+            return read;
+        }
+
+        /**
+         * Close the body without reading the rest of it, for a connection that is closed anyway.
+         */
+        void closeWithoutDraining() {
+            mClosed = true;
+            try {
+                in.close();
+            } catch (IOException e) {
+                // The connection is already gone.
+            }
+        }
+
+        /**
+         * Left to the client, a parser closing the body it failed on must not read the rest.
+         */
+        @Override
+        public void close() {
+        }
+
+        /**
+         * Read the rest of the body and close it, for a connection that can be reused.
+         */
+        void drainAndClose() throws IOException {
+            if (mClosed) {
+                return;
+            }
+            mClosed = true;
+            try {
+                byte[] buffer = new byte[1024];
+                while (read(buffer) != -1) {
+                    // Discard the rest of the body.
+                }
+            } finally {
+                in.close();
+            }
+        }
+    }
+
+    /**
+     * A request in flight and the callers waiting for it. Guarded by {@link #mInFlight}.
+     */
+    private static class Call {
+        final String key;
+        FutureTask<List<Article>> task;
+
+        /**
+         * Number of callers that have not cancelled
+         */
+        int callers;
+
+        /**
+         * Whether every caller cancelled and the request was aborted
+         */
+        boolean aborted;
+
+        /**
+         * The connection of the request while it runs
+         */
+        HttpURLConnection connection;
+
+        /**
+         * Released when the request is aborted, ends the wait before a retry
+         */
+        final CountDownLatch abortSignal = new CountDownLatch(1);
+
+        Call(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * The breaker and the timeouts of one host.
+     */
+    static class Host {
+        final CircuitBreaker circuitBreaker;
+        final AdaptiveTimeout connectTimeout;
+        final AdaptiveTimeout readTimeout;
+
+        Host(CircuitBreaker circuitBreaker, AdaptiveTimeout connectTimeout, AdaptiveTimeout readTimeout) {
+            this.circuitBreaker = circuitBreaker;
+            this.connectTimeout = connectTimeout;
+            this.readTimeout = readTimeout;
+        }
+    }
+
+    /**
+     * The validators of a response and the articles parsed from it.
+     */
+    private static class Validated {
+        final String etag;
+        final String lastModified;
+        final List<Article> articles;
+
+        Validated(String etag, String lastModified, List<Article> articles) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.articles = articles;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.android.newsfeed;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tree parser for the Guardian search response: the whole response is read into a String and
+ * turned into an org.json tree before the first {@link Article} is created.
+ * <p>
+ * The app parses with {@link ArticleStreamParser}, this parser is the reference it is tested
+ * and benchmarked against.
+ */
+public final class ArticleJsonParser {
+
+    /**
+     * Create a private constructor because no one should ever create a {@link ArticleJsonParser}
+     * object. This class only holds static methods.
+     */
+    private ArticleJsonParser() {
+    }
+
+    /**
+     * Convert the {@link InputStream} into a String which contains the
+     * whole JSON response from the server.
+     */
+    public static String readFromStream(InputStream inputStream) throws IOException {
+        StringBuilder output = new StringBuilder();
+        if (inputStream != null) {
+            InputStreamReader inputStreamReader = new InputStreamReader(inputStream, Charset.forName("UTF-8"));
+            BufferedReader reader = new BufferedReader(inputStreamReader);
+            String line = reader.readLine();
+            while (line != null) {
+                output.append(line);
+                line = reader.readLine();
+            }
+        }
+        return output.toString();
+    }
+
+    /**
+     * Return a list of {@link Article} objects that has been built up from
+     * parsing a JSON response.
+     *
+     * @throws JSONException if the response is not a Guardian search response
+     */
+    public static List<Article> extractFeatureFromJson(String articleJSONResponse) throws JSONException {
+
+        // If the JSON string is empty or null, then return early
+        if (articleJSONResponse == null || articleJSONResponse.isEmpty()) {
+            return null;
+        }
+
+        // Create an empty ArrayList that we can start adding articles to
+        List<Article> articles = new ArrayList<>();
+
+        // Create a JSONObject from the JSON response string
+        JSONObject root = new JSONObject(articleJSONResponse);
+
+        JSONObject response = root.getJSONObject("response");
+
+        // Extract the JSONArray associated with the key called "results",
+        // which represents a list of features (or articles)
+        JSONArray results = response.optJSONArray("results");
+
+        // For each article in the articleArray, create an {@link Article} object
+        for (int i = 0; i < results.length(); i++) {
+
+            // Get a single article at position i within the list of articles
+            JSONObject article = results.getJSONObject(i);
+
+            // Extract the value for the key called "webPublicationDate"
+            // and convert it into milliseconds since the epoch
+            long time = Article.parseTime(article.getString("webPublicationDate"));
+            // Extract the value for the key called "webTitle"
+            String title = article.getString("webTitle");
+            // Extract the value for the key called"sectionName"
+            String section = article.getString("sectionName");
+            // Extract the value for the key called "webUrl"
+            String url = article.getString("webUrl");
+            String author;
+
+            // Extract the JSONArray associated with the key called "tags",
+            // which represents a list of tags
+            JSONArray tags = article.optJSONArray("tags");
+            // Get the first tag which represents the "contributor" tag, if any
+            JSONObject contributor = tags != null ? tags.optJSONObject(0) : null;
+            if (contributor != null) {
+                // Extract the value for the key called "webTitle"
+                author = contributor.getString("webTitle");
+            } else {
+                author = ArticleStreamParser.NO_AUTHOR;
+            }
+
+            // Extract the value for the key called "thumbnail" of the "fields" object, if any
+            String thumbnailUrl = null;
+            JSONObject fields = article.optJSONObject("fields");
+            if (fields != null) {
+                thumbnailUrl = fields.optString("thumbnail", null);
+            }
+
+            // Create a new {@link Article} object with the title, author, date,
+            // url and thumbnail from the JSON response.
+            Article articleObject = new Article(title, author, section, time, url, thumbnailUrl);
+
+            // Add the new {@link Article} to the list of article.
+            articles.add(articleObject);
+        }
+
+        return articles;
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.android.newsfeed;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Orders a feed for the user, from their {@link InterestProfile}, instead of the order of the
+ * API.
+ * <p>
+ * The score of an article is counted in half lives of {@link #RECENCY_HALF_LIFE_MILLIS}: its
+ * publication time, plus a bonus for the sections and authors the user reads, minus a penalty
+ * once it has been read. A bonus of one makes an article rank like one published six hours
+ * later. The recency term is the log of an exponential decay, so the order it gives does not
+ * change as time passes, and a score stays valid until the profile changes.
+ * <p>
+ * Scoring is incremental: the scores of the last ranked articles are kept, and ranking again
+ * only scores the articles that are new, or whose section, author or read state changed since.
+ * All of them are scored again once {@link #RESCORE_INTERVAL_MILLIS} has passed, as the
+ * interests fade. Not thread safe, rank on a single background thread.
+ */
+public class ArticleRanker {
+
+    /**
+     * Age after which an article ranks like one published a half life later.
+     */
+    public static final long RECENCY_HALF_LIFE_MILLIS = 6 * 60 * 60 * 1000L;
+
+    /**
+     * Time after which every score is computed again, with the interests faded to that time.
+     */
+    public static final long RESCORE_INTERVAL_MILLIS = 60 * 60 * 1000L;
+
+    /**
+     * Bonus per doubling of the interest in the section, in half lives
+     */
+    static final double SECTION_WEIGHT = 2;
+
+    /**
+     * Bonus per doubling of the interest in the author, in half lives
+     */
+    static final double AUTHOR_WEIGHT = 1;
+
+    /**
+     * Penalty of an article already read, in half lives
+     */
+    static final double READ_PENALTY = 8;
+
+    /**
+     * Highest score first, then newest first, then by URL so the order is stable.
+     */
+    private static final Comparator<Scored> BEST_FIRST = new Comparator<Scored>() {
+        @Override
+        public int compare(Scored a, Scored b) {
+            int byScore = Double.compare(b.score, a.score);
+            if (byScore != 0) {
+                return byScore;
+            }
+            long left = a.article.getTimeInMilliseconds();
+            long right = b.article.getTimeInMilliseconds();
+            if (left != right) {
+                return left > right ? -1 : 1;
+            }
+            return a.article.getUrl().compareTo(b.article.getUrl());
+        }
+    };
+
+    private static final double LN_2 = Math.log(2);
+
+    private final InterestProfile mProfile;
+
+    private final Clock mClock;
+
+    /**
+     * Scores of the articles last ranked, by URL
+     */
+    private Map<String, Scored> mScores = new HashMap<>();
+
+    /**
+     * When every score was last computed again
+     */
+    private long mRescoredAt;
+
+    /**
+     * Number of articles scored so far, for the tests and benchmarks
+     */
+    private long mScoreCount;
+
+    /**
+     * Constructs a new {@link ArticleRanker}.
+     *
+     * @param profile is the profile of the user
+     * @param clock   is the source of the current time
+     */
+    public ArticleRanker(InterestProfile profile, Clock clock) {
+        mProfile = profile;
+        mClock = clock;
+        mRescoredAt = clock.currentTimeMillis();
+    }
+
+    /**
+     * Returns the given articles, best first. Only the articles that are new or whose
+     * interests changed since the last call are scored.
+     */
+    public List<Article> rank(List<Article> articles) {
+        long now = mClock.currentTimeMillis();
+        if (now - mRescoredAt >= RESCORE_INTERVAL_MILLIS || now < mRescoredAt) {
+            mScores.clear();
+            mRescoredAt = now;
+        }
+
+        Map<String, Scored> scores = new HashMap<>(articles.size() * 2);
+        List<Scored> ranked = new ArrayList<>(articles.size());
+        for (Article article : articles) {
+            Scored scored = mScores.get(article.getUrl());
+            if (scored == null || !scored.isValidFor(article, mProfile)) {
+                scored = new Scored(article, mProfile.getVersion(), score(article, now));
+                mScoreCount++;
+            } else if (scored.article != article) {
+                // A new copy of the article, show it with the score of the old one.
+                scored = new Scored(article, scored.version, scored.score);
+            }
+            scores.put(article.getUrl(), scored);
+            ranked.add(scored);
+        }
+        // Only keep the scores of this feed, they are the ones the next call needs.
+        mScores = scores;
+
+        Collections.sort(ranked, BEST_FIRST);
+        List<Article> result = new ArrayList<>(ranked.size());
+        for (Scored scored : ranked) {
+            result.add(scored.article);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of articles scored so far.
+     */
+    long getScoreCount() {
+        return mScoreCount;
+    }
+
+    /**
+     * Returns the score of the given article at the given time.
+     */
+    double score(Article article, long now) {
+        double score = (double) article.getTimeInMilliseconds() / RECENCY_HALF_LIFE_MILLIS;
+        score += SECTION_WEIGHT * log2(1 + mProfile.getSectionAffinity(article.getSection(), now));
+        score += AUTHOR_WEIGHT * log2(1 + mProfile.getAuthorAffinity(article.getAuthor(), now));
+        if (mProfile.isRead(article.getUrl())) {
+            score -= READ_PENALTY;
+        }
+        return score;
+    }
+
+    private static double log2(double value) {
+        return Math.log(value) / LN_2;
+    }
+
+    /**
+     * An article and its score, computed at a version of the profile.
+     */
+    private static class Scored {
+        final Article article;
+        final long version;
+        final double score;
+
+        Scored(Article article, long version, double score) {
+            this.article = article;
+            this.version = version;
+            this.score = score;
+        }
+
+        /**
+         * Returns true if the score still holds for the given article, the same one or a new
+         * copy with the same time, section and author, as of the current profile.
+         */
+        boolean isValidFor(Article other, InterestProfile profile) {
+            if (other != article && (other.getTimeInMilliseconds() != article.getTimeInMilliseconds()
+                    || !other.getSection().equals(article.getSection())
+                    || !other.getAuthor().equals(article.getAuthor()))) {
+                return false;
+            }
+            return profile.getChangedVersion(other) <= version;
+        }
+    }
+}
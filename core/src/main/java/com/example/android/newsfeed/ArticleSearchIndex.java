@@ -0,0 +1,323 @@
+package com.example.android.newsfeed;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * In memory full text index over the titles, sections and authors of the articles fetched so
+ * far, answering prefix searches as the user types without going to the network.
+ * <p>
+ * Every article gets an id in the order it was added, and every word maps to the sorted list
+ * of ids it appears in. The words are kept sorted, so the words starting with a prefix are a
+ * contiguous range of the dictionary. A query matches the articles that contain, for every
+ * word of the query, a word starting with it.
+ * <p>
+ * Articles are added incrementally and deduplicated by URL. An article that comes back with
+ * different text is indexed again under a new id, and its old id is masked out of the results.
+ * <p>
+ * The index holds at most {@code maxArticles} distinct articles. Past that the oldest quarter is
+ * evicted, and once there are more masked ids than live ones the index is compacted: both are
+ * done by indexing the articles that are kept again from scratch, so the cost is spread over
+ * many additions.
+ */
+public class ArticleSearchIndex {
+
+    /**
+     * Number of results returned when the caller does not ask for a limit.
+     */
+    public static final int DEFAULT_LIMIT = 50;
+
+    /**
+     * Number of distinct articles the app wide index holds at most, many times what the feeds
+     * show at once.
+     */
+    static final int DEFAULT_MAX_ARTICLES = 2000;
+
+    private static ArticleSearchIndex sInstance;
+
+    private final int mMaxArticles;
+
+    /**
+     * Indexed articles, by id
+     */
+    private final List<Article> mArticles = new ArrayList<>();
+
+    /**
+     * Ids of articles that were indexed again under a new id
+     */
+    private final BitSet mReplaced = new BitSet();
+
+    /**
+     * Number of ids set in {@link #mReplaced}
+     */
+    private int mReplacedCount;
+
+    /**
+     * Id of every indexed article, by URL
+     */
+    private final Map<String, Integer> mIds = new HashMap<>();
+
+    /**
+     * The ids every word appears in, by word
+     */
+    private final TreeMap<String, Postings> mPostings = new TreeMap<>();
+
+    /**
+     * Constructs a new {@link ArticleSearchIndex} holding at most {@link #DEFAULT_MAX_ARTICLES}.
+     */
+    public ArticleSearchIndex() {
+        this(DEFAULT_MAX_ARTICLES);
+    }
+
+    /**
+     * Constructs a new {@link ArticleSearchIndex}.
+     *
+     * @param maxArticles is the number of distinct articles held at most, the oldest ones are
+     *                    evicted past it
+     */
+    public ArticleSearchIndex(int maxArticles) {
+        mMaxArticles = maxArticles;
+    }
+
+    /**
+     * Returns the app wide index.
+     */
+    public static synchronized ArticleSearchIndex getInstance() {
+        if (sInstance == null) {
+            sInstance = new ArticleSearchIndex();
+        }
+        return sInstance;
+    }
+
+    /**
+     * Returns the number of distinct articles in the index.
+     */
+    public synchronized int size() {
+        return mIds.size();
+    }
+
+    /**
+     * Add the given articles to the index, skipping the ones already indexed with the same text.
+     */
+    public synchronized void addAll(List<Article> articles) {
+        for (Article article : articles) {
+            Integer previousId = mIds.get(article.getUrl());
+            if (previousId != null) {
+                Article previous = mArticles.get(previousId);
+                if (sameText(previous, article)) {
+                    // Keep the newest copy for the results, the words are the same.
+                    mArticles.set(previousId, article);
+                    continue;
+                }
+                mReplaced.set(previousId);
+                mReplacedCount++;
+            }
+            add(article);
+        }
+
+        if (mIds.size() > mMaxArticles || mReplacedCount > mIds.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Index the article under the next id.
+     */
+    private void add(Article article) {
+        int id = mArticles.size();
+        mArticles.add(article);
+        mIds.put(article.getUrl(), id);
+        index(id, article.getTitle());
+        index(id, article.getSection());
+        if (!ArticleStreamParser.NO_AUTHOR.equals(article.getAuthor())) {
+            index(id, article.getAuthor());
+        }
+    }
+
+    /**
+     * Index the live articles again from scratch, dropping the masked ids and, when there are
+     * more than {@link #mMaxArticles}, the oldest articles down to three quarters of it.
+     */
+    private void compact() {
+        List<Article> live = new ArrayList<>(mIds.size());
+        for (int id = mReplaced.nextClearBit(0); id < mArticles.size(); id = mReplaced.nextClearBit(id + 1)) {
+            live.add(mArticles.get(id));
+        }
+        if (live.size() > mMaxArticles) {
+            Collections.sort(live, FeedAggregator.NEWEST_FIRST);
+            live = live.subList(0, mMaxArticles - mMaxArticles / 4);
+        }
+
+        mArticles.clear();
+        mReplaced.clear();
+        mReplacedCount = 0;
+        mIds.clear();
+        mPostings.clear();
+        for (Article article : live) {
+            add(article);
+        }
+    }
+
+    /**
+     * Returns the newest {@link #DEFAULT_LIMIT} articles matching the query.
+     */
+    public List<Article> search(String query) {
+        return search(query, DEFAULT_LIMIT);
+    }
+
+    /**
+     * Returns the newest articles matching every word of the query, each word being the
+     * prefix of a word of the article.
+     *
+     * @param query is the text typed by the user
+     * @param limit is the maximum number of articles returned
+     */
+    public List<Article> search(String query, int limit) {
+        return search(query, limit, null);
+    }
+
+    /**
+     * Returns the newest articles matching every word of the query, each word being the
+     * prefix of a word of the article, among the articles with the given URLs.
+     *
+     * @param query is the text typed by the user
+     * @param limit is the maximum number of articles returned
+     * @param urls  are the URLs of the articles to search, or null to search them all
+     */
+    public synchronized List<Article> search(String query, int limit, Set<String> urls) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        BitSet matches = null;
+        for (String word : words) {
+            BitSet wordMatches = new BitSet(mArticles.size());
+            // Every word in [word, word + the largest char) starts with word.
+            for (Postings postings : mPostings.subMap(word, word + Character.MAX_VALUE).values()) {
+                postings.addTo(wordMatches);
+            }
+            if (matches == null) {
+                matches = wordMatches;
+            } else {
+                matches.and(wordMatches);
+            }
+            if (matches.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+        matches.andNot(mReplaced);
+        if (urls != null) {
+            BitSet allowed = new BitSet(mArticles.size());
+            for (String url : urls) {
+                Integer id = mIds.get(url);
+                if (id != null) {
+                    allowed.set(id);
+                }
+            }
+            matches.and(allowed);
+        }
+
+        // Keep the newest articles in a heap whose head is the oldest one kept.
+        PriorityQueue<Article> newest = new PriorityQueue<>(Math.min(limit, matches.cardinality()) + 1,
+                Collections.reverseOrder(FeedAggregator.NEWEST_FIRST));
+        for (int id = matches.nextSetBit(0); id >= 0; id = matches.nextSetBit(id + 1)) {
+            newest.add(mArticles.get(id));
+            if (newest.size() > limit) {
+                newest.poll();
+            }
+        }
+
+        List<Article> results = new ArrayList<>(newest);
+        Collections.sort(results, FeedAggregator.NEWEST_FIRST);
+        return results;
+    }
+
+    /**
+     * Add the id to the postings of every word of the text.
+     */
+    private void index(int id, String text) {
+        for (String word : tokenize(text)) {
+            Postings postings = mPostings.get(word);
+            if (postings == null) {
+                postings = new Postings();
+                mPostings.put(word, postings);
+            }
+            postings.add(id);
+        }
+    }
+
+    private static boolean sameText(Article a, Article b) {
+        return a.getTitle().equals(b.getTitle())
+                && a.getSection().equals(b.getSection())
+                && a.getAuthor().equals(b.getAuthor());
+    }
+
+    /**
+     * Returns the words of the text: runs of letters and digits, lower cased and without
+     * accents, so that "Caf&eacute;" is found by "cafe".
+     */
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean wordChar = i < length && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(normalize(text.substring(start, i)));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private static String normalize(String word) {
+        String lower = word.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            if (lower.charAt(i) > 0x7f) {
+                // Split the accents off the letters and drop them.
+                return Normalizer.normalize(lower, Normalizer.Form.NFD)
+                        .replaceAll("\\p{InCombiningDiacriticalMarks}+", "");
+            }
+        }
+        return lower;
+    }
+
+    /**
+     * The ids a word appears in, in increasing order.
+     */
+    private static class Postings {
+        private int[] mIds = new int[2];
+        private int mSize;
+
+        void add(int id) {
+            // Ids only grow, a word seen twice in the same article is only stored once.
+            if (mSize > 0 && mIds[mSize - 1] == id) {
+                return;
+            }
+            if (mSize == mIds.length) {
+                int[] ids = new int[mSize * 2];
+                System.arraycopy(mIds, 0, ids, 0, mSize);
+                mIds = ids;
+            }
+            mIds[mSize++] = id;
+        }
+
+        void addTo(BitSet bits) {
+            for (int i = 0; i < mSize; i++) {
+                bits.set(mIds[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.android.newsfeed;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming parser for the Guardian search response.
+ * <p>
+ * Unlike {@link ArticleJsonParser#extractFeatureFromJson(String)}, this parser never holds the whole
+ * response in memory: it walks {@code response.results[]} token by token straight from the
+ * {@link InputStream} and hands out each {@link Article} as soon as its object is closed.
+ * Values we never display (apiUrl, id, most of each tag, every field but the thumbnail, ...)
+ * are skipped without being read.
+ */
+public final class ArticleStreamParser {
+
+    /**
+     * Author used when an article has no contributor tag, same as the tree parser.
+     */
+    static final String NO_AUTHOR = "No Info";
+
+    /**
+     * Create a private constructor because no one should ever create a {@link ArticleStreamParser}
+     * object. This class only holds static methods.
+     */
+    private ArticleStreamParser() {
+    }
+
+    /**
+     * Receives each {@link Article} as soon as it has been read from the stream.
+     */
+    public interface Listener {
+        void onArticle(Article article);
+    }
+
+    /**
+     * Parse the given Guardian search response and return the list of {@link Article}s it holds.
+     */
+    public static List<Article> parse(InputStream inputStream) throws IOException {
+        final List<Article> articles = new ArrayList<>();
+        parse(inputStream, new Listener() {
+            @Override
+            public void onArticle(Article article) {
+                articles.add(article);
+            }
+        });
+        return articles;
+    }
+
+    /**
+     * Parse the given Guardian search response, passing every {@link Article} to the listener
+     * in document order. Returns the number of articles read.
+     * <p>
+     * Throws a {@link MalformedResponseException} when the document is JSON but not a search
+     * response, or holds an article without its required fields.
+     */
+    public static int parse(InputStream inputStream, Listener listener) throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(inputStream, Charset.forName("UTF-8")));
+        try {
+            int count = 0;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("response".equals(reader.nextName())) {
+                    count += readResponse(reader, listener);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return count;
+        } catch (IllegalStateException e) {
+            // Valid JSON, but a value of another type than a search response has.
+            throw new MalformedResponseException(e.getMessage(), e);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Read the "response" object and every article of its "results" array.
+     */
+    private static int readResponse(JsonReader reader, Listener listener) throws IOException {
+        int count = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("results".equals(reader.nextName())) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    listener.onArticle(readArticle(reader));
+                    count++;
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return count;
+    }
+
+    /**
+     * Read a single element of the "results" array.
+     */
+    private static Article readArticle(JsonReader reader) throws IOException {
+        String title = null;
+        String section = null;
+        String date = null;
+        String url = null;
+        String author = NO_AUTHOR;
+        String thumbnailUrl = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("webTitle".equals(name)) {
+                title = reader.nextString();
+            } else if ("sectionName".equals(name)) {
+                section = reader.nextString();
+            } else if ("webPublicationDate".equals(name)) {
+                date = reader.nextString();
+            } else if ("webUrl".equals(name)) {
+                url = reader.nextString();
+            } else if ("tags".equals(name)) {
+                author = readContributor(reader);
+            } else if ("fields".equals(name)) {
+                thumbnailUrl = readThumbnail(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (title == null || section == null || date == null || url == null) {
+            throw new MalformedResponseException("Article is missing a required field at " + reader.getPath());
+        }
+        long timeInMilliseconds;
+        try {
+            timeInMilliseconds = Article.parseTime(date);
+        } catch (IllegalArgumentException e) {
+            throw new MalformedResponseException("Article has an invalid webPublicationDate at " + reader.getPath(), e);
+        }
+        return new Article(title, author, section, timeInMilliseconds, url, thumbnailUrl);
+    }
+
+    /**
+     * Read the "fields" object and return its "thumbnail", or null if it has none.
+     */
+    private static String readThumbnail(JsonReader reader) throws IOException {
+        String thumbnailUrl = null;
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("thumbnail".equals(reader.nextName()) && reader.peek() == JsonToken.STRING) {
+                thumbnailUrl = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return thumbnailUrl;
+    }
+
+    /**
+     * Read the "tags" array and return the "webTitle" of its first tag, which represents the
+     * contributor. Every other tag is skipped.
+     */
+    private static String readContributor(JsonReader reader) throws IOException {
+        String author = NO_AUTHOR;
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return author;
+        }
+
+        reader.beginArray();
+        if (reader.hasNext()) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("webTitle".equals(reader.nextName())) {
+                    author = reader.nextString();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        while (reader.hasNext()) {
+            reader.skipValue();
+        }
+        reader.endArray();
+        return author;
+    }
+}
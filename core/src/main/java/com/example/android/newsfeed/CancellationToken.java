@@ -0,0 +1,76 @@
+package com.example.android.newsfeed;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lets the code that started a load cancel it from another thread.
+ * <p>
+ * Code doing the work checks {@link #isCancelled()} between steps, and registers a listener
+ * to abort the steps that block, such as a socket read, when the token is cancelled. A token
+ * is cancelled at most once and cannot be reset, every load gets a token of its own.
+ */
+public class CancellationToken {
+
+    private boolean mCancelled;
+
+    private final List<Runnable> mListeners = new ArrayList<>();
+
+    /**
+     * Cancel the load and run the listeners registered so far, on the calling thread.
+     */
+    public void cancel() {
+        List<Runnable> listeners;
+        synchronized (this) {
+            if (mCancelled) {
+                return;
+            }
+            mCancelled = true;
+            listeners = new ArrayList<>(mListeners);
+            mListeners.clear();
+        }
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Returns true if the load was cancelled.
+     */
+    public synchronized boolean isCancelled() {
+        return mCancelled;
+    }
+
+    /**
+     * Throw if the load was cancelled.
+     *
+     * @throws InterruptedIOException if the load was cancelled
+     */
+    public void throwIfCancelled() throws InterruptedIOException {
+        if (isCancelled()) {
+            throw new InterruptedIOException("Cancelled");
+        }
+    }
+
+    /**
+     * Run the given listener when the load is cancelled, or right away if it already was.
+     */
+    public void addOnCancelListener(Runnable listener) {
+        synchronized (this) {
+            if (!mCancelled) {
+                mListeners.add(listener);
+                return;
+            }
+        }
+        listener.run();
+    }
+
+    /**
+     * Stop running the given listener when the load is cancelled, once the step it aborts is
+     * over. A cancellation already under way may still run it.
+     */
+    public synchronized void removeOnCancelListener(Runnable listener) {
+        mListeners.remove(listener);
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.android.newsfeed;
+
+import java.io.IOException;
+
+/**
+ * Stops sending requests to a server that keeps failing.
+ * <p>
+ * The breaker is closed while requests succeed. After {@link #DEFAULT_FAILURE_THRESHOLD}
+ * failures in a row it opens, and for the next {@link #DEFAULT_OPEN_MILLIS} no request is
+ * allowed, so callers answer from what they have instead of waiting on an unhealthy server.
+ * After that a single request is let through: the breaker closes again if it succeeds, and
+ * opens for another period if it fails.
+ */
+public class CircuitBreaker {
+
+    /**
+     * Failures in a row that open the breaker.
+     */
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+
+    /**
+     * How long the breaker stays open before letting a request through.
+     */
+    public static final long DEFAULT_OPEN_MILLIS = 30 * 1000;
+
+    /**
+     * The state of the breaker.
+     */
+    public enum State {
+        /**
+         * Requests go through.
+         */
+        CLOSED,
+        /**
+         * Requests are refused.
+         */
+        OPEN,
+        /**
+         * One request is on its way to find out whether the server is back.
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * Thrown instead of sending a request while the breaker is open.
+     */
+    public static class OpenException extends IOException {
+        public OpenException(String message) {
+            super(message);
+        }
+    }
+
+    private final Clock mClock;
+
+    private final int mFailureThreshold;
+
+    private final long mOpenMillis;
+
+    private State mState = State.CLOSED;
+
+    /**
+     * Failures in a row since the last success
+     */
+    private int mFailures;
+
+    /**
+     * When the breaker last opened
+     */
+    private long mOpenedAt;
+
+    /**
+     * Constructs a new {@link CircuitBreaker}.
+     *
+     * @param clock            is the source of the current time
+     * @param failureThreshold is the number of failures in a row that opens the breaker
+     * @param openMillis       is how long the breaker stays open
+     */
+    public CircuitBreaker(Clock clock, int failureThreshold, long openMillis) {
+        mClock = clock;
+        mFailureThreshold = failureThreshold;
+        mOpenMillis = openMillis;
+    }
+
+    /**
+     * Constructs a new {@link CircuitBreaker} with the default threshold and open period.
+     */
+    public CircuitBreaker() {
+        this(Clock.SYSTEM, DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_MILLIS);
+    }
+
+    /**
+     * Returns true if a request may be sent now. Once the open period is over, only the first
+     * caller is allowed until its request reports back.
+     */
+    public synchronized boolean allowRequest() {
+        switch (mState) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                long elapsed = mClock.currentTimeMillis() - mOpenedAt;
+                // A clock that went back does not keep the breaker open forever.
+                if (elapsed >= mOpenMillis || elapsed < 0) {
+                    mState = State.HALF_OPEN;
+                    return true;
+                }
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Record that the server answered, which closes the breaker.
+     */
+    public synchronized void onSuccess() {
+        mState = State.CLOSED;
+        mFailures = 0;
+    }
+
+    /**
+     * Record that a request failed because of the server or the network.
+     */
+    public synchronized void onFailure() {
+        mFailures++;
+        if (mState == State.HALF_OPEN || mFailures >= mFailureThreshold) {
+            mState = State.OPEN;
+            mOpenedAt = mClock.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Record that an allowed request was cancelled before it told anything about the server,
+     * so that the next caller may probe it instead.
+     */
+    public synchronized void onCancelled() {
+        if (mState == State.HALF_OPEN) {
+            mState = State.OPEN;
+            mOpenedAt = mClock.currentTimeMillis() - mOpenMillis;
+        }
+    }
+
+    /**
+     * Returns the state of the breaker.
+     */
+    public synchronized State getState() {
+        return mState;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.android.newsfeed;
+
+/**
+ * Source of the current time, so that time dependent classes can be tested with a fake clock.
+ */
+public interface Clock {
+
+    /**
+     * The real wall clock.
+     */
+    Clock SYSTEM = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    /**
+     * Returns the current time in milliseconds since the epoch.
+     */
+    long currentTimeMillis();
+}
@@ -0,0 +1,166 @@
+package com.example.android.newsfeed;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+/**
+ * Loads several queries at once and merges their articles into a single feed.
+ * <p>
+ * Every query is fetched on the given executor, whose size bounds how many requests run at
+ * the same time. Whenever a query returns, its articles are merged into the feed, newest
+ * first and without duplicate URLs, and the listener gets the feed so far. The first rows can
+ * then be shown as soon as the fastest query is back.
+ */
+public class FeedAggregator {
+
+    /**
+     * Newest articles first.
+     */
+    static final Comparator<Article> NEWEST_FIRST = new Comparator<Article>() {
+        @Override
+        public int compare(Article a, Article b) {
+            long left = a.getTimeInMilliseconds();
+            long right = b.getTimeInMilliseconds();
+            return left > right ? -1 : (left == right ? 0 : 1);
+        }
+    };
+
+    /**
+     * Fetches the articles of a single query, called on the executor.
+     */
+    public interface Fetcher {
+        /**
+         * Returns the articles of the given query URL, or null if the request failed or was
+         * cancelled.
+         *
+         * @param token cancels the request, may be null
+         */
+        List<Article> fetch(String url, CancellationToken token);
+    }
+
+    /**
+     * Receives the merged feed every time another query has returned.
+     */
+    public interface Listener {
+        void onPartialResult(List<Article> articles);
+    }
+
+    private final Executor mExecutor;
+
+    private final Fetcher mFetcher;
+
+    /**
+     * Constructs a new {@link FeedAggregator}.
+     *
+     * @param executor runs the queries, its size bounds how many run at the same time
+     * @param fetcher  fetches a single query
+     */
+    public FeedAggregator(Executor executor, Fetcher fetcher) {
+        mExecutor = executor;
+        mFetcher = fetcher;
+    }
+
+    /**
+     * Fetch all the given queries and return their merged articles, or null if every query
+     * failed. Blocks until the last query has returned, so call it on a background thread.
+     *
+     * @param urls     are the query URLs
+     * @param listener gets the merged feed after each query but the last, may be null
+     */
+    public List<Article> load(List<String> urls, Listener listener) throws InterruptedException {
+        return load(urls, listener, null);
+    }
+
+    /**
+     * Fetch all the given queries and return their merged articles, or null if every query
+     * failed. Cancelling the token cancels the queries still running, and the load returns
+     * the articles merged so far.
+     *
+     * @param urls     are the query URLs
+     * @param listener gets the merged feed after each query but the last, may be null
+     * @param token    cancels the load, may be null
+     */
+    public List<Article> load(List<String> urls, Listener listener, final CancellationToken token)
+            throws InterruptedException {
+        CompletionService<List<Article>> completionService = new ExecutorCompletionService<>(mExecutor);
+        List<Future<List<Article>>> futures = new ArrayList<>(urls.size());
+        for (final String url : urls) {
+            futures.add(completionService.submit(new Callable<List<Article>>() {
+                @Override
+                public List<Article> call() {
+                    return mFetcher.fetch(url, token);
+                }
+            }));
+        }
+
+        List<Article> merged = null;
+        try {
+            for (int done = 1; done <= urls.size(); done++) {
+                List<Article> articles;
+                try {
+                    articles = completionService.take().get();
+                } catch (ExecutionException e) {
+                    // A query that crashed counts as a failed one.
+                    articles = null;
+                }
+                if (token != null && token.isCancelled()) {
+                    break;
+                }
+                if (articles == null) {
+                    continue;
+                }
+
+                merged = merge(merged == null ? Collections.<Article>emptyList() : merged, articles);
+                if (listener != null && done < urls.size()) {
+                    listener.onPartialResult(merged);
+                }
+            }
+        } finally {
+            // Stop the queries that are still running when we are interrupted.
+            for (Future<List<Article>> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Returns the articles of both lists, newest first, keeping only the first article of
+     * each URL.
+     *
+     * @param feed     is a feed sorted newest first, as returned by this method
+     * @param articles are the articles to add to it, in any order
+     */
+    public static List<Article> merge(List<Article> feed, List<Article> articles) {
+        List<Article> incoming = new ArrayList<>(articles);
+        Collections.sort(incoming, NEWEST_FIRST);
+
+        List<Article> merged = new ArrayList<>(feed.size() + incoming.size());
+        Set<String> urls = new HashSet<>();
+        int i = 0;
+        int j = 0;
+        while (i < feed.size() || j < incoming.size()) {
+            Article next;
+            if (j == incoming.size()
+                    || (i < feed.size() && NEWEST_FIRST.compare(feed.get(i), incoming.get(j)) <= 0)) {
+                next = feed.get(i++);
+            } else {
+                next = incoming.get(j++);
+            }
+            if (urls.add(next.getUrl())) {
+                merged.add(next);
+            }
+        }
+        return merged;
+    }
+}
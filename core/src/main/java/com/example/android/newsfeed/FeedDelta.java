@@ -0,0 +1,102 @@
+package com.example.android.newsfeed;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TimeZone;
+
+/**
+ * Builds the incremental refresh of a query: instead of downloading the whole first page
+ * again, only the articles published since the newest article held are requested, with a
+ * {@code from-date} and {@code order-by=newest}, and put in front of the articles already
+ * shown.
+ * <p>
+ * Only queries ordered by publication date can be refreshed this way. The most viewed
+ * articles change order without new ones being published, they are always loaded in full.
+ */
+public final class FeedDelta {
+
+    /**
+     * Create a private constructor because no one should ever create a {@link FeedDelta}
+     * object. This class only holds static methods.
+     */
+    private FeedDelta() {
+    }
+
+    /**
+     * Returns true if the query URL lists articles by publication date, so that the articles
+     * newer than a date are enough to bring it up to date.
+     */
+    public static boolean supports(String url) {
+        if (url == null || url.contains("show-most-viewed=") || url.contains("from-date=")) {
+            return false;
+        }
+        // The Guardian orders a query without search terms by date unless told otherwise.
+        return !url.contains("order-by=") || url.contains("order-by=newest");
+    }
+
+    /**
+     * Returns the query URL for the articles published at or after the given time, newest
+     * first. The article published at that very time comes back too, so the caller removes
+     * what it already holds with {@link #newArticles(List, List)}.
+     */
+    public static String newerThan(String url, long timeInMilliseconds) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        StringBuilder builder = new StringBuilder(url);
+        if (!url.contains("order-by=")) {
+            builder.append("&order-by=newest");
+        }
+        builder.append("&from-date=").append(format.format(new Date(timeInMilliseconds)));
+        return builder.toString();
+    }
+
+    /**
+     * Returns the publication time of the newest of the given articles, or -1 if there is none.
+     */
+    public static long newestTime(List<Article> articles) {
+        long newest = -1;
+        for (Article article : articles) {
+            newest = Math.max(newest, article.getTimeInMilliseconds());
+        }
+        return newest;
+    }
+
+    /**
+     * Returns the articles of the delta that the feed does not hold yet, newest first.
+     *
+     * @param feed  are the articles already shown
+     * @param delta are the articles returned by the {@link #newerThan(String, long)} query
+     */
+    public static List<Article> newArticles(List<Article> feed, List<Article> delta) {
+        Set<String> held = new HashSet<>();
+        for (Article article : feed) {
+            held.add(article.getUrl());
+        }
+
+        List<Article> newArticles = new ArrayList<>();
+        for (Article article : delta) {
+            if (held.add(article.getUrl())) {
+                newArticles.add(article);
+            }
+        }
+        Collections.sort(newArticles, FeedAggregator.NEWEST_FIRST);
+        return newArticles;
+    }
+
+    /**
+     * Returns the new articles followed by the articles of the feed, which are kept as they
+     * are so the list does not bind them again.
+     */
+    public static List<Article> prepend(List<Article> newArticles, List<Article> feed) {
+        List<Article> merged = new ArrayList<>(newArticles.size() + feed.size());
+        merged.addAll(newArticles);
+        merged.addAll(feed);
+        return merged;
+    }
+}
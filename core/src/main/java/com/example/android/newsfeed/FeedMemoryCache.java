@@ -0,0 +1,99 @@
+package com.example.android.newsfeed;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In memory copy of the last articles loaded for each feed, so that a feed coming back on
+ * screen shows its articles in the same frame, without reading the disk.
+ * <p>
+ * The memory the feeds take is capped by their total number of articles. Once a new feed
+ * goes past the cap, the least recently used feeds are dropped first; they are loaded from
+ * the disk cache again the next time they are shown.
+ */
+public class FeedMemoryCache {
+
+    /**
+     * Number of articles the app wide cache holds at most, a few first pages for each of a
+     * dozen feeds.
+     */
+    public static final int DEFAULT_MAX_ARTICLES = 600;
+
+    private static FeedMemoryCache sInstance;
+
+    private final int mMaxArticles;
+
+    /**
+     * The articles of each feed, least recently used first
+     */
+    private final LinkedHashMap<String, List<Article>> mFeeds = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Number of articles of all the feeds
+     */
+    private int mSize;
+
+    /**
+     * Constructs a new {@link FeedMemoryCache}.
+     *
+     * @param maxArticles is the number of articles the cache holds at most
+     */
+    public FeedMemoryCache(int maxArticles) {
+        mMaxArticles = maxArticles;
+    }
+
+    /**
+     * Returns the app wide cache.
+     */
+    public static synchronized FeedMemoryCache getInstance() {
+        if (sInstance == null) {
+            sInstance = new FeedMemoryCache(DEFAULT_MAX_ARTICLES);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Returns the articles of the feed with the given key, or null if they are not in memory.
+     */
+    public synchronized List<Article> get(String key) {
+        return mFeeds.get(key);
+    }
+
+    /**
+     * Keep the articles of the feed with the given key, replacing its previous ones. A feed
+     * larger than the whole cache is not kept.
+     */
+    public synchronized void put(String key, List<Article> articles) {
+        remove(key);
+        if (articles.size() > mMaxArticles) {
+            return;
+        }
+        mFeeds.put(key, articles);
+        mSize += articles.size();
+
+        Iterator<Map.Entry<String, List<Article>>> eldest = mFeeds.entrySet().iterator();
+        while (mSize > mMaxArticles) {
+            mSize -= eldest.next().getValue().size();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Drop the articles of the feed with the given key.
+     */
+    public synchronized void remove(String key) {
+        List<Article> removed = mFeeds.remove(key);
+        if (removed != null) {
+            mSize -= removed.size();
+        }
+    }
+
+    /**
+     * Returns the number of articles of all the feeds in memory.
+     */
+    public synchronized int size() {
+        return mSize;
+    }
+}
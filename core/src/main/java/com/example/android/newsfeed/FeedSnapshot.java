@@ -0,0 +1,157 @@
+package com.example.android.newsfeed;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary copy of the last feed shown, read at startup so the list has content before
+ * the first frame instead of waiting for the loader.
+ * <p>
+ * The file is a header ({@link #MAGIC}, {@link #VERSION}, article count) followed by the
+ * articles, each written as its title, author, section, URL and thumbnail URL as length
+ * prefixed UTF-8 strings and its publication time as a long. A length of -1 stands for a null
+ * string. Reading maps the file into memory and decodes the strings straight from the mapping,
+ * without any JSON parsing.
+ */
+public final class FeedSnapshot {
+
+    /**
+     * First bytes of every snapshot, "NFSS"
+     */
+    private static final int MAGIC = 0x4e465353;
+
+    /**
+     * Version of the layout, bumped whenever it changes.
+     */
+    private static final int VERSION = 1;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * Create a private constructor because no one should ever create a {@link FeedSnapshot}
+     * object. This class only holds static methods.
+     */
+    private FeedSnapshot() {
+    }
+
+    /**
+     * Replace the snapshot in the given file with the given articles. The file is written
+     * under another name first and renamed, so a reader never sees half a snapshot.
+     */
+    public static void write(File file, List<Article> articles) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(articles.size());
+            for (Article article : articles) {
+                writeString(out, article.getTitle());
+                writeString(out, article.getAuthor());
+                writeString(out, article.getSection());
+                writeString(out, article.getUrl());
+                writeString(out, article.getThumbnailUrl());
+                out.writeLong(article.getTimeInMilliseconds());
+            }
+        } catch (IOException e) {
+            out.close();
+            tmp.delete();
+            throw e;
+        }
+        out.close();
+
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Unable to replace the snapshot " + file);
+        }
+    }
+
+    /**
+     * Returns the articles of the snapshot in the given file, or null if there is none.
+     *
+     * @throws IOException if the file is not a snapshot of this version or is truncated
+     */
+    public static List<Article> read(File file) throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel channel = in.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not a feed snapshot of version " + VERSION + ": " + file);
+            }
+
+            int count = buffer.getInt();
+            if (count < 0) {
+                throw new IOException("Corrupt feed snapshot: " + file);
+            }
+            List<Article> articles = new ArrayList<>(Math.min(count, buffer.remaining()));
+            StringReader strings = new StringReader(buffer);
+            for (int i = 0; i < count; i++) {
+                String title = strings.read();
+                String author = strings.read();
+                String section = strings.read();
+                String url = strings.read();
+                String thumbnailUrl = strings.read();
+                long time = buffer.getLong();
+                articles.add(new Article(title, author, section, time, url, thumbnailUrl));
+            }
+            return articles;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated feed snapshot: " + file, e);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads length prefixed strings out of the mapping, copying their bytes through one
+     * reused array.
+     */
+    private static class StringReader {
+        private final MappedByteBuffer mBuffer;
+        private byte[] mScratch = new byte[256];
+
+        StringReader(MappedByteBuffer buffer) {
+            mBuffer = buffer;
+        }
+
+        String read() throws IOException {
+            int length = mBuffer.getInt();
+            if (length == -1) {
+                return null;
+            }
+            if (length < 0 || length > mBuffer.remaining()) {
+                throw new IOException("Corrupt string length " + length);
+            }
+            if (length > mScratch.length) {
+                mScratch = new byte[Math.max(length, mScratch.length * 2)];
+            }
+            mBuffer.get(mScratch, 0, length);
+            return new String(mScratch, 0, length, UTF_8);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.android.newsfeed;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * A publisher the feed can load articles from. It tells its query URLs apart from the ones of
+ * the other sources and reads the {@link Article}s out of their responses, everything else, the
+ * requests, the caches and the merging of several feeds, is shared by all of them.
+ */
+public interface FeedSource {
+
+    /**
+     * Returns true if the given query URL is one of this source's.
+     */
+    boolean handles(String url);
+
+    /**
+     * Returns true if the query URLs of this source take a page number and a date to start
+     * from, so that their feed can be paged through and refreshed with only the articles
+     * published since the last load. A feed document has neither, it is always read whole.
+     */
+    boolean supportsQueries();
+
+    /**
+     * Read the given response of one of this source's query URLs and return the list of
+     * {@link Article}s it holds, in document order.
+     *
+     * @throws IOException if the response could not be read or is not a feed of this source
+     */
+    List<Article> parse(InputStream inputStream) throws IOException;
+}
@@ -0,0 +1,32 @@
+package com.example.android.newsfeed;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * The Guardian content API: its search responses are streamed by {@link ArticleStreamParser},
+ * and its queries take a page number and a from-date.
+ */
+public class GuardianFeedSource implements FeedSource {
+
+    /**
+     * Start of every query URL of the Guardian content API
+     */
+    static final String API_URL = "https://content.guardianapis.com/";
+
+    @Override
+    public boolean handles(String url) {
+        return url.startsWith(API_URL);
+    }
+
+    @Override
+    public boolean supportsQueries() {
+        return true;
+    }
+
+    @Override
+    public List<Article> parse(InputStream inputStream) throws IOException {
+        return ArticleStreamParser.parse(inputStream);
+    }
+}
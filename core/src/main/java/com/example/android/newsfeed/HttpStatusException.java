@@ -0,0 +1,57 @@
+package com.example.android.newsfeed;
+
+import java.io.IOException;
+
+/**
+ * Thrown when the server answers a request with an error status code.
+ */
+public class HttpStatusException extends IOException {
+
+    private final int mResponseCode;
+
+    private final long mRetryAfterMillis;
+
+    /**
+     * Constructs a new {@link HttpStatusException}.
+     *
+     * @param responseCode     is the status code of the response
+     * @param retryAfterMillis is how long the server asked to wait before trying again, or -1
+     *                         if it did not say
+     */
+    public HttpStatusException(int responseCode, long retryAfterMillis) {
+        super("Error response code: " + responseCode);
+        mResponseCode = responseCode;
+        mRetryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * Returns the status code of the response.
+     */
+    public int getResponseCode() {
+        return mResponseCode;
+    }
+
+    /**
+     * Returns how long the server asked to wait before trying again, from its
+     * {@code Retry-After} header, or -1 if it did not say.
+     */
+    public long getRetryAfterMillis() {
+        return mRetryAfterMillis;
+    }
+
+    /**
+     * Returns the delay of a {@code Retry-After} header given in seconds, or -1 if there is
+     * none. The HTTP date form is not used by the Guardian and counts as none.
+     */
+    public static long parseRetryAfter(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            long seconds = Long.parseLong(value.trim());
+            return seconds < 0 ? -1 : seconds * 1000;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.android.newsfeed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * What the user reads, learned from the articles they open: how much they like each section
+ * and author, and which articles they have read already.
+ * <p>
+ * Every opened article adds one to the weight of its section and of its author. The weights
+ * fade with a half life of {@link #HALF_LIFE_MILLIS}, so the profile follows the user's
+ * interests as they change. Only the most recently used sections, authors and read articles
+ * are kept.
+ * <p>
+ * Every change bumps the version of the profile, and {@link #getChangedVersion(Article)} tells
+ * the last version that changed the interests in an article, so that a ranker only scores
+ * again the articles a click affected.
+ */
+public class InterestProfile {
+
+    /**
+     * Time after which the weight of an opened article is halved.
+     */
+    public static final long HALF_LIFE_MILLIS = 14 * 24 * 60 * 60 * 1000L;
+
+    /**
+     * Number of sections and of authors remembered, each
+     */
+    private static final int MAX_INTERESTS = 200;
+
+    /**
+     * Number of read articles remembered
+     */
+    private static final int MAX_READ = 500;
+
+    /**
+     * First bytes of every saved profile, "NFIP"
+     */
+    private static final int MAGIC = 0x4e464950;
+
+    /**
+     * Version of the layout, bumped whenever it changes.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    private final Map<String, Interest> mSections = newLruMap(MAX_INTERESTS);
+
+    private final Map<String, Interest> mAuthors = newLruMap(MAX_INTERESTS);
+
+    /**
+     * Version at which each read article was opened, by URL
+     */
+    private final Map<String, Long> mRead = newLruMap(MAX_READ);
+
+    /**
+     * Incremented on every change
+     */
+    private long mVersion;
+
+    /**
+     * Record that the user opened the given article at the given time.
+     */
+    public synchronized void recordClick(Article article, long timeInMillis) {
+        mVersion++;
+        add(mSections, article.getSection(), timeInMillis);
+        if (!ArticleStreamParser.NO_AUTHOR.equals(article.getAuthor())) {
+            add(mAuthors, article.getAuthor(), timeInMillis);
+        }
+        // Re-insert so that the article is the most recently read one.
+        mRead.remove(article.getUrl());
+        mRead.put(article.getUrl(), mVersion);
+    }
+
+    /**
+     * Returns the faded number of articles of the given section opened, at the given time.
+     */
+    public synchronized double getSectionAffinity(String section, long timeInMillis) {
+        return affinity(mSections.get(section), timeInMillis);
+    }
+
+    /**
+     * Returns the faded number of articles of the given author opened, at the given time.
+     */
+    public synchronized double getAuthorAffinity(String author, long timeInMillis) {
+        return affinity(mAuthors.get(author), timeInMillis);
+    }
+
+    /**
+     * Returns true if the user opened the article with the given URL.
+     */
+    public synchronized boolean isRead(String url) {
+        return mRead.containsKey(url);
+    }
+
+    /**
+     * Returns the version of the profile, which changes with every opened article.
+     */
+    public synchronized long getVersion() {
+        return mVersion;
+    }
+
+    /**
+     * Returns the last version of the profile that changed the interest in the section or the
+     * author of the given article, or its read state. Zero if none did.
+     */
+    public synchronized long getChangedVersion(Article article) {
+        long changed = 0;
+        Interest section = mSections.get(article.getSection());
+        if (section != null) {
+            changed = section.version;
+        }
+        Interest author = mAuthors.get(article.getAuthor());
+        if (author != null) {
+            changed = Math.max(changed, author.version);
+        }
+        Long read = mRead.get(article.getUrl());
+        if (read != null) {
+            changed = Math.max(changed, read);
+        }
+        return changed;
+    }
+
+    /**
+     * Replace the profile in the given file. The file is written under another name first and
+     * renamed, so a reader never sees half a profile.
+     */
+    public void write(File file) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+        try {
+            synchronized (this) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                writeInterests(out, mSections);
+                writeInterests(out, mAuthors);
+                out.writeInt(mRead.size());
+                for (String url : mRead.keySet()) {
+                    out.writeUTF(url);
+                }
+            }
+        } catch (IOException e) {
+            out.close();
+            tmp.delete();
+            throw e;
+        }
+        out.close();
+
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Unable to replace the profile " + file);
+        }
+    }
+
+    /**
+     * Returns the profile saved in the given file, or an empty profile if there is none.
+     *
+     * @throws IOException if the file is not a profile of this version or is truncated
+     */
+    public static InterestProfile read(File file) throws IOException {
+        InterestProfile profile = new InterestProfile();
+        if (!file.exists()) {
+            return profile;
+        }
+
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Not an interest profile of version " + FORMAT_VERSION + ": " + file);
+            }
+            readInterests(in, profile.mSections);
+            readInterests(in, profile.mAuthors);
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                profile.mRead.put(in.readUTF(), 0L);
+            }
+        } catch (EOFException e) {
+            throw new IOException("Truncated interest profile: " + file, e);
+        } finally {
+            in.close();
+        }
+        return profile;
+    }
+
+    private void add(Map<String, Interest> interests, String key, long timeInMillis) {
+        // Re-insert so that the key is the most recently used one, looking it up does not count.
+        Interest interest = interests.remove(key);
+        if (interest == null) {
+            interest = new Interest();
+            interest.updatedAt = timeInMillis;
+        }
+        interests.put(key, interest);
+        interest.weight = affinity(interest, timeInMillis) + 1;
+        interest.updatedAt = Math.max(interest.updatedAt, timeInMillis);
+        interest.version = mVersion;
+    }
+
+    private static double affinity(Interest interest, long timeInMillis) {
+        if (interest == null) {
+            return 0;
+        }
+        // A clock that went back does not make the interest grow.
+        long age = Math.max(0, timeInMillis - interest.updatedAt);
+        return interest.weight * Math.pow(0.5, (double) age / HALF_LIFE_MILLIS);
+    }
+
+    private static void writeInterests(DataOutputStream out, Map<String, Interest> interests) throws IOException {
+        out.writeInt(interests.size());
+        for (Map.Entry<String, Interest> entry : interests.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeDouble(entry.getValue().weight);
+            out.writeLong(entry.getValue().updatedAt);
+        }
+    }
+
+    private static void readInterests(DataInputStream in, Map<String, Interest> interests) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String key = in.readUTF();
+            Interest interest = new Interest();
+            interest.weight = in.readDouble();
+            interest.updatedAt = in.readLong();
+            interests.put(key, interest);
+        }
+    }
+
+    /**
+     * Returns a map that drops its eldest entry past the given size. Entries are re-inserted
+     * when they are used, so the eldest one is the least recently used.
+     */
+    private static <V> Map<String, V> newLruMap(final int maxSize) {
+        return new LinkedHashMap<String, V>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * The faded weight of a section or an author, as of its last update.
+     */
+    private static class Interest {
+        double weight;
+        long updatedAt;
+
+        /**
+         * Version of the profile that last changed the weight
+         */
+        long version;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.android.newsfeed;
+
+import java.util.Locale;
+
+/**
+ * Counts the frames drawn and the ones that came late, from the time stamps of consecutive
+ * frames.
+ * <p>
+ * A frame is janky when it came more than half a frame interval late, that is when at least one
+ * vsync passed without a new frame. The vsyncs skipped are counted as dropped frames, so a
+ * 50 ms frame at 60 fps is one janky frame and two dropped ones. The durations go to a
+ * {@link Histogram} in microseconds for the percentiles.
+ * <p>
+ * Only the frames between {@link #start()} and {@link #stop()} are counted, so the idle time
+ * between two watched periods is not taken for one long frame.
+ */
+public class JankStats {
+
+    /**
+     * Interval between two frames on a 60 Hz display
+     */
+    public static final long DEFAULT_FRAME_INTERVAL_NANOS = 1000000000L / 60;
+
+    private final long mFrameIntervalNanos;
+
+    private final Histogram mFrameMicros = new Histogram();
+
+    /**
+     * Time stamp of the last frame, or 0 before the first frame of a watched period
+     */
+    private long mLastFrameNanos;
+
+    private long mFrames;
+
+    private long mJankyFrames;
+
+    private long mDroppedFrames;
+
+    /**
+     * Constructs a new {@link JankStats}.
+     *
+     * @param frameIntervalNanos is the interval between two vsyncs of the display
+     */
+    public JankStats(long frameIntervalNanos) {
+        mFrameIntervalNanos = frameIntervalNanos;
+    }
+
+    /**
+     * Start a watched period, its first frame only sets the time stamp the next one is
+     * measured from.
+     */
+    public synchronized void start() {
+        mLastFrameNanos = 0;
+    }
+
+    /**
+     * End the watched period.
+     */
+    public synchronized void stop() {
+        mLastFrameNanos = 0;
+    }
+
+    /**
+     * Count the frame drawn at the given time stamp, in nanoseconds, and return how long it
+     * took since the previous one, or 0 for the first frame of a watched period.
+     */
+    public synchronized long onFrame(long frameTimeNanos) {
+        long last = mLastFrameNanos;
+        mLastFrameNanos = frameTimeNanos;
+        if (last == 0 || frameTimeNanos <= last) {
+            return 0;
+        }
+
+        long duration = frameTimeNanos - last;
+        mFrames++;
+        mFrameMicros.record(duration / 1000);
+        long vsyncs = (duration + mFrameIntervalNanos / 2) / mFrameIntervalNanos;
+        if (vsyncs > 1) {
+            mJankyFrames++;
+            mDroppedFrames += vsyncs - 1;
+        }
+        return duration;
+    }
+
+    /**
+     * Returns the number of frames counted.
+     */
+    public synchronized long getFrameCount() {
+        return mFrames;
+    }
+
+    /**
+     * Returns the number of frames that came at least one vsync late.
+     */
+    public synchronized long getJankyFrameCount() {
+        return mJankyFrames;
+    }
+
+    /**
+     * Returns the number of vsyncs that passed without a new frame.
+     */
+    public synchronized long getDroppedFrameCount() {
+        return mDroppedFrames;
+    }
+
+    /**
+     * Returns the share of the frames that were janky, between 0 and 1.
+     */
+    public synchronized double getJankRate() {
+        return mFrames == 0 ? 0 : (double) mJankyFrames / mFrames;
+    }
+
+    /**
+     * Returns a frame duration in milliseconds that the given percentage of the frames did not
+     * exceed.
+     */
+    public double getFrameMillis(double percent) {
+        return mFrameMicros.getPercentile(percent) / 1000.0;
+    }
+
+    /**
+     * Forget every frame counted.
+     */
+    public synchronized void reset() {
+        mLastFrameNanos = 0;
+        mFrames = 0;
+        mJankyFrames = 0;
+        mDroppedFrames = 0;
+        mFrameMicros.reset();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "frames=" + mFrames + " janky=" + mJankyFrames + " dropped=" + mDroppedFrames
+                + String.format(Locale.US, " p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms",
+                getFrameMillis(50), getFrameMillis(90), getFrameMillis(99), mFrameMicros.getMax() / 1000.0);
+    }
+}
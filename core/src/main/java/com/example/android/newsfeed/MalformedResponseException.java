@@ -0,0 +1,30 @@
+package com.example.android.newsfeed;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a response was read whole but is not what its source expects: an article misses
+ * a required field or holds an invalid value, or the document is not a feed at all. The server
+ * answered, and asking again gets the same response.
+ */
+public class MalformedResponseException extends IOException {
+
+    /**
+     * Constructs a new {@link MalformedResponseException}.
+     *
+     * @param message describes what is wrong with the response
+     */
+    public MalformedResponseException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new {@link MalformedResponseException}.
+     *
+     * @param message describes what is wrong with the response
+     * @param cause   is the failure of the parser
+     */
+    public MalformedResponseException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.android.newsfeed;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * App wide registry of the {@link Histogram}s recording how long every stage of loading the
+ * feed takes, and how many bytes it moves.
+ * <p>
+ * The names end with the unit of their values, {@code _us} for microseconds and
+ * {@code _bytes} for sizes.
+ */
+public final class Metrics {
+
+    /**
+     * Opening the connection: DNS lookup, TCP and TLS handshakes, or nothing when a pooled
+     * connection is reused.
+     */
+    public static final String CONNECT = "http_connect_us";
+
+    /**
+     * From sending the request to receiving the response headers.
+     */
+    public static final String FIRST_BYTE = "http_first_byte_us";
+
+    /**
+     * Reading the body and parsing it, which happen together in the streaming parser.
+     */
+    public static final String READ_AND_PARSE = "http_read_and_parse_us";
+
+    /**
+     * The whole request, from opening the connection to the parsed articles.
+     */
+    public static final String REQUEST = "http_request_us";
+
+    /**
+     * Bytes of the response body as sent over the network, before gzip is inflated.
+     */
+    public static final String RESPONSE_BYTES = "http_response_bytes";
+
+    /**
+     * Waiting before trying a failed request again, one value per retry.
+     */
+    public static final String RETRY_DELAY = "http_retry_delay_us";
+
+    /**
+     * Ordering a feed for the user, on a background thread.
+     */
+    public static final String RANK = "feed_rank_us";
+
+    /**
+     * Grouping the articles of a feed into stories, on a background thread.
+     */
+    public static final String CLUSTER = "feed_cluster_us";
+
+    /**
+     * Handing the loaded articles to the list in onLoadFinished.
+     */
+    public static final String LOAD_FINISHED = "ui_load_finished_us";
+
+    /**
+     * Binding an article to a row of the list, in debug builds.
+     */
+    public static final String BIND = "ui_bind_us";
+
+    /**
+     * Reading the snapshot of the last feed at startup.
+     */
+    public static final String SNAPSHOT_READ = "ui_snapshot_read_us";
+
+    /**
+     * From the start of the activity to the first articles handed to the list.
+     */
+    public static final String FIRST_LOAD = "ui_first_load_us";
+
+    /**
+     * Time between two frames while the debug build watches them.
+     */
+    public static final String FRAME = "ui_frame_us";
+
+    /**
+     * A main thread message of the app's code that ran over its budget, in debug builds.
+     */
+    public static final String SLOW_CALLBACK = "ui_slow_callback_us";
+
+    private static final Metrics sInstance = new Metrics();
+
+    /**
+     * The histograms, in the order they were first used
+     */
+    private final Map<String, Histogram> mHistograms = new LinkedHashMap<>();
+
+    /**
+     * The same histograms, looked up without a lock on every value recorded
+     */
+    private final ConcurrentHashMap<String, Histogram> mByName = new ConcurrentHashMap<>();
+
+    /**
+     * Create a private constructor because there is only the app wide {@link Metrics} object.
+     */
+    private Metrics() {
+    }
+
+    /**
+     * Returns the app wide registry.
+     */
+    public static Metrics getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * Returns the histogram with the given name, created on first use.
+     */
+    public Histogram histogram(String name) {
+        Histogram histogram = mByName.get(name);
+        if (histogram != null) {
+            return histogram;
+        }
+        synchronized (mHistograms) {
+            histogram = mHistograms.get(name);
+            if (histogram == null) {
+                histogram = new Histogram();
+                mHistograms.put(name, histogram);
+                mByName.put(name, histogram);
+            }
+            return histogram;
+        }
+    }
+
+    /**
+     * Record the microseconds elapsed since the given {@link System#nanoTime()}.
+     */
+    public void recordSince(String name, long startNanos) {
+        histogram(name).record((System.nanoTime() - startNanos) / 1000);
+    }
+
+    /**
+     * Returns a copy of the histograms by name, in the order they were first used.
+     */
+    public Map<String, Histogram> getHistograms() {
+        synchronized (mHistograms) {
+            return new LinkedHashMap<>(mHistograms);
+        }
+    }
+
+    /**
+     * Forget every value recorded so far.
+     */
+    public void reset() {
+        for (Histogram histogram : getHistograms().values()) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Returns the histograms as a JSON object, with the count, mean, percentiles and maximum
+     * of each of them by name.
+     */
+    public String toJson() {
+        StringWriter out = new StringWriter();
+        JsonWriter writer = new JsonWriter(out);
+        writer.setIndent("  ");
+        try {
+            writer.beginObject();
+            for (Map.Entry<String, Histogram> entry : getHistograms().entrySet()) {
+                Histogram histogram = entry.getValue();
+                writer.name(entry.getKey()).beginObject()
+                        .name("count").value(histogram.getCount())
+                        .name("mean").value(histogram.getMean())
+                        .name("p50").value(histogram.getPercentile(50))
+                        .name("p95").value(histogram.getPercentile(95))
+                        .name("p99").value(histogram.getPercentile(99))
+                        .name("max").value(histogram.getMax())
+                        .endObject();
+            }
+            writer.endObject();
+            writer.close();
+        } catch (IOException e) {
+            // A StringWriter never throws.
+            throw new IllegalStateException(e);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.android.newsfeed;
+
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.Random;
+
+/**
+ * Decides whether a failed request is tried again, and how long to wait before.
+ * <p>
+ * Failures are classified first: a cancelled request and a permanent failure, such as a
+ * {@code 404} or a response that is not JSON or misses the fields of an article, are never
+ * retried. Transient failures, such as
+ * a timeout, a reset connection or a {@code 503}, and rate limiting ({@code 429}) are retried
+ * after an exponentially growing delay with full jitter, so that the clients failing together
+ * do not retry together. The delay a rate limited response asks for with {@code Retry-After}
+ * is honoured, and the request is given up when it is longer than the policy would wait.
+ */
+public class RetryPolicy {
+
+    /**
+     * The kind of a failure.
+     */
+    public enum Failure {
+        /**
+         * The caller cancelled the request.
+         */
+        CANCELLED,
+        /**
+         * The network or the server failed, the same request may succeed later.
+         */
+        TRANSIENT,
+        /**
+         * The server asked us to slow down.
+         */
+        RATE_LIMITED,
+        /**
+         * The server answered and the same request will fail again.
+         */
+        PERMANENT
+    }
+
+    /**
+     * Three attempts, waiting up to half a second and then up to a second, and no retry once
+     * twenty seconds were spent on the request.
+     */
+    public static final RetryPolicy DEFAULT = new RetryPolicy(3, 500, 4000, 20000, new Random());
+
+    private final int mMaxAttempts;
+
+    private final long mBaseDelayMillis;
+
+    private final long mMaxDelayMillis;
+
+    private final long mMaxElapsedMillis;
+
+    private final Random mRandom;
+
+    /**
+     * Constructs a new {@link RetryPolicy}.
+     *
+     * @param maxAttempts      is the number of attempts, including the first one
+     * @param baseDelayMillis  is the upper bound of the delay before the first retry, doubled
+     *                         for every following retry
+     * @param maxDelayMillis   is the longest delay before a retry
+     * @param maxElapsedMillis is the time after which a failed request is not retried anymore
+     * @param random           picks the delays
+     */
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis, long maxElapsedMillis,
+                       Random random) {
+        mMaxAttempts = maxAttempts;
+        mBaseDelayMillis = baseDelayMillis;
+        mMaxDelayMillis = maxDelayMillis;
+        mMaxElapsedMillis = maxElapsedMillis;
+        mRandom = random;
+    }
+
+    /**
+     * Returns the kind of the given failure.
+     */
+    public static Failure classify(IOException failure) {
+        if (failure instanceof HttpStatusException) {
+            int responseCode = ((HttpStatusException) failure).getResponseCode();
+            if (responseCode == 429) {
+                return Failure.RATE_LIMITED;
+            }
+            if (responseCode == 408 || responseCode == 500 || responseCode == 502
+                    || responseCode == 503 || responseCode == 504) {
+                return Failure.TRANSIENT;
+            }
+            return Failure.PERMANENT;
+        }
+        if (failure instanceof SocketTimeoutException) {
+            return Failure.TRANSIENT;
+        }
+        if (failure instanceof InterruptedIOException) {
+            return Failure.CANCELLED;
+        }
+        if (failure instanceof MalformedJsonException || failure instanceof MalformedResponseException) {
+            return Failure.PERMANENT;
+        }
+        // Refused and reset connections, failed lookups and truncated bodies.
+        return Failure.TRANSIENT;
+    }
+
+    /**
+     * Returns how long to wait before trying again after the given attempt failed, or -1 if
+     * the request should not be tried again.
+     *
+     * @param attempt       is the number of the attempt that failed, starting at 1
+     * @param failure       is the failure of that attempt
+     * @param elapsedMillis is the time spent on the request since the first attempt
+     */
+    public long delayBeforeRetry(int attempt, IOException failure, long elapsedMillis) {
+        Failure kind = classify(failure);
+        if ((kind != Failure.TRANSIENT && kind != Failure.RATE_LIMITED) || attempt >= mMaxAttempts) {
+            return -1;
+        }
+
+        long ceiling = Math.min(mMaxDelayMillis, mBaseDelayMillis << Math.min(attempt - 1, 30));
+        long delay;
+        synchronized (mRandom) {
+            delay = (long) (mRandom.nextDouble() * ceiling);
+        }
+        if (kind == Failure.RATE_LIMITED) {
+            long retryAfter = ((HttpStatusException) failure).getRetryAfterMillis();
+            if (retryAfter > mMaxDelayMillis) {
+                return -1;
+            }
+            delay = Math.max(delay, retryAfter);
+        }
+        if (elapsedMillis + delay > mMaxElapsedMillis) {
+            return -1;
+        }
+        return delay;
+    }
+}
@@ -0,0 +1,456 @@
+package com.example.android.newsfeed;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+import org.xmlpull.v1.XmlPullParserFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Any publisher's RSS 2.0, RSS 1.0 or Atom feed, read with a streaming pull parser.
+ * <p>
+ * Like {@link ArticleStreamParser}, no tree of the document is ever built: the parser walks it
+ * element by element and hands out each {@link Article} as soon as its item or entry is
+ * closed. The descriptions and the full contents, which make up most of a feed, are skipped
+ * without being kept, so the memory needed does not grow with the size of the document.
+ * <p>
+ * The title of the feed is the section of its articles, so that the articles of a publisher
+ * can be listed together. Items without a title, a link or a date are left out.
+ */
+public class RssFeedSource implements FeedSource {
+
+    private static final String ATOM_NAMESPACE = "http://www.w3.org/2005/Atom";
+    private static final String RSS_1_NAMESPACE = "http://purl.org/rss/1.0/";
+    private static final String DUBLIN_CORE_NAMESPACE = "http://purl.org/dc/elements/1.1/";
+    private static final String MEDIA_NAMESPACE = "http://search.yahoo.com/mrss/";
+
+    private static final String[] MONTHS = {"jan", "feb", "mar", "apr", "may", "jun",
+            "jul", "aug", "sep", "oct", "nov", "dec"};
+
+    private static final long MILLIS_PER_MINUTE = 60 * 1000L;
+
+    private static XmlPullParserFactory sFactory;
+
+    @Override
+    public boolean handles(String url) {
+        return url.startsWith("https://") || url.startsWith("http://");
+    }
+
+    @Override
+    public boolean supportsQueries() {
+        return false;
+    }
+
+    @Override
+    public List<Article> parse(InputStream inputStream) throws IOException {
+        final List<Article> articles = new ArrayList<>();
+        parse(inputStream, new ArticleStreamParser.Listener() {
+            @Override
+            public void onArticle(Article article) {
+                articles.add(article);
+            }
+        });
+        return articles;
+    }
+
+    /**
+     * Parse the given feed, passing every {@link Article} to the listener in document order.
+     * Returns the number of articles read.
+     */
+    public int parse(InputStream inputStream, ArticleStreamParser.Listener listener) throws IOException {
+        try {
+            XmlPullParser parser = newParser();
+            // The encoding comes from the XML declaration or the byte order mark.
+            parser.setInput(inputStream, null);
+            parser.nextTag();
+            String root = parser.getName();
+            if (!"rss".equals(root) && !"RDF".equals(root) && !"feed".equals(root)) {
+                throw new MalformedResponseException("Not an RSS or Atom feed: <" + root + ">");
+            }
+            return readFeed(parser, listener, new String[1]);
+        } catch (XmlPullParserException e) {
+            throw new MalformedResponseException(e.getMessage(), e);
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private static synchronized XmlPullParser newParser() throws XmlPullParserException {
+        if (sFactory == null) {
+            sFactory = XmlPullParserFactory.newInstance();
+            sFactory.setNamespaceAware(true);
+        }
+        return sFactory.newPullParser();
+    }
+
+    /**
+     * Read the children of the element the parser is on, and of the RSS channel below it, up
+     * to its end tag. The items of RSS 1.0 are next to its channel rather than in it.
+     *
+     * @param feedTitle holds the title of the feed once it has been read
+     */
+    private static int readFeed(XmlPullParser parser, ArticleStreamParser.Listener listener,
+                                String[] feedTitle) throws IOException, XmlPullParserException {
+        int count = 0;
+        int depth = parser.getDepth();
+        while (nextChild(parser, depth)) {
+            String name = parser.getName();
+            if (!isFeedNamespace(parser)) {
+                skip(parser);
+            } else if ("channel".equals(name)) {
+                count += readFeed(parser, listener, feedTitle);
+            } else if ("title".equals(name) && feedTitle[0] == null) {
+                feedTitle[0] = readText(parser).trim();
+            } else if ("item".equals(name) || "entry".equals(name)) {
+                Article article = readItem(parser, feedTitle[0]);
+                if (article != null) {
+                    listener.onArticle(article);
+                    count++;
+                }
+            } else {
+                skip(parser);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Read an RSS item or an Atom entry, or return null if it misses the title, the link or
+     * the date.
+     */
+    private static Article readItem(XmlPullParser parser, String feedTitle)
+            throws IOException, XmlPullParserException {
+        String title = null;
+        String url = null;
+        String guid = null;
+        String published = null;
+        String updated = null;
+        String author = null;
+        String thumbnailUrl = null;
+
+        int depth = parser.getDepth();
+        while (nextChild(parser, depth)) {
+            String name = parser.getName();
+            String namespace = parser.getNamespace();
+            if (isFeedNamespace(parser)) {
+                if ("title".equals(name)) {
+                    title = readText(parser).trim();
+                } else if ("link".equals(name)) {
+                    String href = parser.getAttributeValue(null, "href");
+                    if (href == null) {
+                        // RSS, the link is the text.
+                        url = readText(parser).trim();
+                        continue;
+                    }
+                    // Atom, the alternate link is the article, an image may be enclosed.
+                    String rel = parser.getAttributeValue(null, "rel");
+                    if (rel == null || "alternate".equals(rel)) {
+                        url = href;
+                    } else if ("enclosure".equals(rel) && thumbnailUrl == null && isImage(parser)) {
+                        thumbnailUrl = href;
+                    }
+                    skip(parser);
+                } else if ("guid".equals(name) || "id".equals(name)) {
+                    boolean permaLink = !"false".equals(parser.getAttributeValue(null, "isPermaLink"));
+                    String id = readText(parser).trim();
+                    if (permaLink && isUrl(id)) {
+                        guid = id;
+                    }
+                } else if ("pubDate".equals(name) || "published".equals(name)) {
+                    published = readText(parser).trim();
+                } else if ("updated".equals(name)) {
+                    updated = readText(parser).trim();
+                } else if ("author".equals(name)) {
+                    author = ATOM_NAMESPACE.equals(namespace) ? readAtomName(parser) : readRssAuthor(parser);
+                } else if ("enclosure".equals(name) && thumbnailUrl == null && isImage(parser)) {
+                    thumbnailUrl = parser.getAttributeValue(null, "url");
+                    skip(parser);
+                } else {
+                    // The description and the content, the bulk of the feed.
+                    skip(parser);
+                }
+            } else if (DUBLIN_CORE_NAMESPACE.equals(namespace) && "creator".equals(name)) {
+                author = readText(parser).trim();
+            } else if (DUBLIN_CORE_NAMESPACE.equals(namespace) && "date".equals(name)) {
+                published = readText(parser).trim();
+            } else if (MEDIA_NAMESPACE.equals(namespace) && thumbnailUrl == null
+                    && ("thumbnail".equals(name) || ("content".equals(name) && isImage(parser)))) {
+                thumbnailUrl = parser.getAttributeValue(null, "url");
+                skip(parser);
+            } else {
+                skip(parser);
+            }
+        }
+
+        if (url == null || url.isEmpty()) {
+            url = guid;
+        }
+        String date = published != null ? published : updated;
+        if (title == null || title.isEmpty() || url == null || date == null) {
+            return null;
+        }
+        long timeInMilliseconds;
+        try {
+            timeInMilliseconds = parseTime(date);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        String section = feedTitle != null && !feedTitle.isEmpty() ? feedTitle : hostOf(url);
+        if (author == null || author.isEmpty()) {
+            author = ArticleStreamParser.NO_AUTHOR;
+        }
+        return new Article(title, author, section, timeInMilliseconds, url, thumbnailUrl);
+    }
+
+    /**
+     * Returns the name of an Atom person, e.g. the author of an entry.
+     */
+    private static String readAtomName(XmlPullParser parser) throws IOException, XmlPullParserException {
+        String name = null;
+        int depth = parser.getDepth();
+        while (nextChild(parser, depth)) {
+            if ("name".equals(parser.getName())) {
+                name = readText(parser).trim();
+            } else {
+                skip(parser);
+            }
+        }
+        return name;
+    }
+
+    /**
+     * Returns the name of the author of an RSS item, which is an e-mail address with the name
+     * in brackets, e.g. "jo@example.com (Jo Bloggs)", or sometimes only the name.
+     */
+    private static String readRssAuthor(XmlPullParser parser) throws IOException, XmlPullParserException {
+        String author = readText(parser).trim();
+        int open = author.indexOf('(');
+        int close = author.lastIndexOf(')');
+        if (open >= 0 && close > open) {
+            return author.substring(open + 1, close).trim();
+        }
+        return author.indexOf('@') >= 0 ? null : author;
+    }
+
+    /**
+     * Returns true if the element the parser is on describes an image.
+     */
+    private static boolean isImage(XmlPullParser parser) {
+        String type = parser.getAttributeValue(null, "type");
+        return (type != null && type.startsWith("image/"))
+                || "image".equals(parser.getAttributeValue(null, "medium"));
+    }
+
+    /**
+     * Returns true if the element the parser is on is part of RSS or Atom itself rather than
+     * of an extension.
+     */
+    private static boolean isFeedNamespace(XmlPullParser parser) {
+        String namespace = parser.getNamespace();
+        return namespace.isEmpty() || ATOM_NAMESPACE.equals(namespace) || RSS_1_NAMESPACE.equals(namespace);
+    }
+
+    /**
+     * Returns true if the id of an item is the URL of the article.
+     */
+    private static boolean isUrl(String id) {
+        return id.startsWith("https://") || id.startsWith("http://");
+    }
+
+    /**
+     * Move to the next child element of the element at the given depth, and return false once
+     * the end tag of that element is reached instead.
+     */
+    private static boolean nextChild(XmlPullParser parser, int depth) throws IOException, XmlPullParserException {
+        while (true) {
+            int event = parser.next();
+            if (event == XmlPullParser.START_TAG) {
+                return true;
+            }
+            if (event == XmlPullParser.END_DOCUMENT) {
+                throw truncated(parser);
+            }
+            if (event == XmlPullParser.END_TAG && parser.getDepth() == depth) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Returns the text of the element the parser is on, and of the elements inside it, and
+     * leaves the parser on its end tag.
+     */
+    private static String readText(XmlPullParser parser) throws IOException, XmlPullParserException {
+        StringBuilder text = new StringBuilder();
+        int depth = parser.getDepth();
+        while (true) {
+            int event = parser.next();
+            if (event == XmlPullParser.TEXT) {
+                text.append(parser.getText());
+            } else if (event == XmlPullParser.END_DOCUMENT) {
+                throw truncated(parser);
+            } else if (event == XmlPullParser.END_TAG && parser.getDepth() == depth) {
+                return text.toString();
+            }
+        }
+    }
+
+    /**
+     * Skip the element the parser is on with everything inside it, leaving the parser on its
+     * end tag.
+     */
+    private static void skip(XmlPullParser parser) throws IOException, XmlPullParserException {
+        int depth = parser.getDepth();
+        while (true) {
+            int event = parser.next();
+            if (event == XmlPullParser.END_DOCUMENT) {
+                throw truncated(parser);
+            }
+            if (event == XmlPullParser.END_TAG && parser.getDepth() == depth) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the failure of a document that ends before its elements are closed.
+     */
+    private static MalformedResponseException truncated(XmlPullParser parser) {
+        return new MalformedResponseException("Feed ends inside an element at line " + parser.getLineNumber());
+    }
+
+    /**
+     * Returns the host name of the given URL without its "www.", e.g. "example.com".
+     */
+    private static String hostOf(String url) {
+        int start = url.indexOf("://") + 3;
+        int end = url.indexOf('/', start);
+        String host = end < 0 ? url.substring(start) : url.substring(start, end);
+        return host.startsWith("www.") ? host.substring(4) : host;
+    }
+
+    /**
+     * Returns the milliseconds since the epoch of a date of RSS, e.g. "Tue, 12 Jun 2018
+     * 14:30:00 GMT", or of Atom, e.g. "2018-06-12T15:30:00+01:00".
+     *
+     * @throws IllegalArgumentException if the string is in neither format
+     */
+    static long parseTime(String date) {
+        if (date.length() >= 19 && date.charAt(4) == '-' && date.charAt(10) == 'T') {
+            return Article.parseTime(date) - isoOffsetMillis(date);
+        }
+        return parseRfc822Time(date);
+    }
+
+    /**
+     * Returns the offset from UTC at the end of an iso-8601 date and time, after the seconds
+     * and their fraction.
+     */
+    private static long isoOffsetMillis(String date) {
+        int i = 19;
+        if (i < date.length() && date.charAt(i) == '.') {
+            i++;
+            while (i < date.length() && Character.isDigit(date.charAt(i))) {
+                i++;
+            }
+        }
+        if (i == date.length() || date.charAt(i) == 'Z') {
+            return 0;
+        }
+        return offsetMillis(date.substring(i).replace(":", ""), date);
+    }
+
+    /**
+     * Returns the milliseconds since the epoch of an RFC 822 date as used by RSS, the day of the
+     * week and the seconds being optional.
+     */
+    private static long parseRfc822Time(String date) {
+        String[] parts = date.trim().split("[\\s,]+");
+        int first = parts.length > 0 && !parts[0].isEmpty() && Character.isLetter(parts[0].charAt(0)) ? 1 : 0;
+        if (parts.length < first + 4) {
+            throw new IllegalArgumentException("Unexpected date format: " + date);
+        }
+        try {
+            int day = Integer.parseInt(parts[first]);
+            int month = month(parts[first + 1], date);
+            int year = Integer.parseInt(parts[first + 2]);
+            if (year < 100) {
+                year += year < 50 ? 2000 : 1900;
+            }
+            String[] time = parts[first + 3].split(":");
+            if (time.length < 2) {
+                throw new IllegalArgumentException("Unexpected date format: " + date);
+            }
+            int hour = Integer.parseInt(time[0]);
+            int minute = Integer.parseInt(time[1]);
+            int second = time.length > 2 ? Integer.parseInt(time[2]) : 0;
+            long offset = parts.length > first + 4 ? offsetMillis(parts[first + 4], date) : 0;
+            return Article.daysFromCivil(year, month, day) * 24 * 60 * MILLIS_PER_MINUTE
+                    + ((hour * 60L + minute) * 60L + second) * 1000L - offset;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unexpected date format: " + date, e);
+        }
+    }
+
+    /**
+     * Returns the month number, from 1, of the given English month name or abbreviation.
+     */
+    private static int month(String name, String date) {
+        if (name.length() >= 3) {
+            String prefix = name.substring(0, 3).toLowerCase(Locale.US);
+            for (int i = 0; i < MONTHS.length; i++) {
+                if (MONTHS[i].equals(prefix)) {
+                    return i + 1;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unexpected date format: " + date);
+    }
+
+    /**
+     * Returns the offset from UTC of a time zone such as "+0100", "-0500", "GMT" or "EST", or 0
+     * for a zone it does not know.
+     */
+    private static long offsetMillis(String zone, String date) {
+        if (zone.length() == 5 && (zone.charAt(0) == '+' || zone.charAt(0) == '-')) {
+            try {
+                int hours = Integer.parseInt(zone.substring(1, 3));
+                int minutes = Integer.parseInt(zone.substring(3, 5));
+                long offset = (hours * 60L + minutes) * MILLIS_PER_MINUTE;
+                return zone.charAt(0) == '-' ? -offset : offset;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Unexpected date format: " + date, e);
+            }
+        }
+        switch (zone) {
+            case "GMT":
+            case "UT":
+            case "UTC":
+            case "Z":
+                return 0;
+            case "EST":
+                return -5 * 60 * MILLIS_PER_MINUTE;
+            case "EDT":
+                return -4 * 60 * MILLIS_PER_MINUTE;
+            case "CST":
+                return -6 * 60 * MILLIS_PER_MINUTE;
+            case "CDT":
+                return -5 * 60 * MILLIS_PER_MINUTE;
+            case "MST":
+                return -7 * 60 * MILLIS_PER_MINUTE;
+            case "MDT":
+                return -6 * 60 * MILLIS_PER_MINUTE;
+            case "PST":
+                return -8 * 60 * MILLIS_PER_MINUTE;
+            case "PDT":
+                return -7 * 60 * MILLIS_PER_MINUTE;
+            default:
+                // The other abbreviations are ambiguous, an hour or two off beats no article.
+                return 0;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.android.newsfeed;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A message of the main thread that ran over its budget, with the method of the app that was
+ * running when its stack was sampled.
+ * <p>
+ * The stack of the main thread is sampled a few times while a message runs. The culprit is the
+ * innermost frame of the app's own code found in the most samples, which points at the
+ * callback that took the time rather than at the framework code that called it.
+ */
+public class SlowCallback {
+
+    /**
+     * Description of the message, as printed by the looper
+     */
+    private final String mMessage;
+
+    private final long mDurationMillis;
+
+    private final StackTraceElement mCulprit;
+
+    /**
+     * A sampled stack holding the culprit
+     */
+    private final StackTraceElement[] mStack;
+
+    /**
+     * Constructs a new {@link SlowCallback}.
+     *
+     * @param message        describes the message that ran
+     * @param durationMillis is how long the message ran
+     * @param culprit        is the frame of the app's code blamed for it
+     * @param stack          is a sampled stack holding the culprit
+     */
+    public SlowCallback(String message, long durationMillis, StackTraceElement culprit, StackTraceElement[] stack) {
+        mMessage = message;
+        mDurationMillis = durationMillis;
+        mCulprit = culprit;
+        mStack = stack;
+    }
+
+    /**
+     * Returns the slow callback of the given stack samples, or null if none of them was in the
+     * app's code.
+     *
+     * @param message        describes the message that ran
+     * @param durationMillis is how long the message ran
+     * @param samples        are the stacks of the main thread sampled while the message ran
+     * @param packagePrefix  is the start of the class names of the app's code
+     */
+    public static SlowCallback blame(String message, long durationMillis, List<StackTraceElement[]> samples,
+                                     String packagePrefix) {
+        Map<StackTraceElement, Integer> counts = new HashMap<>();
+        StackTraceElement culprit = null;
+        StackTraceElement[] culpritStack = null;
+        int culpritCount = 0;
+        for (StackTraceElement[] stack : samples) {
+            StackTraceElement frame = innermostFrame(stack, packagePrefix);
+            if (frame == null) {
+                continue;
+            }
+            Integer count = counts.get(frame);
+            count = count == null ? 1 : count + 1;
+            counts.put(frame, count);
+            // The earliest sample wins a tie, it is the one closest to the budget.
+            if (count > culpritCount) {
+                culprit = frame;
+                culpritStack = stack;
+                culpritCount = count;
+            }
+        }
+        return culprit == null ? null : new SlowCallback(message, durationMillis, culprit, culpritStack);
+    }
+
+    /**
+     * Returns the innermost frame of the given stack in the app's code, or null if there is
+     * none.
+     */
+    static StackTraceElement innermostFrame(StackTraceElement[] stack, String packagePrefix) {
+        for (StackTraceElement frame : stack) {
+            if (frame.getClassName().startsWith(packagePrefix)) {
+                return frame;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the description of the message that ran.
+     */
+    public String getMessage() {
+        return mMessage;
+    }
+
+    /**
+     * Returns how long the message ran in milliseconds.
+     */
+    public long getDurationMillis() {
+        return mDurationMillis;
+    }
+
+    /**
+     * Returns the frame of the app's code blamed for the time taken.
+     */
+    public StackTraceElement getCulprit() {
+        return mCulprit;
+    }
+
+    /**
+     * Returns a sampled stack of the main thread holding the culprit.
+     */
+    public StackTraceElement[] getStack() {
+        return mStack.clone();
+    }
+
+    @Override
+    public String toString() {
+        return mDurationMillis + "ms in " + mCulprit;
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.android.newsfeed;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Groups the articles of a feed that tell the same story, so that the list shows one row per
+ * story instead of one per section or source that covered it.
+ * <p>
+ * Articles are compared through their {@link TitleFingerprint}. Comparing every pair would be
+ * quadratic, so the fingerprints are cut into {@link #BANDS} bands and only the articles that
+ * share a whole band with a story are compared with it (locality sensitive hashing). Titles
+ * with half of their words in common share a band almost always, unrelated titles hardly ever,
+ * which keeps the grouping linear in the number of articles.
+ * <p>
+ * The first article of a story in the given order leads it, so a ranked feed keeps its best
+ * article of each story on top. An article only joins a story whose lead it is similar to,
+ * published within {@link #WINDOW_MILLIS} of it, so that stories do not chain into each other
+ * and a weekly column is not grouped with last week's.
+ */
+public final class StoryClusterer {
+
+    /**
+     * Estimated share of words two titles need in common to tell the same story
+     */
+    static final float MIN_SIMILARITY = 0.5f;
+
+    /**
+     * Articles published further apart than this are never the same story.
+     */
+    static final long WINDOW_MILLIS = 48 * 60 * 60 * 1000L;
+
+    /**
+     * Number of bands the fingerprint is cut into
+     */
+    static final int BANDS = 16;
+
+    private static final int ROWS = TitleFingerprint.HASHES / BANDS;
+
+    /**
+     * Create a private constructor because no one should ever create a {@link StoryClusterer}
+     * object. This class only holds static methods.
+     */
+    private StoryClusterer() {
+    }
+
+    /**
+     * A story, the articles that cover it with its lead first.
+     */
+    public static class Story {
+        private final List<Article> mArticles;
+
+        Story(Article lead) {
+            mArticles = new ArrayList<>(1);
+            mArticles.add(lead);
+        }
+
+        /**
+         * Returns the article shown for the story.
+         */
+        public Article getLead() {
+            return mArticles.get(0);
+        }
+
+        /**
+         * Returns the articles of the story, the lead first and the others in feed order.
+         */
+        public List<Article> getArticles() {
+            return Collections.unmodifiableList(mArticles);
+        }
+
+        /**
+         * Returns the number of articles covering the story.
+         */
+        public int size() {
+            return mArticles.size();
+        }
+    }
+
+    /**
+     * Returns the stories of the given articles, in the order of their leads in the list.
+     */
+    public static List<Story> cluster(List<Article> articles) {
+        List<Story> stories = new ArrayList<>(articles.size());
+        BandTable storiesByBand = new BandTable(articles.size() * BANDS);
+
+        for (Article article : articles) {
+            short[] fingerprint = article.getTitleFingerprint();
+            Story story = null;
+            if (fingerprint != null) {
+                for (int band = 0; band < BANDS && story == null; band++) {
+                    int candidate = storiesByBand.get(bandKey(fingerprint, band));
+                    if (candidate >= 0 && isSameStory(stories.get(candidate).getLead(), article)) {
+                        story = stories.get(candidate);
+                    }
+                }
+            }
+
+            if (story != null) {
+                story.mArticles.add(article);
+                continue;
+            }
+            story = new Story(article);
+            stories.add(story);
+            if (fingerprint != null) {
+                for (int band = 0; band < BANDS; band++) {
+                    // An older story keeps its band, it has the better lead.
+                    storiesByBand.putIfAbsent(bandKey(fingerprint, band), stories.size() - 1);
+                }
+            }
+        }
+        return stories;
+    }
+
+    /**
+     * Returns true if the given article tells the story led by the given lead.
+     */
+    static boolean isSameStory(Article lead, Article article) {
+        long apart = lead.getTimeInMilliseconds() - article.getTimeInMilliseconds();
+        return Math.abs(apart) <= WINDOW_MILLIS
+                && TitleFingerprint.similarity(lead.getTitleFingerprint(), article.getTitleFingerprint())
+                >= MIN_SIMILARITY;
+    }
+
+    /**
+     * Returns the key of the given band of the fingerprint. The band index is part of the key
+     * so that the same hashes in two bands do not meet.
+     */
+    private static long bandKey(short[] fingerprint, int band) {
+        long key = band;
+        for (int row = 0; row < ROWS; row++) {
+            key = (key << 16) | (fingerprint[band * ROWS + row] & 0xffff);
+        }
+        return key;
+    }
+
+    /**
+     * Index of the story holding each band key, an open addressing table of primitives: a
+     * boxed map would allocate an entry and a key for each of the bands of every article.
+     */
+    private static class BandTable {
+        private final long[] mKeys;
+
+        /**
+         * Index of the story plus one, 0 for an empty slot
+         */
+        private final int[] mStories;
+
+        private final int mMask;
+
+        BandTable(int expected) {
+            // At most half full, so that probes stay short.
+            int capacity = Integer.highestOneBit(Math.max(expected, 8) * 2 - 1) << 1;
+            mKeys = new long[capacity];
+            mStories = new int[capacity];
+            mMask = capacity - 1;
+        }
+
+        /**
+         * Returns the index of the story with the given band key, or -1 if there is none.
+         */
+        int get(long key) {
+            for (int slot = slot(key); mStories[slot] != 0; slot = (slot + 1) & mMask) {
+                if (mKeys[slot] == key) {
+                    return mStories[slot] - 1;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Give the band key to the story with the given index, unless a story has it already.
+         */
+        void putIfAbsent(long key, int story) {
+            int slot = slot(key);
+            while (mStories[slot] != 0) {
+                if (mKeys[slot] == key) {
+                    return;
+                }
+                slot = (slot + 1) & mMask;
+            }
+            mKeys[slot] = key;
+            mStories[slot] = story + 1;
+        }
+
+        private int slot(long key) {
+            long h = key * 0x9e3779b97f4a7c15L;
+            return (int) (h ^ (h >>> 32)) & mMask;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.android.newsfeed;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded table of canonical strings, so that the values repeated across articles are held
+ * once in memory.
+ * <p>
+ * A feed has a handful of sections, a few dozen authors and a few publication dates, each
+ * repeated over hundreds of articles. Interning them makes every article point to the same
+ * instance, within a load and across loads. Unlike {@link String#intern()} the table is
+ * bounded: once it holds {@link #DEFAULT_MAX_SIZE} strings the least recently used one is
+ * dropped, which only means the next copy of it is not shared with the older ones.
+ */
+public class StringInterner {
+
+    /**
+     * Number of strings the app wide table holds at most.
+     */
+    public static final int DEFAULT_MAX_SIZE = 4096;
+
+    private static StringInterner sInstance;
+
+    /**
+     * The canonical instance of every string, least recently used first
+     */
+    private final Map<String, String> mStrings;
+
+    /**
+     * Constructs a new {@link StringInterner}.
+     *
+     * @param maxSize is the number of strings the table holds at most
+     */
+    public StringInterner(final int maxSize) {
+        mStrings = new LinkedHashMap<String, String>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the app wide table.
+     */
+    public static synchronized StringInterner getInstance() {
+        if (sInstance == null) {
+            sInstance = new StringInterner(DEFAULT_MAX_SIZE);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Returns the canonical instance of the given string, which is the string itself the first
+     * time it is seen. Null is returned as is.
+     */
+    public synchronized String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String canonical = mStrings.get(value);
+        if (canonical == null) {
+            mStrings.put(value, value);
+            return value;
+        }
+        return canonical;
+    }
+
+    /**
+     * Returns the number of strings in the table.
+     */
+    public synchronized int size() {
+        return mStrings.size();
+    }
+}
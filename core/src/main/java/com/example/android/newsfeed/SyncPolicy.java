@@ -0,0 +1,84 @@
+package com.example.android.newsfeed;
+
+/**
+ * Decides when the followed queries are refreshed in the background, and whether the
+ * articles a background refresh stored are recent enough to be shown without going to the
+ * network again.
+ * <p>
+ * A refresh only runs on an unmetered network or while the device is charging, and at most
+ * once per interval however often the scheduler wakes us up.
+ */
+public class SyncPolicy {
+
+    /**
+     * Time between two background refreshes.
+     */
+    public static final long DEFAULT_INTERVAL_MILLIS = 3 * 60 * 60 * 1000L;
+
+    /**
+     * The state of the device when the scheduler wakes us up.
+     */
+    public interface DeviceState {
+        /**
+         * Returns true if there is a network connection.
+         */
+        boolean isConnected();
+
+        /**
+         * Returns true if the network connection is not billed by the amount of data.
+         */
+        boolean isUnmetered();
+
+        /**
+         * Returns true if the device is plugged in.
+         */
+        boolean isCharging();
+    }
+
+    private final Clock mClock;
+
+    private final long mIntervalMillis;
+
+    /**
+     * Constructs a new {@link SyncPolicy}.
+     *
+     * @param clock          is the source of the current time
+     * @param intervalMillis is the time between two refreshes
+     */
+    public SyncPolicy(Clock clock, long intervalMillis) {
+        mClock = clock;
+        mIntervalMillis = intervalMillis;
+    }
+
+    /**
+     * Returns the time between two refreshes.
+     */
+    public long getIntervalMillis() {
+        return mIntervalMillis;
+    }
+
+    /**
+     * Returns true if a refresh should run now.
+     *
+     * @param state          is the current state of the device
+     * @param lastSyncMillis is the time the last refresh finished, 0 if there was none
+     */
+    public boolean shouldSync(DeviceState state, long lastSyncMillis) {
+        if (!state.isConnected() || !(state.isUnmetered() || state.isCharging())) {
+            return false;
+        }
+        // Inexact schedulers may wake us up early, so half an interval is enough. A last sync
+        // in the future means the clock was set back, refresh rather than wait for it.
+        long elapsed = mClock.currentTimeMillis() - lastSyncMillis;
+        return elapsed < 0 || elapsed >= mIntervalMillis / 2;
+    }
+
+    /**
+     * Returns true if articles stored at the given time can be shown as they are, because
+     * the next background refresh is not due yet.
+     */
+    public boolean isFresh(long savedAtMillis) {
+        long age = mClock.currentTimeMillis() - savedAtMillis;
+        return age >= 0 && age < mIntervalMillis;
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.android.newsfeed;
+
+import java.util.Arrays;
+
+/**
+ * MinHash fingerprint of an article title, used by {@link StoryClusterer} to find the titles
+ * that tell the same story in slightly different words.
+ * <p>
+ * A title is split into its words, lower cased, without the punctuation and the short words
+ * every headline has. The fingerprint keeps, for each of {@link #HASHES} hash functions, the
+ * smallest hash of a word. Two titles agree on a hash with a probability equal to the share of
+ * words they have in common, so counting the agreeing hashes estimates their similarity without
+ * keeping the words. Single words are the shingles: headlines are short, and a reworded one
+ * moves its words around more than it replaces them.
+ */
+public final class TitleFingerprint {
+
+    /**
+     * Number of hash functions, the fingerprint holds as many shorts. Sixteen bits per hash
+     * are plenty to tell the words of two titles apart, and twice as many hashes in the same
+     * memory make the estimate twice as tight.
+     */
+    public static final int HASHES = 32;
+
+    /**
+     * Titles with fewer distinct words get no fingerprint, they are too short to tell a story
+     * apart from another one.
+     */
+    static final int MIN_WORDS = 3;
+
+    /**
+     * Words this short ("a", "of", "in", "to" ...) say nothing about the story.
+     */
+    private static final int MIN_WORD_LENGTH = 3;
+
+    /**
+     * Frequent words long enough to pass {@link #MIN_WORD_LENGTH}, left out as well
+     */
+    private static final String[] STOP_WORDS = {"the", "and", "for", "with", "from", "after",
+            "over", "says", "this", "that", "what", "how", "why", "are", "was", "has", "have",
+            "will", "its", "his", "her", "they", "their", "who", "about", "into", "not", "but"};
+
+    private static final int[] STOP_WORD_HASHES = new int[STOP_WORDS.length];
+
+    /**
+     * Odd key of each hash function
+     */
+    private static final long[] MULTIPLIERS = new long[HASHES];
+
+    static {
+        for (int i = 0; i < STOP_WORDS.length; i++) {
+            STOP_WORD_HASHES[i] = STOP_WORDS[i].hashCode();
+        }
+        for (int h = 0; h < HASHES; h++) {
+            MULTIPLIERS[h] = mix((h + 1) * 0x9e3779b97f4a7c15L) | 1;
+        }
+    }
+
+    /**
+     * Create a private constructor because no one should ever create a {@link TitleFingerprint}
+     * object. This class only holds static methods.
+     */
+    private TitleFingerprint() {
+    }
+
+    /**
+     * Returns the fingerprint of the given title, or null if it has fewer than
+     * {@link #MIN_WORDS} distinct words worth comparing.
+     */
+    public static short[] of(String title) {
+        if (title == null) {
+            return null;
+        }
+
+        short[] fingerprint = null;
+        int words = 0;
+        // The last words kept, to count the distinct words without a set.
+        int[] kept = new int[8];
+        int hash = 0;
+        int wordLength = 0;
+        boolean skipping = false;
+        int length = title.length();
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? title.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (!skipping) {
+                    // Hash the word in lower case, the way String.hashCode() would.
+                    hash = 31 * hash + Character.toLowerCase(c);
+                    wordLength++;
+                }
+                continue;
+            }
+            if ((c == '\'' || c == '\u2019') && wordLength > 0) {
+                // "Britain's" is the word "britain".
+                skipping = true;
+                continue;
+            }
+
+            if (wordLength >= MIN_WORD_LENGTH && !isStopWord(hash)
+                    && !contains(kept, Math.min(words, kept.length), hash)) {
+                kept[words % kept.length] = hash;
+                words++;
+                if (fingerprint == null) {
+                    fingerprint = new short[HASHES];
+                    Arrays.fill(fingerprint, Short.MAX_VALUE);
+                }
+                // The hash code is spread over 64 bits once, so that close hash codes ("word1",
+                // "word2") do not win the same minimums, then every hash function is a multiply
+                // by an odd key of its own, keeping the high bits (multiply-shift hashing).
+                long spread = mix(hash);
+                for (int h = 0; h < HASHES; h++) {
+                    short value = (short) ((spread * MULTIPLIERS[h]) >>> 48);
+                    if (value < fingerprint[h]) {
+                        fingerprint[h] = value;
+                    }
+                }
+            }
+            hash = 0;
+            wordLength = 0;
+            skipping = false;
+        }
+        return words >= MIN_WORDS ? fingerprint : null;
+    }
+
+    /**
+     * Returns the estimated share of words the two titles have in common, between 0 and 1.
+     * A title without a fingerprint is like no other.
+     */
+    public static float similarity(short[] a, short[] b) {
+        if (a == null || b == null) {
+            return 0;
+        }
+        int same = 0;
+        for (int h = 0; h < HASHES; h++) {
+            if (a[h] == b[h]) {
+                same++;
+            }
+        }
+        return same / (float) HASHES;
+    }
+
+    private static boolean isStopWord(int hash) {
+        for (int stopWordHash : STOP_WORD_HASHES) {
+            if (stopWordHash == hash) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the given value with its bits spread, the finalizer of SplitMix64.
+     */
+    private static long mix(long h) {
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+}
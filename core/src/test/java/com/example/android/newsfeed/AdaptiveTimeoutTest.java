@@ -0,0 +1,43 @@
+package com.example.android.newsfeed;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveTimeoutTest {
+
+    @Test
+    public void initialTimeout_untilALatencyIsMeasured() {
+        assertEquals(10000, new AdaptiveTimeout(10000, 2000, 10000).getMillis());
+    }
+
+    @Test
+    public void fastNetwork_shortensTheTimeoutDownToTheMinimum() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout(10000, 2000, 10000);
+        for (int i = 0; i < 20; i++) {
+            timeout.record(150);
+        }
+        assertEquals(2000, timeout.getMillis());
+    }
+
+    @Test
+    public void variableLatency_keepsAMargin() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout(10000, 100, 10000);
+        for (int i = 0; i < 20; i++) {
+            timeout.record(i % 2 == 0 ? 500 : 1500);
+        }
+        // Well above the slowest latency seen, well below the initial value.
+        assertTrue(String.valueOf(timeout.getMillis()), timeout.getMillis() > 2000);
+        assertTrue(String.valueOf(timeout.getMillis()), timeout.getMillis() < 10000);
+    }
+
+    @Test
+    public void timeout_doublesUpToTheMaximum() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout(3000, 2000, 10000);
+        timeout.onTimeout();
+        assertEquals(6000, timeout.getMillis());
+        timeout.onTimeout();
+        assertEquals(10000, timeout.getMillis());
+    }
+}
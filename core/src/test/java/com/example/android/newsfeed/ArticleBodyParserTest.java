@@ -0,0 +1,37 @@
+package com.example.android.newsfeed;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ArticleBodyParserTest {
+
+    @Test
+    public void parse_returnsTheBody() throws IOException {
+        InputStream in = getClass().getClassLoader().getResourceAsStream("guardian/item_body.json");
+
+        String body = ArticleBodyParser.parse(in);
+
+        assertEquals("<p>First paragraph with an <a href=\"https://www.theguardian.com/film\">inline link</a>.</p>"
+                + " <p>Second paragraph, café.</p>", body);
+    }
+
+    @Test
+    public void parse_withoutBody_returnsNull() throws IOException {
+        String json = "{\"response\":{\"status\":\"ok\",\"content\":{\"id\":\"x\",\"fields\":{\"thumbnail\":\"t\"}}}}";
+
+        assertNull(ArticleBodyParser.parse(new ByteArrayInputStream(json.getBytes("UTF-8"))));
+    }
+
+    @Test
+    public void parse_errorResponse_returnsNull() throws IOException {
+        String json = "{\"response\":{\"status\":\"error\",\"message\":\"The requested resource could not be found.\"}}";
+
+        assertNull(ArticleBodyParser.parse(new ByteArrayInputStream(json.getBytes("UTF-8"))));
+    }
+}
@@ -0,0 +1,522 @@
+package com.example.android.newsfeed;
+
+import com.google.gson.stream.MalformedJsonException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests how {@link ArticleHttpClient} copes with failures, against a local HTTP server that
+ * answers the requests with the faults queued by each test, and with the recorded response
+ * once there are none left.
+ */
+public class ArticleHttpClientFaultTest {
+
+    private static final String ETAG = "\"v1\"";
+
+    private static final long OPEN_MILLIS = 30000;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private URL url;
+    private byte[] payload;
+
+    private final Queue<Fault> faults = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private FakeClock clock;
+    private CircuitBreaker breaker;
+    private AdaptiveTimeout readTimeout;
+
+    @Before
+    public void setUp() throws IOException {
+        payload = readFixture("guardian/search_page_size_20.json");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        // A stalled answer must not hold up the retry that follows it.
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/search", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                requests.incrementAndGet();
+                Fault fault = faults.poll();
+                if (fault == null) {
+                    if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                        exchange.sendResponseHeaders(304, -1);
+                    } else {
+                        exchange.getResponseHeaders().set("ETag", ETAG);
+                        send(exchange, 200, payload);
+                    }
+                } else {
+                    fault.apply(exchange, payload);
+                }
+                exchange.close();
+            }
+        });
+        server.start();
+        url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/search?page-size=20");
+
+        clock = new FakeClock();
+        clock.now = 1528813800000L;
+        breaker = new CircuitBreaker(clock, 3, OPEN_MILLIS);
+        readTimeout = new AdaptiveTimeout(5000, 250, 5000);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    private ArticleHttpClient newClient(RetryPolicy retryPolicy) {
+        // The tests talk to a single host, whose breaker and read timeout they look at.
+        return new ArticleHttpClient(retryPolicy, new ArticleHttpClient.HostFactory() {
+            @Override
+            public ArticleHttpClient.Host create(String authority) {
+                return new ArticleHttpClient.Host(breaker, new AdaptiveTimeout(5000, 250, 5000), readTimeout);
+            }
+        });
+    }
+
+    private ArticleHttpClient newClient() {
+        return newClient(new RetryPolicy(3, 20, 100, 5000, new Random(7)));
+    }
+
+    @Test
+    public void serverErrors_areRetried() throws IOException {
+        faults.add(Fault.status(503));
+        faults.add(Fault.status(502));
+
+        List<Article> articles = newClient().fetch(url);
+
+        assertEquals(20, articles.size());
+        assertEquals(3, requests.get());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void serverErrors_onEveryAttempt_failWithTheLastOne() {
+        for (int i = 0; i < 3; i++) {
+            faults.add(Fault.status(500 + i + 2));
+        }
+        try {
+            newClient().fetch(url);
+            fail("Expected an HttpStatusException");
+        } catch (IOException expected) {
+            assertEquals(504, ((HttpStatusException) expected).getResponseCode());
+        }
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    public void notFound_isNotRetried() {
+        faults.add(Fault.status(404));
+        try {
+            newClient().fetch(url);
+            fail("Expected an HttpStatusException");
+        } catch (IOException expected) {
+            assertEquals(404, ((HttpStatusException) expected).getResponseCode());
+        }
+        assertEquals(1, requests.get());
+        // The API answered, it is not failing.
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void rateLimited_waitsForRetryAfter() throws IOException {
+        faults.add(Fault.rateLimited(1));
+        ArticleHttpClient client = newClient(new RetryPolicy(3, 20, 2000, 5000, new Random(7)));
+
+        long start = System.nanoTime();
+        List<Article> articles = client.fetch(url);
+
+        assertEquals(20, articles.size());
+        assertEquals(2, requests.get());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 1000);
+    }
+
+    @Test
+    public void rateLimited_forLongerThanThePolicyWaits_givesUp() {
+        faults.add(Fault.rateLimited(60));
+        try {
+            newClient().fetch(url);
+            fail("Expected an HttpStatusException");
+        } catch (IOException expected) {
+            assertEquals(429, ((HttpStatusException) expected).getResponseCode());
+        }
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void truncatedBody_isRetried() throws IOException {
+        faults.add(Fault.TRUNCATED_BODY);
+
+        List<Article> articles = newClient().fetch(url);
+
+        assertEquals(20, articles.size());
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void droppedConnection_isRetried() throws IOException {
+        // The platform may resend a dropped request once on its own, drop more than that.
+        for (int i = 0; i < 3; i++) {
+            faults.add(Fault.DROPPED);
+        }
+
+        List<Article> articles = newClient(new RetryPolicy(5, 20, 100, 5000, new Random(7))).fetch(url);
+
+        assertEquals(20, articles.size());
+        assertEquals(4, requests.get());
+    }
+
+    @Test
+    public void malformedBody_isNotRetried() {
+        faults.add(Fault.MALFORMED_BODY);
+        try {
+            newClient().fetch(url);
+            fail("Expected a MalformedJsonException");
+        } catch (IOException expected) {
+            assertTrue(String.valueOf(expected), expected instanceof MalformedJsonException);
+        }
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void invalidPayload_isNotRetried() {
+        faults.add(Fault.INVALID_PAYLOAD);
+        try {
+            newClient().fetch(url);
+            fail("Expected a MalformedResponseException");
+        } catch (IOException expected) {
+            assertTrue(String.valueOf(expected), expected instanceof MalformedResponseException);
+        }
+        assertEquals(1, requests.get());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void stalledResponse_timesOutAfterTheMeasuredLatencyAndIsRetried() throws IOException {
+        ArticleHttpClient client = newClient();
+        // Fast answers bring the read timeout down to its minimum.
+        for (int i = 0; i < 10; i++) {
+            client.fetch(new URL(url + "&page=" + i));
+        }
+        assertEquals(250, readTimeout.getMillis());
+        faults.add(Fault.stall(3000));
+
+        long start = System.nanoTime();
+        List<Article> articles = client.fetch(new URL(url + "&page=stalled"));
+
+        assertEquals(20, articles.size());
+        // Far less than the stall, let alone the fixed ten second timeout.
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+    }
+
+    @Test
+    public void invalidPayload_withAStalledRest_failsAtOnceWithoutRetrying() throws IOException {
+        ArticleHttpClient client = newClient();
+        for (int i = 0; i < 10; i++) {
+            client.fetch(new URL(url + "&page=" + i));
+        }
+        assertEquals(250, readTimeout.getMillis());
+        faults.add(Fault.invalidThenStall(3000));
+
+        int before = requests.get();
+        long start = System.nanoTime();
+        try {
+            client.fetch(new URL(url + "&page=invalid"));
+            fail("Expected a MalformedResponseException");
+        } catch (IOException expected) {
+            // Not the timeout of reading the rest, which would be retried.
+            assertTrue(String.valueOf(expected), expected instanceof MalformedResponseException);
+        }
+        assertEquals(before + 1, requests.get());
+        // The rest of the body is not waited for.
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+    }
+
+    @Test
+    public void openCircuit_servesTheLastArticlesWithoutRequests() throws IOException {
+        ArticleHttpClient client = newClient();
+        List<Article> articles = client.fetch(url);
+        for (int i = 0; i < 3; i++) {
+            faults.add(Fault.status(503));
+        }
+
+        // The third failure in a row opens the breaker, the last articles are served instead.
+        assertSame(articles, client.fetch(url));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        int requestsWhenOpened = requests.get();
+
+        assertSame(articles, client.fetch(url));
+        assertEquals(requestsWhenOpened, requests.get());
+    }
+
+    @Test
+    public void openCircuit_withoutArticles_failsFast() throws IOException {
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure();
+        }
+        try {
+            newClient().fetch(url);
+            fail("Expected a CircuitBreaker.OpenException");
+        } catch (CircuitBreaker.OpenException expected) {
+            assertEquals(0, requests.get());
+        }
+    }
+
+    @Test
+    public void openCircuit_probesAgainAfterTheOpenPeriod() throws IOException {
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure();
+        }
+        clock.now += OPEN_MILLIS;
+
+        List<Article> articles = newClient().fetch(url);
+
+        assertEquals(20, articles.size());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void failingHost_doesNotOpenTheCircuitOfAnother() throws IOException {
+        final Map<String, CircuitBreaker> breakers = new HashMap<>();
+        ArticleHttpClient client = new ArticleHttpClient(new RetryPolicy(3, 20, 100, 5000, new Random(7)),
+                new ArticleHttpClient.HostFactory() {
+                    @Override
+                    public ArticleHttpClient.Host create(String authority) {
+                        CircuitBreaker hostBreaker = new CircuitBreaker(clock, 3, OPEN_MILLIS);
+                        breakers.put(authority, hostBreaker);
+                        return new ArticleHttpClient.Host(hostBreaker, new AdaptiveTimeout(5000, 250, 5000),
+                                new AdaptiveTimeout(5000, 250, 5000));
+                    }
+                });
+        URL deadUrl = new URL("http://127.0.0.1:" + closedPort() + "/rss");
+
+        try {
+            client.fetch(deadUrl, new RssFeedSource(), null);
+            fail("Expected the dead host to fail");
+        } catch (IOException expected) {
+            // Refused on every attempt.
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breakers.get(deadUrl.getAuthority()).getState());
+
+        List<Article> articles = client.fetch(url);
+
+        assertEquals(20, articles.size());
+        assertEquals(1, requests.get());
+        assertEquals(CircuitBreaker.State.CLOSED, breakers.get(url.getAuthority()).getState());
+    }
+
+    @Test
+    public void cancel_whileWaitingToRetry_endsTheWait() throws Exception {
+        faults.add(Fault.status(503));
+        final ArticleHttpClient client = newClient(new RetryPolicy(3, 10000, 10000, 60000, new Random(7)) {
+            @Override
+            public long delayBeforeRetry(int attempt, IOException failure, long elapsedMillis) {
+                return 10000;
+            }
+        });
+        final CancellationToken token = new CancellationToken();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    client.fetch(url, token);
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            }
+        });
+        thread.start();
+        while (requests.get() == 0) {
+            Thread.sleep(5);
+        }
+        Thread.sleep(100);
+
+        long start = System.nanoTime();
+        token.cancel();
+        thread.join(5000);
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        assertTrue(String.valueOf(failure.get()), failure.get() instanceof InterruptedIOException);
+        assertEquals(1, requests.get());
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+    }
+
+    /**
+     * Returns a local port nothing listens on.
+     */
+    private static int closedPort() throws IOException {
+        ServerSocket socket = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+        int port = socket.getLocalPort();
+        socket.close();
+        return port;
+    }
+
+    private byte[] readFixture(String resource) throws IOException {
+        InputStream in = getClass().getClassLoader().getResourceAsStream(resource);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        in.close();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * A way for the stand-in server to fail a request.
+     */
+    private abstract static class Fault {
+
+        /**
+         * Close the connection without answering.
+         */
+        static final Fault DROPPED = new Fault() {
+            @Override
+            void apply(HttpExchange exchange, byte[] payload) {
+                // Closing the exchange without a response closes the connection.
+            }
+        };
+
+        /**
+         * Announce the whole body and close the connection halfway through it.
+         */
+        static final Fault TRUNCATED_BODY = new Fault() {
+            @Override
+            void apply(HttpExchange exchange, byte[] payload) throws IOException {
+                exchange.sendResponseHeaders(200, payload.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(payload, 0, payload.length / 2);
+                out.flush();
+                // Closing the exchange before the announced length closes the connection.
+            }
+        };
+
+        /**
+         * Answer with an HTML error page instead of JSON.
+         */
+        static final Fault MALFORMED_BODY = new Fault() {
+            @Override
+            void apply(HttpExchange exchange, byte[] payload) throws IOException {
+                send(exchange, 200, "<html><body>Service unavailable</body></html>".getBytes("UTF-8"));
+            }
+        };
+
+        /**
+         * Well formed JSON whose only article has no section, date or url
+         */
+        static final Fault INVALID_PAYLOAD = new Fault() {
+            @Override
+            void apply(HttpExchange exchange, byte[] payload) throws IOException {
+                send(exchange, 200, "{\"response\":{\"results\":[{\"webTitle\":\"Headline\"}]}}"
+                        .getBytes("UTF-8"));
+            }
+        };
+
+        static Fault status(final int status) {
+            return new Fault() {
+                @Override
+                void apply(HttpExchange exchange, byte[] payload) throws IOException {
+                    send(exchange, status, "{\"message\":\"error\"}".getBytes("UTF-8"));
+                }
+            };
+        }
+
+        static Fault rateLimited(final int retryAfterSeconds) {
+            return new Fault() {
+                @Override
+                void apply(HttpExchange exchange, byte[] payload) throws IOException {
+                    exchange.getResponseHeaders().set("Retry-After", String.valueOf(retryAfterSeconds));
+                    send(exchange, 429, "{\"message\":\"API rate limit exceeded\"}".getBytes("UTF-8"));
+                }
+            };
+        }
+
+        /**
+         * Send an article without its required fields, then stall before the rest of the body.
+         */
+        static Fault invalidThenStall(final long millis) {
+            return new Fault() {
+                @Override
+                void apply(HttpExchange exchange, byte[] payload) throws IOException {
+                    // Chunked, so that the failure is not taken for a truncated body.
+                    exchange.sendResponseHeaders(200, 0);
+                    OutputStream out = exchange.getResponseBody();
+                    out.write("{\"response\":{\"results\":[{\"webTitle\":\"Headline\"},".getBytes("UTF-8"));
+                    out.flush();
+                    try {
+                        Thread.sleep(millis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+        }
+
+        static Fault stall(final long millis) {
+            return new Fault() {
+                @Override
+                void apply(HttpExchange exchange, byte[] payload) throws IOException {
+                    try {
+                        Thread.sleep(millis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    send(exchange, 200, payload);
+                }
+            };
+        }
+
+        abstract void apply(HttpExchange exchange, byte[] payload) throws IOException;
+    }
+
+    private static class FakeClock implements Clock {
+        long now;
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+    }
+}
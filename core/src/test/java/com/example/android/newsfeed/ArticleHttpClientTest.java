@@ -0,0 +1,402 @@
+package com.example.android.newsfeed;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link ArticleHttpClient} against a local HTTP server standing in for the Guardian API.
+ */
+public class ArticleHttpClientTest {
+
+    private static final String ETAG = "\"v1\"";
+
+    private HttpServer server;
+    private URL url;
+    private byte[] payload;
+
+    // What the stand-in server saw and how it answers
+    private volatile int requests;
+    private volatile boolean gzip;
+    private volatile String ifNoneMatch;
+    private volatile int status = 200;
+    private final Set<Integer> clientPorts = Collections.synchronizedSet(new HashSet<Integer>());
+    private volatile CountDownLatch holdResponses;
+    private volatile CountDownLatch holdBody;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    @Before
+    public void setUp() throws IOException {
+        payload = readFixture("guardian/search_page_size_20.json");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/search", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                requests++;
+                clientPorts.add(exchange.getRemoteAddress().getPort());
+                if (holdResponses != null) {
+                    try {
+                        holdResponses.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+                if (status != 200) {
+                    // The Guardian answers errors with a short JSON body.
+                    byte[] body = "{\"message\":\"error\"}".getBytes("UTF-8");
+                    exchange.sendResponseHeaders(status, body.length);
+                    OutputStream out = exchange.getResponseBody();
+                    out.write(body);
+                    out.close();
+                } else if (ETAG.equals(ifNoneMatch)) {
+                    exchange.sendResponseHeaders(304, -1);
+                } else {
+                    byte[] body = payload;
+                    String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+                    if (gzip && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                        body = gzip(payload);
+                        exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                    }
+                    exchange.getResponseHeaders().set("ETag", ETAG);
+                    exchange.sendResponseHeaders(200, body.length);
+                    OutputStream out = exchange.getResponseBody();
+                    if (holdBody != null) {
+                        // Send half of the body and stall, like a slow network.
+                        out.write(body, 0, body.length / 2);
+                        out.flush();
+                        try {
+                            holdBody.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        out.write(body, body.length / 2, body.length - body.length / 2);
+                    } else {
+                        out.write(body);
+                    }
+                    out.close();
+                }
+                exchange.close();
+            }
+        });
+        server.start();
+        url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/search?page-size=20");
+    }
+
+    @After
+    public void tearDown() {
+        if (holdResponses != null) {
+            holdResponses.countDown();
+        }
+        if (holdBody != null) {
+            holdBody.countDown();
+        }
+        server.stop(0);
+    }
+
+    @Test
+    public void ok_parsesArticles() throws IOException {
+        List<Article> articles = new ArticleHttpClient().fetch(url);
+
+        assertEquals(20, articles.size());
+        assertNull(ifNoneMatch);
+    }
+
+    @Test
+    public void ok_recordsStageMetrics() throws IOException {
+        Metrics metrics = Metrics.getInstance();
+        long requestsBefore = metrics.histogram(Metrics.REQUEST).getCount();
+        long bytesBefore = metrics.histogram(Metrics.RESPONSE_BYTES).getCount();
+        gzip = true;
+
+        new ArticleHttpClient().fetch(url);
+
+        assertEquals(requestsBefore + 1, metrics.histogram(Metrics.REQUEST).getCount());
+        assertEquals(bytesBefore + 1, metrics.histogram(Metrics.RESPONSE_BYTES).getCount());
+        // The compressed size is counted, not the inflated one.
+        assertTrue(metrics.histogram(Metrics.RESPONSE_BYTES).getMax() > 0);
+        assertTrue(metrics.histogram(Metrics.RESPONSE_BYTES).getPercentile(0) < payload.length);
+    }
+
+    @Test
+    public void gzip_isInflated() throws IOException {
+        gzip = true;
+        List<Article> articles = new ArticleHttpClient().fetch(url);
+
+        assertEquals(20, articles.size());
+        assertEquals(ArticleStreamParser.parse(new ByteArrayInputStream(payload)).get(7).getTitle(),
+                articles.get(7).getTitle());
+    }
+
+    @Test
+    public void notModified_reusesParsedArticles() throws IOException {
+        ArticleHttpClient client = new ArticleHttpClient();
+        List<Article> first = client.fetch(url);
+        List<Article> second = client.fetch(url);
+
+        assertEquals(2, requests);
+        assertEquals(ETAG, ifNoneMatch);
+        assertSame(first, second);
+    }
+
+    @Test
+    public void rssFeed_isParsedByItsSource_andRevalidated() throws IOException {
+        payload = readFixture("feeds/rss2.xml");
+        gzip = true;
+        ArticleHttpClient client = new ArticleHttpClient();
+        List<Article> first = client.fetch(url, new RssFeedSource(), null);
+        List<Article> second = client.fetch(url, new RssFeedSource(), null);
+
+        assertEquals(3, first.size());
+        assertEquals("Example Times", first.get(0).getSection());
+        assertEquals(ETAG, ifNoneMatch);
+        assertSame(first, second);
+    }
+
+    @Test
+    public void errorResponse_throws() {
+        status = 500;
+        try {
+            new ArticleHttpClient().fetch(url);
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("500"));
+            return;
+        }
+        throw new AssertionError("Expected an IOException");
+    }
+
+    @Test
+    public void sequentialRequests_reuseTheConnection() throws IOException {
+        ArticleHttpClient client = new ArticleHttpClient();
+        client.fetch(url);
+        client.fetch(new URL(url + "&page=2"));
+        client.fetch(new URL(url + "&page=3"));
+
+        assertEquals(3, requests);
+        assertEquals(1, clientPorts.size());
+    }
+
+    @Test
+    public void errorResponse_isFollowedByAWorkingRequest() throws IOException {
+        ArticleHttpClient client = new ArticleHttpClient();
+        // A permanent error, so that the client does not try again.
+        status = 404;
+        try {
+            client.fetch(url);
+        } catch (IOException expected) {
+            // The error body is not read, the connection is dropped with it.
+        }
+        status = 200;
+        List<Article> articles = client.fetch(url);
+
+        assertEquals(2, requests);
+        assertEquals(20, articles.size());
+    }
+
+    @Test
+    public void concurrentRequests_forTheSameUrl_shareOneResponse() throws Exception {
+        holdResponses = new CountDownLatch(1);
+        final ArticleHttpClient client = new ArticleHttpClient();
+        final AtomicReference<List<Article>> firstArticles = new AtomicReference<>();
+        final AtomicReference<List<Article>> second = new AtomicReference<>();
+
+        Thread first = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    firstArticles.set(client.fetch(url));
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        });
+        first.start();
+        while (requests == 0) {
+            Thread.sleep(5);
+        }
+
+        Thread joiner = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    second.set(client.fetch(url));
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        });
+        joiner.start();
+        // The second caller parks on the request in flight.
+        while (joiner.getState() != Thread.State.WAITING) {
+            Thread.sleep(5);
+        }
+
+        holdResponses.countDown();
+        first.join();
+        joiner.join();
+
+        assertEquals(1, requests);
+        assertSame(firstArticles.get(), second.get());
+    }
+
+    @Test
+    public void cancelledToken_sendsNoRequest() throws IOException {
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        try {
+            new ArticleHttpClient().fetch(url, token);
+        } catch (InterruptedIOException expected) {
+            assertEquals(0, requests);
+            return;
+        }
+        throw new AssertionError("Expected an InterruptedIOException");
+    }
+
+    @Test
+    public void cancel_whileWaitingForTheResponse_abortsTheRequest() throws Exception {
+        holdResponses = new CountDownLatch(1);
+        CancellationToken token = new CancellationToken();
+        Thread thread = fetchInBackground(token);
+
+        long start = System.nanoTime();
+        token.cancel();
+        thread.join(5000);
+
+        // Closing the connection fails the blocked read instead of waiting for the timeout.
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+        assertTrue(String.valueOf(failure.get()), failure.get() instanceof InterruptedIOException);
+    }
+
+    @Test
+    public void cancel_whileReadingTheBody_failsTheRequest() throws Exception {
+        holdBody = new CountDownLatch(1);
+        CancellationToken token = new CancellationToken();
+        Thread thread = fetchInBackground(token);
+
+        long start = System.nanoTime();
+        token.cancel();
+        // Cancelling never waits for the connection to close.
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 100);
+        holdBody.countDown();
+        thread.join(5000);
+
+        assertTrue(String.valueOf(failure.get()), failure.get() instanceof InterruptedIOException);
+    }
+
+    @Test
+    public void cancel_byOneOfTwoCallers_keepsTheRequest() throws Exception {
+        holdResponses = new CountDownLatch(1);
+        final ArticleHttpClient client = new ArticleHttpClient();
+        final CancellationToken token = new CancellationToken();
+        final AtomicReference<List<Article>> kept = new AtomicReference<>();
+
+        Thread first = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    kept.set(client.fetch(url));
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        });
+        first.start();
+        while (requests == 0) {
+            Thread.sleep(5);
+        }
+
+        Thread cancelled = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    client.fetch(url, token);
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        });
+        cancelled.start();
+        while (cancelled.getState() != Thread.State.WAITING) {
+            Thread.sleep(5);
+        }
+
+        token.cancel();
+        holdResponses.countDown();
+        first.join();
+        cancelled.join();
+
+        assertEquals(1, requests);
+        assertEquals(20, kept.get().size());
+    }
+
+    /**
+     * Start a request on another thread and wait until the server has it. Whatever the request
+     * throws ends up in {@link #failure}.
+     */
+    private Thread fetchInBackground(final CancellationToken token) throws InterruptedException {
+        final ArticleHttpClient client = new ArticleHttpClient();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    client.fetch(url, token);
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            }
+        });
+        thread.start();
+        while (requests == 0) {
+            Thread.sleep(5);
+        }
+        // Let the client block on the stalled server.
+        Thread.sleep(100);
+        return thread;
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GZIPOutputStream out = new GZIPOutputStream(bytes);
+        out.write(data);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private byte[] readFixture(String resource) throws IOException {
+        InputStream in = getClass().getClassLoader().getResourceAsStream(resource);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        in.close();
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.android.newsfeed;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests {@link ArticleRanker} with a fake clock and feeds generated from a fixed seed, so that
+ * every run ranks the same articles at the same time.
+ */
+public class ArticleRankerTest {
+
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    private static final long NOW = 1528813800000L;
+
+    private static final String[] SECTIONS = {"World news", "Politics", "Sport", "Technology", "Culture"};
+
+    private FakeClock clock;
+    private InterestProfile profile;
+    private ArticleRanker ranker;
+
+    @Before
+    public void setUp() {
+        clock = new FakeClock();
+        clock.now = NOW;
+        profile = new InterestProfile();
+        ranker = new ArticleRanker(profile, clock);
+    }
+
+    /**
+     * Returns the given number of articles published over the last two days, with their
+     * sections and authors drawn from the seed.
+     */
+    static List<Article> generateFeed(int count, long seed, long now) {
+        Random random = new Random(seed);
+        List<Article> articles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long time = now - (long) (random.nextDouble() * 48 * HOUR);
+            String section = SECTIONS[random.nextInt(SECTIONS.length)];
+            String author = "Author " + random.nextInt(100);
+            articles.add(new Article("Title " + seed + "-" + i, author, section, time,
+                    "https://www.theguardian.com/" + seed + "/" + i));
+        }
+        return articles;
+    }
+
+    @Test
+    public void withoutHistory_newestFirst() {
+        Article old = new Article("old", "a", "Sport", NOW - 2 * HOUR, "u1");
+        Article recent = new Article("recent", "a", "Sport", NOW - HOUR, "u2");
+
+        assertEquals(Arrays.asList(recent, old), ranker.rank(Arrays.asList(old, recent)));
+    }
+
+    @Test
+    public void readSection_outranksSlightlyNewerArticles() {
+        for (int i = 0; i < 3; i++) {
+            profile.recordClick(new Article("read", "b", "Politics", NOW - 5 * HOUR, "read" + i), NOW);
+        }
+        Article politics = new Article("politics", "a", "Politics", NOW - 4 * HOUR, "u1");
+        Article sport = new Article("sport", "a", "Sport", NOW - HOUR, "u2");
+
+        // Three politics articles read are worth more than three hours of recency.
+        assertEquals(Arrays.asList(politics, sport), ranker.rank(Arrays.asList(sport, politics)));
+    }
+
+    @Test
+    public void readArticle_sinksBelowUnreadOnes() {
+        Article read = new Article("read", "a", "Sport", NOW - HOUR, "u1");
+        Article unread = new Article("unread", "a", "Sport", NOW - 3 * HOUR, "u2");
+        ranker.rank(Arrays.asList(read, unread));
+
+        profile.recordClick(read, NOW);
+
+        assertEquals(Arrays.asList(unread, read), ranker.rank(Arrays.asList(read, unread)));
+    }
+
+    @Test
+    public void rank_isDeterministic() {
+        List<Article> feed = generateFeed(2000, 42, NOW);
+        for (Article article : generateFeed(50, 7, NOW)) {
+            profile.recordClick(article, NOW - HOUR);
+        }
+
+        List<Article> first = ranker.rank(feed);
+        List<Article> second = new ArticleRanker(profile, clock).rank(generateFeed(2000, 42, NOW));
+
+        assertEquals(feed.size(), first.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.get(i).getUrl(), second.get(i).getUrl());
+        }
+    }
+
+    @Test
+    public void newBatch_onlyScoresTheNewArticles() {
+        List<Article> feed = generateFeed(2000, 42, NOW);
+        ranker.rank(feed);
+        assertEquals(2000, ranker.getScoreCount());
+
+        List<Article> refreshed = new ArrayList<>(generateFeed(20, 43, NOW));
+        refreshed.addAll(feed);
+        List<Article> ranked = ranker.rank(refreshed);
+
+        assertEquals(2020, ranker.getScoreCount());
+        assertEquals(2020, ranked.size());
+    }
+
+    @Test
+    public void newCopiesOfTheSameArticles_areNotScoredAgain() {
+        ranker.rank(generateFeed(500, 42, NOW));
+
+        List<Article> ranked = ranker.rank(generateFeed(500, 42, NOW));
+
+        assertEquals(500, ranker.getScoreCount());
+        // The copies are returned, not the articles first scored.
+        List<Article> copies = generateFeed(500, 42, NOW);
+        List<Article> rankedCopies = ranker.rank(copies);
+        assertSame(copies.get(copies.indexOf(rankedCopies.get(0))), rankedCopies.get(0));
+        assertEquals(ranked.get(0).getUrl(), rankedCopies.get(0).getUrl());
+    }
+
+    @Test
+    public void click_onlyRescoresTheArticlesItAffects() {
+        List<Article> feed = generateFeed(2000, 42, NOW);
+        ranker.rank(feed);
+        Article clicked = feed.get(0);
+        int affected = 0;
+        for (Article article : feed) {
+            if (article.getSection().equals(clicked.getSection()) || article.getAuthor().equals(clicked.getAuthor())) {
+                affected++;
+            }
+        }
+
+        profile.recordClick(clicked, NOW);
+        ranker.rank(feed);
+
+        assertEquals(2000 + affected, ranker.getScoreCount());
+    }
+
+    @Test
+    public void afterTheRescoreInterval_scoresEverythingAgain() {
+        List<Article> feed = generateFeed(100, 42, NOW);
+        ranker.rank(feed);
+
+        clock.now += ArticleRanker.RESCORE_INTERVAL_MILLIS;
+        ranker.rank(feed);
+
+        assertEquals(200, ranker.getScoreCount());
+    }
+
+    @Test
+    public void scores_doNotChangeOrderAsTimePasses() {
+        List<Article> feed = generateFeed(300, 42, NOW);
+        profile.recordClick(feed.get(3), NOW);
+        List<Article> now = ranker.rank(feed);
+
+        clock.now += 30 * 60 * 1000L;
+        List<Article> later = new ArticleRanker(profile, clock).rank(feed);
+
+        // Half an hour fades the interests by a tiny fraction, the order holds.
+        assertEquals(now, later);
+    }
+
+    private static class FakeClock implements Clock {
+        long now;
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.android.newsfeed;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ArticleSearchIndexTest {
+
+    private static Article article(String title, String author, String section, long time, String url) {
+        return new Article(title, author, section, time, url);
+    }
+
+    private static List<String> urls(List<Article> articles) {
+        List<String> urls = new ArrayList<>();
+        for (Article article : articles) {
+            urls.add(article.getUrl());
+        }
+        return urls;
+    }
+
+    private static ArticleSearchIndex sampleIndex() {
+        ArticleSearchIndex index = new ArticleSearchIndex();
+        index.addAll(Arrays.asList(
+                article("Superfly review", "Charles Bramesco", "Film", 30, "a"),
+                article("Brexit talks stall", "No Info", "Politics", 20, "b"),
+                article("Caf\u00e9 culture in Paris", "Jon Henley", "World news", 10, "c"),
+                article("Super Tuesday results", "Lauren Gambino", "US news", 40, "d")));
+        return index;
+    }
+
+    @Test
+    public void tokenize_lowerCasesAndStripsAccents() {
+        assertEquals(Arrays.asList("cafe", "s", "2018", "deja", "vu"),
+                ArticleSearchIndex.tokenize("Caf\u00e9's 2018: D\u00e9j\u00e0-vu!"));
+    }
+
+    @Test
+    public void search_matchesPrefixesNewestFirst() {
+        ArticleSearchIndex index = sampleIndex();
+
+        assertEquals(Arrays.asList("d", "a"), urls(index.search("sup")));
+        assertEquals(Collections.singletonList("a"), urls(index.search("superf")));
+        assertEquals(Collections.singletonList("c"), urls(index.search("CAFE")));
+    }
+
+    @Test
+    public void search_matchesSectionsAndAuthors() {
+        ArticleSearchIndex index = sampleIndex();
+
+        assertEquals(Collections.singletonList("b"), urls(index.search("polit")));
+        assertEquals(Collections.singletonList("a"), urls(index.search("brames")));
+        assertEquals(Arrays.asList("d", "c"), urls(index.search("news")));
+        // The placeholder for a missing author is not searchable.
+        assertTrue(index.search("info").isEmpty());
+    }
+
+    @Test
+    public void search_requiresEveryWord() {
+        ArticleSearchIndex index = sampleIndex();
+
+        assertEquals(Collections.singletonList("d"), urls(index.search("super res")));
+        assertTrue(index.search("super brexit").isEmpty());
+        assertTrue(index.search("  ").isEmpty());
+    }
+
+    @Test
+    public void search_honoursTheLimit() {
+        ArticleSearchIndex index = sampleIndex();
+
+        assertEquals(Collections.singletonList("d"), urls(index.search("s", 1)));
+    }
+
+    @Test
+    public void search_amongGivenUrls_leavesTheOthersOut() {
+        ArticleSearchIndex index = sampleIndex();
+        List<Article> results = index.search("super", ArticleSearchIndex.DEFAULT_LIMIT,
+                new HashSet<>(Arrays.asList("a", "b", "unknown")));
+
+        assertEquals(Collections.singletonList("a"), urls(results));
+    }
+
+    @Test
+    public void addAll_isIncrementalAndDeduplicatesByUrl() {
+        ArticleSearchIndex index = sampleIndex();
+        index.addAll(Arrays.asList(
+                article("Superfly review", "Charles Bramesco", "Film", 30, "a"),
+                article("Brexit deal agreed", "No Info", "Politics", 50, "b"),
+                article("Superbloom in the desert", "No Info", "Environment", 5, "e")));
+
+        assertEquals(5, index.size());
+        assertEquals(Arrays.asList("d", "a", "e"), urls(index.search("super")));
+        // The old title of an updated article no longer matches.
+        assertTrue(index.search("stall").isEmpty());
+        assertEquals(Collections.singletonList("b"), urls(index.search("brexit")));
+    }
+
+    @Test
+    public void addAll_pastTheMaximum_evictsTheOldestArticles() {
+        ArticleSearchIndex index = new ArticleSearchIndex(8);
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            articles.add(article("Story " + i, "No Info", "News", i, "story-" + i));
+        }
+        index.addAll(articles);
+
+        // Three quarters of the maximum are kept, the newest ones.
+        assertEquals(6, index.size());
+        assertEquals(Arrays.asList("story-8", "story-7", "story-6", "story-5", "story-4", "story-3"),
+                urls(index.search("story")));
+        assertTrue(index.search("2").isEmpty());
+    }
+
+    @Test
+    public void addAll_updatingTheSameArticles_keepsOnlyTheirLatestText() {
+        ArticleSearchIndex index = new ArticleSearchIndex(8);
+        for (int version = 0; version < 20; version++) {
+            index.addAll(Arrays.asList(
+                    article("Live blog update " + version, "No Info", "News", version, "live"),
+                    article("Score " + version, "No Info", "Sport", version, "score")));
+        }
+
+        assertEquals(2, index.size());
+        assertEquals(Collections.singletonList("live"), urls(index.search("update 19")));
+        assertTrue(index.search("update 18").isEmpty());
+        assertEquals(Collections.singletonList("score"), urls(index.search("score 19")));
+    }
+
+    @Test
+    public void search_findsEveryArticleOfARecordedResponse() throws IOException {
+        InputStream in = getClass().getClassLoader().getResourceAsStream("guardian/search_page_size_200.json");
+        List<Article> articles = ArticleStreamParser.parse(in);
+        ArticleSearchIndex index = new ArticleSearchIndex();
+        index.addAll(articles);
+
+        for (Article article : articles) {
+            List<String> words = ArticleSearchIndex.tokenize(article.getTitle());
+            if (words.isEmpty()) {
+                continue;
+            }
+            List<Article> results = index.search(words.get(0), Integer.MAX_VALUE);
+            assertTrue(article.getTitle(), urls(results).contains(article.getUrl()));
+        }
+    }
+}
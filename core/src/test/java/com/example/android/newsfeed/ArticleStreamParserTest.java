@@ -0,0 +1,99 @@
+package com.example.android.newsfeed;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Golden-file tests for {@link ArticleStreamParser}: every recorded Guardian payload must give
+ * exactly the same articles as the tree parser, {@link ArticleJsonParser}.
+ */
+public class ArticleStreamParserTest {
+
+    @Test
+    public void pageSize20_matchesTreeParser() throws Exception {
+        assertMatchesTreeParser("guardian/search_page_size_20.json", 20);
+    }
+
+    @Test
+    public void pageSize50_matchesTreeParser() throws Exception {
+        assertMatchesTreeParser("guardian/search_page_size_50.json", 50);
+    }
+
+    @Test
+    public void pageSize200_matchesTreeParser() throws Exception {
+        assertMatchesTreeParser("guardian/search_page_size_200.json", 200);
+    }
+
+    @Test
+    public void noResults_givesEmptyList() throws Exception {
+        assertMatchesTreeParser("guardian/search_no_results.json", 0);
+    }
+
+    @Test
+    public void missingTags_givesNoInfoAuthor() throws IOException {
+        String json = "{\"response\":{\"results\":[{\"webTitle\":\"t\",\"sectionName\":\"s\","
+                + "\"webPublicationDate\":\"2018-06-12T14:30:00Z\",\"webUrl\":\"u\"}]}}";
+        List<Article> articles = ArticleStreamParser.parse(
+                new ByteArrayInputStream(json.getBytes(Charset.forName("UTF-8"))));
+
+        assertEquals(1, articles.size());
+        assertEquals(ArticleStreamParser.NO_AUTHOR, articles.get(0).getAuthor());
+    }
+
+    @Test
+    public void fields_giveTheThumbnail() throws Exception {
+        String json = "{\"response\":{\"results\":["
+                + "{\"webTitle\":\"t\",\"sectionName\":\"s\",\"webPublicationDate\":\"2018-06-12T14:30:00Z\","
+                + "\"webUrl\":\"u1\",\"tags\":[],\"fields\":{\"headline\":\"h\",\"thumbnail\":\"https://media/1.jpg\"}},"
+                + "{\"webTitle\":\"t\",\"sectionName\":\"s\",\"webPublicationDate\":\"2018-06-12T14:30:00Z\","
+                + "\"webUrl\":\"u2\",\"tags\":[],\"fields\":{}}]}}";
+        List<Article> articles = ArticleStreamParser.parse(
+                new ByteArrayInputStream(json.getBytes(Charset.forName("UTF-8"))));
+
+        assertEquals("https://media/1.jpg", articles.get(0).getThumbnailUrl());
+        assertNull(articles.get(1).getThumbnailUrl());
+
+        List<Article> tree = ArticleJsonParser.extractFeatureFromJson(json);
+        assertEquals("https://media/1.jpg", tree.get(0).getThumbnailUrl());
+        assertNull(tree.get(1).getThumbnailUrl());
+    }
+
+    @Test(expected = MalformedResponseException.class)
+    public void missingRequiredField_throws() throws IOException {
+        String json = "{\"response\":{\"results\":[{\"webTitle\":\"t\"}]}}";
+        ArticleStreamParser.parse(new ByteArrayInputStream(json.getBytes(Charset.forName("UTF-8"))));
+    }
+
+    private void assertMatchesTreeParser(String resource, int expectedCount) throws Exception {
+        List<Article> expected = ArticleJsonParser.extractFeatureFromJson(ArticleJsonParser.readFromStream(open(resource)));
+        List<Article> actual = ArticleStreamParser.parse(open(resource));
+
+        assertEquals(expectedCount, expected.size());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Article want = expected.get(i);
+            Article got = actual.get(i);
+            assertEquals(want.getTitle(), got.getTitle());
+            assertEquals(want.getAuthor(), got.getAuthor());
+            assertEquals(want.getSection(), got.getSection());
+            assertEquals(want.getTimeInMilliseconds(), got.getTimeInMilliseconds());
+            assertEquals(want.getUrl(), got.getUrl());
+            assertEquals(want.getThumbnailUrl(), got.getThumbnailUrl());
+        }
+    }
+
+    private InputStream open(String resource) {
+        InputStream in = getClass().getClassLoader().getResourceAsStream(resource);
+        assertTrue("missing fixture " + resource, in != null);
+        return in;
+    }
+}
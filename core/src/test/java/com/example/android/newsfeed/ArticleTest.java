@@ -0,0 +1,42 @@
+package com.example.android.newsfeed;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ArticleTest {
+
+    @Test
+    public void parseTime_returnsEpochMillis() {
+        assertEquals(0L, Article.parseTime("1970-01-01T00:00:00Z"));
+        assertEquals(1528813812000L, Article.parseTime("2018-06-12T14:30:12Z"));
+        assertEquals(951782400000L, Article.parseTime("2000-02-29T00:00:00Z"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseTime_rejectsOtherFormats() {
+        Article.parseTime("12 June 2018");
+    }
+
+    @Test
+    public void displayFields_matchTheOldFormatting() {
+        Article article = new Article("Superfly review", "Charles Bramesco", "Film",
+                Article.parseTime("2018-06-12T14:30:12Z"), "https://www.theguardian.com/film");
+
+        assertEquals("Author: Charles Bramesco", article.getAuthorLabel());
+        assertEquals("Section: Film", article.getSectionLabel());
+        assertEquals("2018-06-12", article.getDisplayDate());
+        assertEquals("14:30 UTC", article.getDisplayTime());
+    }
+
+    @Test
+    public void displayFields_handleDayAndYearBoundaries() {
+        Article article = new Article("t", "a", "s", Article.parseTime("1999-12-31T23:59:59Z"), "u");
+        assertEquals("1999-12-31", article.getDisplayDate());
+        assertEquals("23:59 UTC", article.getDisplayTime());
+
+        article = new Article("t", "a", "s", Article.parseTime("2024-03-01T00:00:00Z"), "u");
+        assertEquals("2024-03-01", article.getDisplayDate());
+        assertEquals("00:00 UTC", article.getDisplayTime());
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.android.newsfeed;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CircuitBreakerTest {
+
+    private static final long OPEN_MILLIS = 30000;
+
+    private FakeClock clock;
+    private CircuitBreaker breaker;
+
+    @Before
+    public void setUp() {
+        clock = new FakeClock();
+        clock.now = 1528813800000L;
+        breaker = new CircuitBreaker(clock, 3, OPEN_MILLIS);
+    }
+
+    @Test
+    public void opens_afterTheThresholdOfFailuresInARow() {
+        breaker.onFailure();
+        breaker.onFailure();
+        assertTrue(breaker.allowRequest());
+
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    public void success_resetsTheFailures() {
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void afterTheOpenPeriod_letsOneRequestThrough() {
+        open();
+        clock.now += OPEN_MILLIS;
+
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.allowRequest());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    public void probeSucceeds_closes() {
+        open();
+        clock.now += OPEN_MILLIS;
+        breaker.allowRequest();
+
+        breaker.onSuccess();
+
+        assertTrue(breaker.allowRequest());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void probeFails_opensForAnotherPeriod() {
+        open();
+        clock.now += OPEN_MILLIS;
+        breaker.allowRequest();
+
+        breaker.onFailure();
+
+        assertFalse(breaker.allowRequest());
+        clock.now += OPEN_MILLIS - 1;
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    public void probeCancelled_letsTheNextCallerProbe() {
+        open();
+        clock.now += OPEN_MILLIS;
+        breaker.allowRequest();
+
+        breaker.onCancelled();
+
+        assertTrue(breaker.allowRequest());
+    }
+
+    private void open() {
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure();
+        }
+    }
+
+    private static class FakeClock implements Clock {
+        long now;
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.android.newsfeed;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FeedAggregatorTest {
+
+    private final ExecutorService mExecutor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        mExecutor.shutdownNow();
+    }
+
+    private static Article article(String url, long time) {
+        return new Article("t", "a", "s", time, url);
+    }
+
+    private static List<String> urls(List<Article> articles) {
+        List<String> urls = new ArrayList<>();
+        for (Article article : articles) {
+            urls.add(article.getUrl());
+        }
+        return urls;
+    }
+
+    @Test
+    public void merge_sortsNewestFirstAndDropsDuplicateUrls() {
+        List<Article> feed = Arrays.asList(article("c", 30), article("a", 10));
+        List<Article> incoming = Arrays.asList(article("b", 20), article("d", 40), article("c", 30));
+
+        List<Article> merged = FeedAggregator.merge(feed, incoming);
+
+        assertEquals(Arrays.asList("d", "c", "b", "a"), urls(merged));
+    }
+
+    @Test
+    public void load_deliversTheFastestSourceFirst() throws Exception {
+        final CountDownLatch releaseSlow = new CountDownLatch(1);
+        final Map<String, List<Article>> results = new HashMap<>();
+        results.put("fast", Collections.singletonList(article("f", 10)));
+        results.put("slow", Collections.singletonList(article("s", 20)));
+
+        FeedAggregator aggregator = new FeedAggregator(mExecutor, new FeedAggregator.Fetcher() {
+            @Override
+            public List<Article> fetch(String url, CancellationToken token) {
+                if (url.equals("slow")) {
+                    try {
+                        releaseSlow.await();
+                    } catch (InterruptedException e) {
+                        return null;
+                    }
+                }
+                return results.get(url);
+            }
+        });
+
+        final List<List<Article>> partials = new ArrayList<>();
+        List<Article> feed = aggregator.load(Arrays.asList("slow", "fast"), new FeedAggregator.Listener() {
+            @Override
+            public void onPartialResult(List<Article> articles) {
+                partials.add(articles);
+                // Only let the slow source return once the fast one has been delivered.
+                releaseSlow.countDown();
+            }
+        });
+
+        assertEquals(1, partials.size());
+        assertEquals(Collections.singletonList("f"), urls(partials.get(0)));
+        assertEquals(Arrays.asList("s", "f"), urls(feed));
+    }
+
+    @Test
+    public void load_skipsFailedSources() throws Exception {
+        FeedAggregator aggregator = new FeedAggregator(mExecutor, new FeedAggregator.Fetcher() {
+            @Override
+            public List<Article> fetch(String url, CancellationToken token) {
+                if (url.equals("broken")) {
+                    throw new IllegalStateException("boom");
+                }
+                return url.equals("down") ? null : Collections.singletonList(article(url, 1));
+            }
+        });
+
+        List<Article> feed = aggregator.load(Arrays.asList("broken", "up", "down"), null);
+
+        assertEquals(Collections.singletonList("up"), urls(feed));
+    }
+
+    @Test
+    public void load_returnsNullWhenEverySourceFails() throws Exception {
+        FeedAggregator aggregator = new FeedAggregator(mExecutor, new FeedAggregator.Fetcher() {
+            @Override
+            public List<Article> fetch(String url, CancellationToken token) {
+                return null;
+            }
+        });
+
+        assertNull(aggregator.load(Arrays.asList("a", "b"), null));
+    }
+
+    @Test
+    public void load_cancelled_cancelsTheSourcesStillRunning() throws Exception {
+        final CancellationToken token = new CancellationToken();
+        FeedAggregator aggregator = new FeedAggregator(mExecutor, new FeedAggregator.Fetcher() {
+            @Override
+            public List<Article> fetch(String url, final CancellationToken token) {
+                if (url.equals("slow")) {
+                    // Stands for a request blocked on the network until it is aborted.
+                    final CountDownLatch aborted = new CountDownLatch(1);
+                    token.addOnCancelListener(new Runnable() {
+                        @Override
+                        public void run() {
+                            aborted.countDown();
+                        }
+                    });
+                    try {
+                        aborted.await();
+                    } catch (InterruptedException e) {
+                        return null;
+                    }
+                    return Collections.singletonList(article("late", 30));
+                }
+                return Collections.singletonList(article(url, 1));
+            }
+        });
+
+        List<Article> feed = aggregator.load(Arrays.asList("slow", "fast"), new FeedAggregator.Listener() {
+            @Override
+            public void onPartialResult(List<Article> articles) {
+                token.cancel();
+            }
+        }, token);
+
+        assertEquals(Collections.singletonList("fast"), urls(feed));
+    }
+
+    @Test
+    public void load_runsSourcesInParallel() throws Exception {
+        final CountDownLatch allStarted = new CountDownLatch(3);
+        FeedAggregator aggregator = new FeedAggregator(mExecutor, new FeedAggregator.Fetcher() {
+            @Override
+            public List<Article> fetch(String url, CancellationToken token) {
+                allStarted.countDown();
+                try {
+                    // Every source waits for the others, so this only returns if they run at once.
+                    if (!allStarted.await(5, TimeUnit.SECONDS)) {
+                        return null;
+                    }
+                } catch (InterruptedException e) {
+                    return null;
+                }
+                return Collections.singletonList(article(url, 1));
+            }
+        });
+
+        List<Article> feed = aggregator.load(Arrays.asList("a", "b", "c"), null);
+
+        assertEquals(3, feed.size());
+        assertTrue(urls(feed).containsAll(Arrays.asList("a", "b", "c")));
+    }
+}
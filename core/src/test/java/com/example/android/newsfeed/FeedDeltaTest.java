@@ -0,0 +1,70 @@
+package com.example.android.newsfeed;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FeedDeltaTest {
+
+    private static final String URL = "https://content.guardianapis.com/search?format=json&page-size=20";
+
+    private static Article article(String url, long time) {
+        return new Article("t", "a", "s", time, url);
+    }
+
+    @Test
+    public void supports_onlyQueriesOrderedByDate() {
+        assertTrue(FeedDelta.supports(URL));
+        assertTrue(FeedDelta.supports(URL + "&order-by=newest"));
+        assertFalse(FeedDelta.supports(URL + "&show-most-viewed=true&order-by=relevance"));
+        assertFalse(FeedDelta.supports(URL + "&order-by=relevance"));
+        assertFalse(FeedDelta.supports(null));
+    }
+
+    @Test
+    public void newerThan_addsTheDateAndTheOrder() {
+        long time = Article.parseTime("2018-06-12T14:30:12Z");
+
+        assertEquals(URL + "&order-by=newest&from-date=2018-06-12T14:30:12Z", FeedDelta.newerThan(URL, time));
+        assertEquals(URL + "&order-by=newest&from-date=2018-06-12T14:30:12Z",
+                FeedDelta.newerThan(URL + "&order-by=newest", time));
+        // A delta query is not refreshed incrementally again.
+        assertFalse(FeedDelta.supports(FeedDelta.newerThan(URL, time)));
+    }
+
+    @Test
+    public void newestTime_isTheLatestPublication() {
+        assertEquals(30, FeedDelta.newestTime(Arrays.asList(article("a", 10), article("b", 30), article("c", 20))));
+        assertEquals(-1, FeedDelta.newestTime(Collections.<Article>emptyList()));
+    }
+
+    @Test
+    public void newArticles_dropsTheArticlesAlreadyHeld() {
+        List<Article> feed = Arrays.asList(article("b", 20), article("a", 10));
+        List<Article> delta = Arrays.asList(article("c", 30), article("d", 40), article("b", 20));
+
+        List<Article> newArticles = FeedDelta.newArticles(feed, delta);
+
+        assertEquals(2, newArticles.size());
+        assertEquals("d", newArticles.get(0).getUrl());
+        assertEquals("c", newArticles.get(1).getUrl());
+    }
+
+    @Test
+    public void prepend_keepsTheHeldArticles() {
+        List<Article> feed = Arrays.asList(article("b", 20), article("a", 10));
+        List<Article> merged = FeedDelta.prepend(Collections.singletonList(article("c", 30)), feed);
+
+        assertEquals(3, merged.size());
+        assertEquals("c", merged.get(0).getUrl());
+        assertSame(feed.get(0), merged.get(1));
+        assertSame(feed.get(1), merged.get(2));
+    }
+}
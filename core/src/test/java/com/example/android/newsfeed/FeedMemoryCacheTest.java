@@ -0,0 +1,69 @@
+package com.example.android.newsfeed;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class FeedMemoryCacheTest {
+
+    private static List<Article> articles(int count) {
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            articles.add(new Article("t" + i, "a", "s", i, "u" + i));
+        }
+        return articles;
+    }
+
+    @Test
+    public void put_thenGet_returnsTheSameList() {
+        FeedMemoryCache cache = new FeedMemoryCache(100);
+        List<Article> politics = articles(20);
+
+        cache.put("politics", politics);
+
+        assertSame(politics, cache.get("politics"));
+        assertNull(cache.get("sport"));
+    }
+
+    @Test
+    public void put_replacesThePreviousArticlesOfTheFeed() {
+        FeedMemoryCache cache = new FeedMemoryCache(100);
+        cache.put("politics", articles(20));
+        cache.put("politics", articles(30));
+
+        assertEquals(30, cache.size());
+    }
+
+    @Test
+    public void put_pastTheCap_dropsTheLeastRecentlyUsedFeeds() {
+        FeedMemoryCache cache = new FeedMemoryCache(50);
+        cache.put("politics", articles(20));
+        cache.put("sport", articles(20));
+        // Showing politics again makes sport the least recently used feed.
+        cache.get("politics");
+
+        cache.put("culture", articles(20));
+
+        assertNotNull(cache.get("politics"));
+        assertNull(cache.get("sport"));
+        assertNotNull(cache.get("culture"));
+        assertEquals(40, cache.size());
+    }
+
+    @Test
+    public void put_feedLargerThanTheCap_isNotKept() {
+        FeedMemoryCache cache = new FeedMemoryCache(50);
+        cache.put("politics", articles(20));
+
+        cache.put("world", articles(60));
+
+        assertNull(cache.get("world"));
+        assertNotNull(cache.get("politics"));
+    }
+}
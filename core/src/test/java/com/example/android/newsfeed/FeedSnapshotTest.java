@@ -0,0 +1,105 @@
+package com.example.android.newsfeed;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FeedSnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writeThenRead_roundTripsArticles() throws IOException {
+        File file = new File(folder.getRoot(), "feed.snapshot");
+        StringBuilder longTitle = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            longTitle.append("Caf\u00e9 \u2013 \u2018bold\u2019 ");
+        }
+        List<Article> articles = Arrays.asList(
+                new Article("Superfly review", "Charles Bramesco", "Film", 1528813800000L, "https://a",
+                        "https://media/a.jpg"),
+                new Article(longTitle.toString(), ArticleStreamParser.NO_AUTHOR, "World news", 0L, "https://b"),
+                new Article("", "\u65b0\u95fb", "Business", -1L, "https://c", ""));
+
+        FeedSnapshot.write(file, articles);
+        List<Article> read = FeedSnapshot.read(file);
+
+        assertArticlesEqual(articles, read);
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void writeThenRead_roundTripsARecordedResponse() throws IOException {
+        InputStream in = getClass().getClassLoader().getResourceAsStream("guardian/search_page_size_200.json");
+        List<Article> articles = ArticleStreamParser.parse(in);
+        File file = new File(folder.getRoot(), "feed.snapshot");
+
+        FeedSnapshot.write(file, articles);
+
+        assertArticlesEqual(articles, FeedSnapshot.read(file));
+    }
+
+    @Test
+    public void write_replacesThePreviousSnapshot() throws IOException {
+        File file = new File(folder.getRoot(), "feed.snapshot");
+        FeedSnapshot.write(file, Collections.singletonList(new Article("old", "a", "s", 1, "u")));
+        FeedSnapshot.write(file, new ArrayList<Article>());
+
+        assertTrue(FeedSnapshot.read(file).isEmpty());
+    }
+
+    @Test
+    public void read_missingFile_returnsNull() throws IOException {
+        assertNull(FeedSnapshot.read(new File(folder.getRoot(), "missing")));
+    }
+
+    @Test(expected = IOException.class)
+    public void read_truncatedFile_throws() throws IOException {
+        File file = new File(folder.getRoot(), "feed.snapshot");
+        FeedSnapshot.write(file, Collections.singletonList(new Article("title", "a", "s", 1, "u")));
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.setLength(raf.length() - 3);
+        raf.close();
+
+        FeedSnapshot.read(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void read_otherFile_throws() throws IOException {
+        File file = folder.newFile("not.snapshot");
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.writeBytes("{\"response\":{}}");
+        raf.close();
+
+        FeedSnapshot.read(file);
+    }
+
+    private static void assertArticlesEqual(List<Article> expected, List<Article> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Article want = expected.get(i);
+            Article got = actual.get(i);
+            assertEquals(want.getTitle(), got.getTitle());
+            assertEquals(want.getAuthor(), got.getAuthor());
+            assertEquals(want.getSection(), got.getSection());
+            assertEquals(want.getTimeInMilliseconds(), got.getTimeInMilliseconds());
+            assertEquals(want.getUrl(), got.getUrl());
+            assertEquals(want.getThumbnailUrl(), got.getThumbnailUrl());
+        }
+    }
+}
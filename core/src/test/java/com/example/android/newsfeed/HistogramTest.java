@@ -0,0 +1,73 @@
+package com.example.android.newsfeed;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HistogramTest {
+
+    @Test
+    public void bucketBounds_coverEveryValue() {
+        for (long value = 0; value < 100000; value++) {
+            int bucket = Histogram.bucketFor(value);
+            assertTrue(value <= Histogram.upperBound(bucket));
+            assertTrue(bucket == 0 || value > Histogram.upperBound(bucket - 1));
+        }
+        int last = Histogram.bucketFor(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, Histogram.upperBound(last));
+    }
+
+    @Test
+    public void emptyHistogram_returnsZeros() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(50));
+        assertEquals(0, histogram.getMean());
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    public void smallValues_areExact() {
+        Histogram histogram = new Histogram();
+        for (int value = 1; value <= 4; value++) {
+            histogram.record(value);
+        }
+        assertEquals(2, histogram.getPercentile(50));
+        assertEquals(4, histogram.getPercentile(99));
+        assertEquals(4, histogram.getMax());
+        assertEquals(2, histogram.getMean());
+    }
+
+    @Test
+    public void percentiles_areWithinTheBucketPrecision() {
+        Histogram histogram = new Histogram();
+        Random random = new Random(7);
+        long[] values = new long[10000];
+        for (int i = 0; i < values.length; i++) {
+            // Latencies are skewed, a few requests are much slower than the rest.
+            values[i] = (long) (1000 * Math.exp(random.nextGaussian()));
+            histogram.record(values[i]);
+        }
+        java.util.Arrays.sort(values);
+
+        for (double percent : new double[]{50, 95, 99}) {
+            long exact = values[(int) Math.ceil(percent / 100 * values.length) - 1];
+            long estimate = histogram.getPercentile(percent);
+            assertTrue(percent + ": " + estimate + " vs " + exact,
+                    estimate >= exact && estimate <= exact + exact / Histogram.SUB_BUCKETS);
+        }
+        assertEquals(values[values.length - 1], histogram.getPercentile(100));
+    }
+
+    @Test
+    public void reset_forgetsEverything() {
+        Histogram histogram = new Histogram();
+        histogram.record(42);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(99));
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.android.newsfeed;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class InterestProfileTest {
+
+    private static final long NOW = 1528813800000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void click_addsToTheSectionAndTheAuthor() {
+        InterestProfile profile = new InterestProfile();
+        profile.recordClick(new Article("t", "Jane Doe", "Sport", NOW, "u1"), NOW);
+        profile.recordClick(new Article("t", "John Doe", "Sport", NOW, "u2"), NOW);
+
+        assertEquals(2, profile.getSectionAffinity("Sport", NOW), 1e-9);
+        assertEquals(1, profile.getAuthorAffinity("Jane Doe", NOW), 1e-9);
+        assertEquals(0, profile.getSectionAffinity("Politics", NOW), 1e-9);
+        assertTrue(profile.isRead("u1"));
+        assertFalse(profile.isRead("u3"));
+    }
+
+    @Test
+    public void interest_halvesEveryHalfLife() {
+        InterestProfile profile = new InterestProfile();
+        profile.recordClick(new Article("t", "a", "Sport", NOW, "u1"), NOW);
+
+        assertEquals(0.5, profile.getSectionAffinity("Sport", NOW + InterestProfile.HALF_LIFE_MILLIS), 1e-9);
+        // A click later adds to the faded weight.
+        profile.recordClick(new Article("t", "a", "Sport", NOW, "u2"), NOW + InterestProfile.HALF_LIFE_MILLIS);
+        assertEquals(1.5, profile.getSectionAffinity("Sport", NOW + InterestProfile.HALF_LIFE_MILLIS), 1e-9);
+    }
+
+    @Test
+    public void missingAuthor_isNotAnInterest() {
+        InterestProfile profile = new InterestProfile();
+        profile.recordClick(new Article("t", ArticleStreamParser.NO_AUTHOR, "Sport", NOW, "u1"), NOW);
+
+        assertEquals(0, profile.getAuthorAffinity(ArticleStreamParser.NO_AUTHOR, NOW), 1e-9);
+    }
+
+    @Test
+    public void changedVersion_onlyForTheArticlesAClickAffects() {
+        InterestProfile profile = new InterestProfile();
+        profile.recordClick(new Article("t", "Jane Doe", "Sport", NOW, "u1"), NOW);
+        long version = profile.getVersion();
+
+        assertEquals(version, profile.getChangedVersion(new Article("t", "x", "Sport", NOW, "u2")));
+        assertEquals(version, profile.getChangedVersion(new Article("t", "Jane Doe", "Politics", NOW, "u3")));
+        assertEquals(0, profile.getChangedVersion(new Article("t", "x", "Politics", NOW, "u4")));
+    }
+
+    @Test
+    public void writeThenRead_keepsTheInterests() throws IOException {
+        InterestProfile profile = new InterestProfile();
+        profile.recordClick(new Article("t", "Jane Doe", "Sport", NOW, "u1"), NOW);
+        File file = new File(folder.getRoot(), "interests");
+
+        profile.write(file);
+        InterestProfile read = InterestProfile.read(file);
+
+        assertEquals(1, read.getSectionAffinity("Sport", NOW), 1e-9);
+        assertEquals(1, read.getAuthorAffinity("Jane Doe", NOW), 1e-9);
+        assertTrue(read.isRead("u1"));
+    }
+
+    @Test
+    public void read_missingFile_isAnEmptyProfile() throws IOException {
+        InterestProfile profile = InterestProfile.read(new File(folder.getRoot(), "missing"));
+
+        assertEquals(0, profile.getVersion());
+        assertFalse(profile.isRead("u1"));
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.android.newsfeed;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class JankStatsTest {
+
+    private static final long VSYNC = JankStats.DEFAULT_FRAME_INTERVAL_NANOS;
+
+    @Test
+    public void firstFrame_onlySetsTheTimeStamp() {
+        JankStats stats = new JankStats(VSYNC);
+        stats.start();
+        assertEquals(0, stats.onFrame(1000));
+        assertEquals(0, stats.getFrameCount());
+        assertEquals(VSYNC, stats.onFrame(1000 + VSYNC));
+        assertEquals(1, stats.getFrameCount());
+    }
+
+    @Test
+    public void framesOnEveryVsync_areNotJanky() {
+        JankStats stats = new JankStats(VSYNC);
+        long time = 1000;
+        stats.onFrame(time);
+        for (int i = 0; i < 100; i++) {
+            // A frame a little late or early still lands on its vsync.
+            time += VSYNC + (i % 2 == 0 ? VSYNC / 4 : -VSYNC / 4);
+            stats.onFrame(time);
+        }
+        assertEquals(100, stats.getFrameCount());
+        assertEquals(0, stats.getJankyFrameCount());
+        assertEquals(0, stats.getDroppedFrameCount());
+        assertEquals(0, stats.getJankRate(), 0);
+    }
+
+    @Test
+    public void lateFrames_countTheVsyncsMissed() {
+        JankStats stats = new JankStats(VSYNC);
+        long time = 1000;
+        stats.onFrame(time);
+        for (int i = 0; i < 8; i++) {
+            time += VSYNC;
+            stats.onFrame(time);
+        }
+        time += 2 * VSYNC;
+        stats.onFrame(time);
+        time += 4 * VSYNC;
+        stats.onFrame(time);
+
+        assertEquals(10, stats.getFrameCount());
+        assertEquals(2, stats.getJankyFrameCount());
+        assertEquals(1 + 3, stats.getDroppedFrameCount());
+        assertEquals(0.2, stats.getJankRate(), 1e-9);
+        assertEquals(4 * VSYNC / 1e6, stats.getFrameMillis(100), 4 * VSYNC / 1e6 * 0.1);
+    }
+
+    @Test
+    public void stop_doesNotCountThePauseAsAFrame() {
+        JankStats stats = new JankStats(VSYNC);
+        stats.onFrame(1000);
+        stats.onFrame(1000 + VSYNC);
+        stats.stop();
+        stats.start();
+        assertEquals(0, stats.onFrame(1000 + 1000 * VSYNC));
+        stats.onFrame(1000 + 1001 * VSYNC);
+
+        assertEquals(2, stats.getFrameCount());
+        assertEquals(0, stats.getJankyFrameCount());
+    }
+
+    @Test
+    public void reset_forgetsEveryFrame() {
+        JankStats stats = new JankStats(VSYNC);
+        stats.onFrame(1000);
+        stats.onFrame(1000 + 3 * VSYNC);
+        stats.reset();
+
+        assertEquals(0, stats.getFrameCount());
+        assertEquals(0, stats.getJankyFrameCount());
+        assertEquals(0, stats.getDroppedFrameCount());
+        assertEquals(0, stats.getFrameMillis(99), 0);
+    }
+}
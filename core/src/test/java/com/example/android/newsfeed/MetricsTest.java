@@ -0,0 +1,35 @@
+package com.example.android.newsfeed;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class MetricsTest {
+
+    @Test
+    public void histogram_isCreatedOnce() {
+        Metrics metrics = Metrics.getInstance();
+        assertSame(metrics.histogram("test_same_us"), metrics.histogram("test_same_us"));
+    }
+
+    @Test
+    public void toJson_exportsEveryHistogram() {
+        Metrics metrics = Metrics.getInstance();
+        Histogram histogram = metrics.histogram("test_export_bytes");
+        histogram.reset();
+        histogram.record(100);
+        histogram.record(300);
+
+        JsonObject json = new JsonParser().parse(metrics.toJson()).getAsJsonObject();
+        JsonObject exported = json.getAsJsonObject("test_export_bytes");
+
+        assertEquals(2, exported.get("count").getAsLong());
+        assertEquals(200, exported.get("mean").getAsLong());
+        assertEquals(histogram.getPercentile(50), exported.get("p50").getAsLong());
+        assertEquals(300, exported.get("max").getAsLong());
+    }
+}
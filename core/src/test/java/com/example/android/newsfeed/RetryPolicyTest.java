@@ -0,0 +1,89 @@
+package com.example.android.newsfeed;
+
+import com.google.gson.stream.MalformedJsonException;
+
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RetryPolicyTest {
+
+    private final RetryPolicy policy = new RetryPolicy(4, 100, 300, 10000, new Random(42));
+
+    @Test
+    public void classify_failures() {
+        assertEquals(RetryPolicy.Failure.TRANSIENT, RetryPolicy.classify(new SocketTimeoutException()));
+        assertEquals(RetryPolicy.Failure.TRANSIENT, RetryPolicy.classify(new ConnectException()));
+        assertEquals(RetryPolicy.Failure.TRANSIENT, RetryPolicy.classify(new EOFException()));
+        assertEquals(RetryPolicy.Failure.TRANSIENT, RetryPolicy.classify(new HttpStatusException(503, -1)));
+        assertEquals(RetryPolicy.Failure.RATE_LIMITED, RetryPolicy.classify(new HttpStatusException(429, -1)));
+        assertEquals(RetryPolicy.Failure.PERMANENT, RetryPolicy.classify(new HttpStatusException(404, -1)));
+        assertEquals(RetryPolicy.Failure.PERMANENT, RetryPolicy.classify(new MalformedJsonException("<html>")));
+        assertEquals(RetryPolicy.Failure.PERMANENT,
+                RetryPolicy.classify(new MalformedResponseException("Article is missing a required field")));
+        assertEquals(RetryPolicy.Failure.CANCELLED, RetryPolicy.classify(new InterruptedIOException()));
+    }
+
+    @Test
+    public void delay_growsWithTheAttemptsUpToTheMaximum() {
+        IOException failure = new SocketTimeoutException();
+        for (int i = 0; i < 100; i++) {
+            long first = policy.delayBeforeRetry(1, failure, 0);
+            long second = policy.delayBeforeRetry(2, failure, 0);
+            long third = policy.delayBeforeRetry(3, failure, 0);
+            assertTrue(first >= 0 && first < 100);
+            assertTrue(second >= 0 && second < 200);
+            assertTrue(third >= 0 && third < 300);
+        }
+    }
+
+    @Test
+    public void delay_isJittered() {
+        IOException failure = new SocketTimeoutException();
+        long first = policy.delayBeforeRetry(3, failure, 0);
+        for (int i = 0; i < 100; i++) {
+            if (policy.delayBeforeRetry(3, failure, 0) != first) {
+                return;
+            }
+        }
+        throw new AssertionError("Every retry waits " + first + " ms");
+    }
+
+    @Test
+    public void noRetry_afterTheLastAttempt() {
+        assertEquals(-1, policy.delayBeforeRetry(4, new SocketTimeoutException(), 0));
+    }
+
+    @Test
+    public void noRetry_forPermanentAndCancelledFailures() {
+        assertEquals(-1, policy.delayBeforeRetry(1, new HttpStatusException(403, -1), 0));
+        assertEquals(-1, policy.delayBeforeRetry(1, new InterruptedIOException(), 0));
+    }
+
+    @Test
+    public void noRetry_oncePastTheTimeBudget() {
+        assertEquals(-1, policy.delayBeforeRetry(1, new SocketTimeoutException(), 10000));
+    }
+
+    @Test
+    public void rateLimited_waitsAtLeastRetryAfter() {
+        assertEquals(250, policy.delayBeforeRetry(1, new HttpStatusException(429, 250), 0));
+        // Longer than the policy ever waits, give up and let the caller fall back.
+        assertEquals(-1, policy.delayBeforeRetry(1, new HttpStatusException(429, 60000), 0));
+    }
+
+    @Test
+    public void parseRetryAfter_seconds() {
+        assertEquals(120000, HttpStatusException.parseRetryAfter("120"));
+        assertEquals(-1, HttpStatusException.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT"));
+        assertEquals(-1, HttpStatusException.parseRetryAfter(null));
+    }
+}
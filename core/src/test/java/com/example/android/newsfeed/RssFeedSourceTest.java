@@ -0,0 +1,210 @@
+package com.example.android.newsfeed;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests {@link RssFeedSource} against local RSS 2.0, RSS 1.0 and Atom fixture feeds.
+ */
+public class RssFeedSourceTest {
+
+    /**
+     * Size of the generated feed, about what a busy publisher's full-content feed weighs
+     */
+    private static final int LARGE_FEED_BYTES = 10 * 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final RssFeedSource source = new RssFeedSource();
+
+    @Test
+    public void rss2_readsItems() throws IOException {
+        List<Article> articles = source.parse(open("feeds/rss2.xml"));
+
+        // The items without a date or a title are left out.
+        assertEquals(3, articles.size());
+
+        Article heatwave = articles.get(0);
+        assertEquals("Heatwave breaks June records across the north", heatwave.getTitle());
+        assertEquals("https://www.example.com/weather/2018/jun/12/heatwave", heatwave.getUrl());
+        assertEquals("Jo Bloggs", heatwave.getAuthor());
+        assertEquals("Example Times", heatwave.getSection());
+        assertEquals(Article.parseTime("2018-06-12T14:30:00Z"), heatwave.getTimeInMilliseconds());
+        assertEquals("https://i.example.com/heatwave.jpg", heatwave.getThumbnailUrl());
+
+        Article markets = articles.get(1);
+        assertEquals("Markets & the \"summer slump\"", markets.getTitle());
+        assertEquals("Sam Smith", markets.getAuthor());
+        assertEquals(Article.parseTime("2018-06-12T14:15:00Z"), markets.getTimeInMilliseconds());
+        assertEquals("https://i.example.com/markets.png", markets.getThumbnailUrl());
+
+        Article guid = articles.get(2);
+        assertEquals("https://www.example.com/world/2018/jun/11/guid", guid.getUrl());
+        assertEquals(ArticleStreamParser.NO_AUTHOR, guid.getAuthor());
+        assertEquals(Article.parseTime("2018-06-11T22:05:00Z"), guid.getTimeInMilliseconds());
+        assertEquals("https://i.example.com/guid.jpg", guid.getThumbnailUrl());
+    }
+
+    @Test
+    public void atom_readsEntries() throws IOException {
+        List<Article> articles = source.parse(open("feeds/atom.xml"));
+
+        assertEquals(2, articles.size());
+
+        Article notes = articles.get(0);
+        assertEquals("Release notes for June", notes.getTitle());
+        assertEquals("https://blog.example.org/2018/06/release-notes", notes.getUrl());
+        assertEquals("Ana Lima", notes.getAuthor());
+        assertEquals("Example Blog", notes.getSection());
+        // The publication time wins over the last update, in UTC.
+        assertEquals(Article.parseTime("2018-06-12T14:30:00Z"), notes.getTimeInMilliseconds());
+        assertEquals("https://blog.example.org/img/june.jpg", notes.getThumbnailUrl());
+
+        Article bold = articles.get(1);
+        assertEquals("Fixing <b>bold</b> titles", bold.getTitle());
+        assertEquals("https://blog.example.org/2018/06/bold", bold.getUrl());
+        assertEquals(ArticleStreamParser.NO_AUTHOR, bold.getAuthor());
+        assertEquals(Article.parseTime("2018-06-10T08:00:00Z"), bold.getTimeInMilliseconds());
+        assertNull(bold.getThumbnailUrl());
+    }
+
+    @Test
+    public void rss1_readsItemsNextToTheChannel() throws IOException {
+        List<Article> articles = source.parse(open("feeds/rss1.xml"));
+
+        assertEquals(1, articles.size());
+        Article cafe = articles.get(0);
+        // Decoded as declared, ISO-8859-1.
+        assertEquals("Café opens in München", cafe.getTitle());
+        assertEquals("Zoë Brandt", cafe.getAuthor());
+        assertEquals("Old Example Net", cafe.getSection());
+        assertEquals(Article.parseTime("2018-06-09T14:00:00Z"), cafe.getTimeInMilliseconds());
+    }
+
+    @Test
+    public void parseTime_readsRssAndAtomDates() {
+        long expected = Article.parseTime("2018-06-12T14:30:00Z");
+        assertEquals(expected, RssFeedSource.parseTime("Tue, 12 Jun 2018 14:30:00 GMT"));
+        assertEquals(expected, RssFeedSource.parseTime("Tue, 12 Jun 2018 14:30:00 +0000"));
+        assertEquals(expected, RssFeedSource.parseTime("12 June 2018 09:30:00 -0500"));
+        assertEquals(expected, RssFeedSource.parseTime("Tue, 12 Jun 18 10:30 EDT"));
+        assertEquals(expected, RssFeedSource.parseTime("2018-06-12T14:30:00Z"));
+        assertEquals(expected, RssFeedSource.parseTime("2018-06-12T16:30:00.123+02:00"));
+        assertEquals(expected, RssFeedSource.parseTime("2018-06-12T14:30:00"));
+        try {
+            RssFeedSource.parseTime("yesterday");
+            fail();
+        } catch (IllegalArgumentException expectedFailure) {
+            // expected
+        }
+    }
+
+    @Test
+    public void notAFeed_throwsMalformedResponse() throws IOException {
+        assertMalformed("<html><body>Moved</body></html>");
+        assertMalformed("<rss><channel><item><title>Cut off");
+        assertMalformed("{\"response\":{}}");
+    }
+
+    @Test
+    public void handles_anyHttpUrl() {
+        assertTrue(source.handles("https://www.example.com/rss"));
+        assertTrue(source.handles("http://feeds.example.net/atom.xml"));
+        assertFalse(source.handles("politics"));
+        assertFalse(source.supportsQueries());
+    }
+
+    @Test
+    public void largeFeed_isStreamed() throws IOException {
+        File feed = folder.newFile("large.xml");
+        int written = writeLargeFeed(feed);
+
+        final int[] count = new int[1];
+        final Article[] last = new Article[1];
+        InputStream in = new BufferedInputStream(new FileInputStream(feed));
+        int read = source.parse(in, new ArticleStreamParser.Listener() {
+            @Override
+            public void onArticle(Article article) {
+                // Nothing is kept, the articles go by one at a time.
+                count[0]++;
+                last[0] = article;
+            }
+        });
+
+        assertTrue(feed.length() >= LARGE_FEED_BYTES);
+        assertEquals(written, read);
+        assertEquals(written, count[0]);
+        assertEquals("https://www.example.com/story/" + (written - 1), last[0].getUrl());
+    }
+
+    /**
+     * Write an RSS feed of at least {@link #LARGE_FEED_BYTES} whose items carry their full
+     * content, and return the number of items.
+     */
+    private static int writeLargeFeed(File file) throws IOException {
+        StringBuilder content = new StringBuilder();
+        while (content.length() < 4000) {
+            content.append("<p>A paragraph of the full content of the story, which the list never shows.</p>");
+        }
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file),
+                Charset.forName("UTF-8")));
+        int items = 0;
+        long bytes = 0;
+        try {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<rss version=\"2.0\" "
+                    + "xmlns:content=\"http://purl.org/rss/1.0/modules/content/\">\n<channel>\n"
+                    + "<title>Example Times</title>\n");
+            while (bytes < LARGE_FEED_BYTES) {
+                String item = "<item><title>Story number " + items + " of the day</title>"
+                        + "<link>https://www.example.com/story/" + items + "</link>"
+                        + "<pubDate>Tue, 12 Jun 2018 14:30:00 GMT</pubDate>"
+                        + "<description>The summary of story " + items + "</description>"
+                        + "<content:encoded><![CDATA[" + content + "]]></content:encoded></item>\n";
+                writer.write(item);
+                bytes += item.length();
+                items++;
+            }
+            writer.write("</channel>\n</rss>\n");
+        } finally {
+            writer.close();
+        }
+        return items;
+    }
+
+    private void assertMalformed(String document) throws IOException {
+        try {
+            source.parse(new ByteArrayInputStream(document.getBytes(Charset.forName("UTF-8"))));
+            fail("parsed " + document);
+        } catch (MalformedResponseException expected) {
+            // expected
+        }
+    }
+
+    private InputStream open(String resource) {
+        InputStream in = getClass().getClassLoader().getResourceAsStream(resource);
+        assertTrue("missing fixture " + resource, in != null);
+        return in;
+    }
+}
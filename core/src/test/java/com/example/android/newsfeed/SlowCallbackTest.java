@@ -0,0 +1,65 @@
+package com.example.android.newsfeed;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SlowCallbackTest {
+
+    private static final String PACKAGE = "com.example.android.newsfeed.";
+
+    private static final StackTraceElement LOOPER = frame("android.os.Looper", "loop");
+    private static final StackTraceElement HANDLER = frame("android.os.Handler", "dispatchMessage");
+    private static final StackTraceElement ON_CLICK = frame(PACKAGE + "FeedFragment", "onClick");
+    private static final StackTraceElement BIND = frame(PACKAGE + "ArticleAdapter", "onBindViewHolder");
+    private static final StackTraceElement FORMAT = frame("java.text.SimpleDateFormat", "format");
+
+    @Test
+    public void innermostFrame_skipsTheFrameworkFrames() {
+        StackTraceElement[] stack = {FORMAT, BIND, ON_CLICK, HANDLER, LOOPER};
+        assertEquals(BIND, SlowCallback.innermostFrame(stack, PACKAGE));
+        assertNull(SlowCallback.innermostFrame(new StackTraceElement[]{FORMAT, HANDLER, LOOPER}, PACKAGE));
+    }
+
+    @Test
+    public void blame_picksTheFrameInMostSamples() {
+        List<StackTraceElement[]> samples = Arrays.asList(
+                new StackTraceElement[]{ON_CLICK, HANDLER, LOOPER},
+                new StackTraceElement[]{FORMAT, BIND, ON_CLICK, HANDLER, LOOPER},
+                new StackTraceElement[]{BIND, ON_CLICK, HANDLER, LOOPER},
+                new StackTraceElement[]{FORMAT, HANDLER, LOOPER});
+
+        SlowCallback slowCallback = SlowCallback.blame("message", 40, samples, PACKAGE);
+        assertEquals(BIND, slowCallback.getCulprit());
+        assertEquals(40, slowCallback.getDurationMillis());
+        assertEquals("message", slowCallback.getMessage());
+        assertEquals(BIND, slowCallback.getStack()[0]);
+    }
+
+    @Test
+    public void blame_earliestSampleWinsATie() {
+        List<StackTraceElement[]> samples = Arrays.asList(
+                new StackTraceElement[]{ON_CLICK, HANDLER, LOOPER},
+                new StackTraceElement[]{BIND, ON_CLICK, HANDLER, LOOPER});
+
+        assertEquals(ON_CLICK, SlowCallback.blame("message", 20, samples, PACKAGE).getCulprit());
+    }
+
+    @Test
+    public void blame_returnsNullOutsideTheAppsCode() {
+        List<StackTraceElement[]> samples = Collections.singletonList(
+                new StackTraceElement[]{FORMAT, HANDLER, LOOPER});
+
+        assertNull(SlowCallback.blame("message", 30, samples, PACKAGE));
+        assertNull(SlowCallback.blame("message", 30, Collections.<StackTraceElement[]>emptyList(), PACKAGE));
+    }
+
+    private static StackTraceElement frame(String className, String method) {
+        return new StackTraceElement(className, method, null, -1);
+    }
+}
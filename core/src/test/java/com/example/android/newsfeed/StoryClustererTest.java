@@ -0,0 +1,107 @@
+package com.example.android.newsfeed;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class StoryClustererTest {
+
+    private static final long NOW = 1528813800000L;
+
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    private static Article article(String title, String url, long time) {
+        return new Article(title, "a", "s", time, url);
+    }
+
+    /**
+     * Returns the given number of articles with titles of six words drawn from a large
+     * vocabulary, so that they hardly ever share a word.
+     */
+    static List<Article> distinctArticles(int count, long seed) {
+        Random random = new Random(seed);
+        List<Article> articles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder title = new StringBuilder();
+            for (int w = 0; w < 6; w++) {
+                title.append("word").append(random.nextInt(50000)).append(' ');
+            }
+            articles.add(article(title.toString(), "u" + i, NOW - random.nextInt(48) * HOUR));
+        }
+        return articles;
+    }
+
+    @Test
+    public void rewordedTitles_makeOneStory() {
+        Article lead = article("Storms hit retail sales across northern England", "u1", NOW);
+        Article other = article("Chelsea sign striker on five year contract", "u2", NOW);
+        Article reworded = article("Storms hit retail sales in northern England and Wales", "u3", NOW - HOUR);
+
+        List<StoryClusterer.Story> stories = StoryClusterer.cluster(Arrays.asList(lead, other, reworded));
+
+        assertEquals(2, stories.size());
+        assertSame(lead, stories.get(0).getLead());
+        assertEquals(Arrays.asList(lead, reworded), stories.get(0).getArticles());
+        assertEquals(1, stories.get(1).size());
+    }
+
+    @Test
+    public void sameTitleDaysApart_staysApart() {
+        Article thisWeek = article("Premier League talking points from the weekend", "u1", NOW);
+        Article lastWeek = article("Premier League talking points from the weekend", "u2", NOW - 7 * 24 * HOUR);
+
+        assertEquals(2, StoryClusterer.cluster(Arrays.asList(thisWeek, lastWeek)).size());
+    }
+
+    @Test
+    public void shortTitles_areNeverGrouped() {
+        Article a = article("Live", "u1", NOW);
+        Article b = article("Live", "u2", NOW);
+
+        assertEquals(2, StoryClusterer.cluster(Arrays.asList(a, b)).size());
+    }
+
+    @Test
+    public void storiesDoNotChain() {
+        // Each title shares half its words with the next one, but the first and the last
+        // have nothing in common.
+        Article first = article("alpha bravo charlie delta echo foxtrot", "u1", NOW);
+        Article middle = article("delta echo foxtrot golf hotel india", "u2", NOW);
+        Article last = article("golf hotel india juliet kilo lima", "u3", NOW);
+
+        for (StoryClusterer.Story story : StoryClusterer.cluster(Arrays.asList(first, middle, last))) {
+            if (story.size() > 1) {
+                assertEquals(2, story.size());
+            }
+        }
+    }
+
+    @Test
+    public void distinctTitles_stayOneStoryEach() {
+        List<Article> articles = distinctArticles(10000, 42);
+
+        assertEquals(articles.size(), StoryClusterer.cluster(articles).size());
+    }
+
+    @Test
+    public void duplicatesAmongManyTitles_areFound() {
+        List<Article> articles = distinctArticles(10000, 7);
+        List<Article> withCopies = new ArrayList<>(articles);
+        for (int i = 0; i < 100; i++) {
+            // The same title with one more word, from another section.
+            Article source = articles.get(i * 100);
+            withCopies.add(article(source.getTitle() + "analysis", "copy" + i, source.getTimeInMilliseconds()));
+        }
+
+        List<StoryClusterer.Story> stories = StoryClusterer.cluster(withCopies);
+
+        assertEquals(articles.size(), stories.size());
+        assertEquals(2, stories.get(500).size());
+    }
+}
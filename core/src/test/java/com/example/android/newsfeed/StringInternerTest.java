@@ -0,0 +1,159 @@
+package com.example.android.newsfeed;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class StringInternerTest {
+
+    private static final int CACHE_SIZE = 5000;
+
+    @Test
+    public void intern_returnsTheFirstInstanceSeen() {
+        StringInterner interner = new StringInterner(10);
+        String first = new String("World news");
+
+        assertSame(first, interner.intern(first));
+        assertSame(first, interner.intern(new String("World news")));
+        assertNull(interner.intern(null));
+        assertEquals(1, interner.size());
+    }
+
+    @Test
+    public void intern_dropsTheLeastRecentlyUsedStringsPastTheLimit() {
+        StringInterner interner = new StringInterner(2);
+        String a = interner.intern(new String("a"));
+        interner.intern(new String("b"));
+        interner.intern(new String("a"));
+        interner.intern(new String("c"));
+
+        assertEquals(2, interner.size());
+        // "a" was used after "b", so "b" was dropped and "a" is still shared.
+        assertSame(a, interner.intern(new String("a")));
+        String b = new String("b");
+        assertSame(b, interner.intern(b));
+    }
+
+    @Test
+    public void intern_fromManyThreads_agreesOnOneInstance() throws InterruptedException {
+        final StringInterner interner = new StringInterner(10);
+        final int threads = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicReferenceArray<String> results = new AtomicReferenceArray<>(threads);
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            final int index = i;
+            Thread worker = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    results.set(index, interner.intern(new String("Politics")));
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        for (int i = 1; i < threads; i++) {
+            assertSame(results.get(0), results.get(i));
+        }
+    }
+
+    @Test
+    public void articles_shareTheirRepeatedStrings() {
+        Article first = new Article("One", new String("Jane Doe"), new String("Sport"), 0, "u1");
+        Article second = new Article("Two", new String("Jane Doe"), new String("Sport"), 0, "u2");
+
+        assertSame(first.getAuthor(), second.getAuthor());
+        assertSame(first.getSectionLabel(), second.getSectionLabel());
+        assertSame(first.getDisplayDate(), second.getDisplayDate());
+        assertNotSame(first.getTitle(), second.getTitle());
+    }
+
+    /**
+     * Estimates the strings retained by a cache of 5,000 articles, built from 25 loads of the
+     * recorded 200 article response, each with its own copies of every string as a parser
+     * would create them. This is not a heap measurement: the sizes come from
+     * {@link #estimatedSizeOf(String)}, counted once per reference without interning and once
+     * per distinct instance with it.
+     */
+    @Test
+    public void cacheOf5000Articles_estimatedStringBytesDropByAQuarter() throws IOException {
+        InputStream in = getClass().getClassLoader().getResourceAsStream("guardian/search_page_size_200.json");
+        List<Article> recorded = ArticleStreamParser.parse(in);
+
+        List<Article> cache = new ArrayList<>(CACHE_SIZE);
+        for (int load = 0; cache.size() < CACHE_SIZE; load++) {
+            for (Article article : recorded) {
+                if (cache.size() == CACHE_SIZE) {
+                    break;
+                }
+                cache.add(new Article(
+                        article.getTitle() + " #" + load,
+                        new String(article.getAuthor()),
+                        new String(article.getSection()),
+                        article.getTimeInMilliseconds() - load * 60 * 60 * 1000L,
+                        article.getUrl() + "#" + load,
+                        article.getThumbnailUrl() == null ? null : article.getThumbnailUrl() + "#" + load));
+            }
+        }
+
+        // Before, every article held its own copy of each of its strings.
+        long before = 0;
+        Set<String> retained = Collections.newSetFromMap(new IdentityHashMap<String, Boolean>());
+        for (Article article : cache) {
+            for (String value : strings(article)) {
+                before += estimatedSizeOf(value);
+                retained.add(value);
+            }
+        }
+        long after = 0;
+        for (String value : retained) {
+            after += estimatedSizeOf(value);
+        }
+        assertTrue("Retained " + after + " of " + before + " bytes", after < before * 3 / 4);
+    }
+
+    private static List<String> strings(Article article) {
+        List<String> strings = new ArrayList<>();
+        Collections.addAll(strings, article.getTitle(), article.getAuthor(), article.getSection(),
+                article.getUrl(), article.getThumbnailUrl(), article.getAuthorLabel(),
+                article.getSectionLabel(), article.getDisplayDate(), article.getDisplayTime());
+        strings.removeAll(Collections.singleton(null));
+        return strings;
+    }
+
+    /**
+     * Returns the estimated shallow size of a string and its UTF-16 character array on a 32 bit
+     * VM with 8 byte alignment.
+     */
+    private static long estimatedSizeOf(String value) {
+        return 24 + align(16 + 2L * value.length());
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.android.newsfeed;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SyncPolicyTest {
+
+    private static final long INTERVAL = 60 * 60 * 1000L;
+
+    private static final long NOW = 1528813800000L;
+
+    private FakeClock clock;
+    private FakeDeviceState device;
+    private SyncPolicy policy;
+
+    @Before
+    public void setUp() {
+        clock = new FakeClock();
+        clock.now = NOW;
+        device = new FakeDeviceState();
+        device.connected = true;
+        policy = new SyncPolicy(clock, INTERVAL);
+    }
+
+    @Test
+    public void shouldSync_onUnmeteredNetwork() {
+        device.unmetered = true;
+        assertTrue(policy.shouldSync(device, 0));
+    }
+
+    @Test
+    public void shouldSync_whileChargingOnMeteredNetwork() {
+        device.charging = true;
+        assertTrue(policy.shouldSync(device, 0));
+    }
+
+    @Test
+    public void shouldNotSync_onMeteredNetworkOnBattery() {
+        assertFalse(policy.shouldSync(device, 0));
+    }
+
+    @Test
+    public void shouldNotSync_withoutConnection() {
+        device.connected = false;
+        device.unmetered = true;
+        device.charging = true;
+        assertFalse(policy.shouldSync(device, 0));
+    }
+
+    @Test
+    public void shouldSync_onlyOncePerInterval() {
+        device.unmetered = true;
+        assertFalse(policy.shouldSync(device, NOW - INTERVAL / 4));
+        assertTrue(policy.shouldSync(device, NOW - INTERVAL / 2));
+    }
+
+    @Test
+    public void shouldSync_whenTheClockWentBack() {
+        device.unmetered = true;
+        assertTrue(policy.shouldSync(device, NOW + INTERVAL));
+    }
+
+    @Test
+    public void isFresh_untilTheNextSyncIsDue() {
+        assertTrue(policy.isFresh(NOW));
+        assertTrue(policy.isFresh(NOW - INTERVAL + 1));
+        assertFalse(policy.isFresh(NOW - INTERVAL));
+        assertFalse(policy.isFresh(NOW + 1));
+    }
+
+    private static class FakeClock implements Clock {
+        long now;
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+    }
+
+    private static class FakeDeviceState implements SyncPolicy.DeviceState {
+        boolean connected;
+        boolean unmetered;
+        boolean charging;
+
+        @Override
+        public boolean isConnected() {
+            return connected;
+        }
+
+        @Override
+        public boolean isUnmetered() {
+            return unmetered;
+        }
+
+        @Override
+        public boolean isCharging() {
+            return charging;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.android.newsfeed;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TitleFingerprintTest {
+
+    @Test
+    public void sameWords_sameFingerprint() {
+        // Case, punctuation, possessives, short words and word order do not matter.
+        assertArrayEquals(TitleFingerprint.of("Britain's economy shrinks as storms hit retail"),
+                TitleFingerprint.of("Retail hit by storms: the Britain economy shrinks"));
+        assertArrayEquals(TitleFingerprint.of("Storms hit UK retail sales"),
+                TitleFingerprint.of("UK RETAIL SALES: STORMS HIT"));
+    }
+
+    @Test
+    public void shortTitles_haveNoFingerprint() {
+        assertNull(TitleFingerprint.of(null));
+        assertNull(TitleFingerprint.of("Live"));
+        assertNull(TitleFingerprint.of("The Guardian view on the"));
+        assertNull(TitleFingerprint.of("Sport sport SPORT"));
+        assertEquals(0, TitleFingerprint.similarity(null, TitleFingerprint.of("Storms hit UK retail sales")), 0);
+    }
+
+    @Test
+    public void similarity_estimatesTheSharedWords() {
+        short[] a = TitleFingerprint.of("Storms hit retail sales across northern England");
+        short[] reworded = TitleFingerprint.of("Storms hit retail sales in northern England and Wales");
+        short[] unrelated = TitleFingerprint.of("Chelsea sign striker on five year contract");
+
+        assertEquals(1, TitleFingerprint.similarity(a, a), 0);
+        // Six words of eight in common.
+        assertTrue(TitleFingerprint.similarity(a, reworded) >= StoryClusterer.MIN_SIMILARITY);
+        assertTrue(TitleFingerprint.similarity(a, unrelated) < 0.2f);
+    }
+}